@@ -19,6 +19,7 @@ package trigger
 import (
 	"context"
 	"fmt"
+	"strconv"
 	"strings"
 
 	"knative.dev/eventing-kafka-broker/control-plane/pkg/contract"
@@ -45,6 +46,11 @@ const (
 	deliveryOrderAnnotation = "kafka.eventing.knative.dev/delivery.order"
 	deliveryOrderOrdered    = "ordered"
 	deliveryOrderUnordered  = "unordered"
+	deliveryOrderKeyOrdered = "key-ordered"
+
+	deliveryBatchSizeAnnotation = "kafka.eventing.knative.dev/delivery.batch.size"
+
+	deliveryDiscardReplyAnnotation = "kafka.eventing.knative.dev/delivery.reply.discard"
 )
 
 type Reconciler struct {
@@ -300,6 +306,24 @@ func (r *Reconciler) getTriggerConfig(ctx context.Context, trigger *eventing.Tri
 		egress.DeliveryOrder = deliveryOrder
 	}
 
+	deliveryBatchSizeAnnotationValue, ok := trigger.Annotations[deliveryBatchSizeAnnotation]
+	if ok {
+		batchSize, err := strconv.ParseUint(deliveryBatchSizeAnnotationValue, 10, 32)
+		if err != nil {
+			return nil, fmt.Errorf("invalid annotation %s value: %s. Allowed values are positive integers", deliveryBatchSizeAnnotation, deliveryBatchSizeAnnotationValue)
+		}
+		egress.BatchSize = uint32(batchSize)
+	}
+
+	deliveryDiscardReplyAnnotationValue, ok := trigger.Annotations[deliveryDiscardReplyAnnotation]
+	if ok {
+		discardReply, err := strconv.ParseBool(deliveryDiscardReplyAnnotationValue)
+		if err != nil {
+			return nil, fmt.Errorf("invalid annotation %s value: %s. Allowed values are true and false", deliveryDiscardReplyAnnotation, deliveryDiscardReplyAnnotationValue)
+		}
+		egress.DiscardReply = discardReply
+	}
+
 	return egress, nil
 }
 
@@ -325,7 +349,9 @@ func deliveryOrderFromString(val string) (contract.DeliveryOrder, error) {
 		return contract.DeliveryOrder_ORDERED, nil
 	case deliveryOrderUnordered:
 		return contract.DeliveryOrder_UNORDERED, nil
+	case deliveryOrderKeyOrdered:
+		return contract.DeliveryOrder_KEY_ORDERED, nil
 	default:
-		return contract.DeliveryOrder_UNORDERED, fmt.Errorf("invalid annotation %s value: %s. Allowed values [ %q | %q ]", deliveryOrderAnnotation, val, deliveryOrderOrdered, deliveryOrderUnordered)
+		return contract.DeliveryOrder_UNORDERED, fmt.Errorf("invalid annotation %s value: %s. Allowed values [ %q | %q | %q ]", deliveryOrderAnnotation, val, deliveryOrderOrdered, deliveryOrderUnordered, deliveryOrderKeyOrdered)
 	}
 }
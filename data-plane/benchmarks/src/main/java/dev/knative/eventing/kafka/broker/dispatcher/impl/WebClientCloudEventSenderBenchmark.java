@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEventDeserializer;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.core.message.Encoding;
+import io.cloudevents.kafka.CloudEventDeserializer;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.client.WebClient;
+import java.net.URI;
+import java.util.Map;
+import java.util.Random;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare sending events decoded by {@link CloudEventDeserializer} with sending events passed through from the record,
+ * using {@link LazyCloudEventDeserializer}, from deserialization to the response of a local server.
+ */
+public class WebClientCloudEventSenderBenchmark {
+
+  private static final String TOPIC = "topic";
+
+  @State(Scope.Thread)
+  public static class SenderState {
+
+    @Param({"1024", "16384", "262144", "1048576"})
+    public int payloadSize;
+
+    private Vertx vertx;
+    private HttpServer server;
+    private WebClientCloudEventSender sender;
+    private RecordHeaders headers;
+    private byte[] value;
+
+    @Setup(Level.Trial)
+    public void doSetup() throws Exception {
+      this.vertx = Vertx.vertx();
+      this.server = this.vertx.createHttpServer()
+        .requestHandler(request -> request.body().onSuccess(b -> request.response().setStatusCode(202).end()))
+        .listen(0, "localhost")
+        .toCompletionStage()
+        .toCompletableFuture()
+        .get();
+      this.sender = new WebClientCloudEventSender(
+        WebClient.create(this.vertx),
+        CircuitBreaker.create("benchmark", this.vertx, new CircuitBreakerOptions()),
+        "http://localhost:" + this.server.actualPort()
+      );
+
+      final var data = new byte[this.payloadSize];
+      new Random(42).nextBytes(data);
+      final var event = CloudEventBuilder.v1()
+        .withId("123")
+        .withSource(URI.create("/api/source"))
+        .withType("type")
+        .withSubject("subject")
+        .withExtension("ext", "value")
+        .withData("application/octet-stream", data)
+        .build();
+
+      final var serializer = new CloudEventSerializer();
+      serializer.configure(Map.of(CloudEventSerializer.ENCODING_CONFIG, Encoding.BINARY), false);
+      this.headers = new RecordHeaders();
+      this.value = serializer.serialize(TOPIC, this.headers, event);
+    }
+
+    @TearDown(Level.Trial)
+    public void doTearDown() {
+      this.sender.close();
+      this.server.close();
+      this.vertx.close();
+    }
+  }
+
+  @Benchmark
+  public void benchmarkDecodedEvent(final SenderState state, final Blackhole blackhole) throws Exception {
+    final var event = new CloudEventDeserializer().deserialize(TOPIC, state.headers, state.value);
+    blackhole.consume(
+      state.sender.send(event).toCompletionStage().toCompletableFuture().get()
+    );
+  }
+
+  @Benchmark
+  public void benchmarkPassThroughEvent(final SenderState state, final Blackhole blackhole) throws Exception {
+    final var event = new LazyCloudEventDeserializer().deserialize(TOPIC, state.headers, state.value);
+    blackhole.consume(
+      state.sender.send(event).toCompletionStage().toCompletableFuture().get()
+    );
+  }
+}
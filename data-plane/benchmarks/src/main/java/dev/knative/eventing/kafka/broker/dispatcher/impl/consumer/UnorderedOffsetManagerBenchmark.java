@@ -19,6 +19,7 @@ import io.cloudevents.CloudEvent;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.kafka.client.common.PartitionInfo;
 import io.vertx.kafka.client.common.TopicPartition;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
@@ -28,17 +29,21 @@ import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import io.vertx.kafka.client.consumer.OffsetAndTimestamp;
 import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordImpl;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.regex.Pattern;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.Blackhole;
 
 public class UnorderedOffsetManagerBenchmark {
@@ -47,10 +52,12 @@ public class UnorderedOffsetManagerBenchmark {
   public static class RecordsState {
 
     private KafkaConsumerRecord<String, CloudEvent>[][] records;
+    private Vertx vertx;
 
     @Setup(Level.Trial)
     @SuppressWarnings("unchecked")
     public void doSetup() {
+      this.vertx = Vertx.vertx();
       this.records = new KafkaConsumerRecord[100][10_000];
       for (int p = 0; p < 100; p++) {
         for (int o = 0; o < 10_000; o++) {
@@ -67,11 +74,20 @@ public class UnorderedOffsetManagerBenchmark {
       }
     }
 
+    @TearDown(Level.Trial)
+    public void doTearDown() {
+      this.vertx.close();
+    }
+
+    UnorderedOffsetManager offsetManager() {
+      return new UnorderedOffsetManager(this.vertx, new MockKafkaConsumer(), null, 5000L, 500);
+    }
+
   }
 
   @Benchmark
   public void benchmarkReverseOrder(RecordsState recordsState, Blackhole blackhole) {
-    UnorderedOffsetManager offsetManager = new UnorderedOffsetManager(new MockKafkaConsumer(), null);
+    UnorderedOffsetManager offsetManager = recordsState.offsetManager();
 
     int partitions = 100;
     for (int partition = 0; partition < partitions; partition++) {
@@ -96,11 +112,13 @@ public class UnorderedOffsetManagerBenchmark {
         offsetManager.successfullySentToSubscriber(recordsState.records[partition][0])
       );
     }
+
+    blackhole.consume(offsetManager.close());
   }
 
   @Benchmark
   public void benchmarkOrdered(RecordsState recordsState, Blackhole blackhole) {
-    UnorderedOffsetManager offsetManager = new UnorderedOffsetManager(new MockKafkaConsumer(), null);
+    UnorderedOffsetManager offsetManager = recordsState.offsetManager();
     int partitions = 100;
 
     for (int offset = 0; offset < 10_000; offset++) {
@@ -113,11 +131,13 @@ public class UnorderedOffsetManagerBenchmark {
         );
       }
     }
+
+    blackhole.consume(offsetManager.close());
   }
 
   @Benchmark
   public void benchmarkRealisticCase(RecordsState recordsState, Blackhole blackhole) {
-    UnorderedOffsetManager offsetManager = new UnorderedOffsetManager(new MockKafkaConsumer(), null);
+    UnorderedOffsetManager offsetManager = recordsState.offsetManager();
     int partitions = 10;
 
     for (int partition = 0; partition < partitions; partition++) {
@@ -133,11 +153,13 @@ public class UnorderedOffsetManagerBenchmark {
         );
       }
     }
+
+    blackhole.consume(offsetManager.close());
   }
 
   @Benchmark
   public void benchmarkMixedABit(RecordsState recordsState, Blackhole blackhole) {
-    UnorderedOffsetManager offsetManager = new UnorderedOffsetManager(new MockKafkaConsumer(), null);
+    UnorderedOffsetManager offsetManager = recordsState.offsetManager();
     int partitions = 4;
 
     for (int partition = 0; partition < partitions; partition++) {
@@ -162,6 +184,156 @@ public class UnorderedOffsetManagerBenchmark {
         offsetManager.successfullySentToSubscriber(recordsState.records[3][i % 2 == 0 ? i + 1 : i - 1])
       );
     }
+
+    blackhole.consume(offsetManager.close());
+  }
+
+  @State(Scope.Thread)
+  public static class InFlightState {
+
+    @Param({"1000", "10000", "100000"})
+    public int inFlight;
+
+    // Acks order of a window of in-flight records
+    private long[] shuffled;
+
+    @Setup(Level.Trial)
+    public void doSetup() {
+      final var random = new Random(42);
+      this.shuffled = new long[inFlight];
+      for (int i = 0; i < inFlight; i++) {
+        this.shuffled[i] = i;
+      }
+      for (int i = inFlight - 1; i > 0; i--) {
+        final int j = random.nextInt(i + 1);
+        final long tmp = this.shuffled[i];
+        this.shuffled[i] = this.shuffled[j];
+        this.shuffled[j] = tmp;
+      }
+    }
+  }
+
+  @Benchmark
+  public void benchmarkBitmapTrackerReverseOrder(InFlightState state, Blackhole blackhole) {
+    final var tracker = new BitmapOffsetTracker(-1);
+    for (long offset = state.inFlight - 1; offset >= 0; offset--) {
+      tracker.recordNewOffset(offset);
+      if (tracker.shouldCommit()) {
+        final long offsetToCommit = tracker.offsetToCommit();
+        tracker.reset(offsetToCommit);
+        blackhole.consume(offsetToCommit);
+      }
+    }
+  }
+
+  @Benchmark
+  public void benchmarkRingTrackerReverseOrder(InFlightState state, Blackhole blackhole) {
+    final var tracker = new OffsetTracker(0);
+    for (long offset = state.inFlight - 1; offset >= 0; offset--) {
+      tracker.recordNewOffset(offset);
+      blackhole.consume(tracker.advance());
+    }
+  }
+
+  @Benchmark
+  public void benchmarkBitmapTrackerRandomOrder(InFlightState state, Blackhole blackhole) {
+    final var tracker = new BitmapOffsetTracker(-1);
+    for (final long offset : state.shuffled) {
+      tracker.recordNewOffset(offset);
+      if (tracker.shouldCommit()) {
+        final long offsetToCommit = tracker.offsetToCommit();
+        tracker.reset(offsetToCommit);
+        blackhole.consume(offsetToCommit);
+      }
+    }
+  }
+
+  @Benchmark
+  public void benchmarkRingTrackerRandomOrder(InFlightState state, Blackhole blackhole) {
+    final var tracker = new OffsetTracker(0);
+    for (final long offset : state.shuffled) {
+      tracker.recordNewOffset(offset);
+      blackhole.consume(tracker.advance());
+    }
+  }
+
+  /**
+   * Previous offset tracker implementation, kept here to compare it with {@link OffsetTracker}.
+   *
+   * <p>
+   * It flips a bit for each acked record in a {@code long[]} relative to the last acked offset, and it commits only
+   * when every record up to the greatest acked one is acked. Committing clears (or reallocates) the whole array.
+   */
+  static class BitmapOffsetTracker {
+
+    private final static int ACKS_GARBAGE_SIZE_THRESHOLD = 16;
+    private final static long[] MASKS = new long[64];
+
+    static {
+      for (int i = 0; i < 64; i++) {
+        long mask = 0;
+        for (int j = 0; j <= i; j++) {
+          mask |= 1L << j;
+        }
+        MASKS[i] = mask;
+      }
+    }
+
+    private long lastAcked;
+    private long[] uncommitted;
+
+    private int greaterBlockIndex;
+    private int greaterBitIndexInGreaterBlock;
+
+    BitmapOffsetTracker(long initialOffset) {
+      this.lastAcked = initialOffset;
+      this.uncommitted = new long[1];
+      this.greaterBlockIndex = -1;
+      this.greaterBitIndexInGreaterBlock = -1;
+    }
+
+    void recordNewOffset(long offset) {
+      long diffWithLastCommittedOffset = offset - this.lastAcked - 1;
+      int blockIndex = (int) (diffWithLastCommittedOffset >> 6);
+      int bitIndex = (int) (diffWithLastCommittedOffset % 64);
+
+      if (blockIndex > this.uncommitted.length - 1) {
+        this.uncommitted = Arrays.copyOf(this.uncommitted, (blockIndex + 1) * 2);
+      }
+
+      this.uncommitted[blockIndex] |= 1L << bitIndex;
+      if (this.greaterBlockIndex < blockIndex) {
+        this.greaterBlockIndex = blockIndex;
+        this.greaterBitIndexInGreaterBlock = bitIndex;
+      } else if (this.greaterBlockIndex == blockIndex && this.greaterBitIndexInGreaterBlock < bitIndex) {
+        this.greaterBitIndexInGreaterBlock = bitIndex;
+      }
+    }
+
+    boolean shouldCommit() {
+      for (int b = 0; b < this.greaterBlockIndex; b++) {
+        if (this.uncommitted[b] != MASKS[63]) {
+          return false;
+        }
+      }
+      return this.uncommitted[this.greaterBlockIndex] == MASKS[this.greaterBitIndexInGreaterBlock];
+    }
+
+    long offsetToCommit() {
+      return this.lastAcked + this.greaterBitIndexInGreaterBlock + 1 + (greaterBlockIndex * 64L) + 1;
+    }
+
+    void reset(long committed) {
+      this.lastAcked = committed - 1;
+      this.greaterBlockIndex = -1;
+      this.greaterBitIndexInGreaterBlock = -1;
+
+      if (this.uncommitted.length > ACKS_GARBAGE_SIZE_THRESHOLD) {
+        this.uncommitted = new long[1];
+      } else {
+        Arrays.fill(this.uncommitted, 0L);
+      }
+    }
   }
 
   static class MockKafkaConsumer implements io.vertx.kafka.client.consumer.KafkaConsumer<String, CloudEvent> {
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
+
+import dev.knative.eventing.kafka.broker.dispatcher.Filter;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEventDeserializer;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.core.message.Encoding;
+import io.cloudevents.kafka.CloudEventSerializer;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare {@link AttributesFilter} with the equivalent {@link AllFilter} of {@link ExactFilter}, which extracts
+ * attributes as strings, over a mix of events of a few types and sources, where about one event in ten matches.
+ */
+public class AttributesFilterBenchmark {
+
+  private static final int EVENTS = 1024;
+  private static final String TOPIC = "topic";
+
+  private static final Map<String, String> ATTRIBUTES = Map.of(
+    "type", "dev.knative.order.created",
+    "source", "/apis/v1/namespaces/shop/orders",
+    "region", "eu-west-1",
+    "time", "2021-06-01T10:30:00Z"
+  );
+
+  @State(Scope.Thread)
+  public static class FilterState {
+
+    @Param({"decoded", "lazy"})
+    public String events;
+
+    private CloudEvent[] mix;
+    private Filter attributesFilter;
+    private Filter exactFilters;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void doSetup() {
+      final var random = new Random(42);
+      final var types = new String[]{
+        "dev.knative.order.created", "dev.knative.order.updated", "dev.knative.order.deleted"
+      };
+      final var sources = new String[]{
+        "/apis/v1/namespaces/shop/orders", "/apis/v1/namespaces/shop/payments"
+      };
+      final var regions = new String[]{"eu-west-1", "us-east-1"};
+
+      this.mix = new CloudEvent[EVENTS];
+      for (int i = 0; i < EVENTS; i++) {
+        final var event = CloudEventBuilder.v1()
+          .withId(String.valueOf(i))
+          .withType(types[random.nextInt(types.length)])
+          .withSource(URI.create(sources[random.nextInt(sources.length)]))
+          .withSubject("order-" + i)
+          .withTime(OffsetDateTime.of(2021, 6, 1, 10, 30, random.nextInt(2) * 30, 0, ZoneOffset.UTC))
+          .withExtension("region", regions[random.nextInt(regions.length)])
+          .withData("application/json", "{\"amount\":42}".getBytes())
+          .build();
+        this.mix[i] = "lazy".equals(this.events) ? lazy(event) : event;
+      }
+
+      this.attributesFilter = new AttributesFilter(ATTRIBUTES);
+      final Set<Filter> filters = ATTRIBUTES.entrySet().stream()
+        .map(e -> new ExactFilter(e.getKey(), e.getValue()))
+        .collect(Collectors.toSet());
+      this.exactFilters = new AllFilter(filters);
+    }
+
+    CloudEvent nextEvent() {
+      this.next = (this.next + 1) % EVENTS;
+      return this.mix[this.next];
+    }
+
+    private static CloudEvent lazy(final CloudEvent event) {
+      final var serializer = new CloudEventSerializer();
+      serializer.configure(Map.of(CloudEventSerializer.ENCODING_CONFIG, Encoding.BINARY), false);
+      final var headers = new RecordHeaders();
+      final var value = serializer.serialize(TOPIC, headers, event);
+      return new LazyCloudEventDeserializer().deserialize(TOPIC, headers, value);
+    }
+  }
+
+  @Benchmark
+  public void benchmarkAttributesFilter(final FilterState state, final Blackhole blackhole) {
+    blackhole.consume(state.attributesFilter.test(state.nextEvent()));
+  }
+
+  @Benchmark
+  public void benchmarkExactFilters(final FilterState state, final Blackhole blackhole) {
+    blackhole.consume(state.exactFilters.test(state.nextEvent()));
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.sql.EvaluationException;
+import io.cloudevents.sql.EvaluationRuntime;
+import io.cloudevents.sql.Expression;
+import io.cloudevents.sql.Parser;
+import io.cloudevents.sql.Type;
+import java.net.URI;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare {@link SqlFilter}, which compiles expressions, with the baseline {@link SqlFilter}, which evaluated every
+ * event with the interpreter of the CloudEvents SQL SDK.
+ */
+public class SqlFilterBenchmark {
+
+  private static final int EVENTS = 1024;
+
+  @State(Scope.Thread)
+  public static class FilterState {
+
+    @Param({
+      "type = 'dev.knative.order.created'",
+      "type = 'dev.knative.order.created' AND region = 'eu' AND priority > 5",
+      "subject LIKE 'order-1%' OR type IN ('dev.knative.order.deleted', 'dev.knative.order.updated')"
+    })
+    public String expression;
+
+    private CloudEvent[] events;
+    private SqlFilter filter;
+    private Expression baseline;
+    private EvaluationRuntime runtime;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void doSetup() {
+      final var random = new Random(42);
+      final var types = new String[]{
+        "dev.knative.order.created", "dev.knative.order.updated", "dev.knative.order.deleted"
+      };
+      this.events = new CloudEvent[EVENTS];
+      for (int i = 0; i < EVENTS; i++) {
+        this.events[i] = CloudEventBuilder.v1()
+          .withId(String.valueOf(i))
+          .withType(types[random.nextInt(types.length)])
+          .withSource(URI.create("/apis/v1/namespaces/shop/orders"))
+          .withSubject("order-" + i)
+          .withExtension("region", random.nextBoolean() ? "eu" : "us")
+          .withExtension("priority", random.nextInt(10))
+          .build();
+      }
+
+      this.filter = new SqlFilter(this.expression);
+      this.baseline = Parser.parseDefault(this.expression);
+      this.runtime = EvaluationRuntime.getDefault();
+    }
+
+    CloudEvent nextEvent() {
+      this.next = (this.next + 1) % EVENTS;
+      return this.events[this.next];
+    }
+  }
+
+  @Benchmark
+  public void benchmarkSqlFilter(final FilterState state, final Blackhole blackhole) {
+    blackhole.consume(state.filter.test(state.nextEvent()));
+  }
+
+  @Benchmark
+  public void benchmarkBaselineSqlFilter(final FilterState state, final Blackhole blackhole) {
+    // Same as the baseline SqlFilter#test.
+    final var event = state.nextEvent();
+    try {
+      final var value = state.baseline.tryEvaluate(state.runtime, event);
+      blackhole.consume(state.runtime.cast(value, Type.BOOLEAN));
+    } catch (final EvaluationException ex) {
+      blackhole.consume(false);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl;
+
+import dev.knative.eventing.kafka.broker.receiver.RequestToRecordMapper;
+import io.cloudevents.core.message.Encoding;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.client.WebClient;
+import java.util.Map;
+import java.util.Random;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare mapping binary requests to records with {@link StrictRequestToRecordMapper}, that decodes the event, and
+ * with {@link PassThroughRequestToRecordMapper}, from the request of a local client to the serialization of the
+ * record value.
+ * <p>
+ * Run it with {@code -prof gc} to compare the allocations of the mappers.
+ */
+public class RequestToRecordMapperBenchmark {
+
+  private static final String TOPIC = "topic";
+
+  @State(Scope.Thread)
+  public static class MapperState {
+
+    @Param({"strict", "pass-through"})
+    public String mapper;
+
+    @Param({"1024", "16384", "262144"})
+    public int payloadSize;
+
+    private Vertx vertx;
+    private HttpServer server;
+    private WebClient client;
+    private MultiMap headers;
+    private Buffer body;
+
+    @Setup(Level.Trial)
+    public void doSetup() throws Exception {
+      final RequestToRecordMapper requestToRecordMapper = this.mapper.equals("strict") ?
+        StrictRequestToRecordMapper.getInstance() :
+        PassThroughRequestToRecordMapper.getInstance();
+
+      final var serializer = new CloudEventSerializer();
+      serializer.configure(Map.of(CloudEventSerializer.ENCODING_CONFIG, Encoding.BINARY), false);
+
+      this.vertx = Vertx.vertx();
+      this.server = this.vertx.createHttpServer()
+        .requestHandler(request -> requestToRecordMapper.requestToRecord(request, TOPIC)
+          // Serialize the value like the producer would do.
+          .map(record -> serializer.serialize(record.topic(), new RecordHeaders(), record.value()))
+          .onComplete(ar -> request.response().setStatusCode(ar.succeeded() ? 202 : 400).end())
+        )
+        .listen(0, "localhost")
+        .toCompletionStage()
+        .toCompletableFuture()
+        .get();
+      this.client = WebClient.create(this.vertx);
+
+      final var data = new byte[this.payloadSize];
+      new Random(42).nextBytes(data);
+      this.body = Buffer.buffer(data);
+      this.headers = MultiMap.caseInsensitiveMultiMap()
+        .set("ce-specversion", "1.0")
+        .set("ce-id", "123")
+        .set("ce-source", "/api/source")
+        .set("ce-type", "type")
+        .set("ce-subject", "subject")
+        .set("ce-time", "2021-06-01T10:00:00Z")
+        .set("ce-ext", "value")
+        .set("content-type", "application/octet-stream");
+    }
+
+    @TearDown(Level.Trial)
+    public void doTearDown() {
+      this.client.close();
+      this.server.close();
+      this.vertx.close();
+    }
+  }
+
+  @Benchmark
+  public void benchmarkRequestToRecord(final MapperState state, final Blackhole blackhole) throws Exception {
+    blackhole.consume(
+      state.client.post(state.server.actualPort(), "localhost", "/")
+        .putHeaders(state.headers)
+        .sendBuffer(state.body)
+        .toCompletionStage()
+        .toCompletableFuture()
+        .get()
+    );
+  }
+}
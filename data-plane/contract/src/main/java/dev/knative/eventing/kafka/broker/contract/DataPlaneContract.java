@@ -159,6 +159,10 @@ public final class DataPlaneContract {
      * <code>ORDERED = 1;</code>
      */
     ORDERED(1),
+    /**
+     * <code>KEY_ORDERED = 2;</code>
+     */
+    KEY_ORDERED(2),
     UNRECOGNIZED(-1),
     ;
 
@@ -170,6 +174,10 @@ public final class DataPlaneContract {
      * <code>ORDERED = 1;</code>
      */
     public static final int ORDERED_VALUE = 1;
+    /**
+     * <code>KEY_ORDERED = 2;</code>
+     */
+    public static final int KEY_ORDERED_VALUE = 2;
 
 
     public final int getNumber() {
@@ -198,6 +206,7 @@ public final class DataPlaneContract {
       switch (value) {
         case 0: return UNORDERED;
         case 1: return ORDERED;
+        case 2: return KEY_ORDERED;
         default: return null;
       }
     }
@@ -1740,6 +1749,18 @@ public final class DataPlaneContract {
      * @return The timeout.
      */
     long getTimeout();
+
+    /**
+     * <pre>
+     * rateLimit is the maximum number of requests per second sent to the
+     * destination.
+     * Setting rateLimit to 0 means no limit.
+     * </pre>
+     *
+     * <code>uint32 rateLimit = 6;</code>
+     * @return The rateLimit.
+     */
+    int getRateLimit();
   }
   /**
    * Protobuf type {@code EgressConfig}
@@ -1815,6 +1836,11 @@ public final class DataPlaneContract {
               timeout_ = input.readUInt64();
               break;
             }
+            case 48: {
+
+              rateLimit_ = input.readUInt32();
+              break;
+            }
             default: {
               if (!parseUnknownField(
                   input, unknownFields, extensionRegistry, tag)) {
@@ -1967,6 +1993,23 @@ public final class DataPlaneContract {
       return timeout_;
     }
 
+    public static final int RATELIMIT_FIELD_NUMBER = 6;
+    private int rateLimit_;
+    /**
+     * <pre>
+     * rateLimit is the maximum number of requests per second sent to the
+     * destination.
+     * Setting rateLimit to 0 means no limit.
+     * </pre>
+     *
+     * <code>uint32 rateLimit = 6;</code>
+     * @return The rateLimit.
+     */
+    @java.lang.Override
+    public int getRateLimit() {
+      return rateLimit_;
+    }
+
     private byte memoizedIsInitialized = -1;
     @java.lang.Override
     public final boolean isInitialized() {
@@ -1996,6 +2039,9 @@ public final class DataPlaneContract {
       if (timeout_ != 0L) {
         output.writeUInt64(5, timeout_);
       }
+      if (rateLimit_ != 0) {
+        output.writeUInt32(6, rateLimit_);
+      }
       unknownFields.writeTo(output);
     }
 
@@ -2024,6 +2070,10 @@ public final class DataPlaneContract {
         size += com.google.protobuf.CodedOutputStream
           .computeUInt64Size(5, timeout_);
       }
+      if (rateLimit_ != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(6, rateLimit_);
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
@@ -2048,6 +2098,8 @@ public final class DataPlaneContract {
           != other.getBackoffDelay()) return false;
       if (getTimeout()
           != other.getTimeout()) return false;
+      if (getRateLimit()
+          != other.getRateLimit()) return false;
       if (!unknownFields.equals(other.unknownFields)) return false;
       return true;
     }
@@ -2071,6 +2123,8 @@ public final class DataPlaneContract {
       hash = (37 * hash) + TIMEOUT_FIELD_NUMBER;
       hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
           getTimeout());
+      hash = (37 * hash) + RATELIMIT_FIELD_NUMBER;
+      hash = (53 * hash) + getRateLimit();
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -2214,6 +2268,8 @@ public final class DataPlaneContract {
 
         timeout_ = 0L;
 
+        rateLimit_ = 0;
+
         return this;
       }
 
@@ -2245,6 +2301,7 @@ public final class DataPlaneContract {
         result.backoffPolicy_ = backoffPolicy_;
         result.backoffDelay_ = backoffDelay_;
         result.timeout_ = timeout_;
+        result.rateLimit_ = rateLimit_;
         onBuilt();
         return result;
       }
@@ -2309,6 +2366,9 @@ public final class DataPlaneContract {
         if (other.getTimeout() != 0L) {
           setTimeout(other.getTimeout());
         }
+        if (other.getRateLimit() != 0) {
+          setRateLimit(other.getRateLimit());
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
@@ -2642,6 +2702,55 @@ public final class DataPlaneContract {
         onChanged();
         return this;
       }
+
+      private int rateLimit_ ;
+      /**
+       * <pre>
+       * rateLimit is the maximum number of requests per second sent to the
+       * destination.
+       * Setting rateLimit to 0 means no limit.
+       * </pre>
+       *
+       * <code>uint32 rateLimit = 6;</code>
+       * @return The rateLimit.
+       */
+      @java.lang.Override
+      public int getRateLimit() {
+        return rateLimit_;
+      }
+      /**
+       * <pre>
+       * rateLimit is the maximum number of requests per second sent to the
+       * destination.
+       * Setting rateLimit to 0 means no limit.
+       * </pre>
+       *
+       * <code>uint32 rateLimit = 6;</code>
+       * @param value The rateLimit to set.
+       * @return This builder for chaining.
+       */
+      public Builder setRateLimit(int value) {
+        
+        rateLimit_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * rateLimit is the maximum number of requests per second sent to the
+       * destination.
+       * Setting rateLimit to 0 means no limit.
+       * </pre>
+       *
+       * <code>uint32 rateLimit = 6;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearRateLimit() {
+        
+        rateLimit_ = 0;
+        onChanged();
+        return this;
+      }
       @java.lang.Override
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
@@ -2883,7 +2992,30 @@ public final class DataPlaneContract {
      */
     dev.knative.eventing.kafka.broker.contract.DataPlaneContract.DeliveryOrder getDeliveryOrder();
 
+    /**
+     * <pre>
+     * Maximum number of events to send in a single request using the CloudEvents
+     * batched content mode (application/cloudevents-batch+json).
+     * 0 or 1 disables batching.
+     * </pre>
+     *
+     * <code>uint32 batchSize = 9;</code>
+     * @return The batchSize.
+     */
+    int getBatchSize();
+
     public dev.knative.eventing.kafka.broker.contract.DataPlaneContract.Egress.ReplyStrategyCase getReplyStrategyCase();
+
+    /**
+     * <pre>
+     * Discard the responses of the destination and of the dead letter sink
+     * without reading their body, ignoring the replyStrategy.
+     * </pre>
+     *
+     * <code>bool discardReply = 10;</code>
+     * @return The discardReply.
+     */
+    boolean getDiscardReply();
   }
   /**
    * Protobuf type {@code Egress}
@@ -3004,6 +3136,16 @@ public final class DataPlaneContract {
               deliveryOrder_ = rawValue;
               break;
             }
+            case 72: {
+
+              batchSize_ = input.readUInt32();
+              break;
+            }
+            case 80: {
+
+              discardReply_ = input.readBool();
+              break;
+            }
             default: {
               if (!parseUnknownField(
                   input, unknownFields, extensionRegistry, tag)) {
@@ -3420,6 +3562,39 @@ public final class DataPlaneContract {
       return result == null ? dev.knative.eventing.kafka.broker.contract.DataPlaneContract.DeliveryOrder.UNRECOGNIZED : result;
     }
 
+    public static final int BATCHSIZE_FIELD_NUMBER = 9;
+    private int batchSize_;
+    /**
+     * <pre>
+     * Maximum number of events to send in a single request using the CloudEvents
+     * batched content mode (application/cloudevents-batch+json).
+     * 0 or 1 disables batching.
+     * </pre>
+     *
+     * <code>uint32 batchSize = 9;</code>
+     * @return The batchSize.
+     */
+    @java.lang.Override
+    public int getBatchSize() {
+      return batchSize_;
+    }
+
+    public static final int DISCARDREPLY_FIELD_NUMBER = 10;
+    private boolean discardReply_;
+    /**
+     * <pre>
+     * Discard the responses of the destination and of the dead letter sink
+     * without reading their body, ignoring the replyStrategy.
+     * </pre>
+     *
+     * <code>bool discardReply = 10;</code>
+     * @return The discardReply.
+     */
+    @java.lang.Override
+    public boolean getDiscardReply() {
+      return discardReply_;
+    }
+
     private byte memoizedIsInitialized = -1;
     @java.lang.Override
     public final boolean isInitialized() {
@@ -3458,6 +3633,12 @@ public final class DataPlaneContract {
       if (deliveryOrder_ != dev.knative.eventing.kafka.broker.contract.DataPlaneContract.DeliveryOrder.UNORDERED.getNumber()) {
         output.writeEnum(8, deliveryOrder_);
       }
+      if (batchSize_ != 0) {
+        output.writeUInt32(9, batchSize_);
+      }
+      if (discardReply_ != false) {
+        output.writeBool(10, discardReply_);
+      }
       unknownFields.writeTo(output);
     }
 
@@ -3495,6 +3676,14 @@ public final class DataPlaneContract {
         size += com.google.protobuf.CodedOutputStream
           .computeEnumSize(8, deliveryOrder_);
       }
+      if (batchSize_ != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(9, batchSize_);
+      }
+      if (discardReply_ != false) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(10, discardReply_);
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
@@ -3527,6 +3716,10 @@ public final class DataPlaneContract {
             .equals(other.getEgressConfig())) return false;
       }
       if (deliveryOrder_ != other.deliveryOrder_) return false;
+      if (getBatchSize()
+          != other.getBatchSize()) return false;
+      if (getDiscardReply()
+          != other.getDiscardReply()) return false;
       if (!getReplyStrategyCase().equals(other.getReplyStrategyCase())) return false;
       switch (replyStrategyCase_) {
         case 3:
@@ -3567,6 +3760,11 @@ public final class DataPlaneContract {
       }
       hash = (37 * hash) + DELIVERYORDER_FIELD_NUMBER;
       hash = (53 * hash) + deliveryOrder_;
+      hash = (37 * hash) + BATCHSIZE_FIELD_NUMBER;
+      hash = (53 * hash) + getBatchSize();
+      hash = (37 * hash) + DISCARDREPLY_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashBoolean(
+          getDiscardReply());
       switch (replyStrategyCase_) {
         case 3:
           hash = (37 * hash) + REPLYURL_FIELD_NUMBER;
@@ -3732,6 +3930,10 @@ public final class DataPlaneContract {
         }
         deliveryOrder_ = 0;
 
+        batchSize_ = 0;
+
+        discardReply_ = false;
+
         replyStrategyCase_ = 0;
         replyStrategy_ = null;
         return this;
@@ -3784,6 +3986,8 @@ public final class DataPlaneContract {
           result.egressConfig_ = egressConfigBuilder_.build();
         }
         result.deliveryOrder_ = deliveryOrder_;
+        result.batchSize_ = batchSize_;
+        result.discardReply_ = discardReply_;
         result.replyStrategyCase_ = replyStrategyCase_;
         onBuilt();
         return result;
@@ -3854,6 +4058,12 @@ public final class DataPlaneContract {
         if (other.deliveryOrder_ != 0) {
           setDeliveryOrderValue(other.getDeliveryOrderValue());
         }
+        if (other.getBatchSize() != 0) {
+          setBatchSize(other.getBatchSize());
+        }
+        if (other.getDiscardReply() != false) {
+          setDiscardReply(other.getDiscardReply());
+        }
         switch (other.getReplyStrategyCase()) {
           case REPLYURL: {
             replyStrategyCase_ = 3;
@@ -4865,6 +5075,101 @@ public final class DataPlaneContract {
         onChanged();
         return this;
       }
+
+      private int batchSize_ ;
+      /**
+       * <pre>
+       * Maximum number of events to send in a single request using the CloudEvents
+       * batched content mode (application/cloudevents-batch+json).
+       * 0 or 1 disables batching.
+       * </pre>
+       *
+       * <code>uint32 batchSize = 9;</code>
+       * @return The batchSize.
+       */
+      @java.lang.Override
+      public int getBatchSize() {
+        return batchSize_;
+      }
+      /**
+       * <pre>
+       * Maximum number of events to send in a single request using the CloudEvents
+       * batched content mode (application/cloudevents-batch+json).
+       * 0 or 1 disables batching.
+       * </pre>
+       *
+       * <code>uint32 batchSize = 9;</code>
+       * @param value The batchSize to set.
+       * @return This builder for chaining.
+       */
+      public Builder setBatchSize(int value) {
+        
+        batchSize_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * Maximum number of events to send in a single request using the CloudEvents
+       * batched content mode (application/cloudevents-batch+json).
+       * 0 or 1 disables batching.
+       * </pre>
+       *
+       * <code>uint32 batchSize = 9;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearBatchSize() {
+        
+        batchSize_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private boolean discardReply_ ;
+      /**
+       * <pre>
+       * Discard the responses of the destination and of the dead letter sink
+       * without reading their body, ignoring the replyStrategy.
+       * </pre>
+       *
+       * <code>bool discardReply = 10;</code>
+       * @return The discardReply.
+       */
+      @java.lang.Override
+      public boolean getDiscardReply() {
+        return discardReply_;
+      }
+      /**
+       * <pre>
+       * Discard the responses of the destination and of the dead letter sink
+       * without reading their body, ignoring the replyStrategy.
+       * </pre>
+       *
+       * <code>bool discardReply = 10;</code>
+       * @param value The discardReply to set.
+       * @return This builder for chaining.
+       */
+      public Builder setDiscardReply(boolean value) {
+        
+        discardReply_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * Discard the responses of the destination and of the dead letter sink
+       * without reading their body, ignoring the replyStrategy.
+       * </pre>
+       *
+       * <code>bool discardReply = 10;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearDiscardReply() {
+        
+        discardReply_ = false;
+        onChanged();
+        return this;
+      }
       @java.lang.Override
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
@@ -11365,34 +11670,36 @@ public final class DataPlaneContract {
       "\n\016contract.proto\"\007\n\005Empty\"h\n\006Filter\022+\n\na" +
       "ttributes\030\001 \003(\0132\027.Filter.AttributesEntry" +
       "\0321\n\017AttributesEntry\022\013\n\003key\030\001 \001(\t\022\r\n\005valu" +
-      "e\030\002 \001(\t:\0028\001\"\177\n\014EgressConfig\022\022\n\ndeadLette" +
-      "r\030\001 \001(\t\022\r\n\005retry\030\002 \001(\r\022%\n\rbackoffPolicy\030" +
-      "\003 \001(\0162\016.BackoffPolicy\022\024\n\014backoffDelay\030\004 " +
-      "\001(\004\022\017\n\007timeout\030\005 \001(\004\"\363\001\n\006Egress\022\025\n\rconsu" +
-      "merGroup\030\001 \001(\t\022\023\n\013destination\030\002 \001(\t\022\022\n\010r" +
-      "eplyUrl\030\003 \001(\tH\000\022&\n\024replyToOriginalTopic\030" +
-      "\004 \001(\0132\006.EmptyH\000\022\027\n\006filter\030\005 \001(\0132\007.Filter" +
-      "\022\013\n\003uid\030\006 \001(\t\022#\n\014egressConfig\030\007 \001(\0132\r.Eg" +
-      "ressConfig\022%\n\rdeliveryOrder\030\010 \001(\0162\016.Deli" +
-      "veryOrderB\017\n\rreplyStrategy\"[\n\007Ingress\022!\n" +
-      "\013contentMode\030\001 \001(\0162\014.ContentMode\022\016\n\004path" +
-      "\030\002 \001(\tH\000\022\016\n\004host\030\003 \001(\tH\000B\r\n\013ingressType\"" +
-      "K\n\tReference\022\014\n\004uuid\030\001 \001(\t\022\021\n\tnamespace\030" +
-      "\002 \001(\t\022\014\n\004name\030\003 \001(\t\022\017\n\007version\030\004 \001(\t\"\344\001\n" +
-      "\010Resource\022\013\n\003uid\030\001 \001(\t\022\016\n\006topics\030\002 \003(\t\022\030" +
-      "\n\020bootstrapServers\030\003 \001(\t\022\031\n\007ingress\030\004 \001(" +
-      "\0132\010.Ingress\022#\n\014egressConfig\030\005 \001(\0132\r.Egre" +
-      "ssConfig\022\031\n\010egresses\030\006 \003(\0132\007.Egress\022\034\n\na" +
-      "bsentAuth\030\007 \001(\0132\006.EmptyH\000\022 \n\nauthSecret\030" +
-      "\010 \001(\0132\n.ReferenceH\000B\006\n\004Auth\"<\n\010Contract\022" +
-      "\022\n\ngeneration\030\001 \001(\004\022\034\n\tresources\030\002 \003(\0132\t" +
-      ".Resource*,\n\rBackoffPolicy\022\017\n\013Exponentia" +
-      "l\020\000\022\n\n\006Linear\020\001*+\n\rDeliveryOrder\022\r\n\tUNOR" +
-      "DERED\020\000\022\013\n\007ORDERED\020\001*)\n\013ContentMode\022\n\n\006B" +
-      "INARY\020\000\022\016\n\nSTRUCTURED\020\001B[\n*dev.knative.e" +
-      "venting.kafka.broker.contractB\021DataPlane" +
-      "ContractZ\032control-plane/pkg/contractb\006pr" +
-      "oto3"
+      "e\030\002 \001(\t:\0028\001\"\222\001\n\014EgressConfig\022\022\n\ndeadLett" +
+      "er\030\001 \001(\t\022\r\n\005retry\030\002 \001(\r\022%\n\rbackoffPolicy" +
+      "\030\003 \001(\0162\016.BackoffPolicy\022\024\n\014backoffDelay\030\004" +
+      " \001(\004\022\017\n\007timeout\030\005 \001(\004\022\021\n\trateLimit\030\006 \001(\r" +
+      "\"\234\002\n\006Egress\022\025\n\rconsumerGroup\030\001 \001(\t\022\023\n\013de" +
+      "stination\030\002 \001(\t\022\022\n\010replyUrl\030\003 \001(\tH\000\022&\n\024r" +
+      "eplyToOriginalTopic\030\004 \001(\0132\006.EmptyH\000\022\027\n\006f" +
+      "ilter\030\005 \001(\0132\007.Filter\022\013\n\003uid\030\006 \001(\t\022#\n\014egr" +
+      "essConfig\030\007 \001(\0132\r.EgressConfig\022%\n\rdelive" +
+      "ryOrder\030\010 \001(\0162\016.DeliveryOrder\022\021\n\tbatchSi" +
+      "ze\030\t \001(\r\022\024\n\014discardReply\030\n \001(\010B\017\n\rreplyS" +
+      "trategy\"[\n\007Ingress\022!\n\013contentMode\030\001 \001(\0162" +
+      "\014.ContentMode\022\016\n\004path\030\002 \001(\tH\000\022\016\n\004host\030\003 " +
+      "\001(\tH\000B\r\n\013ingressType\"K\n\tReference\022\014\n\004uui" +
+      "d\030\001 \001(\t\022\021\n\tnamespace\030\002 \001(\t\022\014\n\004name\030\003 \001(\t" +
+      "\022\017\n\007version\030\004 \001(\t\"\344\001\n\010Resource\022\013\n\003uid\030\001 " +
+      "\001(\t\022\016\n\006topics\030\002 \003(\t\022\030\n\020bootstrapServers\030" +
+      "\003 \001(\t\022\031\n\007ingress\030\004 \001(\0132\010.Ingress\022#\n\014egre" +
+      "ssConfig\030\005 \001(\0132\r.EgressConfig\022\031\n\010egresse" +
+      "s\030\006 \003(\0132\007.Egress\022\034\n\nabsentAuth\030\007 \001(\0132\006.E" +
+      "mptyH\000\022 \n\nauthSecret\030\010 \001(\0132\n.ReferenceH\000" +
+      "B\006\n\004Auth\"<\n\010Contract\022\022\n\ngeneration\030\001 \001(\004" +
+      "\022\034\n\tresources\030\002 \003(\0132\t.Resource*,\n\rBackof" +
+      "fPolicy\022\017\n\013Exponential\020\000\022\n\n\006Linear\020\001*<\n\r" +
+      "DeliveryOrder\022\r\n\tUNORDERED\020\000\022\013\n\007ORDERED\020" +
+      "\001\022\017\n\013KEY_ORDERED\020\002*)\n\013ContentMode\022\n\n\006BIN" +
+      "ARY\020\000\022\016\n\nSTRUCTURED\020\001B[\n*dev.knative.eve" +
+      "nting.kafka.broker.contractB\021DataPlaneCo" +
+      "ntractZ\032control-plane/pkg/contractb\006prot" +
+      "o3"
     };
     descriptor = com.google.protobuf.Descriptors.FileDescriptor
       .internalBuildGeneratedFileFrom(descriptorData,
@@ -11421,13 +11728,13 @@ public final class DataPlaneContract {
     internal_static_EgressConfig_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_EgressConfig_descriptor,
-        new java.lang.String[] { "DeadLetter", "Retry", "BackoffPolicy", "BackoffDelay", "Timeout", });
+        new java.lang.String[] { "DeadLetter", "Retry", "BackoffPolicy", "BackoffDelay", "Timeout", "RateLimit", });
     internal_static_Egress_descriptor =
       getDescriptor().getMessageTypes().get(3);
     internal_static_Egress_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_Egress_descriptor,
-        new java.lang.String[] { "ConsumerGroup", "Destination", "ReplyUrl", "ReplyToOriginalTopic", "Filter", "Uid", "EgressConfig", "DeliveryOrder", "ReplyStrategy", });
+        new java.lang.String[] { "ConsumerGroup", "Destination", "ReplyUrl", "ReplyToOriginalTopic", "Filter", "Uid", "EgressConfig", "DeliveryOrder", "BatchSize", "DiscardReply", "ReplyStrategy", });
     internal_static_Ingress_descriptor =
       getDescriptor().getMessageTypes().get(4);
     internal_static_Ingress_fieldAccessorTable = new
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.core;
+
+import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
+import dev.knative.eventing.kafka.broker.core.utils.ReferenceCounter;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.producer.KafkaProducer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import org.apache.kafka.clients.producer.Producer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
+
+/**
+ * This class implements a thread safe pool of Kafka producers, reference counted by their effective configurations.
+ * <p>
+ * Every client with the same configurations (bootstrap servers, credentials, etc) shares the same Kafka producer, so
+ * the same sender thread, buffer pool and broker connections. Each client gets its own {@link KafkaProducer},
+ * bound to the Vert.x context that acquired it, and releases it by closing the returned {@link Lease}: the shared
+ * producer is flushed and closed, through the context of the last lease, once it's released by every client.
+ * <p>
+ * Shared producers aren't bound to any Vert.x context, so undeploying the verticle that created a shared producer
+ * doesn't close it.
+ *
+ * @param <K> type of the record key.
+ * @param <V> type of the record value.
+ */
+public final class KafkaProducerPool<K, V> {
+
+  private static final Logger logger = LoggerFactory.getLogger(KafkaProducerPool.class);
+
+  private final Function<Map<String, Object>, Producer<K, V>> producerFactory;
+
+  // producer configs -> producer
+  // Guarded by this.
+  private final Map<Map<String, Object>, ReferenceCounter<PooledProducer<K, V>>> producerReferences;
+
+  /**
+   * All args constructor.
+   *
+   * @param producerFactory factory of the shared producers, given their configurations.
+   */
+  public KafkaProducerPool(final Function<Map<String, Object>, Producer<K, V>> producerFactory) {
+    Objects.requireNonNull(producerFactory, "provide producerFactory");
+
+    this.producerFactory = producerFactory;
+    this.producerReferences = new HashMap<>();
+  }
+
+  /**
+   * Acquire a producer with the given configurations, creating it if nobody else is using it.
+   *
+   * @param vertx   Vert.x instance, the returned producer is bound to the current context.
+   * @param configs producer configurations.
+   * @return a lease holding the producer.
+   */
+  public Lease<K, V> acquire(final Vertx vertx, final Map<String, Object> configs) {
+    Objects.requireNonNull(vertx, "provide vertx");
+    Objects.requireNonNull(configs, "provide configs");
+
+    final Map<String, Object> key = new HashMap<>(configs);
+    final PooledProducer<K, V> pooledProducer;
+    synchronized (this) {
+      final var rc = this.producerReferences.computeIfAbsent(
+        key,
+        k -> new ReferenceCounter<>(new PooledProducer<>(this.producerFactory.apply(new HashMap<>(k))))
+      );
+      rc.increment();
+      pooledProducer = rc.getValue();
+    }
+
+    // Vert.x producers wrapping an existing producer don't close it when their context is closed.
+    return new Lease<>(this, key, KafkaProducer.create(vertx, pooledProducer.producer));
+  }
+
+  /**
+   * @return the number of distinct producers currently in use.
+   */
+  public synchronized int size() {
+    return this.producerReferences.size();
+  }
+
+  private Future<Void> release(final Map<String, Object> key, final KafkaProducer<K, V> producer) {
+    final PooledProducer<K, V> pooledProducer;
+    synchronized (this) {
+      final var rc = this.producerReferences.get(key);
+      if (rc == null || !rc.decrementAndCheck()) {
+        return Future.succeededFuture();
+      }
+      // Nobody is referring to this producer anymore, clean it up and close it
+      this.producerReferences.remove(key);
+      pooledProducer = rc.getValue();
+    }
+
+    // The producer of the last lease closes the shared producer on a context that is still alive, the producers of
+    // the other leases don't own anything else, so they're never closed.
+    return pooledProducer.close(producer);
+  }
+
+  /**
+   * A producer acquired from a {@link KafkaProducerPool}.
+   *
+   * @param <K> type of the record key.
+   * @param <V> type of the record value.
+   */
+  public static final class Lease<K, V> implements AsyncCloseable {
+
+    private final KafkaProducerPool<K, V> pool;
+    private final Map<String, Object> key;
+    private final KafkaProducer<K, V> producer;
+    private boolean released;
+
+    private Lease(final KafkaProducerPool<K, V> pool,
+                  final Map<String, Object> key,
+                  final KafkaProducer<K, V> producer) {
+      this.pool = pool;
+      this.key = key;
+      this.producer = producer;
+    }
+
+    /**
+     * @return the producer, it must not be closed since it's shared with other clients.
+     */
+    public KafkaProducer<K, V> getProducer() {
+      return this.producer;
+    }
+
+    /**
+     * Release the producer, closing it if nobody else is using it.
+     *
+     * @return a future notifying the completion of the close operation.
+     */
+    @Override
+    public synchronized Future<Void> close() {
+      if (this.released) {
+        return Future.succeededFuture();
+      }
+      this.released = true;
+      return this.pool.release(this.key, this.producer);
+    }
+  }
+
+  private static final class PooledProducer<K, V> {
+
+    private final Producer<K, V> producer;
+    private final AutoCloseable producerMeterBinder;
+
+    private PooledProducer(final Producer<K, V> producer) {
+      this.producer = producer;
+      this.producerMeterBinder = Metrics.register(producer);
+    }
+
+    private Future<Void> close(final KafkaProducer<K, V> leaseProducer) {
+      return leaseProducer.flush()
+        .compose(
+          s -> closeNow(leaseProducer),
+          cause -> {
+            logger.error("Failed to flush producer {}", keyValue("producer", this.producer), cause);
+            return closeNow(leaseProducer);
+          }
+        );
+    }
+
+    private Future<Void> closeNow(final KafkaProducer<K, V> leaseProducer) {
+      return AsyncCloseable.compose(
+        leaseProducer::close,
+        AsyncCloseable.wrapAutoCloseable(this.producerMeterBinder)
+      ).close();
+    }
+  }
+}
@@ -51,11 +51,97 @@ public class Metrics {
    */
   public static final String HTTP_REQUESTS_PRODUCE_COUNT = "http.requests.produce";
 
+  /**
+   * In prometheus format --> http_requests_shed_total
+   */
+  public static final String HTTP_REQUESTS_SHED_COUNT = "http.requests.shed";
+
+  /**
+   * In prometheus format --> http_requests_in_flight
+   */
+  public static final String HTTP_REQUESTS_IN_FLIGHT = "http.requests.in.flight";
+
+  /**
+   * In prometheus format --> http_bytes_in_flight
+   */
+  public static final String HTTP_BYTES_IN_FLIGHT = "http.bytes.in.flight";
+
   /**
    * In prometheus format --> http_events_sent_total
    */
   public static final String HTTP_EVENTS_SENT_COUNT = "http.events.sent";
 
+  /**
+   * In prometheus format --> consumer_records_in_flight
+   */
+  public static final String CONSUMER_RECORDS_IN_FLIGHT = "consumer.records.in.flight";
+
+  /**
+   * In prometheus format --> consumer_bytes_in_flight
+   */
+  public static final String CONSUMER_BYTES_IN_FLIGHT = "consumer.bytes.in.flight";
+
+  /**
+   * In prometheus format --> filter_evaluation_cost_seconds
+   */
+  public static final String FILTER_EVALUATION_COST = "filter.evaluation.cost";
+
+  /**
+   * In prometheus format --> filter_pass_ratio
+   */
+  public static final String FILTER_PASS_RATIO = "filter.pass.ratio";
+
+  /**
+   * In prometheus format --> retry_records_scheduled_total
+   */
+  public static final String RETRY_RECORDS_SCHEDULED_COUNT = "retry.records.scheduled";
+
+  /**
+   * In prometheus format --> retry_records_exhausted_total
+   */
+  public static final String RETRY_RECORDS_EXHAUSTED_COUNT = "retry.records.exhausted";
+
+  /**
+   * In prometheus format --> retry_records_waiting
+   */
+  public static final String RETRY_RECORDS_WAITING = "retry.records.waiting";
+
+  /**
+   * In prometheus format --> concurrency_limit
+   */
+  public static final String CONCURRENCY_LIMIT = "concurrency.limit";
+
+  /**
+   * In prometheus format --> concurrency_requests_in_flight
+   */
+  public static final String CONCURRENCY_REQUESTS_IN_FLIGHT = "concurrency.requests.in.flight";
+
+  /**
+   * In prometheus format --> concurrency_requests_queued
+   */
+  public static final String CONCURRENCY_REQUESTS_QUEUED = "concurrency.requests.queued";
+
+  /**
+   * In prometheus format --> rate_limit_requests_queued
+   */
+  public static final String RATE_LIMIT_REQUESTS_QUEUED = "rate.limit.requests.queued";
+
+  /**
+   * Tag identifying the consumer group of a metric.
+   */
+  public static final String CONSUMER_GROUP_TAG = "consumer.group";
+
+  /**
+   * Tag identifying the kind of composite filter of a metric, for example all or any.
+   */
+  public static final String FILTER_KIND_TAG = "filter.kind";
+
+  /**
+   * Tag identifying the child filter of a composite filter, as the position of the child in the declared filters
+   * followed by its type, for example 0-ExactFilter.
+   */
+  public static final String FILTER_CHILD_TAG = "filter.child";
+
   /**
    * Get metrics options from the given metrics configurations.
    *
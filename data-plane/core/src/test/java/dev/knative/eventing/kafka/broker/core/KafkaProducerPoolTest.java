@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.core;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class KafkaProducerPoolTest {
+
+  @Test
+  public void shouldShareProducersWithTheSameConfigurations(final Vertx vertx) throws Exception {
+    final List<MockProducer<String, String>> producers = new CopyOnWriteArrayList<>();
+    final var pool = new KafkaProducerPool<String, String>(configs -> {
+      final var producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+      producers.add(producer);
+      return producer;
+    });
+
+    final var l1 = pool.acquire(vertx, Map.of("bootstrap.servers", "a:9092"));
+    final var l2 = pool.acquire(vertx, Map.of("bootstrap.servers", "a:9092"));
+    final var l3 = pool.acquire(vertx, Map.of("bootstrap.servers", "b:9092"));
+
+    assertThat(producers).hasSize(2);
+    assertThat(pool.size()).isEqualTo(2);
+    assertThat(l1.getProducer().unwrap()).isSameAs(l2.getProducer().unwrap());
+    assertThat(l1.getProducer().unwrap()).isNotSameAs(l3.getProducer().unwrap());
+
+    l1.close().toCompletionStage().toCompletableFuture().get();
+    // Closing the same lease twice doesn't release the producer on behalf of someone else.
+    l1.close().toCompletionStage().toCompletableFuture().get();
+    assertThat(pool.size()).isEqualTo(2);
+    assertThat(producers.get(0).closed()).isFalse();
+
+    l2.close().toCompletionStage().toCompletableFuture().get();
+    l3.close().toCompletionStage().toCompletableFuture().get();
+    assertThat(pool.size()).isZero();
+    assertThat(producers).allMatch(MockProducer::closed);
+
+    // Once released, a new producer is created for the same configurations.
+    pool.acquire(vertx, Map.of("bootstrap.servers", "a:9092"));
+    assertThat(producers).hasSize(3);
+  }
+
+  @Test
+  public void shouldNotCloseProducersWhenTheFirstClientIsUndeployed(final Vertx vertx) throws Exception {
+    final var producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+    final var pool = new KafkaProducerPool<String, String>(configs -> producer);
+    final var configs = Map.<String, Object>of("bootstrap.servers", "a:9092");
+
+    final var leases = new CopyOnWriteArrayList<KafkaProducerPool.Lease<String, String>>();
+    final var deploymentId = vertx.deployVerticle(new AbstractVerticle() {
+      @Override
+      public void start() {
+        leases.add(pool.acquire(vertx, configs));
+      }
+    }).toCompletionStage().toCompletableFuture().get();
+    final var lease = pool.acquire(vertx, configs);
+
+    // The verticle that created the producer goes away without releasing it.
+    vertx.undeploy(deploymentId).toCompletionStage().toCompletableFuture().get();
+    assertThat(producer.closed()).isFalse();
+
+    lease.close().toCompletionStage().toCompletableFuture().get();
+    assertThat(producer.closed()).isFalse();
+    leases.get(0).close().toCompletionStage().toCompletableFuture().get();
+    assertThat(producer.closed()).isTrue();
+    assertThat(pool.size()).isZero();
+  }
+}
@@ -18,7 +18,6 @@ package dev.knative.eventing.kafka.broker.dispatcher;
 import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
 import io.cloudevents.CloudEvent;
 import io.vertx.core.Future;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.client.HttpResponse;
 
 /**
@@ -32,7 +31,7 @@ public interface CloudEventSender extends AsyncCloseable {
    * @param event event to send
    * @return a successful future or a failed future.
    */
-  Future<HttpResponse<Buffer>> send(CloudEvent event);
+  Future<HttpResponse<?>> send(CloudEvent event);
 
   /**
    * Create a noop {@link CloudEventSender} that fails every send with the specified message.
@@ -43,7 +42,7 @@ public interface CloudEventSender extends AsyncCloseable {
   static CloudEventSender noop(String failureMessage) {
     return new CloudEventSender() {
       @Override
-      public Future<HttpResponse<Buffer>> send(CloudEvent event) {
+      public Future<HttpResponse<?>> send(CloudEvent event) {
         return Future.failedFuture(failureMessage);
       }
 
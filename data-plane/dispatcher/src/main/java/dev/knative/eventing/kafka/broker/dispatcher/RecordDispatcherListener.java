@@ -15,13 +15,14 @@
  */
 package dev.knative.eventing.kafka.broker.dispatcher;
 
+import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
 import io.vertx.core.Future;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 
 /**
  * This class contains hooks for listening events through the {@link dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher} lifecycle.
  */
-public interface RecordDispatcherListener {
+public interface RecordDispatcherListener extends AsyncCloseable {
 
   /**
    * The given record has been received.
@@ -58,4 +59,22 @@ public interface RecordDispatcherListener {
    * @param record record sent to dead letter sink.
    */
   Future<Void> successfullySentToDeadLetterSink(KafkaConsumerRecord<?, ?> record);
+
+  /**
+   * A new delivery attempt of the given record has been scheduled, so the record doesn't need to be delivered again.
+   *
+   * @param record record scheduled for a later delivery attempt.
+   * @see RetryScheduler
+   */
+  Future<Void> successfullyScheduledForRetry(KafkaConsumerRecord<?, ?> record);
+
+  /**
+   * Release the resources held by this listener, for example flushing the offsets not yet committed.
+   *
+   * @return a future notifying the completion of the close operation.
+   */
+  @Override
+  default Future<Void> close() {
+    return Future.succeededFuture();
+  }
 }
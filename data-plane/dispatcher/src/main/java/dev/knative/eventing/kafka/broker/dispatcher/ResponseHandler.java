@@ -17,8 +17,8 @@ package dev.knative.eventing.kafka.broker.dispatcher;
 
 import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
 import io.vertx.core.Future;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.client.HttpResponse;
+import java.util.Objects;
 
 /**
  * This interface describes a component that handles http responses.
@@ -31,7 +31,7 @@ public interface ResponseHandler extends AsyncCloseable {
    * @param response Response to handle.
    * @return A succeeded or failed future.
    */
-  Future<Void> handle(final HttpResponse<Buffer> response);
+  Future<Void> handle(final HttpResponse<?> response);
 
   /**
    * @return a noop response handler.
@@ -39,7 +39,7 @@ public interface ResponseHandler extends AsyncCloseable {
   static ResponseHandler noop() {
     return new ResponseHandler() {
       @Override
-      public Future<Void> handle(HttpResponse<Buffer> response) {
+      public Future<Void> handle(HttpResponse<?> response) {
         return Future.succeededFuture();
       }
 
@@ -49,4 +49,24 @@ public interface ResponseHandler extends AsyncCloseable {
       }
     };
   }
+
+  /**
+   * @param closer closer of the resources held by the handler.
+   * @return a response handler discarding responses, that closes the given closer when it's closed.
+   */
+  static ResponseHandler discard(final AsyncCloseable closer) {
+    Objects.requireNonNull(closer, "provide closer");
+
+    return new ResponseHandler() {
+      @Override
+      public Future<Void> handle(HttpResponse<?> response) {
+        return Future.succeededFuture();
+      }
+
+      @Override
+      public Future<Void> close() {
+        return closer.close();
+      }
+    };
+  }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher;
+
+import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
+import io.cloudevents.CloudEvent;
+import io.vertx.core.Future;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+
+/**
+ * This interface describes a component that schedules a later delivery attempt of a record the subscriber failed to
+ * receive, without holding the record until the attempt.
+ */
+public interface RetryScheduler extends AsyncCloseable {
+
+  /**
+   * Schedule a new delivery attempt of the given record.
+   *
+   * @param record record the subscriber failed to receive.
+   * @return a succeeded future when the attempt is scheduled, a failed future when the record has no attempts left or
+   * the attempt can't be scheduled.
+   */
+  Future<Void> schedule(KafkaConsumerRecord<String, CloudEvent> record);
+
+  /**
+   * @return a retry scheduler that never schedules attempts.
+   */
+  static RetryScheduler noop() {
+    return new RetryScheduler() {
+      @Override
+      public Future<Void> schedule(KafkaConsumerRecord<String, CloudEvent> record) {
+        return Future.failedFuture("No retry scheduler set");
+      }
+
+      @Override
+      public Future<Void> close() {
+        return Future.succeededFuture();
+      }
+    };
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher;
+
+import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
+import io.vertx.core.AbstractVerticle;
+import java.util.Collection;
+
+/**
+ * This class is responsible for instantiating consumer verticles, including consumer verticles fetching records once
+ * for several egresses of the same resource.
+ */
+public interface SharedConsumerVerticleFactory extends ConsumerVerticleFactory {
+
+  /**
+   * Check whether the given egress consumes records fetched by a consumer shared with the other egresses of the same
+   * resource.
+   *
+   * @param resource resource data.
+   * @param egress   trigger data.
+   * @return true if the egress has to be deployed with {@link #getShared(DataPlaneContract.Resource, Collection)}.
+   */
+  boolean isSharedFetch(final DataPlaneContract.Resource resource, final DataPlaneContract.Egress egress);
+
+  /**
+   * Get a new consumer verticle fetching records once for all the given egresses of the same resource.
+   *
+   * @param resource resource data.
+   * @param egresses triggers data.
+   * @return a new consumer verticle.
+   */
+  AbstractVerticle getShared(final DataPlaneContract.Resource resource,
+                             final Collection<DataPlaneContract.Egress> egresses);
+}
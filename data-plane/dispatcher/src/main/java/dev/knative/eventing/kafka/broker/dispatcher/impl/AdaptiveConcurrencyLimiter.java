@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * This class limits the number of concurrent requests to a destination, adapting the limit to the observed latency
+ * and errors with an AIMD algorithm:
+ * <ul>
+ *   <li>a request completing successfully within {@link #LATENCY_TOLERANCE} times the no-load latency, while the
+ *   limit is in use, increases the limit by 1 / limit, so the limit grows by about 1 every round trip.</li>
+ *   <li>a failed request, or a request slower than {@link #LATENCY_TOLERANCE} times the no-load latency, multiplies
+ *   the limit by {@link #BACKOFF_RATIO}, once for the requests started with the same limit.</li>
+ * </ul>
+ * The no-load latency is the minimum latency of successful requests, estimated again every {@link #LATENCY_WINDOW}
+ * requests, so that it follows changes of the destination.
+ * <p>
+ * Requests over the limit are queued, and the limiter reports itself saturated until the queue is empty, so that the
+ * consumer can stop fetching records instead of queueing them.
+ * <p>
+ * This class is not thread safe, it must be used from the same context of the dispatcher.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+  /**
+   * Factor applied to the limit when the destination is congested.
+   */
+  static final double BACKOFF_RATIO = 0.9;
+
+  /**
+   * Ratio between the latency of a request and the no-load latency above which the destination is congested.
+   */
+  static final double LATENCY_TOLERANCE = 2.0;
+
+  /**
+   * Number of requests after which the no-load latency is estimated again.
+   */
+  static final int LATENCY_WINDOW = 256;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final Deque<Runnable> queue;
+
+  private double limit;
+  private int inFlight;
+  // Incremented every time the limit decreases, requests started before a decrease don't decrease the limit again.
+  private long epoch;
+  private long noLoadLatencyNanos;
+  private long windowMinLatencyNanos;
+  private int windowRequests;
+
+  /**
+   * All args constructor.
+   *
+   * @param minLimit     minimum number of concurrent requests.
+   * @param maxLimit     maximum number of concurrent requests.
+   * @param initialLimit initial number of concurrent requests.
+   */
+  public AdaptiveConcurrencyLimiter(final int minLimit, final int maxLimit, final int initialLimit) {
+    if (minLimit <= 0) {
+      throw new IllegalArgumentException("minLimit must be greater than 0, got " + minLimit);
+    }
+    if (maxLimit < minLimit) {
+      throw new IllegalArgumentException("maxLimit must be greater than or equal to minLimit, got " + maxLimit);
+    }
+
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+    this.queue = new ArrayDeque<>();
+    this.noLoadLatencyNanos = Long.MAX_VALUE;
+    this.windowMinLatencyNanos = Long.MAX_VALUE;
+  }
+
+  /**
+   * Execute the given request once the number of concurrent requests is below the limit.
+   *
+   * @param request request to execute.
+   * @param <T>     type of the result of the request.
+   * @return the result of the request.
+   */
+  public <T> Future<T> execute(final Supplier<Future<T>> request) {
+    if (this.queue.isEmpty() && this.inFlight < getLimit()) {
+      return run(request);
+    }
+    final Promise<T> promise = Promise.promise();
+    this.queue.add(() -> run(request).onComplete(promise));
+    return promise.future();
+  }
+
+  /**
+   * Drop the queued requests, their futures never complete.
+   */
+  public void clear() {
+    this.queue.clear();
+  }
+
+  /**
+   * @return true when requests are waiting for the number of concurrent requests to drop below the limit.
+   */
+  public boolean isSaturated() {
+    return !this.queue.isEmpty();
+  }
+
+  /**
+   * @return the current limit of concurrent requests.
+   */
+  public int getLimit() {
+    return (int) this.limit;
+  }
+
+  /**
+   * @return the number of requests in flight.
+   */
+  public int getInFlight() {
+    return this.inFlight;
+  }
+
+  /**
+   * @return the number of requests waiting to be executed.
+   */
+  public int getQueued() {
+    return this.queue.size();
+  }
+
+  private <T> Future<T> run(final Supplier<Future<T>> request) {
+    this.inFlight++;
+    final var epoch = this.epoch;
+    final var start = System.nanoTime();
+    return request.get().onComplete(ar -> {
+      final var inUse = this.inFlight * 2 >= this.limit;
+      this.inFlight--;
+      onRequestCompleted(System.nanoTime() - start, ar.failed(), inUse, epoch);
+      drain();
+    });
+  }
+
+  private void drain() {
+    while (!this.queue.isEmpty() && this.inFlight < getLimit()) {
+      this.queue.poll().run();
+    }
+  }
+
+  /* package visibility for test */
+  void onRequestCompleted(final long latencyNanos, final boolean failed, final boolean inUse, final long epoch) {
+    if (!failed) {
+      this.windowMinLatencyNanos = Math.min(this.windowMinLatencyNanos, latencyNanos);
+    }
+    if (++this.windowRequests >= LATENCY_WINDOW) {
+      this.noLoadLatencyNanos = this.windowMinLatencyNanos;
+      this.windowMinLatencyNanos = Long.MAX_VALUE;
+      this.windowRequests = 0;
+    }
+
+    final var noLoadLatency = Math.min(this.noLoadLatencyNanos, this.windowMinLatencyNanos);
+    final var congested = failed || latencyNanos > noLoadLatency * LATENCY_TOLERANCE;
+    if (congested) {
+      if (epoch == this.epoch) {
+        this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+        this.epoch++;
+      }
+    } else if (inUse) {
+      this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+    }
+  }
+
+  /* package visibility for test */
+  long getEpoch() {
+    return this.epoch;
+  }
+}
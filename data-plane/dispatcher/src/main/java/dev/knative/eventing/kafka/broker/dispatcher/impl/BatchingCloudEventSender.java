@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import dev.knative.eventing.kafka.broker.dispatcher.CloudEventSender;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.format.EventFormat;
+import io.cloudevents.jackson.JsonFormat;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.client.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
+
+/**
+ * This class implements a {@link CloudEventSender} that accumulates events into batches, and it sends each batch as a
+ * single request using the CloudEvents batched content mode.
+ * <p>
+ * A batch is sent when it reaches the maximum number of events or bytes, or when its first event has been waiting for
+ * the linger time. Every event of a batch completes with the outcome of the batch request, so that a failed batch is
+ * sent to the dead letter sink and the records of a batch are committed together.
+ * <p>
+ * The response of a batch is handed to the first event of the batch only, so that a reply is handled once, and batch
+ * responses are discarded since they can't be handled as a single event.
+ * <p>
+ * This class is not thread safe, it must be used from the same context of the dispatcher.
+ */
+public final class BatchingCloudEventSender implements CloudEventSender {
+
+  private static final Logger logger = LoggerFactory.getLogger(BatchingCloudEventSender.class);
+
+  private static final EventFormat FORMAT = new JsonFormat();
+
+  private final Vertx vertx;
+  private final WebClientCloudEventSender sender;
+  private final int maxEvents;
+  private final long maxBytes;
+  private final long lingerMs;
+
+  private Batch current;
+
+  /**
+   * All args constructor.
+   *
+   * @param vertx     Vert.x instance used to schedule linger timers.
+   * @param sender    sender of the batches.
+   * @param maxEvents maximum number of events of a batch.
+   * @param maxBytes  maximum size in bytes of a batch, an event bigger than this limit is sent in its own batch.
+   * @param lingerMs  maximum time in milliseconds an event waits for the batch to be sent.
+   */
+  public BatchingCloudEventSender(final Vertx vertx,
+                                  final WebClientCloudEventSender sender,
+                                  final int maxEvents,
+                                  final long maxBytes,
+                                  final long lingerMs) {
+    Objects.requireNonNull(vertx, "provide vertx");
+    Objects.requireNonNull(sender, "provide sender");
+    if (maxEvents <= 0 || maxBytes <= 0 || lingerMs <= 0) {
+      throw new IllegalArgumentException(String.format(
+        "maxEvents, maxBytes and lingerMs must be positive, got %d, %d, %d", maxEvents, maxBytes, lingerMs
+      ));
+    }
+
+    this.vertx = vertx;
+    this.sender = sender;
+    this.maxEvents = maxEvents;
+    this.maxBytes = maxBytes;
+    this.lingerMs = lingerMs;
+  }
+
+  @Override
+  public Future<HttpResponse<?>> send(final CloudEvent event) {
+    final byte[] serialized;
+    try {
+      serialized = FORMAT.serialize(event);
+    } catch (final RuntimeException ex) {
+      logger.error("failed to serialize event {}", keyValue("event", event), ex);
+      return Future.failedFuture(ex);
+    }
+
+    if (this.current != null && this.current.bytes.length() + serialized.length + 1 > this.maxBytes) {
+      flush();
+    }
+    if (this.current == null) {
+      final var batch = new Batch();
+      batch.timerId = this.vertx.setTimer(this.lingerMs, id -> {
+        if (this.current == batch) {
+          flush();
+        }
+      });
+      this.current = batch;
+    }
+
+    final var future = this.current.add(serialized);
+    if (this.current.size() >= this.maxEvents || this.current.bytes.length() >= this.maxBytes) {
+      flush();
+    }
+    return future;
+  }
+
+  private void flush() {
+    final var batch = this.current;
+    this.current = null;
+    this.vertx.cancelTimer(batch.timerId);
+
+    logger.debug("Sending batch {}", keyValue("batch.size", batch.size()));
+
+    this.sender
+      .sendBatch(batch.bytes.appendByte((byte) ']'), batch.size())
+      .onComplete(batch::complete);
+  }
+
+  @Override
+  public Future<Void> close() {
+    // Send what we have so far, the records have been already received.
+    if (this.current != null) {
+      flush();
+    }
+    return this.sender.close();
+  }
+
+  private static final class Batch {
+
+    private final Buffer bytes = Buffer.buffer().appendByte((byte) '[');
+    private final List<Promise<HttpResponse<?>>> promises = new ArrayList<>();
+    private long timerId;
+
+    private Future<HttpResponse<?>> add(final byte[] event) {
+      if (!this.promises.isEmpty()) {
+        this.bytes.appendByte((byte) ',');
+      }
+      this.bytes.appendBytes(event);
+
+      final Promise<HttpResponse<?>> promise = Promise.promise();
+      this.promises.add(promise);
+      return promise.future();
+    }
+
+    private int size() {
+      return this.promises.size();
+    }
+
+    private void complete(final AsyncResult<HttpResponse<?>> result) {
+      if (result.failed()) {
+        this.promises.forEach(p -> p.fail(result.cause()));
+        return;
+      }
+
+      var response = result.result();
+      final var contentType = response.getHeader(HttpHeaders.CONTENT_TYPE.toString());
+      if (contentType != null && contentType.startsWith(WebClientCloudEventSender.BATCH_CONTENT_TYPE)) {
+        logger.debug("Discarding batch response {}", keyValue("batch.size", size()));
+        response = null;
+      }
+
+      this.promises.get(0).complete(response);
+      for (int i = 1; i < this.promises.size(); i++) {
+        this.promises.get(i).complete(null);
+      }
+    }
+  }
+}
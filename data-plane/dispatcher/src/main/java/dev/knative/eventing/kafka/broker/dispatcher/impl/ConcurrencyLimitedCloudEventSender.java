@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import dev.knative.eventing.kafka.broker.dispatcher.CloudEventSender;
+import io.cloudevents.CloudEvent;
+import io.vertx.core.Future;
+import io.vertx.ext.web.client.HttpResponse;
+import java.util.Objects;
+
+/**
+ * This class implements a {@link CloudEventSender} that limits the number of concurrent requests of the given sender
+ * using an {@link AdaptiveConcurrencyLimiter}.
+ * <p>
+ * Events waiting for the limiter when the sender is closed are dropped, so that their records aren't committed.
+ */
+public final class ConcurrencyLimitedCloudEventSender implements CloudEventSender {
+
+  private final CloudEventSender sender;
+  private final AdaptiveConcurrencyLimiter limiter;
+
+  /**
+   * All args constructor.
+   *
+   * @param sender  sender.
+   * @param limiter limiter of the concurrent requests of {@code sender}.
+   */
+  public ConcurrencyLimitedCloudEventSender(final CloudEventSender sender, final AdaptiveConcurrencyLimiter limiter) {
+    Objects.requireNonNull(sender, "provide sender");
+    Objects.requireNonNull(limiter, "provide limiter");
+
+    this.sender = sender;
+    this.limiter = limiter;
+  }
+
+  @Override
+  public Future<HttpResponse<?>> send(final CloudEvent event) {
+    return this.limiter.execute(() -> this.sender.send(event));
+  }
+
+  @Override
+  public Future<Void> close() {
+    this.limiter.clear();
+    return this.sender.close();
+  }
+}
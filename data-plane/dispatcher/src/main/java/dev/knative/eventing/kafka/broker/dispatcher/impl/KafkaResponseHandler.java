@@ -16,14 +16,17 @@
 package dev.knative.eventing.kafka.broker.dispatcher.impl;
 
 import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
+import dev.knative.eventing.kafka.broker.core.KafkaProducerPool;
 import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
 import dev.knative.eventing.kafka.broker.core.tracing.TracingSpan;
 import dev.knative.eventing.kafka.broker.dispatcher.ResponseHandler;
 import io.cloudevents.CloudEvent;
 import io.cloudevents.http.vertx.VertxMessageFactory;
+import io.cloudevents.lang.Nullable;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
@@ -40,9 +43,12 @@ public final class KafkaResponseHandler implements ResponseHandler {
 
   private static final Logger logger = LoggerFactory.getLogger(KafkaResponseHandler.class);
 
+  private static final String SPEC_VERSION_HEADER = "ce-specversion";
+  private static final String CE_CONTENT_TYPE_PREFIX = "application/cloudevents";
+
   private final String topic;
   private final KafkaProducer<String, CloudEvent> producer;
-  private final AutoCloseable producerMeterBinder;
+  private final AsyncCloseable producerCloser;
 
   /**
    * All args constructor.
@@ -51,13 +57,30 @@ public final class KafkaResponseHandler implements ResponseHandler {
    * @param topic    topic to produce records.
    */
   public KafkaResponseHandler(final KafkaProducer<String, CloudEvent> producer, final String topic) {
+    this(producer, topic, closer(producer));
+  }
+
+  /**
+   * Create a response handler using a producer shared with other handlers, the producer is released when the handler
+   * is closed.
+   *
+   * @param producer pooled Kafka producer.
+   * @param topic    topic to produce records.
+   */
+  public KafkaResponseHandler(final KafkaProducerPool.Lease<String, CloudEvent> producer, final String topic) {
+    this(Objects.requireNonNull(producer, "provide producer").getProducer(), topic, producer);
+  }
+
+  private KafkaResponseHandler(final KafkaProducer<String, CloudEvent> producer,
+                               final String topic,
+                               final AsyncCloseable producerCloser) {
 
     Objects.requireNonNull(topic, "provide topic");
     Objects.requireNonNull(producer, "provide producer");
 
     this.topic = topic;
     this.producer = producer;
-    this.producerMeterBinder = Metrics.register(this.producer.unwrap());
+    this.producerCloser = producerCloser;
   }
 
   /**
@@ -67,29 +90,18 @@ public final class KafkaResponseHandler implements ResponseHandler {
    * @return a succeeded or failed future.
    */
   @Override
-  public Future<Void> handle(final HttpResponse<Buffer> response) {
+  public Future<Void> handle(final HttpResponse<?> response) {
+    // Most subscribers don't reply with an event, so skip the reader when it can't recognize the encoding anyway.
+    if (!hasEventEncoding(response)) {
+      return onNotEvent(response, null);
+    }
+
     CloudEvent event;
 
     try {
-      event = VertxMessageFactory.createReader(response).toEvent();
+      event = VertxMessageFactory.createReader(response.headers(), body(response)).toEvent();
     } catch (final Exception ex) {
-      if (maybeIsNotEvent(response)) {
-        if (logger.isDebugEnabled()) {
-          logger.debug(
-            "Response is not recognized as event, discarding it {} {} {}",
-            keyValue("response", response),
-            keyValue("response.body", response == null || response.body() == null ? "null" : response.body()),
-            keyValue("response.body.len",
-              response == null || response.body() == null ? "null" : response.body().length())
-          );
-        }
-        return Future.succeededFuture();
-      }
-
-      // When the sink returns a malformed event we return a failed future to avoid committing the message to Kafka.
-      return Future.failedFuture(
-        new IllegalStateException("Unable to decode response: unknown encoding and non empty response", ex)
-      );
+      return onNotEvent(response, ex);
     }
 
     if (event == null) {
@@ -103,16 +115,67 @@ public final class KafkaResponseHandler implements ResponseHandler {
       .mapEmpty();
   }
 
-  private static boolean maybeIsNotEvent(final HttpResponse<Buffer> response) {
+  private static Future<Void> onNotEvent(final HttpResponse<?> response, @Nullable final Exception cause) {
+    if (maybeIsNotEvent(response)) {
+      if (logger.isDebugEnabled()) {
+        final var body = response == null ? null : body(response);
+        logger.debug(
+          "Response is not recognized as event, discarding it {} {} {}",
+          keyValue("response", response),
+          keyValue("response.body", body == null ? "null" : body),
+          keyValue("response.body.len", body == null ? "null" : body.length())
+        );
+      }
+      return Future.succeededFuture();
+    }
+
+    // When the sink returns a malformed event we return a failed future to avoid committing the message to Kafka.
+    return Future.failedFuture(
+      new IllegalStateException("Unable to decode response: unknown encoding and non empty response", cause)
+    );
+  }
+
+  private static boolean hasEventEncoding(final HttpResponse<?> response) {
+    if (response == null) {
+      return false;
+    }
+    // Binary events have the spec version header, structured events have a CloudEvents content type.
+    if (response.headers().contains(SPEC_VERSION_HEADER)) {
+      return true;
+    }
+    final var contentType = response.headers().get(HttpHeaders.CONTENT_TYPE);
+    return contentType != null && contentType.regionMatches(true, 0, CE_CONTENT_TYPE_PREFIX, 0,
+      CE_CONTENT_TYPE_PREFIX.length());
+  }
+
+  private static boolean maybeIsNotEvent(final HttpResponse<?> response) {
     // This checks whether there is something in the body or not, though binary events can contain only headers and they
     // are valid Cloud Events.
-    return response == null || response.body() == null || response.body().length() <= 0;
+    if (response == null) {
+      return true;
+    }
+    final var body = body(response);
+    return body == null || body.length() <= 0;
+  }
+
+  @Nullable
+  private static Buffer body(final HttpResponse<?> response) {
+    // Responses of senders discarding the body don't have a body.
+    final Object body = response.body();
+    return body instanceof Buffer ? (Buffer) body : null;
   }
 
   @Override
   public Future<Void> close() {
-    return CompositeFuture.all(
-      this.producer.close(),
+    return this.producerCloser.close();
+  }
+
+  private static AsyncCloseable closer(final KafkaProducer<String, CloudEvent> producer) {
+    Objects.requireNonNull(producer, "provide producer");
+
+    final var producerMeterBinder = Metrics.register(producer.unwrap());
+    return () -> CompositeFuture.all(
+      producer.close(),
       AsyncCloseable.wrapAutoCloseable(producerMeterBinder).close()
     ).mapEmpty();
   }
@@ -21,11 +21,13 @@ import dev.knative.eventing.kafka.broker.dispatcher.Filter;
 import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher;
 import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcherListener;
 import dev.knative.eventing.kafka.broker.dispatcher.ResponseHandler;
+import dev.knative.eventing.kafka.broker.dispatcher.RetryScheduler;
 import io.cloudevents.CloudEvent;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.kafka.client.common.tracing.ConsumerTracer;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 import java.util.Objects;
@@ -48,6 +50,7 @@ public class RecordDispatcherImpl implements RecordDispatcher {
   private final Filter filter;
   private final Function<KafkaConsumerRecord<String, CloudEvent>, Future<Void>> subscriberSender;
   private final Function<KafkaConsumerRecord<String, CloudEvent>, Future<Void>> dlsSender;
+  private final RetryScheduler retryScheduler;
   private final RecordDispatcherListener recordDispatcherListener;
   private final AsyncCloseable closeable;
   private final ConsumerTracer consumerTracer;
@@ -69,17 +72,50 @@ public class RecordDispatcherImpl implements RecordDispatcher {
     final ResponseHandler responseHandler,
     final RecordDispatcherListener recordDispatcherListener,
     final ConsumerTracer consumerTracer) {
+    this(
+      filter,
+      subscriberSender,
+      deadLetterSinkSender,
+      responseHandler,
+      recordDispatcherListener,
+      consumerTracer,
+      RetryScheduler.noop()
+    );
+  }
+
+  /**
+   * Create a dispatcher that schedules a later delivery attempt of records the subscriber fails to receive, records are
+   * sent to the dead letter sink only when {@code retryScheduler} doesn't schedule them.
+   *
+   * @param filter                   event filter
+   * @param subscriberSender         sender to trigger subscriber
+   * @param deadLetterSinkSender     sender to dead letter sink
+   * @param responseHandler          handler of the response from {@code subscriberSender}
+   * @param recordDispatcherListener hook receiver {@link RecordDispatcherListener}. It allows to plug in custom offset
+   * @param consumerTracer           consumer tracer
+   * @param retryScheduler           scheduler of delivery attempts
+   */
+  public RecordDispatcherImpl(
+    final Filter filter,
+    final CloudEventSender subscriberSender,
+    final CloudEventSender deadLetterSinkSender,
+    final ResponseHandler responseHandler,
+    final RecordDispatcherListener recordDispatcherListener,
+    final ConsumerTracer consumerTracer,
+    final RetryScheduler retryScheduler) {
     Objects.requireNonNull(filter, "provide filter");
     Objects.requireNonNull(subscriberSender, "provide subscriberSender");
     Objects.requireNonNull(deadLetterSinkSender, "provide deadLetterSinkSender");
     Objects.requireNonNull(recordDispatcherListener, "provide offsetStrategy");
     Objects.requireNonNull(responseHandler, "provide sinkResponseHandler");
+    Objects.requireNonNull(retryScheduler, "provide retryScheduler");
 
     this.filter = filter;
     this.subscriberSender = composeSenderAndSinkHandler(subscriberSender, responseHandler, "subscriber");
     this.dlsSender = composeSenderAndSinkHandler(deadLetterSinkSender, responseHandler, "dead letter sink");
+    this.retryScheduler = retryScheduler;
     this.recordDispatcherListener = recordDispatcherListener;
-    this.closeable = AsyncCloseable.compose(responseHandler, deadLetterSinkSender, subscriberSender);
+    this.closeable = AsyncCloseable.compose(responseHandler, deadLetterSinkSender, subscriberSender, retryScheduler);
     this.consumerTracer = consumerTracer;
   }
 
@@ -142,7 +178,14 @@ public class RecordDispatcherImpl implements RecordDispatcher {
     recordDispatcherListener.recordReceived(record)
       .onSuccess(v -> {
         // Execute filtering
-        if (filter.test(record.value())) {
+        final boolean matches;
+        try {
+          matches = filter.test(record.value());
+        } catch (final RuntimeException ex) {
+          onFilterFailure(record, ex, finalProm);
+          return;
+        }
+        if (matches) {
           onFilterMatching(record, finalProm);
         } else {
           onFilterNotMatching(record, finalProm);
@@ -165,6 +208,15 @@ public class RecordDispatcherImpl implements RecordDispatcher {
       .onComplete(finalProm);
   }
 
+  private void onFilterFailure(final KafkaConsumerRecord<String, CloudEvent> record,
+                               final Throwable cause,
+                               final Promise<Void> finalProm) {
+    // Events are decoded lazily, so an invalid attribute makes the filter fail.
+    // Retrying won't fix the event, send it to the dead letter sink.
+    logError("Failed to filter event", record, cause);
+    onRetryNotScheduled(record, finalProm);
+  }
+
   private void onSubscriberSuccess(final KafkaConsumerRecord<String, CloudEvent> record,
                                    final Promise<Void> finalProm) {
     logDebug("Successfully sent event to subscriber", record);
@@ -174,6 +226,20 @@ public class RecordDispatcherImpl implements RecordDispatcher {
 
   private void onSubscriberFailure(final KafkaConsumerRecord<String, CloudEvent> record,
                                    final Promise<Void> finalProm) {
+    retryScheduler.schedule(record)
+      .onSuccess(v -> onRetryScheduled(record, finalProm))
+      .onFailure(ex -> onRetryNotScheduled(record, finalProm));
+  }
+
+  private void onRetryScheduled(final KafkaConsumerRecord<String, CloudEvent> record,
+                                final Promise<Void> finalProm) {
+    logDebug("Scheduled a new delivery attempt", record);
+    recordDispatcherListener.successfullyScheduledForRetry(record)
+      .onComplete(finalProm);
+  }
+
+  private void onRetryNotScheduled(final KafkaConsumerRecord<String, CloudEvent> record,
+                                   final Promise<Void> finalProm) {
     dlsSender.apply(record)
       .onSuccess(v -> onDeadLetterSinkSuccess(record, finalProm))
       .onFailure(ex -> onDeadLetterSinkFailure(record, ex, finalProm));
@@ -195,7 +261,7 @@ public class RecordDispatcherImpl implements RecordDispatcher {
 
   private static Function<KafkaConsumerRecord<String, CloudEvent>, Future<Void>> composeSenderAndSinkHandler(
     CloudEventSender sender, ResponseHandler sinkHandler, String senderType) {
-    return rec -> sender.send(rec.value())
+    return rec -> send(sender, rec.value())
       .onFailure(ex -> logError("Failed to send event to " + senderType, rec, ex))
       .compose(res ->
         sinkHandler.handle(res)
@@ -203,6 +269,15 @@ public class RecordDispatcherImpl implements RecordDispatcher {
       );
   }
 
+  private static Future<HttpResponse<?>> send(final CloudEventSender sender, final CloudEvent event) {
+    try {
+      return sender.send(event);
+    } catch (final RuntimeException ex) {
+      // Reading an invalid attribute of a lazily decoded event throws.
+      return Future.failedFuture(ex);
+    }
+  }
+
   private static void logError(
     final String msg,
     final KafkaConsumerRecord<String, CloudEvent> record,
@@ -241,6 +316,12 @@ public class RecordDispatcherImpl implements RecordDispatcher {
   }
 
   public Future<Void> close() {
-    return this.closeable.close();
+    // The listener might need to flush some pending work (e.g. offsets to commit),
+    // so we close it first, and then we close everything else.
+    return this.recordDispatcherListener.close()
+      .compose(
+        v -> this.closeable.close(),
+        cause -> this.closeable.close().compose(v -> Future.failedFuture(cause))
+      );
   }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
+import dev.knative.eventing.kafka.broker.core.KafkaProducerPool;
+import dev.knative.eventing.kafka.broker.dispatcher.RetryScheduler;
+import io.cloudevents.CloudEvent;
+import io.micrometer.core.instrument.Counter;
+import io.vertx.core.Future;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.producer.KafkaProducer;
+import io.vertx.kafka.client.producer.KafkaProducerRecord;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Function;
+import org.apache.kafka.common.header.Header;
+
+/**
+ * This class implements a {@link RetryScheduler} that produces the records to retry to a delay topic, together with
+ * the number of the attempt and the time the attempt is due, in the {@link #RETRY_ATTEMPT_HEADER} and
+ * {@link #RETRY_DUE_HEADER} headers.
+ * <p>
+ * Records of the delay topic are consumed by a {@link dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.DelayedRecordDispatcher},
+ * which dispatches them once they're due, so that the original partition keeps moving while records wait for their
+ * backoff.
+ */
+public final class RetryTopicScheduler implements RetryScheduler {
+
+  /**
+   * Header containing the number of the delivery attempt of a record of the delay topic, starting from 1 for the first
+   * retry.
+   */
+  public static final String RETRY_ATTEMPT_HEADER = "kn-retry-attempt";
+
+  /**
+   * Header containing the time, in milliseconds since the epoch, after which a record of the delay topic is due.
+   */
+  public static final String RETRY_DUE_HEADER = "kn-retry-due";
+
+  private final KafkaProducer<String, CloudEvent> producer;
+  private final String topic;
+  private final int maxRetries;
+  private final Function<Integer, Long> backoff;
+  private final Counter scheduledCounter;
+  private final Counter exhaustedCounter;
+  private final AsyncCloseable producerCloser;
+
+  /**
+   * Create a retry scheduler using a producer shared with other components, the producer is released when the
+   * scheduler is closed.
+   *
+   * @param producer         pooled Kafka producer.
+   * @param topic            delay topic.
+   * @param maxRetries       maximum number of retries of a record.
+   * @param backoff          function returning the delay in milliseconds of the given attempt.
+   * @param scheduledCounter counter of the records scheduled for a new attempt.
+   * @param exhaustedCounter counter of the records with no attempts left.
+   */
+  public RetryTopicScheduler(final KafkaProducerPool.Lease<String, CloudEvent> producer,
+                             final String topic,
+                             final int maxRetries,
+                             final Function<Integer, Long> backoff,
+                             final Counter scheduledCounter,
+                             final Counter exhaustedCounter) {
+    this(
+      Objects.requireNonNull(producer, "provide producer").getProducer(),
+      topic,
+      maxRetries,
+      backoff,
+      scheduledCounter,
+      exhaustedCounter,
+      producer
+    );
+  }
+
+  /**
+   * Create a retry scheduler using the given producer, the producer isn't closed when the scheduler is closed.
+   *
+   * @param producer         Kafka producer.
+   * @param topic            delay topic.
+   * @param maxRetries       maximum number of retries of a record.
+   * @param backoff          function returning the delay in milliseconds of the given attempt.
+   * @param scheduledCounter counter of the records scheduled for a new attempt.
+   * @param exhaustedCounter counter of the records with no attempts left.
+   */
+  public RetryTopicScheduler(final KafkaProducer<String, CloudEvent> producer,
+                             final String topic,
+                             final int maxRetries,
+                             final Function<Integer, Long> backoff,
+                             final Counter scheduledCounter,
+                             final Counter exhaustedCounter) {
+    this(producer, topic, maxRetries, backoff, scheduledCounter, exhaustedCounter, Future::succeededFuture);
+  }
+
+  private RetryTopicScheduler(final KafkaProducer<String, CloudEvent> producer,
+                              final String topic,
+                              final int maxRetries,
+                              final Function<Integer, Long> backoff,
+                              final Counter scheduledCounter,
+                              final Counter exhaustedCounter,
+                              final AsyncCloseable producerCloser) {
+    Objects.requireNonNull(producer, "provide producer");
+    Objects.requireNonNull(topic, "provide topic");
+    Objects.requireNonNull(backoff, "provide backoff");
+    Objects.requireNonNull(scheduledCounter, "provide scheduledCounter");
+    Objects.requireNonNull(exhaustedCounter, "provide exhaustedCounter");
+    if (maxRetries <= 0) {
+      throw new IllegalArgumentException("maxRetries must be greater than 0, got " + maxRetries);
+    }
+
+    this.producer = producer;
+    this.topic = topic;
+    this.maxRetries = maxRetries;
+    this.backoff = backoff;
+    this.scheduledCounter = scheduledCounter;
+    this.exhaustedCounter = exhaustedCounter;
+    this.producerCloser = producerCloser;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Future<Void> schedule(final KafkaConsumerRecord<String, CloudEvent> record) {
+    final var attempt = attemptOf(record) + 1;
+    if (attempt > this.maxRetries) {
+      this.exhaustedCounter.increment();
+      return Future.failedFuture("Retries exhausted after " + this.maxRetries + " attempts");
+    }
+
+    final var due = System.currentTimeMillis() + Math.max(0, this.backoff.apply(attempt));
+    final var delayed = KafkaProducerRecord.create(this.topic, record.key(), record.value())
+      .addHeader(RETRY_ATTEMPT_HEADER, String.valueOf(attempt))
+      .addHeader(RETRY_DUE_HEADER, String.valueOf(due));
+
+    return this.producer.send(delayed)
+      .onSuccess(m -> this.scheduledCounter.increment())
+      .mapEmpty();
+  }
+
+  @Override
+  public Future<Void> close() {
+    return this.producerCloser.close();
+  }
+
+  /**
+   * @param record record.
+   * @return the number of the delivery attempt of the given record, 0 for records not coming from a delay topic.
+   */
+  public static int attemptOf(final KafkaConsumerRecord<?, ?> record) {
+    return (int) longHeader(record, RETRY_ATTEMPT_HEADER, 0);
+  }
+
+  /**
+   * @param record record.
+   * @return the time, in milliseconds since the epoch, after which the given record is due, 0 for records not coming
+   * from a delay topic.
+   */
+  public static long dueOf(final KafkaConsumerRecord<?, ?> record) {
+    return longHeader(record, RETRY_DUE_HEADER, 0);
+  }
+
+  private static long longHeader(final KafkaConsumerRecord<?, ?> record, final String key, final long defaultValue) {
+    final var r = record.record();
+    if (r == null) {
+      return defaultValue;
+    }
+    final Header header = r.headers().lastHeader(key);
+    if (header == null || header.value() == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+    } catch (final NumberFormatException ex) {
+      return defaultValue;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class limits the rate of requests to a destination with a token bucket.
+ * <p>
+ * The bucket holds up to one second of tokens and it's refilled continuously at the given rate, every request takes a
+ * token. Requests finding the bucket empty are queued and executed by a timer as soon as tokens are available again,
+ * and the limiter reports itself saturated until the queue is empty, so that the consumer can stop fetching records
+ * instead of queueing them.
+ * <p>
+ * This class is not thread safe, it must be used from the same context of the dispatcher.
+ */
+public final class TokenBucketRateLimiter {
+
+  private final Vertx vertx;
+  private final int permitsPerSecond;
+  private final LongSupplier nanoClock;
+  private final Deque<Runnable> queue;
+
+  private double tokens;
+  private long lastRefillNanos;
+  private long timerId;
+
+  /**
+   * All args constructor.
+   *
+   * @param vertx            vertx instance.
+   * @param permitsPerSecond maximum number of requests per second.
+   */
+  public TokenBucketRateLimiter(final Vertx vertx, final int permitsPerSecond) {
+    this(vertx, permitsPerSecond, System::nanoTime);
+  }
+
+  /* package visibility for test */
+  TokenBucketRateLimiter(final Vertx vertx, final int permitsPerSecond, final LongSupplier nanoClock) {
+    Objects.requireNonNull(vertx, "provide vertx");
+    Objects.requireNonNull(nanoClock, "provide nanoClock");
+    if (permitsPerSecond <= 0) {
+      throw new IllegalArgumentException("permitsPerSecond must be greater than 0, got " + permitsPerSecond);
+    }
+
+    this.vertx = vertx;
+    this.permitsPerSecond = permitsPerSecond;
+    this.nanoClock = nanoClock;
+    this.queue = new ArrayDeque<>();
+    this.tokens = permitsPerSecond;
+    this.lastRefillNanos = nanoClock.getAsLong();
+    this.timerId = -1;
+  }
+
+  /**
+   * Execute the given request once a token is available.
+   *
+   * @param request request to execute.
+   * @param <T>     type of the result of the request.
+   * @return the result of the request.
+   */
+  public <T> Future<T> execute(final Supplier<Future<T>> request) {
+    refill();
+    if (this.queue.isEmpty() && this.tokens >= 1) {
+      this.tokens--;
+      return request.get();
+    }
+    final Promise<T> promise = Promise.promise();
+    this.queue.add(() -> request.get().onComplete(promise));
+    scheduleDrain();
+    return promise.future();
+  }
+
+  /**
+   * Drop the queued requests, their futures never complete.
+   */
+  public void clear() {
+    this.queue.clear();
+    if (this.timerId != -1) {
+      this.vertx.cancelTimer(this.timerId);
+      this.timerId = -1;
+    }
+  }
+
+  /**
+   * @return true when requests are waiting for tokens.
+   */
+  public boolean isSaturated() {
+    return !this.queue.isEmpty();
+  }
+
+  /**
+   * @return the maximum number of requests per second.
+   */
+  public int getPermitsPerSecond() {
+    return this.permitsPerSecond;
+  }
+
+  /**
+   * @return the number of requests waiting for tokens.
+   */
+  public int getQueued() {
+    return this.queue.size();
+  }
+
+  private void drain() {
+    this.timerId = -1;
+    refill();
+    while (!this.queue.isEmpty() && this.tokens >= 1) {
+      this.tokens--;
+      this.queue.poll().run();
+    }
+    if (!this.queue.isEmpty()) {
+      scheduleDrain();
+    }
+  }
+
+  private void scheduleDrain() {
+    if (this.timerId != -1) {
+      return;
+    }
+    final var waitNanos = (long) Math.ceil((1 - this.tokens) * TimeUnit.SECONDS.toNanos(1) / this.permitsPerSecond);
+    // Vert.x timers have a resolution of a millisecond, and they can't be shorter than a millisecond.
+    final var waitMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    this.timerId = this.vertx.setTimer(waitMs, v -> drain());
+  }
+
+  private void refill() {
+    final var now = this.nanoClock.getAsLong();
+    final var elapsedNanos = now - this.lastRefillNanos;
+    this.lastRefillNanos = now;
+    this.tokens = Math.min(
+      this.permitsPerSecond,
+      this.tokens + (double) elapsedNanos * this.permitsPerSecond / TimeUnit.SECONDS.toNanos(1)
+    );
+  }
+
+  /* package visibility for test */
+  double getTokens() {
+    return this.tokens;
+  }
+}
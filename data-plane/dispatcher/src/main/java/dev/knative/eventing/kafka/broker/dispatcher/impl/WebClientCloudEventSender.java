@@ -17,17 +17,25 @@ package dev.knative.eventing.kafka.broker.dispatcher.impl;
 
 import dev.knative.eventing.kafka.broker.core.tracing.TracingSpan;
 import dev.knative.eventing.kafka.broker.dispatcher.CloudEventSender;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEvent;
 import io.cloudevents.CloudEvent;
 import io.cloudevents.http.vertx.VertxMessageFactory;
+import io.cloudevents.lang.Nullable;
 import io.cloudevents.rw.CloudEventRWException;
+import io.netty.buffer.Unpooled;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.codec.BodyCodec;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,9 +45,17 @@ public final class WebClientCloudEventSender implements CloudEventSender {
 
   private static final Logger logger = LoggerFactory.getLogger(WebClientCloudEventSender.class);
 
-  private final WebClient client;
+  /**
+   * Content type of a batch of events, see the CloudEvents JSON event format specification.
+   */
+  public static final String BATCH_CONTENT_TYPE = "application/cloudevents-batch+json";
+
+  private static final String HTTP_CE_PREFIX = "ce-";
+
+  private final WebClientRegistry.Lease client;
   private final CircuitBreaker circuitBreaker;
   private final String target;
+  private final boolean discardResponseBody;
 
   /**
    * All args constructor.
@@ -49,6 +65,38 @@ public final class WebClientCloudEventSender implements CloudEventSender {
    * @param target         subscriber URI
    */
   public WebClientCloudEventSender(final WebClient client, final CircuitBreaker circuitBreaker, final String target) {
+    this(WebClientRegistry.Lease.of(Objects.requireNonNull(client, "provide client")), circuitBreaker, target);
+  }
+
+  /**
+   * Create a sender using a client shared with other senders, the client is released when the sender is closed.
+   *
+   * @param client         shared http client.
+   * @param circuitBreaker circuit breaker
+   * @param target         subscriber URI
+   */
+  public WebClientCloudEventSender(final WebClientRegistry.Lease client,
+                                   final CircuitBreaker circuitBreaker,
+                                   final String target) {
+    this(client, circuitBreaker, target, false);
+  }
+
+  /**
+   * Create a sender using a client shared with other senders, the client is released when the sender is closed.
+   * <p>
+   * When {@code discardResponseBody} is true, the body of responses isn't read and responses have a null body, so
+   * that the response isn't buffered when nobody is going to handle it. Events written by the HTTP binding, because
+   * they can't be passed through as they're stored in Kafka, are sent with a request reading the body anyway.
+   *
+   * @param client              shared http client.
+   * @param circuitBreaker      circuit breaker
+   * @param target              subscriber URI
+   * @param discardResponseBody whether to discard the body of responses.
+   */
+  public WebClientCloudEventSender(final WebClientRegistry.Lease client,
+                                   final CircuitBreaker circuitBreaker,
+                                   final String target,
+                                   final boolean discardResponseBody) {
     Objects.requireNonNull(client, "provide client");
     if (target == null || target.equals("") || !URI.create(target).isAbsolute()) {
       throw new IllegalArgumentException("provide a valid target");
@@ -58,11 +106,17 @@ public final class WebClientCloudEventSender implements CloudEventSender {
     this.client = client;
     this.target = target;
     this.circuitBreaker = circuitBreaker;
+    this.discardResponseBody = discardResponseBody;
   }
 
   @Override
-  public Future<HttpResponse<Buffer>> send(CloudEvent event) {
-    TracingSpan.decorateCurrentWithEvent(event);
+  public Future<HttpResponse<?>> send(CloudEvent event) {
+    try {
+      TracingSpan.decorateCurrentWithEvent(event);
+    } catch (final CloudEventRWException e) {
+      logger.error("failed to read event attributes {}", keyValue("subscriberURI", target), e);
+      return Future.failedFuture(e);
+    }
 
     return circuitBreaker.execute(breaker -> {
       try {
@@ -74,15 +128,111 @@ public final class WebClientCloudEventSender implements CloudEventSender {
     });
   }
 
-  private void send(final CloudEvent event, final Promise<HttpResponse<Buffer>> breaker) {
-    VertxMessageFactory
-      .createWriter(client.postAbs(target))
-      .writeBinary(event)
-      .onFailure(breaker::tryFail)
+  /**
+   * Send the given batch of events as a single request, using the CloudEvents batched content mode.
+   *
+   * @param batch  JSON array of events in structured mode.
+   * @param events number of events in the batch.
+   * @return a successful future or a failed future.
+   */
+  public Future<HttpResponse<?>> sendBatch(final Buffer batch, final int events) {
+    return circuitBreaker.execute(breaker -> onResponse(
+      newRequest()
+        .putHeader(HttpHeaders.CONTENT_TYPE.toString(), BATCH_CONTENT_TYPE)
+        .sendBuffer(batch),
+      breaker,
+      response -> logger.error("failed to send batch to subscriber {} {} {}",
+        keyValue("target", target),
+        keyValue("statusCode", response.statusCode()),
+        keyValue("batch.size", events)
+      )
+    ));
+  }
+
+  private void send(final CloudEvent event, final Promise<HttpResponse<?>> breaker) {
+    if (event instanceof LazyCloudEvent && sendPassThrough((LazyCloudEvent) event, breaker)) {
+      return;
+    }
+    onResponse(
+      VertxMessageFactory
+        .createWriter(client.getClient().postAbs(target))
+        .writeBinary(event),
+      breaker,
+      response -> logError(event, response)
+    );
+  }
+
+  private boolean sendPassThrough(final LazyCloudEvent event, final Promise<HttpResponse<?>> breaker) {
+    final var request = newRequest();
+    for (final var header : event.getRecordHeaders()) {
+      final String name;
+      final boolean safe;
+      if (header.key().startsWith(LazyCloudEvent.CE_PREFIX)) {
+        name = HTTP_CE_PREFIX + header.key().substring(LazyCloudEvent.CE_PREFIX.length());
+        safe = isHeaderSafe(header.value(), false);
+      } else if (header.key().equals(LazyCloudEvent.CONTENT_TYPE_HEADER)) {
+        name = HttpHeaders.CONTENT_TYPE.toString();
+        safe = isHeaderSafe(header.value(), true);
+      } else {
+        continue;
+      }
+      if (!safe) {
+        // The value needs to be percent-encoded, let the HTTP binding write it.
+        return false;
+      }
+      request.putHeader(name, new String(header.value(), StandardCharsets.US_ASCII));
+    }
+
+    onResponse(send(request, event.getRecordValue()), breaker, response -> logError(event, response));
+    return true;
+  }
+
+  private static <T> Future<HttpResponse<T>> send(final HttpRequest<T> request, @Nullable final byte[] value) {
+    if (value == null || value.length == 0) {
+      return request.send();
+    }
+    // Wrap the record value, so that the payload isn't copied.
+    return request.sendBuffer(Buffer.buffer(Unpooled.wrappedBuffer(value)));
+  }
+
+  private HttpRequest<?> newRequest() {
+    final var request = client.getClient().postAbs(target);
+    if (!discardResponseBody) {
+      return request;
+    }
+    // BodyCodec.none() discards the body as it's received, so the body of responses is always null.
+    return request.as(BodyCodec.none());
+  }
+
+  private static boolean isHeaderSafe(final byte[] value, final boolean allowSpaces) {
+    if (value == null) {
+      return false;
+    }
+    for (final byte b : value) {
+      if (b == ' ' && allowSpaces) {
+        continue;
+      }
+      // Printable ASCII characters, except for double quote and percent, see the HTTP protocol binding.
+      if (b < 0x21 || b > 0x7E || b == '"' || b == '%') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private <T> void onResponse(final Future<HttpResponse<T>> request,
+                              final Promise<HttpResponse<?>> breaker,
+                              final Consumer<HttpResponse<?>> errorLogger) {
+    request
+      .onFailure(cause -> {
+        client.requestFailed(cause);
+        breaker.tryFail(cause);
+      })
       .onSuccess(response -> {
+        client.requestSucceeded();
 
         if (response.statusCode() >= 300 || response.statusCode() < 200) {
-          logError(event, response);
+          errorLogger.accept(response);
           // TODO determine which status codes are retryable
           //  (channels -> https://github.com/knative/eventing/issues/2411)
           breaker.tryFail("response status code is not 2xx - got: " + response.statusCode());
@@ -93,7 +243,7 @@ public final class WebClientCloudEventSender implements CloudEventSender {
       });
   }
 
-  private void logError(final CloudEvent event, final HttpResponse<Buffer> response) {
+  private void logError(final CloudEvent event, final HttpResponse<?> response) {
     if (logger.isDebugEnabled()) {
       logger.error("failed to send event to subscriber {} {} {}",
         keyValue("target", target),
@@ -111,7 +261,6 @@ public final class WebClientCloudEventSender implements CloudEventSender {
   @Override
   public Future<Void> close() {
     this.circuitBreaker.close();
-    this.client.close();
-    return Future.succeededFuture();
+    return this.client.close();
   }
 }
@@ -0,0 +1,322 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
+import dev.knative.eventing.kafka.broker.core.utils.ReferenceCounter;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
+
+/**
+ * This class implements a thread safe registry of {@link WebClient}, shared by every target with the same scheme,
+ * host and port.
+ * <p>
+ * Targets on the same host share the same connection pool, so the maximum number of connections of the given
+ * {@link WebClientOptions} ({@link WebClientOptions#getMaxPoolSize()}) is a per host limit. Clients are reference
+ * counted, and a client is closed only when every sender using it has released it.
+ * <p>
+ * Events are delivered using HTTP/2 to every host when the given options use {@link HttpVersion#HTTP_2}, or to the
+ * given HTTP/2 hosts otherwise. HTTP/2 hosts use TLS ALPN, for https targets, and prior knowledge h2c, for http
+ * targets. Since with prior knowledge there is no protocol negotiation, a host falls back to HTTP/1.1 when its first
+ * HTTP/2 connection fails with a protocol error.
+ */
+public final class WebClientRegistry {
+
+  private static final Logger logger = LoggerFactory.getLogger(WebClientRegistry.class);
+
+  private static final String CONNECTION_CLOSED_MESSAGE = "Connection was closed";
+
+  private final Vertx vertx;
+  private final WebClientOptions options;
+  private final Set<String> http2Hosts;
+
+  // scheme://host:port -> client
+  // Guarded by this.
+  private final Map<String, ReferenceCounter<HostClient>> clientReferences;
+
+  /**
+   * Create a registry delivering events using the protocol of the given options.
+   *
+   * @param vertx   Vert.x instance used to create clients.
+   * @param options options of every client.
+   */
+  public WebClientRegistry(final Vertx vertx, final WebClientOptions options) {
+    this(vertx, options, Set.of());
+  }
+
+  /**
+   * All args constructor.
+   *
+   * @param vertx      Vert.x instance used to create clients.
+   * @param options    options of every client.
+   * @param http2Hosts hosts to deliver events to using HTTP/2, a host starting with a dot matches every sub domain.
+   */
+  public WebClientRegistry(final Vertx vertx, final WebClientOptions options, final Set<String> http2Hosts) {
+    Objects.requireNonNull(vertx, "provide vertx");
+    Objects.requireNonNull(options, "provide options");
+    Objects.requireNonNull(http2Hosts, "provide http2Hosts");
+
+    this.vertx = vertx;
+    this.options = options;
+    this.http2Hosts = http2Hosts;
+    this.clientReferences = new HashMap<>();
+  }
+
+  /**
+   * Acquire the client to use for the given target.
+   *
+   * @param target absolute target URI.
+   * @return a lease holding the client.
+   */
+  public Lease acquire(final String target) {
+    final var uri = uri(target);
+    final var key = key(uri);
+
+    final HostClient client;
+    synchronized (this) {
+      final var rc = this.clientReferences.computeIfAbsent(key, k -> new ReferenceCounter<>(createClient(k, uri)));
+      rc.increment();
+      client = rc.getValue();
+    }
+
+    return new Lease(this, key, client);
+  }
+
+  /**
+   * @return the number of distinct clients currently in use.
+   */
+  public synchronized int size() {
+    return this.clientReferences.size();
+  }
+
+  private synchronized void release(final String key) {
+    final var rc = this.clientReferences.get(key);
+    if (rc == null || !rc.decrementAndCheck()) {
+      return;
+    }
+    // Nobody is referring to this client anymore, clean it up and close it
+    this.clientReferences.remove(key);
+    rc.getValue().close();
+    logger.debug("Closed web client {}", keyValue("host", key));
+  }
+
+  private HostClient createClient(final String key, final URI uri) {
+    final var isHttps = "https".equalsIgnoreCase(uri.getScheme());
+    final Supplier<WebClient> http1 = () -> WebClient.create(
+      this.vertx,
+      new WebClientOptions(this.options).setProtocolVersion(HttpVersion.HTTP_1_1)
+    );
+
+    if (this.options.getProtocolVersion() != HttpVersion.HTTP_2 && !isHttp2Host(uri.getHost())) {
+      logger.debug("Creating web client {} {}", keyValue("host", key), keyValue("protocol", HttpVersion.HTTP_1_1));
+      return new HostClient(key, WebClient.create(this.vertx, new WebClientOptions(this.options)), null);
+    }
+
+    final var http2Options = new WebClientOptions(this.options).setProtocolVersion(HttpVersion.HTTP_2);
+    if (isHttps) {
+      // ALPN negotiates the protocol, so servers not supporting HTTP/2 get HTTP/1.1 requests.
+      http2Options.setUseAlpn(true);
+    } else if (this.options.getProtocolVersion() != HttpVersion.HTTP_2) {
+      // Hosts opted in for HTTP/2 use prior knowledge, the upgrade is configurable only dispatcher-wide.
+      http2Options.setHttp2ClearTextUpgrade(false);
+    }
+
+    final var priorKnowledge = !isHttps && !http2Options.isHttp2ClearTextUpgrade();
+    logger.debug("Creating web client {} {} {}",
+      keyValue("host", key),
+      keyValue("protocol", HttpVersion.HTTP_2),
+      keyValue("priorKnowledge", priorKnowledge)
+    );
+    return new HostClient(key, WebClient.create(this.vertx, http2Options), priorKnowledge ? http1 : null);
+  }
+
+  private boolean isHttp2Host(final String host) {
+    final var h = host.toLowerCase();
+    for (final var http2Host : this.http2Hosts) {
+      if (http2Host.startsWith(".") ? h.endsWith(http2Host) : h.equals(http2Host)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static String key(final String target) {
+    return key(uri(target));
+  }
+
+  private static String key(final URI uri) {
+    final var scheme = uri.getScheme().toLowerCase();
+    final var port = uri.getPort() != -1 ? uri.getPort() : "https".equals(scheme) ? 443 : 80;
+    return scheme + "://" + uri.getHost().toLowerCase() + ":" + port;
+  }
+
+  private static URI uri(final String target) {
+    if (target == null || target.isEmpty()) {
+      throw new IllegalArgumentException("provide a valid target");
+    }
+    final var uri = URI.create(target);
+    if (!uri.isAbsolute() || uri.getHost() == null) {
+      throw new IllegalArgumentException("provide a valid target, got " + target);
+    }
+    return uri;
+  }
+
+  private static boolean isProtocolError(final Throwable cause) {
+    for (var c = cause; c != null; c = c.getCause()) {
+      if (c instanceof Http2Exception) {
+        return true;
+      }
+      // HTTP/1.1 servers close the connection when they receive the HTTP/2 connection preface.
+      if (c instanceof VertxException && CONNECTION_CLOSED_MESSAGE.equals(c.getMessage())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A client acquired from a {@link WebClientRegistry}.
+   */
+  public static final class Lease implements AsyncCloseable {
+
+    private final WebClientRegistry registry;
+    private final String key;
+    private final HostClient client;
+    private boolean released;
+
+    private Lease(final WebClientRegistry registry, final String key, final HostClient client) {
+      this.registry = registry;
+      this.key = key;
+      this.client = client;
+    }
+
+    /**
+     * Create a lease of a client not shared with anybody else, the client is closed when the lease is closed.
+     *
+     * @param client client.
+     * @return a lease holding the client.
+     */
+    public static Lease of(final WebClient client) {
+      Objects.requireNonNull(client, "provide client");
+      return new Lease(null, null, new HostClient(null, client, null));
+    }
+
+    /**
+     * @return the client to use for the next request, it must not be closed since it's shared with other senders.
+     */
+    public WebClient getClient() {
+      return this.client.get();
+    }
+
+    /**
+     * Record a successful request.
+     */
+    public void requestSucceeded() {
+      this.client.requestSucceeded();
+    }
+
+    /**
+     * Record a failed request, falling back to HTTP/1.1 if the host doesn't support HTTP/2.
+     *
+     * @param cause failure cause.
+     */
+    public void requestFailed(final Throwable cause) {
+      this.client.requestFailed(cause);
+    }
+
+    /**
+     * Release the client, closing it if nobody else is using it.
+     *
+     * @return a succeeded future.
+     */
+    @Override
+    public synchronized Future<Void> close() {
+      if (!this.released) {
+        this.released = true;
+        if (this.registry == null) {
+          this.client.close();
+        } else {
+          this.registry.release(this.key);
+        }
+      }
+      return Future.succeededFuture();
+    }
+  }
+
+  private static final class HostClient {
+
+    private final String key;
+    private final WebClient client;
+    // Creates the HTTP/1.1 client, non null only for clients using HTTP/2 prior knowledge
+    private final Supplier<WebClient> fallbackFactory;
+
+    private volatile WebClient fallbackClient;
+    private volatile boolean succeeded;
+
+    private HostClient(final String key, final WebClient client, final Supplier<WebClient> fallbackFactory) {
+      this.key = key;
+      this.client = client;
+      this.fallbackFactory = fallbackFactory;
+    }
+
+    private WebClient get() {
+      final var fallback = this.fallbackClient;
+      return fallback != null ? fallback : this.client;
+    }
+
+    private void requestSucceeded() {
+      this.succeeded = true;
+    }
+
+    private void requestFailed(final Throwable cause) {
+      // Once the host answered using HTTP/2, failures aren't related to the protocol.
+      if (this.fallbackFactory == null || this.succeeded || !isProtocolError(cause)) {
+        return;
+      }
+      synchronized (this) {
+        if (this.fallbackClient == null) {
+          logger.warn("Host doesn't support HTTP/2 with prior knowledge, falling back to HTTP/1.1 {}",
+            keyValue("host", this.key),
+            cause
+          );
+          this.fallbackClient = this.fallbackFactory.get();
+        }
+      }
+    }
+
+    private synchronized void close() {
+      this.client.close();
+      if (this.fallbackClient != null) {
+        this.fallbackClient.close();
+      }
+    }
+  }
+}
@@ -67,11 +67,15 @@ public abstract class BaseConsumerVerticle extends AbstractVerticle {
   public void stop(Promise<Void> stopPromise) {
     logger.info("Stopping consumer");
 
-    AsyncCloseable.compose(
-      this.consumer::close,
-      this.recordDispatcher,
-      this.closeable
-    ).close(stopPromise);
+    // The record dispatcher might need the consumer to flush pending offsets,
+    // so we close it before closing the consumer.
+    final AsyncCloseable closeConsumer = AsyncCloseable.compose(this.consumer::close, this.closeable);
+    this.recordDispatcher.close()
+      .compose(
+        v -> closeConsumer.close(),
+        cause -> closeConsumer.close().compose(v -> Future.failedFuture(cause))
+      )
+      .onComplete(stopPromise);
   }
 
   public void setConsumer(KafkaConsumer<String, CloudEvent> consumer) {
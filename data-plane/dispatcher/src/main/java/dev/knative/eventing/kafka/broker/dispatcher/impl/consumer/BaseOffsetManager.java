@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
+import io.cloudevents.lang.Nullable;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import org.apache.kafka.common.KafkaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
+
+/**
+ * This class implements the commit pipeline shared by the offset managers.
+ *
+ * <p>
+ * Committable offsets of every partition owned by the consumer are coalesced and flushed with a single
+ * multi-partition commit, either every {@code commitIntervalMs} or as soon as {@code commitBatchSize} records
+ * became committable, whichever comes first. At most one commit is in flight at any given time.
+ *
+ * <p>
+ * When the consumer supports {@link PartitionRevocationListeners}, the committable offsets of revoked partitions are
+ * committed synchronously, on the polling thread, before the partitions are actually revoked.
+ */
+abstract class BaseOffsetManager implements AsyncCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(BaseOffsetManager.class);
+
+  // Maximum time the polling thread waits for the committable offsets of the partitions being revoked.
+  private static final long REVOCATION_TIMEOUT_MS = 5000;
+
+  private final Vertx vertx;
+
+  // Context owning the state of this offset manager, set only when revocations are notified synchronously.
+  @Nullable
+  private final Context context;
+
+  private final KafkaConsumer<?, ?> consumer;
+
+  private final Consumer<Integer> onCommit;
+
+  private final int commitBatchSize;
+
+  private final long commitTimerId;
+
+  // Offsets ready to be committed, but not yet sent to the broker.
+  private final Map<TopicPartition, PendingOffset> pendingOffsets;
+  private int pendingRecords;
+
+  private Future<Void> inFlightCommit;
+  // Offsets of the commit in flight.
+  private Map<TopicPartition, PendingOffset> inFlightOffsets;
+  private boolean flushRequested;
+
+  private Consumer<Map<TopicPartition, Long>> committedHandler;
+
+  /**
+   * All args constructor.
+   *
+   * @param vertx            Vert.x instance used to schedule periodic commits.
+   * @param consumer         Kafka consumer.
+   * @param onCommit         Callback invoked when an offset is actually committed
+   * @param commitIntervalMs Interval between two consecutive flushes of the committable offsets.
+   * @param commitBatchSize  Number of committable records that triggers a flush before the interval elapses.
+   */
+  BaseOffsetManager(final Vertx vertx,
+                    final KafkaConsumer<?, ?> consumer,
+                    final Consumer<Integer> onCommit,
+                    final long commitIntervalMs,
+                    final int commitBatchSize) {
+    Objects.requireNonNull(vertx, "provide vertx");
+    Objects.requireNonNull(consumer, "provide consumer");
+    if (commitIntervalMs <= 0) {
+      throw new IllegalArgumentException("commitIntervalMs cannot be negative or 0");
+    }
+    if (commitBatchSize <= 0) {
+      throw new IllegalArgumentException("commitBatchSize cannot be negative or 0");
+    }
+
+    this.vertx = vertx;
+    this.consumer = consumer;
+    this.onCommit = onCommit;
+    this.commitBatchSize = commitBatchSize;
+    this.pendingOffsets = new HashMap<>();
+    this.pendingRecords = 0;
+    this.flushRequested = false;
+
+    // Commit what we have before the partitions are moved to another consumer.
+    final var revocationListeners = PartitionRevocationListeners.of(consumer);
+    if (revocationListeners != null) {
+      this.context = vertx.getOrCreateContext();
+      revocationListeners.add(this::partitionsRevoking);
+    } else {
+      this.context = null;
+    }
+    this.consumer.partitionsRevokedHandler(this::partitionsRevoked);
+    this.commitTimerId = vertx.setPeriodic(commitIntervalMs, id -> flush());
+  }
+
+  /**
+   * Check whether the given partition is still tracked by this offset manager.
+   *
+   * @param topicPartition topic partition.
+   * @return true if the partition is tracked, false if it has been revoked.
+   */
+  abstract boolean isTracked(TopicPartition topicPartition);
+
+  /**
+   * Stop tracking the given partitions, pending offsets have already been flushed.
+   *
+   * @param partitions revoked partitions.
+   */
+  abstract void untrack(Set<TopicPartition> partitions);
+
+  /**
+   * Set the handler called with the committed offsets, every time a commit succeeds.
+   *
+   * @param committedHandler committed offsets handler.
+   */
+  void committedHandler(final Consumer<Map<TopicPartition, Long>> committedHandler) {
+    this.committedHandler = committedHandler;
+  }
+
+  /**
+   * Flush the committable offsets and stop the periodic commits.
+   *
+   * @return a future notifying the completion of the last commit.
+   */
+  @Override
+  public Future<Void> close() {
+    this.vertx.cancelTimer(this.commitTimerId);
+
+    if (this.inFlightCommit != null) {
+      return this.inFlightCommit.compose(v -> flush(), cause -> flush());
+    }
+    return flush();
+  }
+
+  /**
+   * Enqueue the given offset to be committed with the next flush.
+   *
+   * @param topicPartition topic partition.
+   * @param offset         offset to commit.
+   * @param records        number of records committed by this offset.
+   * @return a future notifying the completion of the flush, if this commit triggered it.
+   */
+  Future<Void> enqueueCommit(final TopicPartition topicPartition, final long offset, final int records) {
+    final var pending = this.pendingOffsets.computeIfAbsent(topicPartition, k -> new PendingOffset());
+    pending.offset = Math.max(pending.offset, offset);
+    pending.records += records;
+    this.pendingRecords += records;
+
+    if (this.pendingRecords >= this.commitBatchSize) {
+      return flush();
+    }
+    return Future.succeededFuture();
+  }
+
+  Future<Void> flush() {
+    if (this.pendingOffsets.isEmpty()) {
+      return Future.succeededFuture();
+    }
+    if (this.inFlightCommit != null) {
+      // Keep at most one commit in flight, the pending offsets are flushed once the current commit completes.
+      this.flushRequested = true;
+      return this.inFlightCommit;
+    }
+
+    final var offsets = new HashMap<TopicPartition, OffsetAndMetadata>(this.pendingOffsets.size());
+    final var committed = new HashMap<TopicPartition, Long>(this.pendingOffsets.size());
+    final var pendingOffsets = new HashMap<>(this.pendingOffsets);
+    this.pendingOffsets.forEach((tp, pending) -> {
+      offsets.put(tp, new OffsetAndMetadata(pending.offset, ""));
+      committed.put(tp, pending.offset);
+    });
+    final var records = this.pendingRecords;
+
+    this.pendingOffsets.clear();
+    this.pendingRecords = 0;
+
+    // Execute the actual commit
+    final Future<Void> commit = this.consumer.commit(offsets)
+      .onSuccess(ignored -> {
+        committed(committed, records);
+        logger.debug("committed {}", keyValue("offsets", offsets));
+      })
+      .onFailure(cause -> {
+        logger.error("failed to commit {}", keyValue("offsets", offsets), cause);
+        requeue(pendingOffsets);
+      })
+      .mapEmpty();
+
+    this.inFlightCommit = commit;
+    this.inFlightOffsets = pendingOffsets;
+    commit.onComplete(ignored -> {
+      this.inFlightCommit = null;
+      this.inFlightOffsets = null;
+      if (this.flushRequested) {
+        this.flushRequested = false;
+        flush();
+      }
+    });
+
+    return commit;
+  }
+
+  private void committed(final Map<TopicPartition, Long> committed, final int records) {
+    if (onCommit != null) {
+      onCommit.accept(records);
+    }
+    if (committedHandler != null) {
+      committedHandler.accept(committed);
+    }
+  }
+
+  private void requeue(final Map<TopicPartition, PendingOffset> offsets) {
+    // Retry with the next flush, unless the partition is not owned anymore.
+    offsets.forEach((tp, failed) -> {
+      if (isTracked(tp)) {
+        final var pending = this.pendingOffsets.computeIfAbsent(tp, k -> new PendingOffset());
+        pending.offset = Math.max(pending.offset, failed.offset);
+        pending.records += failed.records;
+        this.pendingRecords += failed.records;
+        return;
+      }
+      // The offset has been committed before the revocation, when revocations are notified synchronously,
+      // otherwise the records after the last committed offset are delivered again by the new owner.
+      logger.warn("dropping offset of revoked partition {} {} {}",
+        keyValue("topicPartition", tp),
+        keyValue("offset", failed.offset),
+        keyValue("committedOnRevocation", this.context != null)
+      );
+    });
+  }
+
+  /**
+   * Commit the committable offsets of the given partitions before they're revoked.
+   * <p>
+   * This method is called on the polling thread, while the consumer context might be processing records, so the
+   * committable offsets are taken on the consumer context and, then, committed synchronously.
+   *
+   * @param partitions partitions about to be revoked.
+   */
+  private void partitionsRevoking(final Collection<org.apache.kafka.common.TopicPartition> partitions) {
+    final var future = new CompletableFuture<Map<TopicPartition, PendingOffset>>();
+    if (Vertx.currentContext() == this.context) {
+      future.complete(takePendingOffsets(partitions));
+    } else {
+      this.context.runOnContext(v -> future.complete(takePendingOffsets(partitions)));
+    }
+
+    final Map<TopicPartition, PendingOffset> pendingOffsets;
+    try {
+      pendingOffsets = future.get(REVOCATION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      logger.error("interrupted while getting offsets of revoked partitions {}", keyValue("partitions", partitions));
+      return;
+    } catch (final ExecutionException | TimeoutException ex) {
+      logger.error("failed to get offsets of revoked partitions {}", keyValue("partitions", partitions), ex);
+      return;
+    }
+    if (pendingOffsets.isEmpty()) {
+      return;
+    }
+
+    final var offsets = new HashMap<org.apache.kafka.common.TopicPartition,
+      org.apache.kafka.clients.consumer.OffsetAndMetadata>(pendingOffsets.size());
+    final var committed = new HashMap<TopicPartition, Long>(pendingOffsets.size());
+    var records = 0;
+    for (final var entry : pendingOffsets.entrySet()) {
+      final var tp = entry.getKey();
+      offsets.put(
+        new org.apache.kafka.common.TopicPartition(tp.getTopic(), tp.getPartition()),
+        new org.apache.kafka.clients.consumer.OffsetAndMetadata(entry.getValue().offset, "")
+      );
+      committed.put(tp, entry.getValue().offset);
+      records += entry.getValue().records;
+    }
+
+    try {
+      // The rebalance listener runs on the polling thread, where the native consumer can be used directly.
+      this.consumer.unwrap().commitSync(offsets);
+    } catch (final KafkaException ex) {
+      logger.error("failed to commit offsets of revoked partitions {}", keyValue("offsets", offsets), ex);
+      return;
+    }
+    logger.debug("committed offsets of revoked partitions {}", keyValue("offsets", offsets));
+
+    final var committedRecords = records;
+    this.context.runOnContext(v -> committed(committed, committedRecords));
+  }
+
+  private Map<TopicPartition, PendingOffset> takePendingOffsets(
+    final Collection<org.apache.kafka.common.TopicPartition> partitions) {
+
+    final var offsets = new HashMap<TopicPartition, PendingOffset>(partitions.size());
+    for (final var partition : partitions) {
+      final var tp = new TopicPartition(partition.topic(), partition.partition());
+      final var pending = this.pendingOffsets.remove(tp);
+      if (pending != null) {
+        offsets.put(tp, pending);
+        this.pendingRecords -= pending.records;
+      }
+      // The commit in flight might fail once the partition is revoked, so its offset is committed again.
+      // Its records are accounted by the commit in flight.
+      final var inFlight = this.inFlightOffsets == null ? null : this.inFlightOffsets.get(tp);
+      if (inFlight != null) {
+        offsets.computeIfAbsent(tp, k -> new PendingOffset()).offset = Math.max(
+          inFlight.offset,
+          pending == null ? 0 : pending.offset
+        );
+      }
+    }
+    return offsets;
+  }
+
+  void partitionsRevoked(final Set<TopicPartition> partitions) {
+    logger.debug("partitions revoked {}", keyValue("partitions", partitions));
+
+    flush();
+
+    // Offsets of revoked partitions are tracked again from scratch once they're assigned back.
+    untrack(partitions);
+  }
+
+  private static final class PendingOffset {
+
+    private long offset;
+    // Number of records committed by this offset.
+    private int records;
+  }
+}
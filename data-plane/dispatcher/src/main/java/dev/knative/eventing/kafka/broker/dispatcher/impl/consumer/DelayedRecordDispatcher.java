@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.RetryTopicScheduler;
+import io.cloudevents.CloudEvent;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class implements a {@link RecordDispatcher} for the records of a delay topic, it dispatches each record using
+ * the given dispatcher once the record is due, see {@link RetryTopicScheduler}.
+ * <p>
+ * Records waiting to be due are kept in memory, so this dispatcher is used by an {@link UnorderedConsumerVerticle},
+ * which pauses the delay topic partitions when too many records are in flight. Records not yet dispatched when the
+ * dispatcher is closed aren't committed, so they're consumed again.
+ */
+public final class DelayedRecordDispatcher implements RecordDispatcher {
+
+  private final Vertx vertx;
+  private final RecordDispatcher dispatcher;
+  private final Set<Long> timers;
+
+  /**
+   * All args constructor.
+   *
+   * @param vertx      Vert.x instance used to schedule due records.
+   * @param dispatcher dispatcher of due records.
+   */
+  public DelayedRecordDispatcher(final Vertx vertx, final RecordDispatcher dispatcher) {
+    Objects.requireNonNull(vertx, "provide vertx");
+    Objects.requireNonNull(dispatcher, "provide dispatcher");
+
+    this.vertx = vertx;
+    this.dispatcher = dispatcher;
+    this.timers = new HashSet<>();
+  }
+
+  @Override
+  public Future<Void> dispatch(final KafkaConsumerRecord<String, CloudEvent> record) {
+    final var delay = RetryTopicScheduler.dueOf(record) - System.currentTimeMillis();
+    if (delay <= 0) {
+      return this.dispatcher.dispatch(record);
+    }
+
+    final Promise<Void> promise = Promise.promise();
+    final var timer = this.vertx.setTimer(delay, id -> {
+      this.timers.remove(id);
+      this.dispatcher.dispatch(record).onComplete(promise);
+    });
+    this.timers.add(timer);
+    return promise.future();
+  }
+
+  /**
+   * @return the number of records waiting to be due.
+   */
+  public int getWaitingRecords() {
+    return this.timers.size();
+  }
+
+  @Override
+  public Future<Void> close() {
+    this.timers.forEach(this.vertx::cancelTimer);
+    this.timers.clear();
+    return this.dispatcher.close();
+  }
+}
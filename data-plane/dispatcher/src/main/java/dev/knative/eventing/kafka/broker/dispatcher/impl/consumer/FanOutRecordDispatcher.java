@@ -0,0 +1,307 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.filter.FilterIndex;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.lang.Nullable;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
+
+/**
+ * This class dispatches every record fetched by a single consumer to the dispatchers of several egresses.
+ * <p>
+ * Each egress keeps its own committed offsets in its own consumer group: the offsets are committed by an egress
+ * consumer that never subscribes, so the group has no members and accepts the commits of a standalone consumer.
+ * The shared consumer, instead, commits the minimum of the offsets committed by every egress, so that after a
+ * restart, or a rebalance, it starts from the first record not yet committed by every egress, and each egress skips
+ * the records it has already committed.
+ * <p>
+ * When a {@link FilterIndex} of the egresses filters is given, egresses whose filter can't match a record discard it
+ * without evaluating their filter.
+ * <p>
+ * A record completes once every egress has completed it, including in-memory retries with their backoff, since
+ * egresses sharing a consumer don't use the retry topic. The records in flight of the shared consumer are bounded, so
+ * a slow or failing subscriber slows down the delivery to every other egress sharing the consumer.
+ */
+public final class FanOutRecordDispatcher implements RecordDispatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(FanOutRecordDispatcher.class);
+
+  private final List<Egress> egresses;
+  private final FilterIndex filterIndex;
+  private final SharedOffsetManager sharedOffsetManager;
+  private final Map<TopicPartition, Future<PartitionState>> partitions;
+
+  /**
+   * Create a dispatcher without filter index, egresses evaluate their own filter for every record.
+   *
+   * @param vertx            Vert.x instance used to schedule periodic commits.
+   * @param consumer         consumer shared by the egresses.
+   * @param egresses         egresses receiving the records fetched by the shared consumer.
+   * @param commitIntervalMs Interval between two consecutive commits of the shared consumer.
+   * @param commitBatchSize  Number of committable records that triggers a commit of the shared consumer.
+   */
+  public FanOutRecordDispatcher(final Vertx vertx,
+                                final KafkaConsumer<?, ?> consumer,
+                                final List<Egress> egresses,
+                                final long commitIntervalMs,
+                                final int commitBatchSize) {
+    this(vertx, consumer, egresses, null, commitIntervalMs, commitBatchSize);
+  }
+
+  /**
+   * All args constructor.
+   *
+   * @param vertx            Vert.x instance used to schedule periodic commits.
+   * @param consumer         consumer shared by the egresses.
+   * @param egresses         egresses receiving the records fetched by the shared consumer.
+   * @param filterIndex      index of the egresses filters, in the same order of {@code egresses}, or null.
+   * @param commitIntervalMs Interval between two consecutive commits of the shared consumer.
+   * @param commitBatchSize  Number of committable records that triggers a commit of the shared consumer.
+   */
+  public FanOutRecordDispatcher(final Vertx vertx,
+                                final KafkaConsumer<?, ?> consumer,
+                                final List<Egress> egresses,
+                                @Nullable final FilterIndex filterIndex,
+                                final long commitIntervalMs,
+                                final int commitBatchSize) {
+    Objects.requireNonNull(egresses, "provide egresses");
+    if (egresses.isEmpty()) {
+      throw new IllegalArgumentException("egresses cannot be empty");
+    }
+
+    this.egresses = egresses;
+    this.filterIndex = filterIndex;
+    this.partitions = new HashMap<>();
+    this.sharedOffsetManager = new SharedOffsetManager(vertx, consumer, commitIntervalMs, commitBatchSize);
+
+    for (int i = 0; i < egresses.size(); i++) {
+      final var idx = i;
+      egresses.get(i).offsetManager.committedHandler(offsets -> this.egressCommitted(idx, offsets));
+    }
+
+    // The shared offset manager registered its own handler, we replace it to revoke the partitions of every
+    // egress offset manager too, since egress consumers never subscribe and never get a revocation.
+    consumer.partitionsRevokedHandler(this::partitionsRevoked);
+  }
+
+  @Override
+  public Future<Void> dispatch(final KafkaConsumerRecord<String, CloudEvent> record) {
+    final var topicPartition = new TopicPartition(record.topic(), record.partition());
+    return this.partitions.computeIfAbsent(topicPartition, this::loadPartitionState)
+      .compose(state -> {
+        state.recordReceived(record.offset());
+
+        final var skipped = this.filterIndex == null ? null : this.filterIndex.skipped(record.value());
+        final var futures = new ArrayList<Future>(this.egresses.size());
+        for (int i = 0; i < this.egresses.size(); i++) {
+          if (record.offset() < state.startOffsets[i]) {
+            // This egress has already committed this record.
+            continue;
+          }
+          final var egress = this.egresses.get(i);
+          if (skipped != null && skipped.get(i)) {
+            // The egress filter doesn't match the record.
+            futures.add(egress.offsetManager.recordReceived(record)
+              .compose(v -> egress.offsetManager.recordDiscarded(record)));
+            continue;
+          }
+          futures.add(egress.dispatcher.dispatch(record));
+        }
+        return CompositeFuture.join(futures).mapEmpty();
+      });
+  }
+
+  /**
+   * Close every egress dispatcher and, then, the egress consumers, so that the last egress offsets are committed
+   * before committing the shared consumer offsets.
+   *
+   * @return a future notifying the completion of the close operation.
+   */
+  @Override
+  public Future<Void> close() {
+    return CompositeFuture.join(
+      this.egresses.stream()
+        .map(e -> e.dispatcher.close().compose(
+          v -> e.consumer.close(),
+          cause -> e.consumer.close().compose(v -> Future.failedFuture(cause))
+        ))
+        .collect(Collectors.toList())
+    )
+      .compose(
+        v -> this.sharedOffsetManager.close(),
+        cause -> this.sharedOffsetManager.close().compose(v -> Future.failedFuture(cause))
+      );
+  }
+
+  private Future<PartitionState> loadPartitionState(final TopicPartition topicPartition) {
+    return CompositeFuture.join(
+      this.egresses.stream()
+        .map(e -> e.consumer.committed(topicPartition)
+          // Without committed offsets, the egress receives every record we fetch.
+          .otherwise(cause -> {
+            logger.warn("Failed to get committed offset {} {}",
+              keyValue("topicPartition", topicPartition),
+              keyValue("egress", e.uid),
+              cause
+            );
+            return null;
+          }))
+        .collect(Collectors.toList())
+    ).map(r -> {
+      final var startOffsets = new long[this.egresses.size()];
+      for (int i = 0; i < startOffsets.length; i++) {
+        final OffsetAndMetadata committed = r.resultAt(i);
+        startOffsets[i] = committed == null ? -1 : committed.getOffset();
+      }
+      logger.debug("Loaded egresses start offsets {} {}",
+        keyValue("topicPartition", topicPartition),
+        keyValue("startOffsets", Arrays.toString(startOffsets))
+      );
+      return new PartitionState(startOffsets);
+    });
+  }
+
+  private void egressCommitted(final int egress, final Map<TopicPartition, Long> offsets) {
+    offsets.forEach((topicPartition, offset) -> {
+      final var future = this.partitions.get(topicPartition);
+      if (future == null || future.result() == null) {
+        return;
+      }
+      final var state = future.result();
+      state.committedOffsets[egress] = Math.max(state.committedOffsets[egress], offset);
+
+      final var committable = Arrays.stream(state.committedOffsets).min().orElse(-1);
+      if (committable > state.sharedCommittedOffset) {
+        final var records = (int) (committable - state.sharedCommittedOffset);
+        state.sharedCommittedOffset = committable;
+        this.sharedOffsetManager.enqueueCommit(topicPartition, committable, records);
+      }
+    });
+  }
+
+  private void partitionsRevoked(final Set<TopicPartition> partitions) {
+    this.sharedOffsetManager.partitionsRevoked(partitions);
+    this.egresses.forEach(e -> e.offsetManager.partitionsRevoked(partitions));
+    // Egress start offsets are loaded again once the partitions are assigned back.
+    partitions.forEach(this.partitions::remove);
+  }
+
+  /**
+   * An egress consuming records through a {@link FanOutRecordDispatcher}.
+   */
+  public static final class Egress {
+
+    private final String uid;
+    private final KafkaConsumer<?, ?> consumer;
+    private final UnorderedOffsetManager offsetManager;
+    private final RecordDispatcher dispatcher;
+
+    /**
+     * All args constructor.
+     *
+     * @param uid                 egress uid.
+     * @param consumer            egress consumer, used to get and commit the egress consumer group offsets.
+     * @param offsetManager       egress offset manager, it must commit offsets using the egress consumer.
+     * @param dispatcherFactory   factory of the egress dispatcher, given the egress offset manager.
+     */
+    public Egress(final String uid,
+                  final KafkaConsumer<?, ?> consumer,
+                  final UnorderedOffsetManager offsetManager,
+                  final Function<UnorderedOffsetManager, RecordDispatcher> dispatcherFactory) {
+      Objects.requireNonNull(consumer, "provide consumer");
+      Objects.requireNonNull(offsetManager, "provide offsetManager");
+      Objects.requireNonNull(dispatcherFactory, "provide dispatcherFactory");
+
+      this.uid = uid;
+      this.consumer = consumer;
+      this.offsetManager = offsetManager;
+      this.dispatcher = dispatcherFactory.apply(offsetManager);
+    }
+  }
+
+  private static final class PartitionState {
+
+    // Offset of the first record each egress has to receive
+    private final long[] startOffsets;
+    // Offset committed by each egress, -1 when unknown
+    private final long[] committedOffsets;
+    // Offset committed by the shared consumer, -1 until we receive the first record
+    private long sharedCommittedOffset;
+
+    private PartitionState(final long[] startOffsets) {
+      this.startOffsets = startOffsets;
+      this.committedOffsets = Arrays.copyOf(startOffsets, startOffsets.length);
+      this.sharedCommittedOffset = -1;
+    }
+
+    private void recordReceived(final long offset) {
+      if (this.sharedCommittedOffset >= 0) {
+        return;
+      }
+      // Egresses without committed offsets start from the first record we receive.
+      for (int i = 0; i < this.committedOffsets.length; i++) {
+        if (this.committedOffsets[i] < 0) {
+          this.committedOffsets[i] = offset;
+        }
+      }
+      this.sharedCommittedOffset = Arrays.stream(this.committedOffsets).min().orElse(offset);
+    }
+  }
+
+  /**
+   * Offset manager committing the offsets of the shared consumer.
+   */
+  private static final class SharedOffsetManager extends BaseOffsetManager {
+
+    private SharedOffsetManager(final Vertx vertx,
+                                final KafkaConsumer<?, ?> consumer,
+                                final long commitIntervalMs,
+                                final int commitBatchSize) {
+      super(vertx, consumer, null, commitIntervalMs, commitBatchSize);
+    }
+
+    @Override
+    boolean isTracked(final TopicPartition topicPartition) {
+      // Offsets are committed only when every egress has committed them, so they can always be committed.
+      return true;
+    }
+
+    @Override
+    void untrack(final Set<TopicPartition> partitions) {
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import dev.knative.eventing.kafka.broker.core.OrderedAsyncExecutor;
+import io.cloudevents.CloudEvent;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This consumer verticle delivers records with the same key in order, while records with different keys are
+ * dispatched concurrently.
+ * <p>
+ * The key of a record is the Kafka record key or, when the record has no key, the {@code partitionkey} extension of
+ * the event. Records without any key are delivered in order with respect to each other.
+ * <p>
+ * Each partition has at most {@code maxInFlightKeys} keys dispatched at the same time: keys are hashed onto a fixed
+ * number of ordered executors, so two keys sharing the same executor are delivered one after the other.
+ */
+public final class KeyOrderedConsumerVerticle extends OrderedConsumerVerticle {
+
+  static final String PARTITION_KEY_EXTENSION = "partitionkey";
+
+  private final Map<TopicPartition, OrderedAsyncExecutor[]> keyExecutors;
+  private final int maxInFlightKeys;
+
+  public KeyOrderedConsumerVerticle(final Initializer initializer,
+                                    final Set<String> topics,
+                                    final int maxInFlightKeys) {
+    super(initializer, topics);
+    if (maxInFlightKeys <= 0) {
+      throw new IllegalArgumentException("maxInFlightKeys must be greater than 0, got " + maxInFlightKeys);
+    }
+
+    this.keyExecutors = new HashMap<>();
+    this.maxInFlightKeys = maxInFlightKeys;
+  }
+
+  @Override
+  OrderedAsyncExecutor executorFor(final TopicPartition topicPartition,
+                                   final KafkaConsumerRecord<String, CloudEvent> record) {
+    final var executors = this.keyExecutors.computeIfAbsent(
+      topicPartition,
+      tp -> new OrderedAsyncExecutor[this.maxInFlightKeys]
+    );
+    final var idx = Math.floorMod(Objects.hashCode(keyOf(record)), executors.length);
+    if (executors[idx] == null) {
+      executors[idx] = new OrderedAsyncExecutor();
+    }
+    return executors[idx];
+  }
+
+  @Override
+  void stopExecutors() {
+    this.keyExecutors.values().stream()
+      .flatMap(Arrays::stream)
+      .filter(Objects::nonNull)
+      .forEach(OrderedAsyncExecutor::stop);
+  }
+
+  static Object keyOf(final KafkaConsumerRecord<String, CloudEvent> record) {
+    if (record.key() != null) {
+      return record.key();
+    }
+    final var event = record.value();
+    if (event == null) {
+      return null;
+    }
+    return event.getExtension(PARTITION_KEY_EXTENSION);
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.CloudEventData;
+import io.cloudevents.SpecVersion;
+import io.cloudevents.core.data.BytesCloudEventData;
+import io.cloudevents.core.v1.CloudEventV1;
+import io.cloudevents.lang.Nullable;
+import io.cloudevents.rw.CloudEventRWException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import static java.time.format.DateTimeFormatter.ISO_INSTANT;
+
+/**
+ * This class implements a {@link CloudEvent} backed by the headers and the value of a Kafka record in binary content
+ * mode.
+ * <p>
+ * Attributes and extensions are read from the {@code ce_} headers only when they're accessed, and URI and time
+ * attributes are parsed only once they're requested, so that filtering an event usually reads a couple of headers,
+ * and the rest of the event is decoded only when it's sent.
+ * <p>
+ * Since the event is validated lazily, invalid URI or time attributes make the access to the attribute fail, instead
+ * of the deserialization of the record.
+ */
+public final class LazyCloudEvent implements CloudEvent {
+
+  public static final String CE_PREFIX = "ce_";
+  public static final String CONTENT_TYPE_HEADER = "content-type";
+  private static final String STRUCTURED_CONTENT_TYPE_PREFIX = "application/cloudevents";
+
+  private static final String SPECVERSION_HEADER = CE_PREFIX + CloudEventV1.SPECVERSION;
+  private static final String ID_HEADER = CE_PREFIX + CloudEventV1.ID;
+  private static final String SOURCE_HEADER = CE_PREFIX + CloudEventV1.SOURCE;
+  private static final String TYPE_HEADER = CE_PREFIX + CloudEventV1.TYPE;
+
+  private static final Set<String> ATTRIBUTES = Set.of(
+    CloudEventV1.SPECVERSION,
+    CloudEventV1.ID,
+    CloudEventV1.SOURCE,
+    CloudEventV1.TYPE,
+    CloudEventV1.DATACONTENTTYPE,
+    CloudEventV1.DATASCHEMA,
+    CloudEventV1.SUBJECT,
+    CloudEventV1.TIME
+  );
+
+  private final Headers headers;
+  private final byte[] value;
+
+  private URI source;
+  private URI dataSchema;
+  private OffsetDateTime time;
+
+  LazyCloudEvent(final Headers headers, @Nullable final byte[] value) {
+    this.headers = headers;
+    this.value = value;
+  }
+
+  /**
+   * Check whether the given headers belong to a valid record in binary content mode this class can represent.
+   *
+   * @param headers record headers.
+   * @return true if the record isn't in structured mode, required attributes are present, and the spec version is 1.0.
+   */
+  static boolean isBinaryV1(final Headers headers) {
+    // Structured content mode takes precedence, see the Kafka protocol binding.
+    final var contentType = headers.lastHeader(CONTENT_TYPE_HEADER);
+    if (contentType != null && contentType.value() != null &&
+      asString(contentType).startsWith(STRUCTURED_CONTENT_TYPE_PREFIX)) {
+      return false;
+    }
+    final var specVersion = headers.lastHeader(SPECVERSION_HEADER);
+    return specVersion != null &&
+      SpecVersion.V1.toString().equals(asString(specVersion)) &&
+      headers.lastHeader(ID_HEADER) != null &&
+      headers.lastHeader(SOURCE_HEADER) != null &&
+      headers.lastHeader(TYPE_HEADER) != null;
+  }
+
+  /**
+   * Get the given attribute or extension as a string, as it's encoded in the record headers.
+   * <p>
+   * This is equivalent to the string representation of the decoded attribute, the time attribute is formatted using
+   * {@link java.time.format.DateTimeFormatter#ISO_INSTANT}.
+   *
+   * @param name attribute or extension name.
+   * @return the value or null if the event doesn't have the given attribute or extension.
+   */
+  @Nullable
+  public String getString(final String name) {
+    if (CloudEventV1.DATACONTENTTYPE.equals(name)) {
+      return getDataContentType();
+    }
+    if (CloudEventV1.TIME.equals(name)) {
+      final var time = getTime();
+      return time == null ? null : time.format(ISO_INSTANT);
+    }
+    return header(CE_PREFIX + name);
+  }
+
+  /**
+   * Check whether the given record header has the given value, without decoding it.
+   *
+   * @param key   header key, for example {@code ce_type}.
+   * @param value expected value encoded in UTF-8.
+   * @return true if the last header with the given key has the given value.
+   */
+  public boolean hasHeaderValue(final String key, final byte[] value) {
+    final var header = this.headers.lastHeader(key);
+    return header != null && Arrays.equals(header.value(), value);
+  }
+
+  /**
+   * @return the headers of the record, attributes are in the {@code ce_} headers, the data content type is in the
+   * {@code content-type} header.
+   */
+  public Headers getRecordHeaders() {
+    return this.headers;
+  }
+
+  /**
+   * @return the value of the record, it's the data of the event.
+   */
+  @Nullable
+  public byte[] getRecordValue() {
+    return this.value;
+  }
+
+  @Nullable
+  @Override
+  public CloudEventData getData() {
+    if (this.value == null || this.value.length == 0) {
+      return null;
+    }
+    return BytesCloudEventData.wrap(this.value);
+  }
+
+  @Override
+  public SpecVersion getSpecVersion() {
+    return SpecVersion.V1;
+  }
+
+  @Override
+  public String getId() {
+    return header(ID_HEADER);
+  }
+
+  @Override
+  public String getType() {
+    return header(TYPE_HEADER);
+  }
+
+  @Override
+  public URI getSource() {
+    if (this.source == null) {
+      this.source = parseUri(CloudEventV1.SOURCE, header(SOURCE_HEADER));
+    }
+    return this.source;
+  }
+
+  @Nullable
+  @Override
+  public String getDataContentType() {
+    return header(CONTENT_TYPE_HEADER);
+  }
+
+  @Nullable
+  @Override
+  public URI getDataSchema() {
+    if (this.dataSchema == null) {
+      final var dataSchema = header(CE_PREFIX + CloudEventV1.DATASCHEMA);
+      if (dataSchema != null) {
+        this.dataSchema = parseUri(CloudEventV1.DATASCHEMA, dataSchema);
+      }
+    }
+    return this.dataSchema;
+  }
+
+  @Nullable
+  @Override
+  public String getSubject() {
+    return header(CE_PREFIX + CloudEventV1.SUBJECT);
+  }
+
+  @Nullable
+  @Override
+  public OffsetDateTime getTime() {
+    if (this.time == null) {
+      final var time = header(CE_PREFIX + CloudEventV1.TIME);
+      if (time != null) {
+        try {
+          this.time = OffsetDateTime.parse(time);
+        } catch (final RuntimeException ex) {
+          throw CloudEventRWException.newInvalidAttributeValue(CloudEventV1.TIME, time, ex);
+        }
+      }
+    }
+    return this.time;
+  }
+
+  @Nullable
+  @Override
+  public Object getAttribute(final String attributeName) throws IllegalArgumentException {
+    switch (attributeName) {
+      case CloudEventV1.SPECVERSION:
+        return getSpecVersion();
+      case CloudEventV1.ID:
+        return getId();
+      case CloudEventV1.SOURCE:
+        return getSource();
+      case CloudEventV1.TYPE:
+        return getType();
+      case CloudEventV1.DATACONTENTTYPE:
+        return getDataContentType();
+      case CloudEventV1.DATASCHEMA:
+        return getDataSchema();
+      case CloudEventV1.SUBJECT:
+        return getSubject();
+      case CloudEventV1.TIME:
+        return getTime();
+    }
+    throw new IllegalArgumentException("Spec version v1 doesn't have attribute named " + attributeName);
+  }
+
+  /**
+   * @return names of the attributes of this event.
+   */
+  public Set<String> getAttributeNames() {
+    final var names = new HashSet<String>();
+    for (final var header : this.headers) {
+      if (header.key().startsWith(CE_PREFIX) && ATTRIBUTES.contains(header.key().substring(CE_PREFIX.length()))) {
+        names.add(header.key().substring(CE_PREFIX.length()));
+      }
+    }
+    if (this.headers.lastHeader(CONTENT_TYPE_HEADER) != null) {
+      names.add(CloudEventV1.DATACONTENTTYPE);
+    }
+    return names;
+  }
+
+  @Nullable
+  @Override
+  public Object getExtension(final String extensionName) {
+    if (ATTRIBUTES.contains(extensionName)) {
+      return null;
+    }
+    return header(CE_PREFIX + extensionName);
+  }
+
+  @Override
+  public Set<String> getExtensionNames() {
+    final var names = new HashSet<String>();
+    for (final var header : this.headers) {
+      if (header.key().startsWith(CE_PREFIX)) {
+        final var name = header.key().substring(CE_PREFIX.length());
+        if (!ATTRIBUTES.contains(name)) {
+          names.add(name);
+        }
+      }
+    }
+    return names;
+  }
+
+  @Nullable
+  private String header(final String key) {
+    final var header = this.headers.lastHeader(key);
+    return header == null ? null : asString(header);
+  }
+
+  private static String asString(final Header header) {
+    return header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+  }
+
+  private static URI parseUri(final String attribute, final String value) {
+    try {
+      return new URI(value);
+    } catch (final Exception ex) {
+      throw CloudEventRWException.newInvalidAttributeValue(attribute, value, ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LazyCloudEvent{" +
+      "id='" + getId() + '\'' +
+      ", source=" + header(SOURCE_HEADER) +
+      ", type='" + getType() + '\'' +
+      ", datacontenttype='" + getDataContentType() + '\'' +
+      ", dataschema=" + header(CE_PREFIX + CloudEventV1.DATASCHEMA) +
+      ", subject='" + getSubject() + '\'' +
+      ", time=" + header(CE_PREFIX + CloudEventV1.TIME) +
+      ", data=" + getData() +
+      ", extensions=" + getExtensionNames() +
+      '}';
+  }
+}
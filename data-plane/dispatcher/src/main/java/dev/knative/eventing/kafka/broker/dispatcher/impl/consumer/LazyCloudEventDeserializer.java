@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.kafka.CloudEventDeserializer;
+import java.util.Map;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * This class implements a Kafka {@link Deserializer} that doesn't decode records in binary content mode, it returns
+ * a {@link LazyCloudEvent} reading attributes from the record headers only when they're accessed.
+ * <p>
+ * Records in structured content mode, or using a spec version different from 1.0, are deserialized using
+ * {@link CloudEventDeserializer}.
+ */
+public final class LazyCloudEventDeserializer implements Deserializer<CloudEvent> {
+
+  private final CloudEventDeserializer deserializer = new CloudEventDeserializer();
+
+  @Override
+  public void configure(final Map<String, ?> configs, final boolean isKey) {
+    this.deserializer.configure(configs, isKey);
+  }
+
+  @Override
+  public CloudEvent deserialize(final String topic, final byte[] data) {
+    return this.deserializer.deserialize(topic, data);
+  }
+
+  @Override
+  public CloudEvent deserialize(final String topic, final Headers headers, final byte[] data) {
+    if (LazyCloudEvent.isBinaryV1(headers)) {
+      return new LazyCloudEvent(headers, data);
+    }
+    return this.deserializer.deserialize(topic, headers, data);
+  }
+
+  @Override
+  public void close() {
+    this.deserializer.close();
+  }
+}
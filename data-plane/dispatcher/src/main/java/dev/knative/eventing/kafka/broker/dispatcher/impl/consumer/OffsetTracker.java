@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+/**
+ * This offset tracker keeps track of the acked records of a single partition.
+ *
+ * <h2>Implementation details</h2>
+ *
+ * <p>
+ * The tracker is a sliding window over the offsets following the last committed one, backed by a ring of
+ * {@code long} words (a ring bitset). The bit representing an offset lives in the word at index
+ * {@code (offset / 64) % words} at position {@code offset % 64}, so acking an offset never moves data around.
+ *
+ * <p>
+ * When the offset at the base of the window is acked, the base is advanced over the longest contiguous sequence of
+ * acked offsets by scanning whole words with {@link Long#numberOfTrailingZeros(long)}, and every word the base
+ * moves past is cleared, ready to be reused for the offsets at the end of the window. Hence, committing costs
+ * O(words advanced).
+ *
+ * <p>
+ * The ring grows (to the next power of 2) only when an offset falls outside the window, which happens when records
+ * are acked very far out of order, and it never shrinks back.
+ */
+final class OffsetTracker {
+
+  private long[] words;
+  private int mask;
+
+  // First offset not acked yet, hence the offset to commit.
+  private long base;
+
+  /**
+   * All args constructor.
+   *
+   * @param initialOffset first offset to track.
+   */
+  OffsetTracker(final long initialOffset) {
+    this.words = new long[1];
+    this.mask = 0;
+    this.base = initialOffset;
+  }
+
+  /**
+   * Record the given offset as acked.
+   *
+   * @param offset acked offset.
+   */
+  void recordNewOffset(final long offset) {
+    if (offset < this.base) {
+      // Already committed, nothing to track.
+      return;
+    }
+    final long word = offset >>> 6;
+    if (word - (this.base >>> 6) >= this.words.length) {
+      grow(word - (this.base >>> 6) + 1);
+    }
+    this.words[(int) (word & this.mask)] |= 1L << (offset & 63);
+  }
+
+  /**
+   * Advance the base of the window over the longest contiguous sequence of acked offsets.
+   *
+   * @return the number of offsets the base moved over, 0 means there is nothing new to commit.
+   */
+  long advance() {
+    final long start = this.base;
+    while (true) {
+      final int index = (int) ((this.base >>> 6) & this.mask);
+      final int shift = (int) (this.base & 63);
+      // Number of consecutive ones starting from the base.
+      final int acked = Long.numberOfTrailingZeros(~(this.words[index] >>> shift));
+
+      this.base += acked;
+      if (shift + acked < 64) {
+        return this.base - start;
+      }
+      // We moved past this word, so it can be reused.
+      this.words[index] = 0L;
+    }
+  }
+
+  /**
+   * @return the offset to commit, that is the first offset not acked yet.
+   */
+  long offsetToCommit() {
+    return this.base;
+  }
+
+  private void grow(final long minWords) {
+    int capacity = this.words.length;
+    while (capacity < minWords) {
+      capacity <<= 1;
+    }
+
+    final long[] grown = new long[capacity];
+    final int newMask = capacity - 1;
+    final long baseWord = this.base >>> 6;
+    // Relocate the words of the current window.
+    for (long w = baseWord; w < baseWord + this.words.length; w++) {
+      grown[(int) (w & newMask)] = this.words[(int) (w & this.mask)];
+    }
+
+    this.words = grown;
+    this.mask = newMask;
+  }
+}
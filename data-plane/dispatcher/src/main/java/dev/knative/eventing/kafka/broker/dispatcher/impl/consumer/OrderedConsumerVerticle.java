@@ -16,48 +16,75 @@
 package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
 
 import dev.knative.eventing.kafka.broker.core.OrderedAsyncExecutor;
+import dev.knative.eventing.kafka.broker.dispatcher.DeliveryOrder;
 import io.cloudevents.CloudEvent;
 import io.vertx.core.Promise;
 import io.vertx.kafka.client.common.TopicPartition;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecords;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
+
+/**
+ * This {@link io.vertx.core.Verticle} implements an ordered consumer logic, as described in {@link DeliveryOrder#ORDERED}.
+ * <p>
+ * Flow control is done per partition: for each partition we track the number of queued records and an exponentially
+ * weighted moving average of the dispatch latency. A partition is paused when its queue is too long, either in number
+ * of records or in estimated time to drain it, and it's resumed once its queue drains below half of those limits,
+ * while the other partitions keep being polled. Since Kafka resumes partitions when they're assigned, the state of a
+ * partition is dropped when it's revoked, and it starts from scratch when it's assigned.
+ */
 public class OrderedConsumerVerticle extends BaseConsumerVerticle {
 
   private static final Logger logger = LoggerFactory.getLogger(OrderedConsumerVerticle.class);
   private static final Duration POLLING_TIMEOUT = Duration.ofMillis(100);
 
-  // poll wait ms = (POLL_WAIT_RECORD_FACTOR * pendingRecords) / (partitions - POLL_WAIT_PARTITION_FACTOR * Math.sqrt(partitions))
-  // Each record takes 10 ms to be processed
-  private static final double POLL_WAIT_RECORD_FACTOR = 10;
-  // This is used to take in account how much the parallelism is effective
-  private static final double POLL_WAIT_PARTITION_FACTOR = 1 / (double) Runtime.getRuntime().availableProcessors();
-  private static final long MAX_POLL_WAIT = 10 * 1000;
-  private static final int MIN_POLL_WAIT = 100;
+  // Maximum number of records queued for a single partition.
+  static final int DEFAULT_MAX_QUEUE_DEPTH = 1000;
+  // Maximum estimated time (queue depth * average dispatch latency) to drain the queue of a single partition.
+  private static final double MAX_QUEUE_LATENCY_MS = 10 * 1000;
+  // Weight of the last sample in the dispatch latency moving average.
+  private static final double LATENCY_EWMA_ALPHA = 0.2;
 
   private final Map<TopicPartition, OrderedAsyncExecutor> recordDispatcherExecutors;
+  private final Map<TopicPartition, PartitionState> partitions;
+  private final int maxQueueDepth;
 
-  private int pendingRecords;
   private boolean stopPolling;
 
   public OrderedConsumerVerticle(Initializer initializer, Set<String> topics) {
+    this(initializer, topics, DEFAULT_MAX_QUEUE_DEPTH);
+  }
+
+  OrderedConsumerVerticle(Initializer initializer, Set<String> topics, int maxQueueDepth) {
     super(initializer, topics);
+    if (maxQueueDepth <= 0) {
+      throw new IllegalArgumentException("maxQueueDepth must be greater than 0, got " + maxQueueDepth);
+    }
 
     this.recordDispatcherExecutors = new HashMap<>();
+    this.partitions = new HashMap<>();
+    this.maxQueueDepth = maxQueueDepth;
 
-    this.pendingRecords = 0;
     this.stopPolling = false;
   }
 
   @Override
   void startConsumer(Promise<Void> startPromise) {
     this.consumer.exceptionHandler(this::exceptionHandler);
+    this.consumer.partitionsAssignedHandler(this::partitionsAssigned);
+    // The revoked partitions handler belongs to the offset manager.
+    final var revocationListeners = PartitionRevocationListeners.of(this.consumer);
+    if (revocationListeners != null) {
+      revocationListeners.add(partitions -> this.context.runOnContext(v -> this.partitionsRevoked(partitions)));
+    }
     // We need to sub first, then we can start the polling loop
     this.consumer.subscribe(this.topics)
       .onFailure(startPromise::fail)
@@ -73,6 +100,8 @@ public class OrderedConsumerVerticle extends BaseConsumerVerticle {
     if (this.stopPolling) {
       return;
     }
+    // Paused partitions don't return records, so we can keep polling the others:
+    // when every partition is paused, the poll returns after POLLING_TIMEOUT.
     this.consumer.poll(POLLING_TIMEOUT)
       .onFailure(t -> {
         if (this.stopPolling) {
@@ -80,31 +109,19 @@ public class OrderedConsumerVerticle extends BaseConsumerVerticle {
           return;
         }
         this.exceptionHandler(t);
-        this.schedulePoll();
+        this.poll();
       })
       .onSuccess(records -> {
         this.recordsHandler(records);
-        this.schedulePoll();
+        this.poll();
       });
   }
 
-  void schedulePoll() {
-    // Check if we need to poll immediately, or wait a bit for the queues to free
-    long pollWait = pollWaitMs();
-
-    if (pollWait > MIN_POLL_WAIT) {
-      vertx.setTimer(pollWaitMs(), v -> this.poll());
-    } else {
-      // Poll immediately
-      this.poll();
-    }
-  }
-
   @Override
   public void stop(Promise<Void> stopPromise) {
     // Stop the executors
     this.stopPolling = true;
-    this.recordDispatcherExecutors.values().forEach(OrderedAsyncExecutor::stop);
+    this.stopExecutors();
 
     // Stop the consumer
     super.stop(stopPromise);
@@ -114,24 +131,116 @@ public class OrderedConsumerVerticle extends BaseConsumerVerticle {
     // Put records in queues
     // I assume the records are ordered per topic-partition
     for (int i = 0; i < records.size(); i++) {
-      this.pendingRecords++;
       KafkaConsumerRecord<String, CloudEvent> record = records.recordAt(i);
       this.enqueueRecord(new TopicPartition(record.topic(), record.partition()), record);
     }
+
+    // Pause partitions whose queue is too long
+    for (final var e : this.partitions.entrySet()) {
+      if (!e.getValue().paused && e.getValue().isFull()) {
+        this.pause(e.getKey(), e.getValue());
+      }
+    }
+  }
+
+  void partitionsAssigned(final Set<TopicPartition> assigned) {
+    // Records of the previous assignment still being dispatched update their own state.
+    assigned.forEach(this.partitions::remove);
+  }
+
+  void partitionsRevoked(final Collection<org.apache.kafka.common.TopicPartition> revoked) {
+    revoked.forEach(tp -> this.partitions.remove(new TopicPartition(tp.topic(), tp.partition())));
   }
 
   void enqueueRecord(TopicPartition topicPartition, KafkaConsumerRecord<String, CloudEvent> record) {
-    this.recordDispatcherExecutors.computeIfAbsent(topicPartition, (tp) -> new OrderedAsyncExecutor())
-      .offer(() -> this.recordDispatcher.dispatch(record).onComplete(v -> this.pendingRecords--));
+    final var state = this.partitions.computeIfAbsent(topicPartition, tp -> new PartitionState());
+    state.queued++;
+
+    this.executorFor(topicPartition, record)
+      .offer(() -> {
+        final var start = System.nanoTime();
+        return this.recordDispatcher.dispatch(record)
+          .onComplete(v -> this.recordDispatched(topicPartition, state, System.nanoTime() - start));
+      });
   }
 
-  long pollWaitMs() {
-    double partitions = this.recordDispatcherExecutors.size();
-    long computed = Math.round(
-      (POLL_WAIT_RECORD_FACTOR * pendingRecords) /
-        (partitions - (POLL_WAIT_PARTITION_FACTOR * Math.sqrt(partitions)))
-    );
-    return Math.min(computed, MAX_POLL_WAIT);
+  /**
+   * Get the executor the given record must be dispatched with. Records dispatched with the same executor are
+   * delivered in order, by default there is one executor per partition.
+   *
+   * @param topicPartition topic partition of the record.
+   * @param record         record to dispatch.
+   * @return the executor to use.
+   */
+  OrderedAsyncExecutor executorFor(TopicPartition topicPartition, KafkaConsumerRecord<String, CloudEvent> record) {
+    return this.recordDispatcherExecutors.computeIfAbsent(topicPartition, (tp) -> new OrderedAsyncExecutor());
   }
 
+  void stopExecutors() {
+    this.recordDispatcherExecutors.values().forEach(OrderedAsyncExecutor::stop);
+  }
+
+  private void recordDispatched(final TopicPartition topicPartition,
+                                final PartitionState state,
+                                final long latencyNanos) {
+    state.queued--;
+    state.recordLatency(latencyNanos / 1_000_000D);
+
+    if (state.paused && state.canResume()) {
+      this.resume(topicPartition, state);
+    }
+  }
+
+  private void pause(final TopicPartition topicPartition, final PartitionState state) {
+    state.paused = true;
+    this.consumer.pause(topicPartition)
+      .onSuccess(v -> logger.debug("Paused partition {} {} {}",
+        keyValue("partition", topicPartition),
+        keyValue("queued", state.queued),
+        keyValue("latencyMs", state.latencyMs)
+      ))
+      // The partition might have been revoked in the meantime
+      .onFailure(cause -> logger.debug("Failed to pause partition {}", keyValue("partition", topicPartition), cause));
+  }
+
+  private void resume(final TopicPartition topicPartition, final PartitionState state) {
+    state.paused = false;
+    this.consumer.resume(topicPartition)
+      .onSuccess(v -> logger.debug("Resumed partition {} {}",
+        keyValue("partition", topicPartition),
+        keyValue("queued", state.queued)
+      ))
+      // The partition might have been revoked in the meantime
+      .onFailure(cause -> logger.debug("Failed to resume partition {}", keyValue("partition", topicPartition), cause));
+  }
+
+  /**
+   * @param topicPartition topic partition.
+   * @return the number of records of the given partition queued and not yet dispatched.
+   */
+  int queueDepth(final TopicPartition topicPartition) {
+    final var state = this.partitions.get(topicPartition);
+    return state == null ? 0 : state.queued;
+  }
+
+  private final class PartitionState {
+
+    private int queued;
+    private double latencyMs;
+    private boolean paused;
+
+    private void recordLatency(final double sampleMs) {
+      this.latencyMs = this.latencyMs == 0 ?
+        sampleMs :
+        LATENCY_EWMA_ALPHA * sampleMs + (1 - LATENCY_EWMA_ALPHA) * this.latencyMs;
+    }
+
+    private boolean isFull() {
+      return this.queued >= maxQueueDepth || this.queued * this.latencyMs >= MAX_QUEUE_LATENCY_MS;
+    }
+
+    private boolean canResume() {
+      return this.queued <= maxQueueDepth / 2 && this.queued * this.latencyMs <= MAX_QUEUE_LATENCY_MS / 2;
+    }
+  }
 }
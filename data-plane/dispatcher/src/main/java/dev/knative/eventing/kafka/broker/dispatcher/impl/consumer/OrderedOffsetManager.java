@@ -17,41 +17,43 @@ package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
 
 import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcherListener;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.kafka.client.common.TopicPartition;
 import io.vertx.kafka.client.consumer.KafkaConsumer;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
-import io.vertx.kafka.client.consumer.OffsetAndMetadata;
-import java.util.Map;
-import java.util.Objects;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Consumer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
 
 /**
  * This class implements the offset strategy for the ordered consumer.
+ *
+ * <p>
+ * Since records of the same partition are delivered one after the other, the offset to commit for a partition is
+ * simply the offset following the last delivered record. These offsets are committed in batches,
+ * see {@link BaseOffsetManager}.
  */
-public final class OrderedOffsetManager implements RecordDispatcherListener {
-
-  private static final Logger logger = LoggerFactory
-    .getLogger(OrderedOffsetManager.class);
+public final class OrderedOffsetManager extends BaseOffsetManager implements RecordDispatcherListener {
 
-  private final KafkaConsumer<?, ?> consumer;
-
-  private final Consumer<Integer> onCommit;
+  private final Set<TopicPartition> trackedPartitions;
 
   /**
    * All args constructor.
    *
-   * @param consumer Kafka consumer.
-   * @param onCommit Callback invoked when an offset is actually committed
+   * @param vertx            Vert.x instance used to schedule periodic commits.
+   * @param consumer         Kafka consumer.
+   * @param onCommit         Callback invoked when an offset is actually committed
+   * @param commitIntervalMs Interval between two consecutive flushes of the committable offsets.
+   * @param commitBatchSize  Number of committable records that triggers a flush before the interval elapses.
    */
-  public OrderedOffsetManager(final KafkaConsumer<?, ?> consumer, final Consumer<Integer> onCommit) {
-    Objects.requireNonNull(consumer, "provide consumer");
+  public OrderedOffsetManager(final Vertx vertx,
+                              final KafkaConsumer<?, ?> consumer,
+                              final Consumer<Integer> onCommit,
+                              final long commitIntervalMs,
+                              final int commitBatchSize) {
+    super(vertx, consumer, onCommit, commitIntervalMs, commitBatchSize);
 
-    this.consumer = consumer;
-    this.onCommit = onCommit;
+    this.trackedPartitions = new HashSet<>();
   }
 
   /**
@@ -61,6 +63,7 @@ public final class OrderedOffsetManager implements RecordDispatcherListener {
    */
   @Override
   public Future<Void> recordReceived(final KafkaConsumerRecord<?, ?> record) {
+    this.trackedPartitions.add(new TopicPartition(record.topic(), record.partition()));
     return Future.succeededFuture();
   }
 
@@ -80,6 +83,14 @@ public final class OrderedOffsetManager implements RecordDispatcherListener {
     return commit(record);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Future<Void> successfullyScheduledForRetry(final KafkaConsumerRecord<?, ?> record) {
+    return commit(record);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -97,31 +108,23 @@ public final class OrderedOffsetManager implements RecordDispatcherListener {
   }
 
   private Future<Void> commit(final KafkaConsumerRecord<?, ?> record) {
-    // Execute the actual commit
-    return consumer.commit(Map.of(
-      new TopicPartition(record.topic(), record.partition()),
-      new OffsetAndMetadata(record.offset() + 1, ""))
-    )
-      .onSuccess(ignored -> {
-        if (onCommit != null) {
-          onCommit.accept(1);
-        }
-        logger.debug(
-          "committed {} {} {}",
-          keyValue("topic", record.topic()),
-          keyValue("partition", record.partition()),
-          keyValue("offset", record.offset() + 1)
-        );
-      })
-      .onFailure(cause ->
-        logger.error(
-          "failed to commit {} {} {}",
-          keyValue("topic", record.topic()),
-          keyValue("partition", record.partition()),
-          keyValue("offset", record.offset() + 1),
-          cause
-        )
-      ).mapEmpty();
+    final var topicPartition = new TopicPartition(record.topic(), record.partition());
+    if (!this.trackedPartitions.contains(topicPartition)) {
+      // The partition has been revoked in the meantime, somebody else is going to (re)deliver this record.
+      return Future.succeededFuture();
+    }
+
+    // Records are delivered in order, so this is the highest contiguous delivered offset.
+    return enqueueCommit(topicPartition, record.offset() + 1, 1);
+  }
+
+  @Override
+  boolean isTracked(final TopicPartition topicPartition) {
+    return this.trackedPartitions.contains(topicPartition);
   }
 
+  @Override
+  void untrack(final Set<TopicPartition> partitions) {
+    this.trackedPartitions.removeAll(partitions);
+  }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import io.cloudevents.lang.Nullable;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
+
+/**
+ * This class holds the listeners called synchronously, on the polling thread, right before partitions are revoked.
+ * <p>
+ * {@link KafkaConsumer#partitionsRevokedHandler} is called on the consumer context once the rebalance is over, when the
+ * revoked partitions might already be owned by another consumer, so it's too late to commit their offsets.
+ * Native consumers implementing {@link Source} wrap the rebalance listener registered by Vert.x to call these listeners
+ * first, see {@link RevocationNotifyingKafkaConsumer}.
+ */
+public final class PartitionRevocationListeners {
+
+  private static final Logger logger = LoggerFactory.getLogger(PartitionRevocationListeners.class);
+
+  /**
+   * Native consumers notifying partition revocations synchronously.
+   */
+  public interface Source {
+
+    /**
+     * @return the listeners called before partitions are revoked.
+     */
+    PartitionRevocationListeners partitionRevocationListeners();
+  }
+
+  private final List<Consumer<Collection<TopicPartition>>> listeners;
+
+  public PartitionRevocationListeners() {
+    this.listeners = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Get the listeners of the native consumer wrapped by the given consumer.
+   *
+   * @param consumer Vert.x Kafka consumer.
+   * @return the listeners or null if the native consumer doesn't notify partition revocations synchronously.
+   */
+  @Nullable
+  public static PartitionRevocationListeners of(final KafkaConsumer<?, ?> consumer) {
+    final var nativeConsumer = consumer.unwrap();
+    if (nativeConsumer instanceof Source) {
+      return ((Source) nativeConsumer).partitionRevocationListeners();
+    }
+    return null;
+  }
+
+  /**
+   * Add a listener called, on the polling thread, with the partitions about to be revoked.
+   *
+   * @param listener listener.
+   */
+  public void add(final Consumer<Collection<TopicPartition>> listener) {
+    Objects.requireNonNull(listener, "provide listener");
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Wrap the given rebalance listener to call the registered listeners before it.
+   *
+   * @param delegate rebalance listener.
+   * @return wrapped rebalance listener.
+   */
+  public ConsumerRebalanceListener wrap(final ConsumerRebalanceListener delegate) {
+    return new ConsumerRebalanceListener() {
+      @Override
+      public void onPartitionsRevoked(final Collection<TopicPartition> partitions) {
+        notifyListeners(partitions);
+        delegate.onPartitionsRevoked(partitions);
+      }
+
+      @Override
+      public void onPartitionsAssigned(final Collection<TopicPartition> partitions) {
+        delegate.onPartitionsAssigned(partitions);
+      }
+
+      @Override
+      public void onPartitionsLost(final Collection<TopicPartition> partitions) {
+        // Lost partitions are already owned by another consumer, there is nothing to do before giving them up.
+        delegate.onPartitionsLost(partitions);
+      }
+    };
+  }
+
+  private void notifyListeners(final Collection<TopicPartition> partitions) {
+    if (partitions.isEmpty()) {
+      return;
+    }
+    for (final var listener : this.listeners) {
+      try {
+        listener.accept(partitions);
+      } catch (final RuntimeException ex) {
+        logger.error("partition revocation listener failed {}", keyValue("partitions", partitions), ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+
+/**
+ * Native Kafka consumer calling {@link PartitionRevocationListeners} before partitions are revoked.
+ *
+ * @param <K> key type.
+ * @param <V> value type.
+ */
+public class RevocationNotifyingKafkaConsumer<K, V> extends KafkaConsumer<K, V>
+  implements PartitionRevocationListeners.Source {
+
+  private final PartitionRevocationListeners partitionRevocationListeners;
+
+  /**
+   * All args constructor.
+   *
+   * @param configs consumer configurations.
+   */
+  public RevocationNotifyingKafkaConsumer(final Map<String, Object> configs) {
+    super(configs);
+    this.partitionRevocationListeners = new PartitionRevocationListeners();
+  }
+
+  @Override
+  public PartitionRevocationListeners partitionRevocationListeners() {
+    return this.partitionRevocationListeners;
+  }
+
+  @Override
+  public void subscribe(final Collection<String> topics, final ConsumerRebalanceListener listener) {
+    super.subscribe(topics, this.partitionRevocationListeners.wrap(listener));
+  }
+
+  @Override
+  public void subscribe(final Pattern pattern, final ConsumerRebalanceListener listener) {
+    super.subscribe(pattern, this.partitionRevocationListeners.wrap(listener));
+  }
+}
@@ -16,24 +16,181 @@
 package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
 
 import dev.knative.eventing.kafka.broker.dispatcher.DeliveryOrder;
+import io.cloudevents.CloudEvent;
 import io.vertx.core.Promise;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
 
 /**
  * This {@link io.vertx.core.Verticle} implements an unordered consumer logic, as described in {@link DeliveryOrder#UNORDERED}.
+ * <p>
+ * The number of records and bytes in flight is bounded: once one of the limits is reached, the assigned partitions are
+ * paused and they're resumed only when both the in-flight records and bytes drop below half of their limits.
+ * Partitions assigned while paused are paused as well.
+ * <p>
+ * Partitions are paused as well while the dispatcher is saturated, for example when the subscriber can't receive more
+ * concurrent requests, see {@link #setSaturation(BooleanSupplier)}.
  */
 public final class UnorderedConsumerVerticle extends BaseConsumerVerticle {
 
-  public UnorderedConsumerVerticle(Initializer initializer,
-                                   Set<String> topics) {
+  private static final Logger logger = LoggerFactory.getLogger(UnorderedConsumerVerticle.class);
+
+  private final long maxInFlightRecords;
+  private final long maxInFlightBytes;
+
+  private long inFlightRecords;
+  private long inFlightBytes;
+  private boolean paused;
+  private Set<TopicPartition> pausedPartitions;
+  private BooleanSupplier saturation;
+
+  public UnorderedConsumerVerticle(final Initializer initializer,
+                                   final Set<String> topics,
+                                   final long maxInFlightRecords,
+                                   final long maxInFlightBytes) {
     super(initializer, topics);
+    if (maxInFlightRecords <= 0) {
+      throw new IllegalArgumentException("maxInFlightRecords must be greater than 0, got " + maxInFlightRecords);
+    }
+    if (maxInFlightBytes <= 0) {
+      throw new IllegalArgumentException("maxInFlightBytes must be greater than 0, got " + maxInFlightBytes);
+    }
+
+    this.maxInFlightRecords = maxInFlightRecords;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.pausedPartitions = Set.of();
+    this.saturation = () -> false;
+  }
+
+  /**
+   * Set the saturation of the dispatcher, the saturation can change only while records are in flight.
+   *
+   * @param saturation supplier returning true when the dispatcher can't dispatch more records without queueing them.
+   */
+  public void setSaturation(final BooleanSupplier saturation) {
+    this.saturation = Objects.requireNonNull(saturation, "provide saturation");
   }
 
   @Override
   void startConsumer(Promise<Void> startPromise) {
     this.consumer.exceptionHandler(this::exceptionHandler);
-    this.consumer.handler(record -> this.recordDispatcher.dispatch(record));
+    this.consumer.partitionsAssignedHandler(this::partitionsAssigned);
+    // The revoked partitions handler belongs to the offset manager.
+    final var revocationListeners = PartitionRevocationListeners.of(this.consumer);
+    if (revocationListeners != null) {
+      revocationListeners.add(partitions -> this.context.runOnContext(v -> this.partitionsRevoked(partitions)));
+    }
+    this.consumer.handler(this::handleRecord);
     this.consumer.subscribe(this.topics, startPromise);
   }
 
+  void handleRecord(final KafkaConsumerRecord<String, CloudEvent> record) {
+    final var size = sizeOf(record);
+    this.inFlightRecords++;
+    this.inFlightBytes += size;
+
+    if ((isAboveHighWatermark() || this.saturation.getAsBoolean()) && (!this.paused || isNotPaused(record))) {
+      // Either we weren't paused or we got a record from a partition assigned after we paused.
+      this.pause();
+    }
+
+    this.recordDispatcher.dispatch(record)
+      .onComplete(v -> {
+        this.inFlightRecords--;
+        this.inFlightBytes -= size;
+
+        if (this.paused && isBelowLowWatermark() && !this.saturation.getAsBoolean()) {
+          this.resume();
+        }
+      });
+  }
+
+  /* package visibility for test */
+  void partitionsAssigned(final Set<TopicPartition> assigned) {
+    // Kafka doesn't keep partitions paused across rebalances, so we pause the new assignment.
+    if (this.paused && !assigned.isEmpty()) {
+      this.pause();
+    }
+  }
+
+  /* package visibility for test */
+  void partitionsRevoked(final Collection<org.apache.kafka.common.TopicPartition> revoked) {
+    // Records of revoked partitions assigned again must pause them, even before partitionsAssigned is called.
+    if (this.pausedPartitions == null || this.pausedPartitions.isEmpty()) {
+      return;
+    }
+    final var pausedPartitions = new HashSet<>(this.pausedPartitions);
+    revoked.forEach(tp -> pausedPartitions.remove(new TopicPartition(tp.topic(), tp.partition())));
+    this.pausedPartitions = pausedPartitions;
+  }
+
+  /**
+   * @return the number of records dispatched but not yet completed.
+   */
+  public long getInFlightRecords() {
+    return this.inFlightRecords;
+  }
+
+  /**
+   * @return the serialized size of the records dispatched but not yet completed.
+   */
+  public long getInFlightBytes() {
+    return this.inFlightBytes;
+  }
+
+  private boolean isAboveHighWatermark() {
+    return this.inFlightRecords >= this.maxInFlightRecords || this.inFlightBytes >= this.maxInFlightBytes;
+  }
+
+  private boolean isBelowLowWatermark() {
+    return this.inFlightRecords <= this.maxInFlightRecords / 2 && this.inFlightBytes <= this.maxInFlightBytes / 2;
+  }
+
+  private boolean isNotPaused(final KafkaConsumerRecord<String, CloudEvent> record) {
+    // pausedPartitions is null while we're pausing partitions.
+    return this.pausedPartitions != null &&
+      !this.pausedPartitions.contains(new TopicPartition(record.topic(), record.partition()));
+  }
+
+  private void pause() {
+    this.paused = true;
+    this.pausedPartitions = null;
+    this.consumer.assignment()
+      .compose(partitions -> {
+        this.pausedPartitions = partitions;
+        return this.consumer.pause(partitions);
+      })
+      .onSuccess(v -> logger.debug("Paused partitions {} {}",
+        keyValue("partitions", this.pausedPartitions),
+        keyValue("inFlightRecords", this.inFlightRecords)
+      ))
+      .onFailure(this::exceptionHandler);
+  }
+
+  private void resume() {
+    this.paused = false;
+    this.pausedPartitions = Set.of();
+    // Partitions might have been revoked in the meantime, so we resume the current assignment.
+    this.consumer.assignment()
+      .compose(partitions -> this.consumer.resume(partitions))
+      .onSuccess(v -> logger.debug("Resumed partitions {}", keyValue("inFlightRecords", this.inFlightRecords)))
+      .onFailure(this::exceptionHandler);
+  }
+
+  private static long sizeOf(final KafkaConsumerRecord<String, CloudEvent> record) {
+    final var r = record.record();
+    if (r == null) {
+      return 0;
+    }
+    return Math.max(0, r.serializedKeySize()) + Math.max(0, r.serializedValueSize());
+  }
 }
@@ -16,24 +16,14 @@
 package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
 
 import dev.knative.eventing.kafka.broker.dispatcher.Filter;
-import io.cloudevents.CloudEvent;
 import java.util.Set;
 
-public class AnyFilter implements Filter {
-
-  private final Set<Filter> filters;
+/**
+ * This class implements a filter accepting events accepted by any of its children.
+ */
+public class AnyFilter extends CompositeFilter {
 
   public AnyFilter(Set<Filter> filters) {
-    this.filters = filters;
-  }
-
-  @Override
-  public boolean test(CloudEvent cloudEvent) {
-    for (Filter filter : filters) {
-      if (filter.test(cloudEvent)) {
-        return true;
-      }
-    }
-    return false;
+    super(filters, true, "any");
   }
 }
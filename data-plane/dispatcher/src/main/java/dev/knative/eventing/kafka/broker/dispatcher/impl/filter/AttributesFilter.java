@@ -16,18 +16,24 @@
 package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
 
 import dev.knative.eventing.kafka.broker.dispatcher.Filter;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEvent;
 import io.cloudevents.CloudEvent;
 import io.cloudevents.core.v03.CloudEventV03;
 import io.cloudevents.core.v1.CloudEventV1;
 import io.cloudevents.lang.Nullable;
 import java.net.URI;
-import java.util.AbstractMap.SimpleImmutableEntry;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEvent.CE_PREFIX;
+import static dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEvent.CONTENT_TYPE_HEADER;
 import static java.time.format.DateTimeFormatter.ISO_INSTANT;
 
 public class AttributesFilter implements Filter {
@@ -46,11 +52,15 @@ public class AttributesFilter implements Filter {
     CloudEventV1.TIME, event -> getOrDefault(event.getTime(), time -> time.format(ISO_INSTANT))
   );
 
-  // the key represents the function to turn an event into a string value.
-  // the value represents the value to match.
-  // specversion -> 1.0
-  // f(event) -> event.getSpecVersion().toString() -> 1.0
-  private final List<Entry<Function<CloudEvent, String>, String>> attributes;
+  /**
+   * Number of events after which matchers are sorted by their observed rejection rate.
+   */
+  static final int REORDER_INTERVAL = 1024;
+
+  // Matchers are sorted so that the ones rejecting more events come first, since an event is rejected by the first
+  // matcher not matching it.
+  private volatile AttributeMatcher[] matchers;
+  private int evaluations;
 
   /**
    * All args constructor.
@@ -58,22 +68,11 @@ public class AttributesFilter implements Filter {
    * @param attributes attributes to match to pass filter.
    */
   public AttributesFilter(final Map<String, String> attributes) {
-    this.attributes = attributes.entrySet().stream()
+    this.matchers = attributes.entrySet().stream()
       .filter(entry -> isNotEmpty(entry.getValue()))
-      .map(entry -> new SimpleImmutableEntry<>(
-        attributesMapper.getOrDefault(
-          entry.getKey(),
-          event -> {
-            try {
-              return getOrDefault(event.getAttribute(entry.getKey()), Object::toString);
-            } catch (Exception ex) {
-              return getOrDefault(event.getExtension(entry.getKey()), Object::toString);
-            }
-          }
-        ),
-        entry.getValue()
-      ))
-      .collect(Collectors.toUnmodifiableList());
+      .map(entry -> AttributeMatcher.create(entry.getKey(), entry.getValue()))
+      .sorted(Comparator.comparingInt(AttributeMatcher::cost))
+      .toArray(AttributeMatcher[]::new);
   }
 
   /**
@@ -86,14 +85,64 @@ public class AttributesFilter implements Filter {
    */
   @Override
   public boolean test(final CloudEvent event) {
+    final var matchers = this.matchers;
 
-    for (final var entry : attributes) {
-      if (!entry.getKey().apply(event).equals(entry.getValue())) {
-        return false;
+    var match = true;
+    for (final var matcher : matchers) {
+      matcher.evaluations++;
+      if (!matcher.test(event)) {
+        matcher.rejections++;
+        match = false;
+        break;
       }
     }
 
-    return true;
+    if (matchers.length > 1 && ++evaluations >= REORDER_INTERVAL) {
+      reorder(matchers);
+    }
+    return match;
+  }
+
+  private void reorder(final AttributeMatcher[] matchers) {
+    this.evaluations = 0;
+    final var sorted = Arrays.copyOf(matchers, matchers.length);
+    // The sort is stable, so matchers with the same rejection rate keep their order.
+    Arrays.sort(sorted, Comparator.comparingDouble(AttributeMatcher::rejectionRate).reversed());
+    for (final var matcher : sorted) {
+      matcher.decay();
+    }
+    this.matchers = sorted;
+  }
+
+  /**
+   * @return attribute names in the order they're currently checked.
+   */
+  List<String> getAttributesOrder() {
+    return Arrays.stream(this.matchers)
+      .map(m -> m.attribute)
+      .collect(Collectors.toUnmodifiableList());
+  }
+
+  /**
+   * Create a function extracting the given attribute or extension from an event as a string.
+   * <p>
+   * When the event is a {@link LazyCloudEvent} the value is read from the record headers, without decoding the event.
+   *
+   * @param attribute    attribute or extension name.
+   * @param extractor    function extracting the value from any other event.
+   * @param defaultValue value to use when a {@link LazyCloudEvent} doesn't have the attribute or extension.
+   * @return the extractor function.
+   */
+  static Function<CloudEvent, String> extractor(final String attribute,
+                                                final Function<CloudEvent, String> extractor,
+                                                @Nullable final String defaultValue) {
+    return event -> {
+      if (event instanceof LazyCloudEvent) {
+        final var value = ((LazyCloudEvent) event).getString(attribute);
+        return value == null ? defaultValue : value;
+      }
+      return extractor.apply(event);
+    };
   }
 
   private static <T> String getOrDefault(
@@ -109,4 +158,204 @@ public class AttributesFilter implements Filter {
   private static boolean isNotEmpty(final String value) {
     return !(value == null || value.isEmpty());
   }
+
+  /**
+   * An {@code AttributeMatcher} compares a single attribute or extension with the expected value, it's specialized for
+   * the attribute when the filter is created, so that no string is created to compare values, when possible.
+   * <p>
+   * Matchers collect the number of events they evaluate and reject, they're not synchronized since a filter is used
+   * by a single consumer verticle.
+   */
+  private abstract static class AttributeMatcher implements Filter {
+
+    final String attribute;
+    long evaluations;
+    long rejections;
+
+    AttributeMatcher(final String attribute) {
+      this.attribute = attribute;
+    }
+
+    static AttributeMatcher create(final String attribute, final String value) {
+      switch (attribute) {
+        case CloudEventV1.SPECVERSION:
+          return new StringMatcher(attribute, CE_PREFIX + attribute, value, e -> e.getSpecVersion().toString());
+        case CloudEventV1.ID:
+          return new StringMatcher(attribute, CE_PREFIX + attribute, value, CloudEvent::getId);
+        case CloudEventV1.TYPE:
+          return new StringMatcher(attribute, CE_PREFIX + attribute, value, CloudEvent::getType);
+        case CloudEventV1.SUBJECT:
+          return new StringMatcher(attribute, CE_PREFIX + attribute, value, CloudEvent::getSubject);
+        case CloudEventV1.DATACONTENTTYPE:
+          return new StringMatcher(attribute, CONTENT_TYPE_HEADER, value, CloudEvent::getDataContentType);
+        // URI#toString returns the string the URI has been parsed from, so it doesn't create a new string.
+        case CloudEventV1.SOURCE:
+          return new StringMatcher(attribute, CE_PREFIX + attribute, value, e -> toString(e.getSource()));
+        case CloudEventV1.DATASCHEMA:
+        case CloudEventV03.SCHEMAURL:
+          return new StringMatcher(
+            attribute,
+            CE_PREFIX + CloudEventV1.DATASCHEMA,
+            value,
+            e -> toString(e.getDataSchema())
+          );
+        case CloudEventV1.TIME:
+          return new TimeMatcher(attribute, value);
+        case CloudEventV03.DATACONTENTENCODING:
+          return new GenericMatcher(attribute, value);
+        default:
+          return new ExtensionMatcher(attribute, value);
+      }
+    }
+
+    /**
+     * @return the relative cost of this matcher, used to sort matchers before any event is observed.
+     */
+    abstract int cost();
+
+    double rejectionRate() {
+      return this.evaluations == 0 ? 0 : (double) this.rejections / this.evaluations;
+    }
+
+    // Halve counters, so that rates follow changes in the events.
+    void decay() {
+      this.evaluations /= 2;
+      this.rejections /= 2;
+    }
+
+    @Nullable
+    private static String toString(@Nullable final URI uri) {
+      return uri == null ? null : uri.toString();
+    }
+  }
+
+  private static final class StringMatcher extends AttributeMatcher {
+
+    private final String header;
+    private final String expected;
+    private final byte[] expectedBytes;
+    private final Function<CloudEvent, String> getter;
+
+    StringMatcher(final String attribute,
+                  final String header,
+                  final String expected,
+                  final Function<CloudEvent, String> getter) {
+      super(attribute);
+      this.header = header;
+      this.expected = expected;
+      this.expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+      this.getter = getter;
+    }
+
+    @Override
+    public boolean test(final CloudEvent event) {
+      if (event instanceof LazyCloudEvent) {
+        return ((LazyCloudEvent) event).hasHeaderValue(this.header, this.expectedBytes);
+      }
+      return this.expected.equals(this.getter.apply(event));
+    }
+
+    @Override
+    int cost() {
+      return 0;
+    }
+  }
+
+  private static final class ExtensionMatcher extends AttributeMatcher {
+
+    private final String header;
+    private final String expected;
+    private final byte[] expectedBytes;
+
+    ExtensionMatcher(final String extension, final String expected) {
+      super(extension);
+      this.header = CE_PREFIX + extension;
+      this.expected = expected;
+      this.expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean test(final CloudEvent event) {
+      if (event instanceof LazyCloudEvent) {
+        return ((LazyCloudEvent) event).hasHeaderValue(this.header, this.expectedBytes);
+      }
+      final var value = event.getExtension(this.attribute);
+      return value != null && this.expected.equals(value.toString());
+    }
+
+    @Override
+    int cost() {
+      return 1;
+    }
+  }
+
+  private static final class TimeMatcher extends AttributeMatcher {
+
+    // null when the expected value isn't a time formatted like ISO_INSTANT does, so that no event can match it.
+    @Nullable
+    private final Instant expected;
+
+    TimeMatcher(final String attribute, final String expected) {
+      super(attribute);
+      this.expected = parseInstant(expected);
+    }
+
+    @Override
+    public boolean test(final CloudEvent event) {
+      if (this.expected == null) {
+        return false;
+      }
+      final var time = event.getTime();
+      return time != null &&
+        time.toEpochSecond() == this.expected.getEpochSecond() &&
+        time.getNano() == this.expected.getNano();
+    }
+
+    @Override
+    int cost() {
+      return 3;
+    }
+
+    @Nullable
+    private static Instant parseInstant(final String value) {
+      try {
+        final var instant = Instant.parse(value);
+        return ISO_INSTANT.format(instant).equals(value) ? instant : null;
+      } catch (final DateTimeParseException ex) {
+        return null;
+      }
+    }
+  }
+
+  private static final class GenericMatcher extends AttributeMatcher {
+
+    private final Function<CloudEvent, String> extractor;
+    private final String expected;
+
+    GenericMatcher(final String attribute, final String expected) {
+      super(attribute);
+      this.expected = expected;
+      this.extractor = extractor(
+        attribute,
+        event -> {
+          try {
+            return getOrDefault(event.getAttribute(attribute), Object::toString);
+          } catch (Exception ex) {
+            return getOrDefault(event.getExtension(attribute), Object::toString);
+          }
+        },
+        DEFAULT_STRING
+      );
+    }
+
+    @Override
+    public boolean test(final CloudEvent event) {
+      return this.expected.equals(this.extractor.apply(event));
+    }
+
+    @Override
+    int cost() {
+      return 2;
+    }
+  }
 }
@@ -32,13 +32,17 @@ public abstract class BaseStringFilter implements Filter {
       throw new IllegalArgumentException("Attribute value is empty");
     }
 
-    this.extractor = AttributesFilter.attributesMapper.getOrDefault(attribute, e -> {
-      Object extValue = e.getExtension(attribute);
-      if (extValue == null) {
-        return null;
-      }
-      return extValue.toString();
-    });
+    this.extractor = AttributesFilter.extractor(
+      attribute,
+      AttributesFilter.attributesMapper.getOrDefault(attribute, e -> {
+        Object extValue = e.getExtension(attribute);
+        if (extValue == null) {
+          return null;
+        }
+        return extValue.toString();
+      }),
+      null
+    );
     this.expectedValue = expectedValue;
   }
 
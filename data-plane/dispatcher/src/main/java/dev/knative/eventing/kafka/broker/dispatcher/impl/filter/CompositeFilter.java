@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
+
+import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
+import dev.knative.eventing.kafka.broker.dispatcher.Filter;
+import io.cloudevents.CloudEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * This class implements a filter composed of child filters evaluated with short-circuit, {@link AllFilter} stops at
+ * the first child rejecting an event, {@link AnyFilter} stops at the first child accepting it.
+ * <p>
+ * Since the result doesn't depend on the order of the children, children are reordered to minimize the expected cost
+ * of a test: every {@link #REORDER_INTERVAL} events, children are sorted by their average cost divided by the
+ * probability of short-circuiting, both observed in the previous events.
+ * <p>
+ * Statistics aren't synchronized, since a filter is used by a single consumer verticle.
+ */
+public abstract class CompositeFilter implements Filter {
+
+  /**
+   * Number of events after which children are reordered.
+   */
+  static final int REORDER_INTERVAL = 1024;
+
+  // The cost of children is measured in one event every COST_SAMPLE_INTERVAL events, to limit calls to nanoTime.
+  private static final int COST_SAMPLE_INTERVAL = 16;
+
+  private final boolean shortCircuitResult;
+  private final String kind;
+  private final Child[] children;
+  private volatile Child[] order;
+  private int evaluations;
+
+  /**
+   * @param filters            child filters.
+   * @param shortCircuitResult the result of a child stopping the evaluation of the other children.
+   * @param kind               kind of composite filter, used to tag metrics.
+   */
+  CompositeFilter(final Set<Filter> filters, final boolean shortCircuitResult, final String kind) {
+    Objects.requireNonNull(filters, "provide filters");
+    this.shortCircuitResult = shortCircuitResult;
+    this.kind = kind;
+    this.children = filters.stream().map(Child::new).toArray(Child[]::new);
+    this.order = this.children;
+  }
+
+  @Override
+  public boolean test(final CloudEvent event) {
+    final var order = this.order;
+    final var sample = this.evaluations % COST_SAMPLE_INTERVAL == 0;
+
+    var result = !this.shortCircuitResult;
+    for (final var child : order) {
+      if (child.test(event, sample) == this.shortCircuitResult) {
+        result = this.shortCircuitResult;
+        break;
+      }
+    }
+
+    if (order.length > 1 && ++this.evaluations >= REORDER_INTERVAL) {
+      reorder(order);
+    }
+    return result;
+  }
+
+  /**
+   * Register gauges reporting the average evaluation cost and the pass ratio of each child.
+   *
+   * @param registry registry.
+   * @param tags     tags identifying the filter, for example its consumer group.
+   * @return a closeable removing the gauges from the registry.
+   */
+  public AutoCloseable registerMetrics(final MeterRegistry registry, final Iterable<Tag> tags) {
+    Objects.requireNonNull(registry, "provide registry");
+
+    final List<Meter> meters = new ArrayList<>(this.children.length * 2);
+    for (int i = 0; i < this.children.length; i++) {
+      final var child = this.children[i];
+      final var childTags = Tags.of(tags)
+        .and(Metrics.FILTER_KIND_TAG, this.kind)
+        .and(Metrics.FILTER_CHILD_TAG, i + "-" + child.filter.getClass().getSimpleName());
+
+      meters.add(TimeGauge
+        .builder(Metrics.FILTER_EVALUATION_COST, child, TimeUnit.NANOSECONDS, Child::averageCostNanos)
+        .description("Average time spent evaluating a child filter")
+        .tags(childTags)
+        .register(registry));
+      meters.add(Gauge
+        .builder(Metrics.FILTER_PASS_RATIO, child, Child::passRatio)
+        .description("Ratio of events accepted by a child filter")
+        .tags(childTags)
+        .register(registry));
+    }
+
+    return () -> meters.forEach(registry::remove);
+  }
+
+  /**
+   * @return child filters in the order they're currently evaluated.
+   */
+  List<Filter> getOrder() {
+    return Arrays.stream(this.order)
+      .map(c -> c.filter)
+      .collect(Collectors.toUnmodifiableList());
+  }
+
+  private void reorder(final Child[] order) {
+    this.evaluations = 0;
+    final var sorted = Arrays.copyOf(order, order.length);
+    Arrays.sort(sorted, Comparator.comparingDouble(this::rank));
+    for (final var child : sorted) {
+      child.decay();
+    }
+    this.order = sorted;
+  }
+
+  // The lower the rank the earlier the child is evaluated.
+  private double rank(final Child child) {
+    final var shortCircuitRatio = this.shortCircuitResult ? child.passRatio() : 1 - child.passRatio();
+    // Children that have never been reached stay after the others, since the sort is stable they keep their order.
+    if (child.evaluations == 0 || shortCircuitRatio == 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return child.averageCostNanos() / shortCircuitRatio;
+  }
+
+  private static final class Child {
+
+    private final Filter filter;
+    private long evaluations;
+    private long passes;
+    private long samples;
+    private long sampledNanos;
+
+    private Child(final Filter filter) {
+      this.filter = Objects.requireNonNull(filter, "provide filter");
+    }
+
+    private boolean test(final CloudEvent event, final boolean sample) {
+      final boolean pass;
+      if (sample) {
+        final var start = System.nanoTime();
+        pass = this.filter.test(event);
+        this.sampledNanos += System.nanoTime() - start;
+        this.samples++;
+      } else {
+        pass = this.filter.test(event);
+      }
+      this.evaluations++;
+      if (pass) {
+        this.passes++;
+      }
+      return pass;
+    }
+
+    private double averageCostNanos() {
+      return this.samples == 0 ? 0 : (double) this.sampledNanos / this.samples;
+    }
+
+    private double passRatio() {
+      return this.evaluations == 0 ? 0 : (double) this.passes / this.evaluations;
+    }
+
+    // Halve statistics, so that they follow changes in the events.
+    private void decay() {
+      this.evaluations /= 2;
+      this.passes /= 2;
+      this.samples /= 2;
+      this.sampledNanos /= 2;
+    }
+  }
+}
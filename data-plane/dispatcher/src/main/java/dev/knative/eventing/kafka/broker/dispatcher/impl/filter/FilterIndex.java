@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.v1.CloudEventV1;
+import io.cloudevents.lang.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * This class implements an inverted index of the attributes filters of the egresses of a resource, it maps an exact
+ * attribute value to the egresses whose filter requires that value.
+ * <p>
+ * Each egress is indexed by one of the attributes of its {@link AttributesFilter}, {@code type} if present, otherwise
+ * {@code source}. Given an event, the index computes the egresses that can skip it, since their filter requires a
+ * different value, with a lookup for each indexed attribute. Egresses without filters, or filtering on other
+ * attributes only, aren't indexed and evaluate their own filter for every event.
+ */
+public final class FilterIndex {
+
+  // Attributes used to index egresses, in order of preference.
+  private static final List<String> INDEXED_ATTRIBUTES = List.of(CloudEventV1.TYPE, CloudEventV1.SOURCE);
+
+  private final List<IndexedAttribute> attributes;
+  private final int indexedEgresses;
+
+  /**
+   * Create an index of the given filters.
+   *
+   * @param filters attributes filters of the egresses, filters at index i belong to the egress at index i, an empty map
+   *                means that the egress has no filter.
+   */
+  public FilterIndex(final List<Map<String, String>> filters) {
+    Objects.requireNonNull(filters, "provide filters");
+
+    final var byAttribute = new HashMap<String, IndexedAttribute>();
+    var indexed = 0;
+    for (int i = 0; i < filters.size(); i++) {
+      final var filter = filters.get(i);
+      for (final var attribute : INDEXED_ATTRIBUTES) {
+        final var value = filter.get(attribute);
+        // Empty values match any event, see AttributesFilter.
+        if (value != null && !value.isEmpty()) {
+          byAttribute.computeIfAbsent(attribute, IndexedAttribute::new).add(value, i);
+          indexed++;
+          break;
+        }
+      }
+    }
+
+    this.attributes = new ArrayList<>(byAttribute.values());
+    this.indexedEgresses = indexed;
+  }
+
+  /**
+   * Compute the egresses that can skip the given event without evaluating their own filter, since their filter can't
+   * match the event.
+   *
+   * @param event event.
+   * @return the indexes of the egresses that can skip the event.
+   */
+  public BitSet skipped(@Nullable final CloudEvent event) {
+    final var skipped = new BitSet();
+    if (event == null) {
+      return skipped;
+    }
+    for (final var attribute : this.attributes) {
+      attribute.addSkipped(event, skipped);
+    }
+    return skipped;
+  }
+
+  /**
+   * @return the number of egresses indexed, the others evaluate their own filter for every event.
+   */
+  public int getIndexedEgresses() {
+    return this.indexedEgresses;
+  }
+
+  private static final class IndexedAttribute {
+
+    private final Function<CloudEvent, String> extractor;
+    private final Map<String, BitSet> egressesByValue;
+    // Every egress indexed by this attribute.
+    private final BitSet egresses;
+
+    private IndexedAttribute(final String attribute) {
+      // Values are extracted like AttributesFilter does, so that skipped egresses would reject the event.
+      this.extractor = AttributesFilter.extractor(
+        attribute,
+        AttributesFilter.attributesMapper.get(attribute),
+        null
+      );
+      this.egressesByValue = new HashMap<>();
+      this.egresses = new BitSet();
+    }
+
+    private void add(final String value, final int egress) {
+      this.egressesByValue.computeIfAbsent(value, v -> new BitSet()).set(egress);
+      this.egresses.set(egress);
+    }
+
+    private void addSkipped(final CloudEvent event, final BitSet skipped) {
+      final var value = this.extractor.apply(event);
+      final var matching = value == null ? null : this.egressesByValue.get(value);
+      // Egresses are indexed by a single attribute, so clearing matching egresses doesn't affect other attributes.
+      skipped.or(this.egresses);
+      if (matching != null) {
+        skipped.andNot(matching);
+      }
+    }
+  }
+}
@@ -0,0 +1,784 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.SpecVersion;
+import io.cloudevents.core.v03.CloudEventV03;
+import io.cloudevents.core.v1.CloudEventV1;
+import io.cloudevents.lang.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * This class compiles a CESQL expression into a tree of {@link Condition}, specialized for the types of the operands,
+ * where constant sub-expressions are folded.
+ * <p>
+ * The compiler supports a subset of CESQL: logic operators, comparisons, {@code LIKE}, {@code IN} and {@code EXISTS},
+ * on string, integer and boolean literals, and on the attributes and extensions that the interpreter doesn't convert
+ * from other types. Operators whose precedence could be ambiguous must be grouped using parentheses.
+ * <p>
+ * A condition evaluates to {@link #UNKNOWN} when the event doesn't have the expected attributes or types, in that case
+ * the expression must be evaluated by the interpreter, which takes care of casts and errors.
+ * <p>
+ * The CloudEvents SQL SDK doesn't expose the parsed expression tree, so the compiler parses the expression itself.
+ */
+final class SqlCompiler {
+
+  static final int FALSE = 0;
+  static final int TRUE = 1;
+  static final int UNKNOWN = -1;
+
+  /**
+   * A compiled expression.
+   */
+  @FunctionalInterface
+  interface Condition {
+
+    /**
+     * @param event event.
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN} when the interpreter must evaluate the expression.
+     */
+    int evaluate(CloudEvent event);
+  }
+
+  private static final Set<String> KEYWORDS = Set.of(
+    "AND", "OR", "XOR", "NOT", "LIKE", "IN", "EXISTS", "TRUE", "FALSE"
+  );
+
+  private static final Map<String, Function<CloudEvent, Object>> ATTRIBUTES = Map.of(
+    CloudEventV1.ID, CloudEvent::getId,
+    CloudEventV1.TYPE, CloudEvent::getType,
+    CloudEventV1.SUBJECT, CloudEvent::getSubject,
+    CloudEventV1.DATACONTENTTYPE, CloudEvent::getDataContentType
+  );
+
+  // The interpreter converts these attributes to strings, they're left to the interpreter.
+  private static final Map<String, Function<CloudEvent, Object>> CONVERTED_ATTRIBUTES = Map.of(
+    CloudEventV1.SPECVERSION, CloudEvent::getSpecVersion,
+    CloudEventV1.SOURCE, CloudEvent::getSource,
+    CloudEventV1.DATASCHEMA, CloudEvent::getDataSchema,
+    CloudEventV1.TIME, CloudEvent::getTime
+  );
+
+  private static final Set<String> V03_ATTRIBUTES = Set.of(
+    CloudEventV03.SCHEMAURL,
+    CloudEventV03.DATACONTENTENCODING
+  );
+
+  private final List<Token> tokens;
+  private int position;
+
+  private SqlCompiler(final List<Token> tokens) {
+    this.tokens = tokens;
+  }
+
+  /**
+   * Compile the given expression.
+   *
+   * @param expression a valid CESQL expression.
+   * @return the compiled expression or null if the expression uses constructs that aren't supported.
+   */
+  @Nullable
+  static Condition compile(final String expression) {
+    try {
+      final var compiler = new SqlCompiler(tokenize(expression));
+      final var condition = compiler.parseLogic();
+      compiler.expect(TokenType.EOF);
+      return condition;
+    } catch (final UnsupportedExpressionException ex) {
+      return null;
+    }
+  }
+
+  // logic := unary ((AND | OR | XOR) unary)*
+  // Logic operators have the same precedence, so a chain can't mix them.
+  private Condition parseLogic() {
+    final var first = parseUnary();
+    if (!peekKeyword("AND", "OR", "XOR")) {
+      return first;
+    }
+
+    final var operator = peek().text;
+    final var operands = new ArrayList<Condition>();
+    operands.add(first);
+    while (peekKeyword("AND", "OR", "XOR")) {
+      if (!next().text.equals(operator)) {
+        throw new UnsupportedExpressionException("logic operators mixed without parentheses");
+      }
+      operands.add(parseUnary());
+    }
+
+    switch (operator) {
+      case "AND":
+        return and(operands);
+      case "OR":
+        return or(operands);
+      default:
+        return xor(operands);
+    }
+  }
+
+  // unary := NOT '(' logic ')' | '(' logic ')' | EXISTS identifier | predicate
+  private Condition parseUnary() {
+    if (peekKeyword("NOT")) {
+      next();
+      // NOT has the highest precedence, its operand must be grouped.
+      if (peek().type != TokenType.LEFT_PARENTHESIS) {
+        throw new UnsupportedExpressionException("NOT without parentheses");
+      }
+      return not(parseUnary());
+    }
+    if (peek().type == TokenType.LEFT_PARENTHESIS) {
+      next();
+      final var condition = parseLogic();
+      expect(TokenType.RIGHT_PARENTHESIS);
+      return condition;
+    }
+    if (peekKeyword("EXISTS")) {
+      next();
+      return exists(expect(TokenType.IDENTIFIER).text);
+    }
+    return parsePredicate();
+  }
+
+  // predicate := operand (comparison operand | [NOT] LIKE string | [NOT] IN '(' literal (',' literal)* ')')
+  //            | TRUE | FALSE
+  private Condition parsePredicate() {
+    final var left = parseOperand();
+
+    final Condition condition;
+    if (peek().type == TokenType.COMPARISON) {
+      final var operator = ComparisonOperator.of(next().text);
+      condition = compare(left, operator, parseOperand());
+    } else if (peekKeyword("NOT", "LIKE", "IN")) {
+      final var negated = peekKeyword("NOT");
+      if (negated) {
+        next();
+      }
+      final Condition predicate;
+      if (peekKeyword("LIKE")) {
+        next();
+        predicate = like(left, expect(TokenType.STRING).text);
+      } else if (peekKeyword("IN")) {
+        next();
+        predicate = in(left, parseSet());
+      } else {
+        throw new UnsupportedExpressionException("NOT in a predicate");
+      }
+      condition = negated ? not(predicate) : predicate;
+    } else if (left.isConstant() && left.value instanceof Boolean) {
+      condition = Constant.of((Boolean) left.value);
+    } else {
+      throw new UnsupportedExpressionException("value used as a condition");
+    }
+
+    // Comparisons, LIKE and IN have different precedences, so they can't be chained.
+    if (peek().type == TokenType.COMPARISON || peekKeyword("NOT", "LIKE", "IN")) {
+      throw new UnsupportedExpressionException("predicates chained without parentheses");
+    }
+    return condition;
+  }
+
+  private Operand parseOperand() {
+    final var token = next();
+    switch (token.type) {
+      case IDENTIFIER:
+        return Operand.identifier(token.text);
+      case STRING:
+        return Operand.constant(token.text);
+      case INTEGER:
+        return Operand.constant(parseInteger(token.text));
+      case KEYWORD:
+        if (token.text.equals("TRUE") || token.text.equals("FALSE")) {
+          return Operand.constant(token.text.equals("TRUE"));
+        }
+    }
+    throw new UnsupportedExpressionException("unsupported operand " + token.text);
+  }
+
+  private List<Object> parseSet() {
+    expect(TokenType.LEFT_PARENTHESIS);
+    final var values = new ArrayList<>();
+    while (true) {
+      final var token = next();
+      if (token.type == TokenType.STRING) {
+        values.add(token.text);
+      } else if (token.type == TokenType.INTEGER) {
+        values.add(parseInteger(token.text));
+      } else {
+        throw new UnsupportedExpressionException("unsupported set value " + token.text);
+      }
+      if (next().type != TokenType.COMMA) {
+        break;
+      }
+    }
+    if (this.tokens.get(this.position - 1).type != TokenType.RIGHT_PARENTHESIS) {
+      throw new UnsupportedExpressionException("unterminated set");
+    }
+    return values;
+  }
+
+  private static int parseInteger(final String text) {
+    try {
+      return Integer.parseInt(text);
+    } catch (final NumberFormatException ex) {
+      throw new UnsupportedExpressionException("integer out of range " + text);
+    }
+  }
+
+  private Token peek() {
+    return this.tokens.get(this.position);
+  }
+
+  private Token next() {
+    final var token = this.tokens.get(this.position);
+    if (token.type != TokenType.EOF) {
+      this.position++;
+    }
+    return token;
+  }
+
+  private boolean peekKeyword(final String... keywords) {
+    final var token = peek();
+    if (token.type != TokenType.KEYWORD) {
+      return false;
+    }
+    for (final var keyword : keywords) {
+      if (keyword.equals(token.text)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Token expect(final TokenType type) {
+    final var token = next();
+    if (token.type != type) {
+      throw new UnsupportedExpressionException("expected " + type + " found " + token.text);
+    }
+    return token;
+  }
+
+  private static Condition compare(final Operand left, final ComparisonOperator operator, final Operand right) {
+    if (left.isConstant() && right.isConstant()) {
+      return Constant.of(compareConstants(left.value, operator, right.value));
+    }
+    if (left.isConstant()) {
+      return compare(right, operator.mirror(), left);
+    }
+
+    final var accessor = left.accessor;
+    if (right.isConstant()) {
+      final var expected = right.value;
+      if (expected instanceof Integer) {
+        final int value = (Integer) expected;
+        return event -> {
+          final var actual = accessor.apply(event);
+          if (!(actual instanceof Integer)) {
+            return UNKNOWN;
+          }
+          return of(operator.test((Integer) actual, value));
+        };
+      }
+      if (!operator.isEquality()) {
+        throw new UnsupportedExpressionException("ordering of non integer values");
+      }
+      final var equal = operator == ComparisonOperator.EQUAL;
+      return event -> {
+        final var actual = accessor.apply(event);
+        if (actual == null || actual.getClass() != expected.getClass()) {
+          return UNKNOWN;
+        }
+        return of(expected.equals(actual) == equal);
+      };
+    }
+
+    final var otherAccessor = right.accessor;
+    return event -> {
+      final var a = accessor.apply(event);
+      final var b = otherAccessor.apply(event);
+      if (a == null || b == null || a.getClass() != b.getClass()) {
+        return UNKNOWN;
+      }
+      if (a instanceof Integer) {
+        return of(operator.test((Integer) a, (Integer) b));
+      }
+      if (!operator.isEquality() || !(a instanceof String || a instanceof Boolean)) {
+        return UNKNOWN;
+      }
+      return of(a.equals(b) == (operator == ComparisonOperator.EQUAL));
+    };
+  }
+
+  private static boolean compareConstants(final Object left, final ComparisonOperator operator, final Object right) {
+    if (left.getClass() != right.getClass()) {
+      throw new UnsupportedExpressionException("comparison of constants of different types");
+    }
+    if (left instanceof Integer) {
+      return operator.test((Integer) left, (Integer) right);
+    }
+    if (!operator.isEquality()) {
+      throw new UnsupportedExpressionException("ordering of non integer values");
+    }
+    return left.equals(right) == (operator == ComparisonOperator.EQUAL);
+  }
+
+  private static Condition like(final Operand operand, final String pattern) {
+    if (pattern.indexOf('\\') >= 0 || hasSpecialCharacters(pattern)) {
+      throw new UnsupportedExpressionException("escaped LIKE pattern");
+    }
+    final var hasWildcards = pattern.indexOf('%') >= 0 || pattern.indexOf('_') >= 0;
+
+    if (operand.isConstant()) {
+      if (!(operand.value instanceof String) || hasSpecialCharacters((String) operand.value)) {
+        throw new UnsupportedExpressionException("LIKE on a non string constant");
+      }
+      return Constant.of(like((String) operand.value, pattern));
+    }
+
+    final var accessor = operand.accessor;
+    if (!hasWildcards) {
+      return event -> {
+        final var value = accessor.apply(event);
+        return value instanceof String ? of(pattern.equals(value)) : UNKNOWN;
+      };
+    }
+    return event -> {
+      final var value = accessor.apply(event);
+      // The interpreter matches LIKE patterns using regular expressions, let it handle line terminators and surrogates.
+      if (!(value instanceof String) || hasSpecialCharacters((String) value)) {
+        return UNKNOWN;
+      }
+      return of(like((String) value, pattern));
+    };
+  }
+
+  // Match a LIKE pattern, % matches any sequence of characters, _ matches a single character.
+  static boolean like(final String value, final String pattern) {
+    int v = 0;
+    int p = 0;
+    int wildcard = -1;
+    int wildcardValue = 0;
+    while (v < value.length()) {
+      if (p < pattern.length() && pattern.charAt(p) == '%') {
+        wildcard = p++;
+        wildcardValue = v;
+      } else if (p < pattern.length() && (pattern.charAt(p) == '_' || pattern.charAt(p) == value.charAt(v))) {
+        v++;
+        p++;
+      } else if (wildcard >= 0) {
+        p = wildcard + 1;
+        v = ++wildcardValue;
+      } else {
+        return false;
+      }
+    }
+    while (p < pattern.length() && pattern.charAt(p) == '%') {
+      p++;
+    }
+    return p == pattern.length();
+  }
+
+  private static boolean hasSpecialCharacters(final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final var c = value.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029' || Character.isSurrogate(c)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Condition in(final Operand operand, final List<Object> values) {
+    if (values.stream().allMatch(v -> v instanceof String)) {
+      final var set = new HashSet<>(values);
+      if (operand.isConstant()) {
+        if (!(operand.value instanceof String)) {
+          throw new UnsupportedExpressionException("IN on constants of different types");
+        }
+        return Constant.of(set.contains(operand.value));
+      }
+      final var accessor = operand.accessor;
+      return event -> {
+        final var value = accessor.apply(event);
+        return value instanceof String ? of(set.contains(value)) : UNKNOWN;
+      };
+    }
+
+    if (values.stream().allMatch(v -> v instanceof Integer)) {
+      final var set = values.stream().mapToInt(v -> (Integer) v).sorted().distinct().toArray();
+      if (operand.isConstant()) {
+        if (!(operand.value instanceof Integer)) {
+          throw new UnsupportedExpressionException("IN on constants of different types");
+        }
+        return Constant.of(Arrays.binarySearch(set, (Integer) operand.value) >= 0);
+      }
+      final var accessor = operand.accessor;
+      return event -> {
+        final var value = accessor.apply(event);
+        return value instanceof Integer ? of(Arrays.binarySearch(set, (Integer) value) >= 0) : UNKNOWN;
+      };
+    }
+
+    throw new UnsupportedExpressionException("IN on values of different types");
+  }
+
+  private static Condition exists(final String name) {
+    if (V03_ATTRIBUTES.contains(name)) {
+      throw new UnsupportedExpressionException("EXISTS on a v0.3 attribute");
+    }
+    final var attribute = ATTRIBUTES.containsKey(name) ? ATTRIBUTES.get(name) : CONVERTED_ATTRIBUTES.get(name);
+    if (attribute == null) {
+      return event -> of(event.getExtension(name) != null);
+    }
+    return event -> event.getSpecVersion() == SpecVersion.V1 ? of(attribute.apply(event) != null) : UNKNOWN;
+  }
+
+  // The interpreter evaluates every operand, and an error makes the filter fail, so the result of a logic operator is
+  // unknown when any operand is unknown, except for AND, where a false operand makes the filter fail anyway.
+
+  private static Condition and(final List<Condition> operands) {
+    final var conditions = new ArrayList<Condition>(operands.size());
+    for (final var operand : operands) {
+      if (operand instanceof Constant) {
+        if (((Constant) operand).value == FALSE) {
+          return Constant.FALSE_CONDITION;
+        }
+      } else {
+        conditions.add(operand);
+      }
+    }
+    if (conditions.isEmpty()) {
+      return Constant.TRUE_CONDITION;
+    }
+    if (conditions.size() == 1) {
+      return conditions.get(0);
+    }
+
+    final var array = conditions.toArray(Condition[]::new);
+    return event -> {
+      for (final var condition : array) {
+        final var result = condition.evaluate(event);
+        if (result != TRUE) {
+          return result;
+        }
+      }
+      return TRUE;
+    };
+  }
+
+  private static Condition or(final List<Condition> operands) {
+    final var conditions = new ArrayList<Condition>(operands.size());
+    var initial = FALSE;
+    for (final var operand : operands) {
+      if (operand instanceof Constant) {
+        initial |= ((Constant) operand).value;
+      } else {
+        conditions.add(operand);
+      }
+    }
+    if (conditions.isEmpty()) {
+      return Constant.of(initial == TRUE);
+    }
+    if (conditions.size() == 1 && initial == FALSE) {
+      return conditions.get(0);
+    }
+
+    final var array = conditions.toArray(Condition[]::new);
+    final var initialResult = initial;
+    return event -> {
+      var result = initialResult;
+      for (final var condition : array) {
+        final var r = condition.evaluate(event);
+        if (r == UNKNOWN) {
+          return UNKNOWN;
+        }
+        result |= r;
+      }
+      return result;
+    };
+  }
+
+  private static Condition xor(final List<Condition> operands) {
+    final var conditions = new ArrayList<Condition>(operands.size());
+    var initial = FALSE;
+    for (final var operand : operands) {
+      if (operand instanceof Constant) {
+        initial ^= ((Constant) operand).value;
+      } else {
+        conditions.add(operand);
+      }
+    }
+    if (conditions.isEmpty()) {
+      return Constant.of(initial == TRUE);
+    }
+
+    final var array = conditions.toArray(Condition[]::new);
+    final var initialResult = initial;
+    return event -> {
+      var result = initialResult;
+      for (final var condition : array) {
+        final var r = condition.evaluate(event);
+        if (r == UNKNOWN) {
+          return UNKNOWN;
+        }
+        result ^= r;
+      }
+      return result;
+    };
+  }
+
+  private static Condition not(final Condition condition) {
+    if (condition instanceof Constant) {
+      return Constant.of(((Constant) condition).value == FALSE);
+    }
+    return event -> {
+      final var result = condition.evaluate(event);
+      return result == UNKNOWN ? UNKNOWN : TRUE - result;
+    };
+  }
+
+  private static int of(final boolean value) {
+    return value ? TRUE : FALSE;
+  }
+
+  private static List<Token> tokenize(final String expression) {
+    final var tokens = new ArrayList<Token>();
+    int i = 0;
+    while (i < expression.length()) {
+      final var c = expression.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '(') {
+        tokens.add(new Token(TokenType.LEFT_PARENTHESIS, "("));
+        i++;
+      } else if (c == ')') {
+        tokens.add(new Token(TokenType.RIGHT_PARENTHESIS, ")"));
+        i++;
+      } else if (c == ',') {
+        tokens.add(new Token(TokenType.COMMA, ","));
+        i++;
+      } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+        final var end = i + 1 < expression.length() && (expression.charAt(i + 1) == '=' ||
+          (c == '<' && expression.charAt(i + 1) == '>')) ? i + 2 : i + 1;
+        final var operator = expression.substring(i, end);
+        if (operator.equals("!")) {
+          throw new UnsupportedExpressionException("unsupported operator !");
+        }
+        tokens.add(new Token(TokenType.COMPARISON, operator));
+        i = end;
+      } else if (c == '\'' || c == '"') {
+        final var end = expression.indexOf(c, i + 1);
+        if (end < 0) {
+          throw new UnsupportedExpressionException("unterminated string");
+        }
+        final var value = expression.substring(i + 1, end);
+        // Escaped quotes are left to the interpreter.
+        if (value.indexOf('\\') >= 0 || (end + 1 < expression.length() && expression.charAt(end + 1) == c)) {
+          throw new UnsupportedExpressionException("escaped string");
+        }
+        tokens.add(new Token(TokenType.STRING, value));
+        i = end + 1;
+      } else if (isAsciiLetterOrDigit(c)) {
+        var end = i;
+        while (end < expression.length() && isAsciiLetterOrDigit(expression.charAt(end))) {
+          end++;
+        }
+        tokens.add(word(expression.substring(i, end)));
+        i = end;
+      } else {
+        throw new UnsupportedExpressionException("unsupported character " + c);
+      }
+    }
+    tokens.add(new Token(TokenType.EOF, "<EOF>"));
+    return tokens;
+  }
+
+  private static Token word(final String word) {
+    if (word.chars().allMatch(c -> c >= '0' && c <= '9')) {
+      return new Token(TokenType.INTEGER, word);
+    }
+    if (KEYWORDS.contains(word)) {
+      return new Token(TokenType.KEYWORD, word);
+    }
+    // Identifiers are lower case, anything else, like keywords in a different case, is left to the interpreter.
+    final var first = word.charAt(0);
+    if (first >= 'a' && first <= 'z' &&
+      word.chars().allMatch(c -> (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) &&
+      !KEYWORDS.contains(word.toUpperCase())) {
+      return new Token(TokenType.IDENTIFIER, word);
+    }
+    throw new UnsupportedExpressionException("unsupported word " + word);
+  }
+
+  private static boolean isAsciiLetterOrDigit(final char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+  }
+
+  private enum TokenType {
+    IDENTIFIER,
+    KEYWORD,
+    STRING,
+    INTEGER,
+    COMPARISON,
+    LEFT_PARENTHESIS,
+    RIGHT_PARENTHESIS,
+    COMMA,
+    EOF
+  }
+
+  private static final class Token {
+
+    private final TokenType type;
+    private final String text;
+
+    private Token(final TokenType type, final String text) {
+      this.type = type;
+      this.text = text;
+    }
+  }
+
+  private enum ComparisonOperator {
+    EQUAL,
+    NOT_EQUAL,
+    LESS,
+    LESS_OR_EQUAL,
+    GREATER,
+    GREATER_OR_EQUAL;
+
+    static ComparisonOperator of(final String operator) {
+      switch (operator) {
+        case "=":
+          return EQUAL;
+        case "!=":
+        case "<>":
+          return NOT_EQUAL;
+        case "<":
+          return LESS;
+        case "<=":
+          return LESS_OR_EQUAL;
+        case ">":
+          return GREATER;
+        case ">=":
+          return GREATER_OR_EQUAL;
+      }
+      throw new UnsupportedExpressionException("unsupported operator " + operator);
+    }
+
+    boolean isEquality() {
+      return this == EQUAL || this == NOT_EQUAL;
+    }
+
+    // The operator to use when operands are swapped.
+    ComparisonOperator mirror() {
+      switch (this) {
+        case LESS:
+          return GREATER;
+        case LESS_OR_EQUAL:
+          return GREATER_OR_EQUAL;
+        case GREATER:
+          return LESS;
+        case GREATER_OR_EQUAL:
+          return LESS_OR_EQUAL;
+        default:
+          return this;
+      }
+    }
+
+    boolean test(final int left, final int right) {
+      switch (this) {
+        case EQUAL:
+          return left == right;
+        case NOT_EQUAL:
+          return left != right;
+        case LESS:
+          return left < right;
+        case LESS_OR_EQUAL:
+          return left <= right;
+        case GREATER:
+          return left > right;
+        default:
+          return left >= right;
+      }
+    }
+  }
+
+  private static final class Operand {
+
+    @Nullable
+    private final Function<CloudEvent, Object> accessor;
+    @Nullable
+    private final Object value;
+
+    private Operand(@Nullable final Function<CloudEvent, Object> accessor, @Nullable final Object value) {
+      this.accessor = accessor;
+      this.value = value;
+    }
+
+    static Operand constant(final Object value) {
+      return new Operand(null, value);
+    }
+
+    static Operand identifier(final String name) {
+      if (CONVERTED_ATTRIBUTES.containsKey(name) || V03_ATTRIBUTES.contains(name)) {
+        throw new UnsupportedExpressionException("converted attribute " + name);
+      }
+      final var attribute = ATTRIBUTES.get(name);
+      if (attribute != null) {
+        return new Operand(attribute, null);
+      }
+      return new Operand(event -> event.getExtension(name), null);
+    }
+
+    boolean isConstant() {
+      return this.accessor == null;
+    }
+  }
+
+  private static final class Constant implements Condition {
+
+    private static final Constant TRUE_CONDITION = new Constant(TRUE);
+    private static final Constant FALSE_CONDITION = new Constant(FALSE);
+
+    private final int value;
+
+    private Constant(final int value) {
+      this.value = value;
+    }
+
+    static Constant of(final boolean value) {
+      return value ? TRUE_CONDITION : FALSE_CONDITION;
+    }
+
+    @Override
+    public int evaluate(final CloudEvent event) {
+      return this.value;
+    }
+  }
+
+  private static final class UnsupportedExpressionException extends RuntimeException {
+
+    private UnsupportedExpressionException(final String message) {
+      super(message, null, false, false);
+    }
+  }
+}
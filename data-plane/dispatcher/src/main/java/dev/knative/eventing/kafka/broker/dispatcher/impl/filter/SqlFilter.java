@@ -23,18 +23,49 @@ import io.cloudevents.sql.Expression;
 import io.cloudevents.sql.Parser;
 import io.cloudevents.sql.Type;
 
+/**
+ * This class implements a filter evaluating a CESQL expression.
+ * <p>
+ * The expression is compiled by {@link SqlCompiler} when possible, events the compiled expression can't evaluate and
+ * expressions using unsupported constructs are evaluated by the interpreter.
+ */
 public class SqlFilter implements Filter {
 
   private final Expression expression;
   private final EvaluationRuntime runtime;
+  private final SqlCompiler.Condition condition;
 
   public SqlFilter(String sqlExpression) {
     this.expression = Parser.parseDefault(sqlExpression);
     this.runtime = EvaluationRuntime.getDefault();
+    this.condition = SqlCompiler.compile(sqlExpression);
   }
 
   @Override
   public boolean test(CloudEvent cloudEvent) {
+    if (this.condition != null) {
+      final var result = this.condition.evaluate(cloudEvent);
+      if (result != SqlCompiler.UNKNOWN) {
+        return result == SqlCompiler.TRUE;
+      }
+    }
+    return interpret(cloudEvent);
+  }
+
+  /**
+   * @return true if the expression has been compiled.
+   */
+  boolean isCompiled() {
+    return this.condition != null;
+  }
+
+  /**
+   * Evaluate the expression using the interpreter.
+   *
+   * @param cloudEvent event.
+   * @return the result of the expression.
+   */
+  private boolean interpret(CloudEvent cloudEvent) {
     try {
       Object value = this.expression.tryEvaluate(this.runtime, cloudEvent);
       return (Boolean) this.runtime.cast(value, Type.BOOLEAN);
@@ -19,11 +19,15 @@ import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
 import dev.knative.eventing.kafka.broker.core.reconciler.EgressReconcilerListener;
 import dev.knative.eventing.kafka.broker.core.reconciler.ResourcesReconciler;
 import dev.knative.eventing.kafka.broker.dispatcher.ConsumerVerticleFactory;
+import dev.knative.eventing.kafka.broker.dispatcher.SharedConsumerVerticleFactory;
+import io.cloudevents.lang.Nullable;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.eventbus.MessageConsumer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import org.slf4j.Logger;
@@ -33,13 +37,21 @@ import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
 
 /**
  * This verticle listens on Egress reconciliations by deploying/undeploying new consumer verticles.
+ * <p>
+ * Egresses using a shared fetch are deployed together with the other egresses of the same resource, so every change
+ * to the egresses of a resource redeploys a single consumer verticle for all of them. Redeploying the shared consumer
+ * makes it leave and join its consumer group again, so every egress of the resource stops for a rebalance, and it
+ * receives again the records in flight that weren't committed yet.
  */
 public final class ConsumerDeployerVerticle extends AbstractVerticle implements EgressReconcilerListener {
 
   private static final Logger logger = LoggerFactory.getLogger(ConsumerDeployerVerticle.class);
 
   private final Map<String, String> deployedDispatchers;
+  private final Map<String, SharedFetch> sharedFetches;
   private final ConsumerVerticleFactory consumerFactory;
+  @Nullable
+  private final SharedConsumerVerticleFactory sharedConsumerFactory;
 
   private MessageConsumer<Object> messageConsumer;
 
@@ -57,7 +69,11 @@ public final class ConsumerDeployerVerticle extends AbstractVerticle implements
       throw new IllegalArgumentException("egressesInitialCapacity cannot be negative or 0");
     }
     this.consumerFactory = consumerFactory;
+    this.sharedConsumerFactory = consumerFactory instanceof SharedConsumerVerticleFactory ?
+      (SharedConsumerVerticleFactory) consumerFactory :
+      null;
     this.deployedDispatchers = new HashMap<>(egressesInitialCapacity);
+    this.sharedFetches = new HashMap<>();
   }
 
   @Override
@@ -75,6 +91,16 @@ public final class ConsumerDeployerVerticle extends AbstractVerticle implements
 
   @Override
   public Future<Void> onNewEgress(final DataPlaneContract.Resource resource, final DataPlaneContract.Egress egress) {
+    if (isSharedFetch(resource, egress)) {
+      final var sharedFetch = this.sharedFetches.computeIfAbsent(resource.getUid(), k -> new SharedFetch());
+      if (sharedFetch.egresses.containsKey(egress.getUid())) {
+        return Future.succeededFuture();
+      }
+      sharedFetch.resource = resource;
+      sharedFetch.egresses.put(egress.getUid(), egress);
+      return scheduleRedeploy(sharedFetch);
+    }
+
     // TODO we should check if the consumer is still running
     if (this.deployedDispatchers.containsKey(egress.getUid())) {
       return Future.succeededFuture();
@@ -113,12 +139,25 @@ public final class ConsumerDeployerVerticle extends AbstractVerticle implements
 
   @Override
   public Future<Void> onUpdateEgress(final DataPlaneContract.Resource resource, final DataPlaneContract.Egress egress) {
+    final var sharedFetch = this.sharedFetches.get(resource.getUid());
+    if (sharedFetch != null && sharedFetch.egresses.containsKey(egress.getUid()) &&
+      isSharedFetch(resource, egress)) {
+      sharedFetch.resource = resource;
+      sharedFetch.egresses.put(egress.getUid(), egress);
+      return scheduleRedeploy(sharedFetch);
+    }
+
     return onDeleteEgress(resource, egress)
       .compose(v -> onNewEgress(resource, egress));
   }
 
   @Override
   public Future<Void> onDeleteEgress(final DataPlaneContract.Resource resource, final DataPlaneContract.Egress egress) {
+    final var sharedFetch = this.sharedFetches.get(resource.getUid());
+    if (sharedFetch != null && sharedFetch.egresses.remove(egress.getUid()) != null) {
+      return scheduleRedeploy(sharedFetch);
+    }
+
     if (!this.deployedDispatchers.containsKey(egress.getUid())) {
       return Future.succeededFuture();
     }
@@ -150,4 +189,83 @@ public final class ConsumerDeployerVerticle extends AbstractVerticle implements
         }
       );
   }
+
+  private boolean isSharedFetch(final DataPlaneContract.Resource resource, final DataPlaneContract.Egress egress) {
+    return this.sharedConsumerFactory != null && this.sharedConsumerFactory.isSharedFetch(resource, egress);
+  }
+
+  private Future<Void> scheduleRedeploy(final SharedFetch sharedFetch) {
+    if (sharedFetch.pendingRedeploy == null) {
+      // Every change of the same reconciliation is applied by a single redeploy, and redeploys of the same resource
+      // never run concurrently.
+      final Promise<Void> pendingRedeploy = Promise.promise();
+      final var previousRedeploy = sharedFetch.lastRedeploy;
+      sharedFetch.pendingRedeploy = pendingRedeploy;
+      sharedFetch.lastRedeploy = pendingRedeploy.future();
+
+      vertx.runOnContext(v -> previousRedeploy.onComplete(ignored -> {
+        sharedFetch.pendingRedeploy = null;
+        redeploy(sharedFetch).onComplete(pendingRedeploy);
+      }));
+    }
+    return sharedFetch.pendingRedeploy.future();
+  }
+
+  private Future<Void> redeploy(final SharedFetch sharedFetch) {
+    final var resource = sharedFetch.resource;
+    final Future<Void> undeploy = sharedFetch.deploymentId == null ?
+      Future.succeededFuture() :
+      vertx.undeploy(sharedFetch.deploymentId)
+        // IllegalStateException is thrown when a verticle is already un-deployed.
+        .recover(cause -> cause instanceof IllegalStateException ? Future.succeededFuture() : Future.failedFuture(cause));
+
+    return undeploy
+      .compose(v -> {
+        sharedFetch.deploymentId = null;
+        if (sharedFetch.egresses.isEmpty()) {
+          if (sharedFetch.pendingRedeploy == null) {
+            this.sharedFetches.remove(resource.getUid(), sharedFetch);
+          }
+          logger.info("Removed shared consumer {}", keyValue("resource.uid", resource.getUid()));
+          return Future.succeededFuture();
+        }
+
+        final AbstractVerticle verticle;
+        try {
+          verticle = sharedConsumerFactory.getShared(resource, new ArrayList<>(sharedFetch.egresses.values()));
+        } catch (Exception e) {
+          logger.error("Potential control-plane bug: failed to get shared verticle {}",
+            keyValue("resource.uid", resource.getUid()),
+            e
+          );
+          return Future.failedFuture(
+            new IllegalStateException("Potential control-plane bug: failed to get shared verticle", e)
+          );
+        }
+
+        return vertx.deployVerticle(verticle)
+          .onSuccess(deploymentId -> {
+            sharedFetch.deploymentId = deploymentId;
+            logger.info("Shared verticle deployed {} {} {}",
+              keyValue("egresses", sharedFetch.egresses.keySet()),
+              keyValue("resource.uid", resource.getUid()),
+              keyValue("deploymentId", deploymentId)
+            );
+          })
+          .mapEmpty();
+      })
+      .onFailure(cause -> logger.error("failed to redeploy shared verticle {}",
+        keyValue("resource.uid", resource.getUid()),
+        cause
+      ));
+  }
+
+  private static final class SharedFetch {
+
+    private final Map<String, DataPlaneContract.Egress> egresses = new LinkedHashMap<>();
+    private DataPlaneContract.Resource resource;
+    private String deploymentId;
+    private Promise<Void> pendingRedeploy;
+    private Future<Void> lastRedeploy = Future.succeededFuture();
+  }
 }
@@ -18,27 +18,48 @@ package dev.knative.eventing.kafka.broker.dispatcher.main;
 import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
 import dev.knative.eventing.kafka.broker.contract.DataPlaneContract.EgressConfig;
 import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
+import dev.knative.eventing.kafka.broker.core.KafkaProducerPool;
 import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
 import dev.knative.eventing.kafka.broker.core.security.AuthProvider;
+import dev.knative.eventing.kafka.broker.core.security.Credentials;
 import dev.knative.eventing.kafka.broker.core.security.KafkaClientsAuth;
 import dev.knative.eventing.kafka.broker.core.security.PlaintextCredentials;
 import dev.knative.eventing.kafka.broker.dispatcher.CloudEventSender;
-import dev.knative.eventing.kafka.broker.dispatcher.ConsumerVerticleFactory;
 import dev.knative.eventing.kafka.broker.dispatcher.DeliveryOrder;
 import dev.knative.eventing.kafka.broker.dispatcher.Filter;
+import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher;
 import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcherListener;
+import dev.knative.eventing.kafka.broker.dispatcher.ResponseHandler;
+import dev.knative.eventing.kafka.broker.dispatcher.RetryScheduler;
+import dev.knative.eventing.kafka.broker.dispatcher.SharedConsumerVerticleFactory;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.AdaptiveConcurrencyLimiter;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.BatchingCloudEventSender;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.ConcurrencyLimitedCloudEventSender;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.KafkaResponseHandler;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.RateLimitedCloudEventSender;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.RecordDispatcherImpl;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.RetryTopicScheduler;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.TokenBucketRateLimiter;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.WebClientCloudEventSender;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.WebClientRegistry;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.BaseConsumerVerticle;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.DelayedRecordDispatcher;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.FanOutRecordDispatcher;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.KeyOrderedConsumerVerticle;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.OrderedConsumerVerticle;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.OrderedOffsetManager;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.RevocationNotifyingKafkaConsumer;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.UnorderedConsumerVerticle;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.UnorderedOffsetManager;
 import dev.knative.eventing.kafka.broker.dispatcher.impl.filter.AttributesFilter;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.filter.FilterIndex;
 import io.cloudevents.CloudEvent;
+import io.cloudevents.lang.Nullable;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AbstractVerticle;
@@ -46,13 +67,15 @@ import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.impl.VertxInternal;
 import io.vertx.core.tracing.TracingPolicy;
-import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.kafka.client.common.KafkaClientOptions;
 import io.vertx.kafka.client.common.tracing.ConsumerTracer;
 import io.vertx.kafka.client.consumer.KafkaConsumer;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -64,23 +87,159 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
 
-public class ConsumerVerticleFactoryImpl implements ConsumerVerticleFactory {
+public class ConsumerVerticleFactoryImpl implements SharedConsumerVerticleFactory {
 
   private static final Logger logger = LoggerFactory.getLogger(ConsumerVerticleFactoryImpl.class);
 
   private final static CloudEventSender NO_DEAD_LETTER_SINK_SENDER = CloudEventSender.noop("No dead letter sink set");
 
+  // Defaults of auto.commit.interval.ms and max.poll.records.
+  // We don't use auto commit, but we use these configurations to drive our offset commits.
+  private final static long DEFAULT_COMMIT_INTERVAL_MS = 5000L;
+  private final static int DEFAULT_COMMIT_BATCH_SIZE = 500;
+
+  /**
+   * Consumer configurations starting with this prefix configure the dispatcher, and they're not passed to the
+   * Kafka consumer.
+   */
+  public final static String DISPATCHER_CONFIG_PREFIX = "dispatcher.";
+
+  /**
+   * Producer configurations starting with this prefix configure the receiver, which shares the producer
+   * configurations with the dispatcher, and they're not passed to the Kafka producer.
+   */
+  public final static String RECEIVER_CONFIG_PREFIX = "receiver.";
+
+  /**
+   * Maximum number of records in flight for a single egress, used by the unordered consumer.
+   */
+  public final static String MAX_IN_FLIGHT_RECORDS_CONFIG = DISPATCHER_CONFIG_PREFIX + "max.in.flight.records";
+  private final static long DEFAULT_MAX_IN_FLIGHT_RECORDS = 1000;
+
+  /**
+   * Maximum number of bytes in flight for a single egress, used by the unordered consumer.
+   */
+  public final static String MAX_IN_FLIGHT_BYTES_CONFIG = DISPATCHER_CONFIG_PREFIX + "max.in.flight.bytes";
+  private final static long DEFAULT_MAX_IN_FLIGHT_BYTES = 64 * 1024 * 1024;
+
+  /**
+   * Maximum number of keys of a partition dispatched concurrently, used by the key ordered consumer.
+   */
+  public final static String KEY_ORDERED_MAX_IN_FLIGHT_KEYS_CONFIG =
+    DISPATCHER_CONFIG_PREFIX + "key.ordered.max.in.flight.keys";
+  private final static long DEFAULT_KEY_ORDERED_MAX_IN_FLIGHT_KEYS = 16;
+
+  /**
+   * When enabled, unordered egresses of the same resource share a single consumer, so that records are fetched and
+   * deserialized once for all of them.
+   * <p>
+   * Egresses sharing a consumer progress at the pace of the slowest one, see
+   * {@link dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.FanOutRecordDispatcher}.
+   */
+  public final static String SHARED_FETCH_CONFIG = DISPATCHER_CONFIG_PREFIX + "shared.fetch";
+
+  /**
+   * Comma separated list of subscriber hosts receiving events using HTTP/2, a host starting with a dot matches every
+   * sub domain. Events are delivered to every host using HTTP/2 when the web client protocolVersion is HTTP_2.
+   */
+  public final static String HTTP2_HOSTS_CONFIG = DISPATCHER_CONFIG_PREFIX + "http2.hosts";
+
+  /**
+   * Maximum size in bytes of a batch of events, used by unordered egresses with batched delivery.
+   */
+  public final static String BATCH_MAX_BYTES_CONFIG = DISPATCHER_CONFIG_PREFIX + "batch.max.bytes";
+  private final static long DEFAULT_BATCH_MAX_BYTES = 1024 * 1024;
+
+  /**
+   * Maximum time in milliseconds an event waits for its batch to be sent, used by unordered egresses with batched
+   * delivery.
+   */
+  public final static String BATCH_LINGER_MS_CONFIG = DISPATCHER_CONFIG_PREFIX + "batch.linger.ms";
+  private final static long DEFAULT_BATCH_LINGER_MS = 100;
+
+  /**
+   * When enabled, egresses with retries send a record once and, when the subscriber fails, produce it to a delay topic
+   * instead of retrying it in memory, so that a failing record doesn't hold its partition during the backoff.
+   * Records of the delay topic are sent again once their backoff elapses, and they're sent to the dead letter sink
+   * after the last retry. Records retried this way aren't delivered in order.
+   * <p>
+   * The delay topic of an egress is named as its consumer group prefixed by {@link #RETRY_TOPIC_PREFIX}, and it must
+   * exist, unless brokers create topics automatically.
+   */
+  public final static String RETRY_TOPIC_ENABLED_CONFIG = DISPATCHER_CONFIG_PREFIX + "retry.topic.enabled";
+
+  /**
+   * Prefix of the delay topics, and of the consumer groups consuming them.
+   */
+  public final static String RETRY_TOPIC_PREFIX = "knative-retry.";
+
+  /**
+   * Maximum number of records of a delay topic waiting for their backoff, or being sent, for a single egress.
+   */
+  public final static String RETRY_MAX_WAITING_RECORDS_CONFIG = DISPATCHER_CONFIG_PREFIX + "retry.max.waiting.records";
+  private final static long DEFAULT_RETRY_MAX_WAITING_RECORDS = 1000;
+
+  /**
+   * When enabled, unordered egresses limit the number of concurrent requests to their subscriber, adapting the limit
+   * to the latency and the errors of the subscriber, see {@link AdaptiveConcurrencyLimiter}. Partitions are paused
+   * while requests wait for the limit.
+   */
+  public final static String ADAPTIVE_CONCURRENCY_ENABLED_CONFIG =
+    DISPATCHER_CONFIG_PREFIX + "adaptive.concurrency.enabled";
+
+  /**
+   * Minimum number of concurrent requests to the subscriber of an egress, used when adaptive concurrency is enabled.
+   */
+  public final static String ADAPTIVE_CONCURRENCY_MIN_LIMIT_CONFIG =
+    DISPATCHER_CONFIG_PREFIX + "adaptive.concurrency.min.limit";
+  private final static long DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT = 1;
+
+  /**
+   * Maximum number of concurrent requests to the subscriber of an egress, used when adaptive concurrency is enabled.
+   */
+  public final static String ADAPTIVE_CONCURRENCY_MAX_LIMIT_CONFIG =
+    DISPATCHER_CONFIG_PREFIX + "adaptive.concurrency.max.limit";
+  private final static long DEFAULT_ADAPTIVE_CONCURRENCY_MAX_LIMIT = 1000;
+
+  /**
+   * Initial number of concurrent requests to the subscriber of an egress, used when adaptive concurrency is enabled.
+   */
+  public final static String ADAPTIVE_CONCURRENCY_INITIAL_LIMIT_CONFIG =
+    DISPATCHER_CONFIG_PREFIX + "adaptive.concurrency.initial.limit";
+  private final static long DEFAULT_ADAPTIVE_CONCURRENCY_INITIAL_LIMIT = 20;
+
   private final Map<String, Object> consumerConfigs;
   private final WebClientOptions webClientOptions;
   private final Map<String, Object> producerConfigs;
   private final AuthProvider authProvider;
+  private final MeterRegistry metricsRegistry;
   private final Counter eventsSentCounter;
+  private final long commitIntervalMs;
+  private final int commitBatchSize;
+  private final long maxInFlightRecords;
+  private final long maxInFlightBytes;
+  private final int keyOrderedMaxInFlightKeys;
+  private final boolean sharedFetch;
+  private final Set<String> http2Hosts;
+  private final long batchMaxBytes;
+  private final long batchLingerMs;
+  private final boolean retryTopicEnabled;
+  private final long retryMaxWaitingRecords;
+  private final boolean adaptiveConcurrencyEnabled;
+  private final int adaptiveConcurrencyMinLimit;
+  private final int adaptiveConcurrencyMaxLimit;
+  private final int adaptiveConcurrencyInitialLimit;
+  // Reply producers are shared by every egress with the same effective producer configurations.
+  private final KafkaProducerPool<String, CloudEvent> replyProducers;
+  // Subscribers and dead letter sinks on the same host share the same connection pool.
+  private WebClientRegistry webClientRegistry;
 
   /**
    * All args constructor.
@@ -103,17 +262,47 @@ public class ConsumerVerticleFactoryImpl implements ConsumerVerticleFactory {
     Objects.requireNonNull(producerConfigs, "provide producerConfigs");
     Objects.requireNonNull(metricsRegistry, "provide metricsRegistry");
 
-    this.consumerConfigs = consumerConfigs.entrySet()
+    final Map<String, Object> configs = consumerConfigs.entrySet()
       .stream()
       .map(e -> new SimpleImmutableEntry<>(e.getKey().toString(), e.getValue()))
       .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+    this.consumerConfigs = configs.entrySet()
+      .stream()
+      .filter(e -> !e.getKey().startsWith(DISPATCHER_CONFIG_PREFIX))
+      .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
     this.producerConfigs = producerConfigs.entrySet()
       .stream()
       .map(e -> new SimpleImmutableEntry<>(e.getKey().toString(), e.getValue().toString()))
+      .filter(e -> !e.getKey().startsWith(RECEIVER_CONFIG_PREFIX))
       .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
     this.webClientOptions = webClientOptions;
     this.authProvider = authProvider;
+    this.metricsRegistry = metricsRegistry;
     this.eventsSentCounter = metricsRegistry.counter(Metrics.HTTP_EVENTS_SENT_COUNT);
+    this.commitIntervalMs = getLong(
+      this.consumerConfigs, ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, DEFAULT_COMMIT_INTERVAL_MS);
+    this.commitBatchSize = (int) getLong(
+      this.consumerConfigs, ConsumerConfig.MAX_POLL_RECORDS_CONFIG, DEFAULT_COMMIT_BATCH_SIZE);
+    this.maxInFlightRecords = getLong(configs, MAX_IN_FLIGHT_RECORDS_CONFIG, DEFAULT_MAX_IN_FLIGHT_RECORDS);
+    this.maxInFlightBytes = getLong(configs, MAX_IN_FLIGHT_BYTES_CONFIG, DEFAULT_MAX_IN_FLIGHT_BYTES);
+    this.keyOrderedMaxInFlightKeys = (int) getLong(
+      configs, KEY_ORDERED_MAX_IN_FLIGHT_KEYS_CONFIG, DEFAULT_KEY_ORDERED_MAX_IN_FLIGHT_KEYS);
+    this.replyProducers = new KafkaProducerPool<>(this::createProducer);
+    this.sharedFetch = Boolean.parseBoolean(String.valueOf(configs.get(SHARED_FETCH_CONFIG)).trim());
+    this.http2Hosts = getHosts(configs, HTTP2_HOSTS_CONFIG);
+    this.batchMaxBytes = getLong(configs, BATCH_MAX_BYTES_CONFIG, DEFAULT_BATCH_MAX_BYTES);
+    this.batchLingerMs = getLong(configs, BATCH_LINGER_MS_CONFIG, DEFAULT_BATCH_LINGER_MS);
+    this.retryTopicEnabled = Boolean.parseBoolean(String.valueOf(configs.get(RETRY_TOPIC_ENABLED_CONFIG)).trim());
+    this.retryMaxWaitingRecords =
+      getLong(configs, RETRY_MAX_WAITING_RECORDS_CONFIG, DEFAULT_RETRY_MAX_WAITING_RECORDS);
+    this.adaptiveConcurrencyEnabled =
+      Boolean.parseBoolean(String.valueOf(configs.get(ADAPTIVE_CONCURRENCY_ENABLED_CONFIG)).trim());
+    this.adaptiveConcurrencyMinLimit = (int) getLong(
+      configs, ADAPTIVE_CONCURRENCY_MIN_LIMIT_CONFIG, DEFAULT_ADAPTIVE_CONCURRENCY_MIN_LIMIT);
+    this.adaptiveConcurrencyMaxLimit = (int) getLong(
+      configs, ADAPTIVE_CONCURRENCY_MAX_LIMIT_CONFIG, DEFAULT_ADAPTIVE_CONCURRENCY_MAX_LIMIT);
+    this.adaptiveConcurrencyInitialLimit = (int) getLong(
+      configs, ADAPTIVE_CONCURRENCY_INITIAL_LIMIT_CONFIG, DEFAULT_ADAPTIVE_CONCURRENCY_INITIAL_LIMIT);
   }
 
   /**
@@ -134,74 +323,441 @@ public class ConsumerVerticleFactoryImpl implements ConsumerVerticleFactory {
 
     final DeliveryOrder deliveryOrder = DeliveryOrder.fromContract(egress.getDeliveryOrder());
 
+    // Records retried through the delay topic are sent by a separate consumer, deployed with this verticle.
+    final var retryTopicVerticle = isRetryTopicEnabled(resource, egress) ?
+      getRetryTopicVerticle(resource, egress) :
+      null;
+
     final BaseConsumerVerticle.Initializer initializer = (vertx, consumerVerticle) ->
-      (resource.hasAuthSecret() ?
-        authProvider.getCredentials(resource.getAuthSecret().getNamespace(), resource.getAuthSecret().getName()) :
-        Future.succeededFuture(new PlaintextCredentials())
-      ).onSuccess(credentials -> {
+      getCredentials(resource).onSuccess(credentials -> {
         KafkaClientsAuth.attachCredentials(consumerConfigs, credentials);
         KafkaClientsAuth.attachCredentials(producerConfigs, credentials);
 
         KafkaConsumer<String, CloudEvent> consumer = createConsumer(vertx, consumerConfigs);
         AutoCloseable metricsCloser = Metrics.register(consumer.unwrap());
 
-        KafkaProducer<String, CloudEvent> producer = createProducer(vertx, producerConfigs);
+        final var producer = this.replyProducers.acquire(vertx, producerConfigs);
 
-        final var egressConfig =
-          egress.hasEgressConfig() ?
-            egress.getEgressConfig() :
-            resource.getEgressConfig();
+        final var concurrencyLimiter = isConcurrencyLimited(deliveryOrder, egress) ?
+          new AdaptiveConcurrencyLimiter(
+            this.adaptiveConcurrencyMinLimit,
+            this.adaptiveConcurrencyMaxLimit,
+            this.adaptiveConcurrencyInitialLimit
+          ) :
+          null;
+        final var rateLimiter = createRateLimiter(vertx, resource, egress);
 
-        final var egressSubscriberSender = createConsumerRecordSender(
+        final RecordDispatcher recordDispatcher = createRecordDispatcher(
           vertx,
-          egress.getDestination(),
-          egressConfig
+          resource,
+          egress,
+          consumerConfigs,
+          producer,
+          getOffsetManager(vertx, deliveryOrder, consumer, eventsSentCounter::increment),
+          concurrencyLimiter,
+          rateLimiter
         );
+        if (deliveryOrder == DeliveryOrder.UNORDERED && (concurrencyLimiter != null || rateLimiter != null)) {
+          // Stop fetching records while requests wait for the limits, instead of queueing every fetched record.
+          // Ordered verticles dispatch a bounded number of records at a time, so they don't need it.
+          ((UnorderedConsumerVerticle) consumerVerticle).setSaturation(() ->
+            (concurrencyLimiter != null && concurrencyLimiter.isSaturated()) ||
+              (rateLimiter != null && rateLimiter.isSaturated())
+          );
+        }
 
-        final var egressDeadLetterSender = hasDeadLetterSink(egressConfig)
-          ? createConsumerRecordSender(vertx, egressConfig.getDeadLetter(), egressConfig)
-          : NO_DEAD_LETTER_SINK_SENDER;
-
-        final var filter = egress.hasFilter() ?
-          new AttributesFilter(egress.getFilter().getAttributesMap()) :
-          Filter.noop();
-
-        final RecordDispatcherImpl recordDispatcher = new RecordDispatcherImpl(
-          filter,
-          egressSubscriberSender,
-          egressDeadLetterSender,
-          new KafkaResponseHandler(producer, resource.getTopics(0)),
-          getOffsetManager(deliveryOrder, consumer, eventsSentCounter::increment),
-          ConsumerTracer.create(
-            ((VertxInternal) vertx).tracer(),
-            new KafkaClientOptions()
-              .setConfig(consumerConfigs)
-              // Make sure the policy is propagate for the manually instantiated consumer tracer
-              .setTracingPolicy(TracingPolicy.PROPAGATE)
-          )
+        // Set all the built objects in the consumer verticle
+        consumerVerticle.setRecordDispatcher(recordDispatcher);
+        consumerVerticle.setConsumer(consumer);
+        consumerVerticle.setCloser(AsyncCloseable.compose(
+          AsyncCloseable.wrapAutoCloseable(metricsCloser),
+          registerInFlightGauges(consumerVerticle, egress.getConsumerGroup()),
+          registerConcurrencyGauges(concurrencyLimiter, egress.getConsumerGroup()),
+          registerRateLimitGauges(rateLimiter, egress.getConsumerGroup()),
+          retryTopicCloser(vertx, retryTopicVerticle, egress)
+        ));
+      })
+        .compose(credentials -> retryTopicVerticle == null ?
+          Future.<Void>succeededFuture() :
+          vertx.deployVerticle(retryTopicVerticle).<Void>mapEmpty()
         );
 
-        // Set all the built objects in the consumer verticle
+    return getConsumerVerticle(deliveryOrder, initializer, new HashSet<>(resource.getTopicsList()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isSharedFetch(final DataPlaneContract.Resource resource, final DataPlaneContract.Egress egress) {
+    // Ordered, concurrency limited and rate limited egresses pause partitions based on their own progress, so they
+    // can't share the same consumer.
+    final var deliveryOrder = DeliveryOrder.fromContract(egress.getDeliveryOrder());
+    return this.sharedFetch &&
+      deliveryOrder == DeliveryOrder.UNORDERED &&
+      !isConcurrencyLimited(deliveryOrder, egress) &&
+      getEgressConfig(resource, egress).getRateLimit() == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public AbstractVerticle getShared(final DataPlaneContract.Resource resource,
+                                    final Collection<DataPlaneContract.Egress> egresses) {
+    Objects.requireNonNull(resource, "provide resource");
+    Objects.requireNonNull(egresses, "provide egresses");
+
+    // The shared consumer group tracks the offsets committed by every egress.
+    final var consumerConfigs = new HashMap<>(this.consumerConfigs);
+    consumerConfigs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, resource.getBootstrapServers());
+    consumerConfigs.put(ConsumerConfig.GROUP_ID_CONFIG, resource.getUid());
+
+    final var producerConfigs = new HashMap<>(this.producerConfigs);
+    producerConfigs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, resource.getBootstrapServers());
+
+    // Egresses filtering on an exact type or source skip records using the index, without evaluating their filter.
+    final var filterIndex = new FilterIndex(egresses.stream()
+      .map(e -> e.hasFilter() ? e.getFilter().getAttributesMap() : Map.<String, String>of())
+      .collect(Collectors.toList())
+    );
+    logger.info("Created filter index {} {} {}",
+      keyValue("resource", resource.getUid()),
+      keyValue("egresses", egresses.size()),
+      keyValue("indexed", filterIndex.getIndexedEgresses())
+    );
+
+    final BaseConsumerVerticle.Initializer initializer = (vertx, consumerVerticle) ->
+      getCredentials(resource).onSuccess(credentials -> {
+        KafkaClientsAuth.attachCredentials(consumerConfigs, credentials);
+        KafkaClientsAuth.attachCredentials(producerConfigs, credentials);
+
+        KafkaConsumer<String, CloudEvent> consumer = createConsumer(vertx, consumerConfigs);
+        AutoCloseable metricsCloser = Metrics.register(consumer.unwrap());
+
+        final var fanOutEgresses = new ArrayList<FanOutRecordDispatcher.Egress>(egresses.size());
+        for (final var egress : egresses) {
+          // Each egress commits its offsets to its own consumer group, using a consumer that never subscribes.
+          final var egressConsumerConfigs = new HashMap<>(consumerConfigs);
+          egressConsumerConfigs.put(ConsumerConfig.GROUP_ID_CONFIG, egress.getConsumerGroup());
+          final var egressConsumer = createConsumer(vertx, egressConsumerConfigs);
+
+          fanOutEgresses.add(new FanOutRecordDispatcher.Egress(
+            egress.getUid(),
+            egressConsumer,
+            new UnorderedOffsetManager(
+              vertx,
+              egressConsumer,
+              eventsSentCounter::increment,
+              this.commitIntervalMs,
+              this.commitBatchSize
+            ),
+            offsetManager -> createRecordDispatcher(
+              vertx,
+              resource,
+              egress,
+              egressConsumerConfigs,
+              this.replyProducers.acquire(vertx, producerConfigs),
+              offsetManager,
+              // Limited egresses don't share the consumer, see isSharedFetch.
+              null,
+              null
+            )
+          ));
+        }
+
+        consumerVerticle.setRecordDispatcher(new FanOutRecordDispatcher(
+          vertx,
+          consumer,
+          fanOutEgresses,
+          filterIndex,
+          this.commitIntervalMs,
+          this.commitBatchSize
+        ));
+        consumerVerticle.setConsumer(consumer);
+        consumerVerticle.setCloser(AsyncCloseable.compose(
+          AsyncCloseable.wrapAutoCloseable(metricsCloser),
+          registerInFlightGauges(consumerVerticle, resource.getUid())
+        ));
+      })
+        .mapEmpty();
+
+    return getConsumerVerticle(DeliveryOrder.UNORDERED, initializer, new HashSet<>(resource.getTopicsList()));
+  }
+
+  private RecordDispatcher createRecordDispatcher(final Vertx vertx,
+                                                  final DataPlaneContract.Resource resource,
+                                                  final DataPlaneContract.Egress egress,
+                                                  final Map<String, Object> consumerConfigs,
+                                                  final KafkaProducerPool.Lease<String, CloudEvent> producer,
+                                                  final RecordDispatcherListener offsetManager,
+                                                  @Nullable final AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                                  @Nullable final TokenBucketRateLimiter rateLimiter) {
+    final var egressConfig = getEgressConfig(resource, egress);
+
+    final var retryTopic = isRetryTopicEnabled(resource, egress);
+
+    // Records retried through the delay topic are sent once by the subscriber sender.
+    final var egressSubscriberSender = createSubscriberSender(
+      vertx,
+      egress,
+      retryTopic ? egressConfig.toBuilder().setRetry(0).build() : egressConfig,
+      concurrencyLimiter,
+      rateLimiter
+    );
+
+    final var egressDeadLetterSender = hasDeadLetterSink(egressConfig)
+      ? createConsumerRecordSender(vertx, egressConfig.getDeadLetter(), egressConfig, egress.getDiscardReply())
+      : NO_DEAD_LETTER_SINK_SENDER;
+
+    final var filter = egress.hasFilter() ?
+      new AttributesFilter(egress.getFilter().getAttributesMap()) :
+      Filter.noop();
+
+    // The retry scheduler shares the producer of the response handler, which releases it.
+    final var retryScheduler = retryTopic ?
+      createRetryScheduler(producer.getProducer(), egress, egressConfig) :
+      RetryScheduler.noop();
+
+    return new RecordDispatcherImpl(
+      filter,
+      egressSubscriberSender,
+      egressDeadLetterSender,
+      createResponseHandler(resource, egress, producer),
+      offsetManager,
+      ConsumerTracer.create(
+        ((VertxInternal) vertx).tracer(),
+        new KafkaClientOptions()
+          .setConfig(consumerConfigs)
+          // Make sure the policy is propagate for the manually instantiated consumer tracer
+          .setTracingPolicy(TracingPolicy.PROPAGATE)
+      ),
+      retryScheduler
+    );
+  }
+
+  private static ResponseHandler createResponseHandler(final DataPlaneContract.Resource resource,
+                                                       final DataPlaneContract.Egress egress,
+                                                       final KafkaProducerPool.Lease<String, CloudEvent> producer) {
+    if (!egress.getDiscardReply()) {
+      return new KafkaResponseHandler(producer, resource.getTopics(0));
+    }
+    // Responses don't have a body to decode, though the producer is still used by the retry scheduler.
+    return ResponseHandler.discard(producer);
+  }
+
+  private boolean isRetryTopicEnabled(final DataPlaneContract.Resource resource,
+                                      final DataPlaneContract.Egress egress) {
+    final var egressConfig = getEgressConfig(resource, egress);
+    // Egresses sharing a consumer don't have their own consumer verticle to deploy the delay topic consumer with.
+    return this.retryTopicEnabled && egressConfig.getRetry() > 0 && !isSharedFetch(resource, egress);
+  }
+
+  private RetryScheduler createRetryScheduler(final KafkaProducer<String, CloudEvent> producer,
+                                              final DataPlaneContract.Egress egress,
+                                              final EgressConfig egressConfig) {
+    final var tags = Tags.of(Metrics.CONSUMER_GROUP_TAG, egress.getConsumerGroup());
+    return new RetryTopicScheduler(
+      producer,
+      RETRY_TOPIC_PREFIX + egress.getConsumerGroup(),
+      egressConfig.getRetry(),
+      computeRetryPolicy(egressConfig),
+      this.metricsRegistry.counter(Metrics.RETRY_RECORDS_SCHEDULED_COUNT, tags),
+      this.metricsRegistry.counter(Metrics.RETRY_RECORDS_EXHAUSTED_COUNT, tags)
+    );
+  }
+
+  private AbstractVerticle getRetryTopicVerticle(final DataPlaneContract.Resource resource,
+                                                 final DataPlaneContract.Egress egress) {
+    final var topic = RETRY_TOPIC_PREFIX + egress.getConsumerGroup();
+
+    final var consumerConfigs = new HashMap<>(this.consumerConfigs);
+    consumerConfigs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, resource.getBootstrapServers());
+    consumerConfigs.put(ConsumerConfig.GROUP_ID_CONFIG, topic);
+
+    final var producerConfigs = new HashMap<>(this.producerConfigs);
+    producerConfigs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, resource.getBootstrapServers());
+
+    final BaseConsumerVerticle.Initializer initializer = (vertx, consumerVerticle) ->
+      getCredentials(resource).onSuccess(credentials -> {
+        KafkaClientsAuth.attachCredentials(consumerConfigs, credentials);
+        KafkaClientsAuth.attachCredentials(producerConfigs, credentials);
+
+        KafkaConsumer<String, CloudEvent> consumer = createConsumer(vertx, consumerConfigs);
+        AutoCloseable metricsCloser = Metrics.register(consumer.unwrap());
+
+        final var recordDispatcher = new DelayedRecordDispatcher(vertx, createRecordDispatcher(
+          vertx,
+          resource,
+          egress,
+          consumerConfigs,
+          this.replyProducers.acquire(vertx, producerConfigs),
+          getOffsetManager(vertx, DeliveryOrder.UNORDERED, consumer, eventsSentCounter::increment),
+          null,
+          null
+        ));
+        final var waitingRecords = Gauge
+          .builder(Metrics.RETRY_RECORDS_WAITING, recordDispatcher, DelayedRecordDispatcher::getWaitingRecords)
+          .description("Number of records of the delay topic waiting for their backoff")
+          .tags(Tags.of(Metrics.CONSUMER_GROUP_TAG, egress.getConsumerGroup()))
+          .register(this.metricsRegistry);
+
         consumerVerticle.setRecordDispatcher(recordDispatcher);
         consumerVerticle.setConsumer(consumer);
-        consumerVerticle.setCloser(AsyncCloseable.wrapAutoCloseable(metricsCloser));
+        consumerVerticle.setCloser(AsyncCloseable.compose(
+          AsyncCloseable.wrapAutoCloseable(metricsCloser),
+          registerInFlightGauges(consumerVerticle, topic),
+          () -> {
+            this.metricsRegistry.remove(waitingRecords);
+            return Future.succeededFuture();
+          }
+        ));
       })
         .mapEmpty();
 
-    return getConsumerVerticle(deliveryOrder, initializer, new HashSet<>(resource.getTopicsList()));
+    // The number of records waiting for their backoff is bounded by the in-flight limits of the unordered consumer.
+    return new UnorderedConsumerVerticle(
+      initializer,
+      Set.of(topic),
+      this.retryMaxWaitingRecords,
+      this.maxInFlightBytes
+    );
   }
 
-  protected KafkaProducer<String, CloudEvent> createProducer(final Vertx vertx,
-                                                             final Map<String, Object> producerConfigs) {
-    Properties producerProperties = new Properties();
-    producerProperties.putAll(producerConfigs);
-    return KafkaProducer.create(vertx, producerProperties);
+  private AsyncCloseable retryTopicCloser(final Vertx vertx,
+                                          final AbstractVerticle retryTopicVerticle,
+                                          final DataPlaneContract.Egress egress) {
+    if (retryTopicVerticle == null) {
+      return Future::succeededFuture;
+    }
+    return () -> {
+      final var tags = Tags.of(Metrics.CONSUMER_GROUP_TAG, egress.getConsumerGroup());
+      this.metricsRegistry.remove(this.metricsRegistry.counter(Metrics.RETRY_RECORDS_SCHEDULED_COUNT, tags));
+      this.metricsRegistry.remove(this.metricsRegistry.counter(Metrics.RETRY_RECORDS_EXHAUSTED_COUNT, tags));
+
+      // The delay topic consumer is undeployed together with its parent verticle, when it has been deployed by it.
+      final var deploymentId = retryTopicVerticle.getVertx() == null ? null : retryTopicVerticle.deploymentID();
+      if (deploymentId == null || !vertx.deploymentIDs().contains(deploymentId)) {
+        return Future.succeededFuture();
+      }
+      return vertx.undeploy(deploymentId);
+    };
+  }
+
+  private Future<Credentials> getCredentials(final DataPlaneContract.Resource resource) {
+    return resource.hasAuthSecret() ?
+      authProvider.getCredentials(resource.getAuthSecret().getNamespace(), resource.getAuthSecret().getName()) :
+      Future.succeededFuture(new PlaintextCredentials());
+  }
+
+  private AsyncCloseable registerInFlightGauges(final BaseConsumerVerticle consumerVerticle,
+                                                final String consumerGroup) {
+    if (!(consumerVerticle instanceof UnorderedConsumerVerticle)) {
+      return Future::succeededFuture;
+    }
+    final var verticle = (UnorderedConsumerVerticle) consumerVerticle;
+    final var tags = Tags.of(Metrics.CONSUMER_GROUP_TAG, consumerGroup);
+
+    final var inFlightRecords = Gauge
+      .builder(Metrics.CONSUMER_RECORDS_IN_FLIGHT, verticle, UnorderedConsumerVerticle::getInFlightRecords)
+      .description("Number of records dispatched but not yet completed")
+      .tags(tags)
+      .register(this.metricsRegistry);
+    final var inFlightBytes = Gauge
+      .builder(Metrics.CONSUMER_BYTES_IN_FLIGHT, verticle, UnorderedConsumerVerticle::getInFlightBytes)
+      .description("Size in bytes of the records dispatched but not yet completed")
+      .baseUnit(BaseUnits.BYTES)
+      .tags(tags)
+      .register(this.metricsRegistry);
+
+    return () -> {
+      this.metricsRegistry.remove(inFlightRecords);
+      this.metricsRegistry.remove(inFlightBytes);
+      return Future.succeededFuture();
+    };
+  }
+
+  private boolean isConcurrencyLimited(final DeliveryOrder deliveryOrder, final DataPlaneContract.Egress egress) {
+    // Batched egresses send a request for many events, so limiting concurrent events wouldn't limit requests.
+    return this.adaptiveConcurrencyEnabled && deliveryOrder == DeliveryOrder.UNORDERED && egress.getBatchSize() <= 1;
+  }
+
+  @Nullable
+  private TokenBucketRateLimiter createRateLimiter(final Vertx vertx,
+                                                   final DataPlaneContract.Resource resource,
+                                                   final DataPlaneContract.Egress egress) {
+    final var rateLimit = getEgressConfig(resource, egress).getRateLimit();
+    if (rateLimit == 0) {
+      return null;
+    }
+    // The rate limit is an unsigned integer in the contract.
+    return new TokenBucketRateLimiter(vertx, rateLimit < 0 ? Integer.MAX_VALUE : rateLimit);
+  }
+
+  private AsyncCloseable registerRateLimitGauges(@Nullable final TokenBucketRateLimiter limiter,
+                                                 final String consumerGroup) {
+    if (limiter == null) {
+      return Future::succeededFuture;
+    }
+
+    final var queued = Gauge
+      .builder(Metrics.RATE_LIMIT_REQUESTS_QUEUED, limiter, TokenBucketRateLimiter::getQueued)
+      .description("Number of requests to the subscriber waiting for the rate limit")
+      .tags(Tags.of(Metrics.CONSUMER_GROUP_TAG, consumerGroup))
+      .register(this.metricsRegistry);
+
+    return () -> {
+      this.metricsRegistry.remove(queued);
+      return Future.succeededFuture();
+    };
+  }
+
+  private AsyncCloseable registerConcurrencyGauges(@Nullable final AdaptiveConcurrencyLimiter limiter,
+                                                   final String consumerGroup) {
+    if (limiter == null) {
+      return Future::succeededFuture;
+    }
+    final var tags = Tags.of(Metrics.CONSUMER_GROUP_TAG, consumerGroup);
+
+    final var limit = Gauge
+      .builder(Metrics.CONCURRENCY_LIMIT, limiter, AdaptiveConcurrencyLimiter::getLimit)
+      .description("Current limit of concurrent requests to the subscriber")
+      .tags(tags)
+      .register(this.metricsRegistry);
+    final var inFlight = Gauge
+      .builder(Metrics.CONCURRENCY_REQUESTS_IN_FLIGHT, limiter, AdaptiveConcurrencyLimiter::getInFlight)
+      .description("Number of requests to the subscriber in flight")
+      .tags(tags)
+      .register(this.metricsRegistry);
+    final var queued = Gauge
+      .builder(Metrics.CONCURRENCY_REQUESTS_QUEUED, limiter, AdaptiveConcurrencyLimiter::getQueued)
+      .description("Number of requests to the subscriber waiting for the concurrency limit")
+      .tags(tags)
+      .register(this.metricsRegistry);
+
+    return () -> {
+      this.metricsRegistry.remove(limit);
+      this.metricsRegistry.remove(inFlight);
+      this.metricsRegistry.remove(queued);
+      return Future.succeededFuture();
+    };
+  }
+
+  private static EgressConfig getEgressConfig(final DataPlaneContract.Resource resource,
+                                              final DataPlaneContract.Egress egress) {
+    return egress.hasEgressConfig() ? egress.getEgressConfig() : resource.getEgressConfig();
+  }
+
+  protected Producer<String, CloudEvent> createProducer(final Map<String, Object> producerConfigs) {
+    return new org.apache.kafka.clients.producer.KafkaProducer<>(producerConfigs);
   }
 
   protected KafkaConsumer<String, CloudEvent> createConsumer(final Vertx vertx,
                                                              final Map<String, Object> consumerConfigs) {
     return KafkaConsumer.create(
       vertx,
+      // Offset managers commit the offsets of revoked partitions before they're actually revoked.
+      new RevocationNotifyingKafkaConsumer<>(consumerConfigs),
       new KafkaClientOptions()
         .setConfig(consumerConfigs)
         // Disable tracing provided by vertx-kafka-client, because it doesn't work well with our dispatch logic.
@@ -210,10 +766,52 @@ public class ConsumerVerticleFactoryImpl implements ConsumerVerticleFactory {
     );
   }
 
-  private CloudEventSender createConsumerRecordSender(
+  /* package visibility for test */
+  CloudEventSender createSubscriberSender(final Vertx vertx,
+                                          final DataPlaneContract.Egress egress,
+                                          final EgressConfig egressConfig,
+                                          @Nullable final AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                          @Nullable final TokenBucketRateLimiter rateLimiter) {
+    final var webClientSender = createConsumerRecordSender(
+      vertx,
+      egress.getDestination(),
+      egressConfig,
+      egress.getDiscardReply()
+    );
+    CloudEventSender sender = webClientSender;
+    if (egress.getBatchSize() > 1) {
+      // Ordered egresses wait for an event to be delivered before sending the next one, so they can't batch events.
+      if (DeliveryOrder.fromContract(egress.getDeliveryOrder()) == DeliveryOrder.UNORDERED) {
+        sender = new BatchingCloudEventSender(
+          vertx,
+          webClientSender,
+          egress.getBatchSize(),
+          this.batchMaxBytes,
+          this.batchLingerMs
+        );
+      } else {
+        logger.warn("Batched delivery is supported only by unordered egresses, ignoring it {} {}",
+          keyValue("egress.uid", egress.getUid()),
+          keyValue("deliveryOrder", egress.getDeliveryOrder())
+        );
+      }
+    }
+    // Limiters wrap the batching sender, so batched egresses are rate limited in events per second, not in batches.
+    // Batched egresses are never concurrency limited, see isConcurrencyLimited.
+    if (concurrencyLimiter != null) {
+      sender = new ConcurrencyLimitedCloudEventSender(sender, concurrencyLimiter);
+    }
+    if (rateLimiter != null) {
+      sender = new RateLimitedCloudEventSender(sender, rateLimiter);
+    }
+    return sender;
+  }
+
+  private WebClientCloudEventSender createConsumerRecordSender(
     final Vertx vertx,
     final String target,
-    final EgressConfig egress) {
+    final EgressConfig egress,
+    final boolean discardResponseBody) {
 
     final var circuitBreaker = CircuitBreaker
       .create(target, vertx, createCircuitBreakerOptions(egress))
@@ -223,10 +821,18 @@ public class ConsumerVerticleFactoryImpl implements ConsumerVerticleFactory {
       .closeHandler(r -> logger.info("Circuit breaker closed {}", keyValue("target", target)));
 
     return new WebClientCloudEventSender(
-      WebClient.create(vertx, this.webClientOptions), circuitBreaker, target
+      webClientRegistry(vertx).acquire(target), circuitBreaker, target, discardResponseBody
     );
   }
 
+  private synchronized WebClientRegistry webClientRegistry(final Vertx vertx) {
+    // Every verticle runs on the same Vert.x instance, so we create the registry once we get it.
+    if (this.webClientRegistry == null) {
+      this.webClientRegistry = new WebClientRegistry(vertx, this.webClientOptions, this.http2Hosts);
+    }
+    return this.webClientRegistry;
+  }
+
   private static CircuitBreakerOptions createCircuitBreakerOptions(final DataPlaneContract.EgressConfig egressConfig) {
     CircuitBreakerOptions options = new CircuitBreakerOptions();
 
@@ -274,20 +880,62 @@ public class ConsumerVerticleFactoryImpl implements ConsumerVerticleFactory {
     return !(egressConfig == null || egressConfig.getDeadLetter().isEmpty());
   }
 
-  private static RecordDispatcherListener getOffsetManager(final DeliveryOrder type, final KafkaConsumer<?, ?> consumer,
-                                                           Consumer<Integer> commitHandler) {
+  private RecordDispatcherListener getOffsetManager(final Vertx vertx,
+                                                    final DeliveryOrder type,
+                                                    final KafkaConsumer<?, ?> consumer,
+                                                    final Consumer<Integer> commitHandler) {
     return switch (type) {
-      case ORDERED -> new OrderedOffsetManager(consumer, commitHandler);
-      case UNORDERED -> new UnorderedOffsetManager(consumer, commitHandler);
+      case ORDERED -> new OrderedOffsetManager(
+        vertx,
+        consumer,
+        commitHandler,
+        this.commitIntervalMs,
+        this.commitBatchSize
+      );
+      // Records of the same partition are committed only when all the previous ones are delivered,
+      // which is what the unordered offset manager does.
+      case UNORDERED, KEY_ORDERED -> new UnorderedOffsetManager(
+        vertx,
+        consumer,
+        commitHandler,
+        this.commitIntervalMs,
+        this.commitBatchSize
+      );
     };
   }
 
-  private static AbstractVerticle getConsumerVerticle(final DeliveryOrder type,
-                                                      final BaseConsumerVerticle.Initializer initializer,
-                                                      final Set<String> topics) {
+  private static long getLong(final Map<String, Object> configs, final String key, final long defaultValue) {
+    final var value = configs.get(key);
+    if (value == null || value.toString().isBlank()) {
+      return defaultValue;
+    }
+    return Long.parseLong(value.toString().trim());
+  }
+
+  private static Set<String> getHosts(final Map<String, Object> configs, final String key) {
+    final var value = configs.get(key);
+    if (value == null) {
+      return Set.of();
+    }
+    return Arrays.stream(value.toString().split(","))
+      .map(String::trim)
+      .filter(h -> !h.isEmpty())
+      .map(String::toLowerCase)
+      .collect(Collectors.toUnmodifiableSet());
+  }
+
+  private AbstractVerticle getConsumerVerticle(final DeliveryOrder type,
+                                               final BaseConsumerVerticle.Initializer initializer,
+                                               final Set<String> topics) {
     return switch (type) {
       case ORDERED -> new OrderedConsumerVerticle(initializer, topics);
-      case UNORDERED -> new UnorderedConsumerVerticle(initializer, topics);
+      case UNORDERED -> new UnorderedConsumerVerticle(
+        initializer,
+        topics,
+        this.maxInFlightRecords,
+        this.maxInFlightBytes
+      );
+      case KEY_ORDERED -> new KeyOrderedConsumerVerticle(initializer, topics, this.keyOrderedMaxInFlightKeys);
     };
   }
 }
@@ -17,7 +17,6 @@ package dev.knative.eventing.kafka.broker.dispatcher;
 
 import io.cloudevents.CloudEvent;
 import io.vertx.core.Future;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.client.HttpResponse;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -25,22 +24,22 @@ import java.util.function.Supplier;
 public class CloudEventSenderMock implements CloudEventSender {
 
   private final Supplier<Future<Void>> onClose;
-  private final Function<CloudEvent, Future<HttpResponse<Buffer>>> onSend;
+  private final Function<CloudEvent, Future<HttpResponse<?>>> onSend;
 
   public CloudEventSenderMock(
-    final Function<CloudEvent, Future<HttpResponse<Buffer>>> onSend) {
+    final Function<CloudEvent, Future<HttpResponse<?>>> onSend) {
     this(onSend, null);
   }
 
   public CloudEventSenderMock(
-    final Function<CloudEvent, Future<HttpResponse<Buffer>>> onSend,
+    final Function<CloudEvent, Future<HttpResponse<?>>> onSend,
     final Supplier<Future<Void>> onClose) {
     this.onSend = onSend;
     this.onClose = onClose != null ? onClose : Future::succeededFuture;
   }
 
   @Override
-  public Future<HttpResponse<Buffer>> send(CloudEvent event) {
+  public Future<HttpResponse<?>> send(CloudEvent event) {
     return this.onSend.apply(event);
   }
 
@@ -16,7 +16,6 @@
 package dev.knative.eventing.kafka.broker.dispatcher;
 
 import io.vertx.core.Future;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.client.HttpResponse;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -24,15 +23,15 @@ import java.util.function.Supplier;
 public class ResponseHandlerMock implements ResponseHandler {
 
   private final Supplier<Future<Void>> onClose;
-  private final Function<HttpResponse<Buffer>, Future<Void>> onSend;
+  private final Function<HttpResponse<?>, Future<Void>> onSend;
 
-  public ResponseHandlerMock(final Function<HttpResponse<Buffer>, Future<Void>> onSend,
+  public ResponseHandlerMock(final Function<HttpResponse<?>, Future<Void>> onSend,
                              final Supplier<Future<Void>> onClose) {
     this.onSend = onSend != null ? onSend : r -> Future.succeededFuture();
     this.onClose = onClose != null ? onClose : Future::succeededFuture;
   }
 
-  public ResponseHandlerMock(final Function<HttpResponse<Buffer>, Future<Void>> onSend) {
+  public ResponseHandlerMock(final Function<HttpResponse<?>, Future<Void>> onSend) {
     this(onSend, null);
   }
 
@@ -41,7 +40,7 @@ public class ResponseHandlerMock implements ResponseHandler {
   }
 
   @Override
-  public Future<Void> handle(HttpResponse<Buffer> response) {
+  public Future<Void> handle(HttpResponse<?> response) {
     return this.onSend.apply(response);
   }
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+  private static final long LATENCY = 10_000_000L;
+
+  @Test
+  public void shouldQueueRequestsOverTheLimit() {
+    final var limiter = new AdaptiveConcurrencyLimiter(2, 2, 2);
+    final List<Promise<Void>> requests = new ArrayList<>();
+
+    final var futures = new ArrayList<Future<Void>>();
+    for (int i = 0; i < 3; i++) {
+      futures.add(limiter.execute(() -> {
+        final Promise<Void> promise = Promise.promise();
+        requests.add(promise);
+        return promise.future();
+      }));
+    }
+
+    assertThat(requests).hasSize(2);
+    assertThat(limiter.getInFlight()).isEqualTo(2);
+    assertThat(limiter.getQueued()).isEqualTo(1);
+    assertThat(limiter.isSaturated()).isTrue();
+
+    requests.get(0).complete();
+
+    assertThat(futures.get(0).succeeded()).isTrue();
+    assertThat(requests).hasSize(3);
+    assertThat(limiter.getInFlight()).isEqualTo(2);
+    assertThat(limiter.isSaturated()).isFalse();
+
+    requests.get(2).complete();
+
+    assertThat(futures.get(2).succeeded()).isTrue();
+    assertThat(limiter.getInFlight()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldIncreaseLimitWhenLatencyIsStable() {
+    final var limiter = new AdaptiveConcurrencyLimiter(1, 100, 10);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.onRequestCompleted(LATENCY, false, true, limiter.getEpoch());
+    }
+
+    assertThat(limiter.getLimit()).isGreaterThan(10);
+  }
+
+  @Test
+  public void shouldNotIncreaseLimitWhenNotInUse() {
+    final var limiter = new AdaptiveConcurrencyLimiter(1, 100, 10);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.onRequestCompleted(LATENCY, false, false, limiter.getEpoch());
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldDecreaseLimitOnceForRequestsStartedWithTheSameLimit() {
+    final var limiter = new AdaptiveConcurrencyLimiter(1, 100, 20);
+    final var epoch = limiter.getEpoch();
+
+    for (int i = 0; i < 10; i++) {
+      limiter.onRequestCompleted(LATENCY, true, true, epoch);
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(18);
+
+    limiter.onRequestCompleted(LATENCY, true, true, limiter.getEpoch());
+
+    assertThat(limiter.getLimit()).isEqualTo(16);
+  }
+
+  @Test
+  public void shouldDecreaseLimitWhenLatencyIncreases() {
+    final var limiter = new AdaptiveConcurrencyLimiter(1, 100, 20);
+
+    limiter.onRequestCompleted(LATENCY, false, false, limiter.getEpoch());
+    limiter.onRequestCompleted(LATENCY * 3, false, true, limiter.getEpoch());
+
+    assertThat(limiter.getLimit()).isEqualTo(18);
+  }
+
+  @Test
+  public void shouldNotDecreaseLimitBelowMinimum() {
+    final var limiter = new AdaptiveConcurrencyLimiter(5, 100, 6);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.onRequestCompleted(LATENCY, true, true, limiter.getEpoch());
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldDropQueuedRequestsOnClear() {
+    final var limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+    final Promise<Void> first = Promise.promise();
+
+    limiter.execute(() -> first.future());
+    final var queued = limiter.execute(Future::<Void>succeededFuture);
+    limiter.clear();
+    first.complete();
+
+    assertThat(queued.isComplete()).isFalse();
+    assertThat(limiter.isSaturated()).isFalse();
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  public void shouldRejectInvalidLimits() {
+    assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(0, 1, 1))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(2, 1, 1))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+}
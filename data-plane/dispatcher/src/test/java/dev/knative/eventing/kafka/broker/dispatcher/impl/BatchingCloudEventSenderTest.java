@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.jackson.JsonFormat;
+import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(VertxExtension.class)
+public class BatchingCloudEventSenderTest {
+
+  private final List<Buffer> requests = new CopyOnWriteArrayList<>();
+  private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+  private volatile int statusCode = 202;
+  private HttpServer server;
+
+  @BeforeEach
+  public void setUp(final Vertx vertx, final VertxTestContext context) {
+    vertx.createHttpServer()
+      .requestHandler(request -> request.body().onSuccess(body -> {
+        requests.add(body);
+        contentTypes.add(request.getHeader("Content-Type"));
+        request.response().setStatusCode(statusCode).end();
+      }))
+      .listen(0, "localhost")
+      .onComplete(context.succeeding(s -> {
+        server = s;
+        context.completeNow();
+      }));
+  }
+
+  @AfterEach
+  public void tearDown(final VertxTestContext context) {
+    server.close().onComplete(context.succeedingThenComplete());
+  }
+
+  @Test
+  public void shouldSendBatchWhenFull(final Vertx vertx, final VertxTestContext context) {
+    final var sender = sender(vertx, 3, 1024 * 1024, 60_000);
+
+    vertx.runOnContext(v -> send(sender, 3).onComplete(context.succeeding(responses -> context.verify(() -> {
+      assertThat(requests).hasSize(1);
+      assertThat(contentTypes).containsExactly(WebClientCloudEventSender.BATCH_CONTENT_TYPE);
+      final var batch = new JsonArray(requests.get(0));
+      assertThat(batch).hasSize(3);
+      for (int i = 0; i < 3; i++) {
+        assertThat(batch.getJsonObject(i).getString("id")).isEqualTo(String.valueOf(i));
+      }
+
+      // Only the first event of a batch handles the response.
+      assertThat(responses.get(0)).isNotNull();
+      assertThat(responses.subList(1, 3)).containsOnlyNulls();
+      context.completeNow();
+    }))));
+  }
+
+  @Test
+  public void shouldSendBatchWhenLingerExpires(final Vertx vertx, final VertxTestContext context) {
+    final var sender = sender(vertx, 100, 1024 * 1024, 50);
+
+    vertx.runOnContext(v -> send(sender, 2).onComplete(context.succeeding(responses -> context.verify(() -> {
+      assertThat(requests).hasSize(1);
+      assertThat(new JsonArray(requests.get(0))).hasSize(2);
+      context.completeNow();
+    }))));
+  }
+
+  @Test
+  public void shouldSendBatchWhenMaxBytesIsReached(final Vertx vertx, final VertxTestContext context) {
+    final var eventSize = new JsonFormat().serialize(event(0)).length;
+    // Two events fit in a batch, the third one goes to a new batch.
+    final var sender = sender(vertx, 100, 2 * eventSize + 3, 50);
+
+    vertx.runOnContext(v -> send(sender, 3).onComplete(context.succeeding(responses -> context.verify(() -> {
+      assertThat(requests).hasSize(2);
+      assertThat(new JsonArray(requests.get(0))).hasSize(2);
+      assertThat(new JsonArray(requests.get(1))).hasSize(1);
+      context.completeNow();
+    }))));
+  }
+
+  @Test
+  public void shouldFailEveryEventOfFailedBatch(final Vertx vertx, final VertxTestContext context) throws Exception {
+    statusCode = 500;
+    final var sender = sender(vertx, 2, 1024 * 1024, 60_000);
+    final var failures = context.checkpoint(2);
+
+    vertx.runOnContext(v -> {
+      sender.send(event(0)).onComplete(context.failing(cause -> failures.flag()));
+      sender.send(event(1)).onComplete(context.failing(cause -> failures.flag()));
+    });
+
+    assertThat(context.awaitCompletion(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(requests).hasSize(1);
+  }
+
+  @Test
+  public void shouldSendPendingEventsOnClose(final Vertx vertx, final VertxTestContext context) {
+    final var sender = sender(vertx, 100, 1024 * 1024, 60_000);
+
+    vertx.runOnContext(v -> {
+      final var sent = send(sender, 2);
+      sender.close();
+      sent.onComplete(context.succeeding(responses -> context.verify(() -> {
+        assertThat(requests).hasSize(1);
+        context.completeNow();
+      })));
+    });
+  }
+
+  @Test
+  public void shouldRejectInvalidLimits(final Vertx vertx) {
+    assertThatThrownBy(() -> new BatchingCloudEventSender(
+      vertx,
+      mock(WebClientCloudEventSender.class),
+      0,
+      1024,
+      100
+    )).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private BatchingCloudEventSender sender(final Vertx vertx,
+                                          final int maxEvents,
+                                          final long maxBytes,
+                                          final long lingerMs) {
+    final var target = URI.create("http://localhost:" + server.actualPort()).toString();
+    return new BatchingCloudEventSender(
+      vertx,
+      new WebClientCloudEventSender(
+        WebClient.create(vertx),
+        CircuitBreaker.create("batch", vertx, new CircuitBreakerOptions()),
+        target
+      ),
+      maxEvents,
+      maxBytes,
+      lingerMs
+    );
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static Future<List<HttpResponse<?>>> send(final BatchingCloudEventSender sender, final int n) {
+    final List<Future> futures = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      futures.add(sender.send(event(i)));
+    }
+    return CompositeFuture.all(futures).map(CompositeFuture::list);
+  }
+
+  private static CloudEvent event(final int id) {
+    return CloudEventBuilder.v1()
+      .withId(String.valueOf(id))
+      .withSource(URI.create("/source"))
+      .withType("type")
+      .withData("application/json", "{\"a\":1}".getBytes())
+      .build();
+  }
+}
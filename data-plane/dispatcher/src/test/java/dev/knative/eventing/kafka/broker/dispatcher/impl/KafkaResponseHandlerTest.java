@@ -167,6 +167,35 @@ public class KafkaResponseHandlerTest {
     context.completeNow();
   }
 
+  @Test
+  public void shouldSendRecordOfBinaryResponse(final Vertx vertx, final VertxTestContext context) {
+    final var producer = new MockProducer<>(
+      true,
+      new StringSerializer(),
+      new CloudEventSerializerMock()
+    );
+    final var handler = new KafkaResponseHandler(
+      KafkaProducer.create(vertx, producer), TOPIC
+    );
+
+    final HttpResponse<Buffer> response = mock(HttpResponse.class);
+    when(response.body()).thenReturn(Buffer.buffer("{}"));
+    when(response.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap()
+      .set(HttpHeaders.CONTENT_TYPE, "application/json")
+      .set("ce-specversion", "1.0")
+      .set("ce-id", "1234")
+      .set("ce-source", "/api")
+      .set("ce-type", "type")
+    );
+
+    handler.handle(response)
+      .onComplete(context.succeeding(v -> context.verify(() -> {
+        Assertions.assertThat(producer.history()).hasSize(1);
+        Assertions.assertThat(producer.history().get(0).value().getId()).isEqualTo("1234");
+        context.completeNow();
+      })));
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void shouldCloseProducer(final Vertx vertx, final VertxTestContext context) {
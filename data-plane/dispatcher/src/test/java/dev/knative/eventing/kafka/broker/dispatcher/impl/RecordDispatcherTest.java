@@ -23,17 +23,26 @@ import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher;
 import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcherListener;
 import dev.knative.eventing.kafka.broker.dispatcher.ResponseHandler;
 import dev.knative.eventing.kafka.broker.dispatcher.ResponseHandlerMock;
+import dev.knative.eventing.kafka.broker.dispatcher.RetryScheduler;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEvent;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEventDeserializer;
 import io.cloudevents.CloudEvent;
+import io.cloudevents.rw.CloudEventRWException;
 import io.vertx.core.Future;
+import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
 import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordImpl;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -205,6 +214,71 @@ public class RecordDispatcherTest {
     verify(receiver, never()).recordDiscarded(any());
   }
 
+  @Test
+  public void shouldScheduleRetryIfValueMatchesAndSubscriberSenderFails() {
+
+    final var retryScheduled = new AtomicBoolean(false);
+    final RecordDispatcherListener receiver = offsetManagerMock();
+
+    final var dispatcherHandler = new RecordDispatcherImpl(
+      value -> true,
+      CloudEventSender.noop("subscriber send failed"),
+      new CloudEventSenderMock(
+        record -> {
+          fail("DLS send called");
+          return Future.succeededFuture();
+        }
+      ),
+      new ResponseHandlerMock(),
+      receiver,
+      null,
+      retryScheduler(record -> {
+        retryScheduled.set(true);
+        return Future.succeededFuture();
+      })
+    );
+    final var record = record();
+    dispatcherHandler.dispatch(record);
+
+    assertTrue(retryScheduled.get());
+    verify(receiver, times(1)).recordReceived(record);
+    verify(receiver, times(1)).successfullyScheduledForRetry(record);
+    verify(receiver, never()).successfullySentToSubscriber(any());
+    verify(receiver, never()).successfullySentToDeadLetterSink(any());
+    verify(receiver, never()).failedToSendToDeadLetterSink(any(), any());
+    verify(receiver, never()).recordDiscarded(any());
+  }
+
+  @Test
+  public void shouldSendToDeadLetterSinkIfRetryIsNotScheduled() {
+
+    final var dlsSenderSendCalled = new AtomicBoolean(false);
+    final RecordDispatcherListener receiver = offsetManagerMock();
+
+    final var dispatcherHandler = new RecordDispatcherImpl(
+      value -> true,
+      CloudEventSender.noop("subscriber send failed"),
+      new CloudEventSenderMock(
+        record -> {
+          dlsSenderSendCalled.set(true);
+          return Future.succeededFuture();
+        }
+      ),
+      new ResponseHandlerMock(),
+      receiver,
+      null,
+      retryScheduler(record -> Future.failedFuture("retries exhausted"))
+    );
+    final var record = record();
+    dispatcherHandler.dispatch(record);
+
+    assertTrue(dlsSenderSendCalled.get());
+    verify(receiver, times(1)).recordReceived(record);
+    verify(receiver, times(1)).successfullySentToDeadLetterSink(record);
+    verify(receiver, never()).successfullyScheduledForRetry(any());
+    verify(receiver, never()).successfullySentToSubscriber(any());
+  }
+
   @Test
   public void shouldCloseSinkResponseHandlerSubscriberSenderAndDeadLetterSinkSender(final VertxTestContext context) {
 
@@ -231,10 +305,101 @@ public class RecordDispatcherTest {
       }));
   }
 
+  @Test
+  public void shouldSendToDeadLetterSinkIfFilterFailsOnInvalidTime() {
+
+    final var subscriberSenderSendCalled = new AtomicBoolean(false);
+    final var dlsSenderSendCalled = new AtomicBoolean(false);
+    final RecordDispatcherListener receiver = offsetManagerMock();
+
+    final var dispatcherHandler = new RecordDispatcherImpl(
+      value -> value.getTime() != null,
+      new CloudEventSenderMock(
+        record -> {
+          subscriberSenderSendCalled.set(true);
+          return Future.succeededFuture();
+        }
+      ),
+      new CloudEventSenderMock(
+        record -> {
+          dlsSenderSendCalled.set(true);
+          return Future.succeededFuture();
+        }
+      ), new ResponseHandlerMock(),
+      receiver,
+      null
+    );
+    final var record = lazyRecord(LazyCloudEvent.CE_PREFIX + "time", "not a time");
+    final var dispatched = dispatcherHandler.dispatch(record);
+
+    assertTrue(dispatched.succeeded());
+    assertFalse(subscriberSenderSendCalled.get());
+    assertTrue(dlsSenderSendCalled.get());
+    verify(receiver, times(1)).recordReceived(record);
+    verify(receiver, times(1)).successfullySentToDeadLetterSink(record);
+    verify(receiver, never()).successfullySentToSubscriber(any());
+    verify(receiver, never()).recordDiscarded(any());
+  }
+
+  @Test
+  public void shouldCallFailedToSendToDeadLetterSinkIfSendersFailOnInvalidSource() {
+
+    final RecordDispatcherListener receiver = offsetManagerMock();
+
+    // Senders read the source to decorate the current span and to write the request.
+    final Function<CloudEvent, Future<HttpResponse<?>>> send = event -> {
+      event.getSource();
+      return Future.succeededFuture();
+    };
+    final var dispatcherHandler = new RecordDispatcherImpl(
+      value -> true,
+      new CloudEventSenderMock(send),
+      new CloudEventSenderMock(send),
+      new ResponseHandlerMock(),
+      receiver,
+      null
+    );
+    final var record = lazyRecord(LazyCloudEvent.CE_PREFIX + "source", "not a uri");
+    final var dispatched = dispatcherHandler.dispatch(record);
+
+    assertTrue(dispatched.succeeded());
+    verify(receiver, times(1)).recordReceived(record);
+    verify(receiver, times(1)).failedToSendToDeadLetterSink(eq(record), any(CloudEventRWException.class));
+    verify(receiver, never()).successfullySentToSubscriber(any());
+    verify(receiver, never()).successfullySentToDeadLetterSink(any());
+  }
+
+  private static RetryScheduler retryScheduler(
+    final Function<KafkaConsumerRecord<String, CloudEvent>, Future<Void>> schedule) {
+    return new RetryScheduler() {
+      @Override
+      public Future<Void> schedule(final KafkaConsumerRecord<String, CloudEvent> record) {
+        return schedule.apply(record);
+      }
+
+      @Override
+      public Future<Void> close() {
+        return Future.succeededFuture();
+      }
+    };
+  }
+
   private static KafkaConsumerRecord<String, CloudEvent> record() {
     return new KafkaConsumerRecordImpl<>(new ConsumerRecord<>("", 0, 0L, "", CoreObjects.event()));
   }
 
+  private static KafkaConsumerRecord<String, CloudEvent> lazyRecord(final String header, final String value) {
+    final var headers = new RecordHeaders()
+      .add(LazyCloudEvent.CE_PREFIX + "specversion", "1.0".getBytes(StandardCharsets.UTF_8))
+      .add(LazyCloudEvent.CE_PREFIX + "id", "123".getBytes(StandardCharsets.UTF_8))
+      .add(LazyCloudEvent.CE_PREFIX + "source", "/api/source".getBytes(StandardCharsets.UTF_8))
+      .add(LazyCloudEvent.CE_PREFIX + "type", "type".getBytes(StandardCharsets.UTF_8));
+    headers.remove(header);
+    headers.add(header, value.getBytes(StandardCharsets.UTF_8));
+    final var event = new LazyCloudEventDeserializer().deserialize("", headers, null);
+    return new KafkaConsumerRecordImpl<>(new ConsumerRecord<>("", 0, 0L, "", event));
+  }
+
   public static RecordDispatcherListener offsetManagerMock() {
     final RecordDispatcherListener recordDispatcherListener = mock(RecordDispatcherListener.class);
 
@@ -243,6 +408,8 @@ public class RecordDispatcherTest {
     when(recordDispatcherListener.successfullySentToDeadLetterSink(any())).thenReturn(Future.succeededFuture());
     when(recordDispatcherListener.successfullySentToSubscriber(any())).thenReturn(Future.succeededFuture());
     when(recordDispatcherListener.failedToSendToDeadLetterSink(any(), any())).thenReturn(Future.succeededFuture());
+    when(recordDispatcherListener.successfullyScheduledForRetry(any())).thenReturn(Future.succeededFuture());
+    when(recordDispatcherListener.close()).thenReturn(Future.succeededFuture());
 
     return recordDispatcherListener;
   }
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import dev.knative.eventing.kafka.broker.core.testing.CloudEventSerializerMock;
+import dev.knative.eventing.kafka.broker.core.testing.CoreObjects;
+import io.cloudevents.CloudEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordImpl;
+import io.vertx.kafka.client.producer.KafkaProducer;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(VertxExtension.class)
+public class RetryTopicSchedulerTest {
+
+  private static final String TOPIC = "knative-retry.group";
+
+  @Test
+  public void shouldProduceRecordToDelayTopic(final Vertx vertx, final VertxTestContext context) {
+    final var producer = new MockProducer<>(true, new StringSerializer(), new CloudEventSerializerMock());
+    final var registry = new SimpleMeterRegistry();
+    final var scheduler = scheduler(vertx, producer, registry);
+
+    final var before = System.currentTimeMillis();
+    scheduler.schedule(record(0))
+      .onComplete(context.succeeding(v -> context.verify(() -> {
+        assertThat(producer.history()).hasSize(1);
+        final var delayed = producer.history().get(0);
+        assertThat(delayed.topic()).isEqualTo(TOPIC);
+        assertThat(delayed.key()).isEqualTo("key");
+        assertThat(header(delayed, RetryTopicScheduler.RETRY_ATTEMPT_HEADER)).isEqualTo("1");
+        assertThat(Long.parseLong(header(delayed, RetryTopicScheduler.RETRY_DUE_HEADER)))
+          .isGreaterThanOrEqualTo(before + 100);
+        assertThat(registry.counter("scheduled").count()).isEqualTo(1);
+        assertThat(registry.counter("exhausted").count()).isZero();
+        context.completeNow();
+      })));
+  }
+
+  @Test
+  public void shouldIncrementAttemptOfDelayedRecords(final Vertx vertx, final VertxTestContext context) {
+    final var producer = new MockProducer<>(true, new StringSerializer(), new CloudEventSerializerMock());
+    final var scheduler = scheduler(vertx, producer, new SimpleMeterRegistry());
+
+    final var before = System.currentTimeMillis();
+    scheduler.schedule(record(2))
+      .onComplete(context.succeeding(v -> context.verify(() -> {
+        final var delayed = producer.history().get(0);
+        assertThat(header(delayed, RetryTopicScheduler.RETRY_ATTEMPT_HEADER)).isEqualTo("3");
+        assertThat(Long.parseLong(header(delayed, RetryTopicScheduler.RETRY_DUE_HEADER)))
+          .isGreaterThanOrEqualTo(before + 300);
+        context.completeNow();
+      })));
+  }
+
+  @Test
+  public void shouldNotScheduleRecordsWithoutAttemptsLeft(final Vertx vertx, final VertxTestContext context) {
+    final var producer = new MockProducer<>(true, new StringSerializer(), new CloudEventSerializerMock());
+    final var registry = new SimpleMeterRegistry();
+    final var scheduler = scheduler(vertx, producer, registry);
+
+    scheduler.schedule(record(3))
+      .onComplete(context.failing(ex -> context.verify(() -> {
+        assertThat(producer.history()).isEmpty();
+        assertThat(registry.counter("scheduled").count()).isZero();
+        assertThat(registry.counter("exhausted").count()).isEqualTo(1);
+        context.completeNow();
+      })));
+  }
+
+  @Test
+  public void shouldReadRetryHeaders() {
+    final var record = record(2);
+
+    assertThat(RetryTopicScheduler.attemptOf(record)).isEqualTo(2);
+    assertThat(RetryTopicScheduler.dueOf(record)).isEqualTo(42);
+    assertThat(RetryTopicScheduler.attemptOf(record(0))).isZero();
+    assertThat(RetryTopicScheduler.dueOf(record(0))).isZero();
+  }
+
+  @Test
+  public void shouldRejectNoRetries(final Vertx vertx) {
+    final var producer = new MockProducer<>(true, new StringSerializer(), new CloudEventSerializerMock());
+    final var registry = new SimpleMeterRegistry();
+
+    assertThatThrownBy(() -> new RetryTopicScheduler(
+      KafkaProducer.create(vertx, producer),
+      TOPIC,
+      0,
+      attempt -> 0L,
+      registry.counter("scheduled"),
+      registry.counter("exhausted")
+    )).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static RetryTopicScheduler scheduler(final Vertx vertx,
+                                               final MockProducer<String, CloudEvent> producer,
+                                               final MeterRegistry registry) {
+    return new RetryTopicScheduler(
+      KafkaProducer.create(vertx, producer),
+      TOPIC,
+      3,
+      attempt -> attempt * 100L,
+      registry.counter("scheduled"),
+      registry.counter("exhausted")
+    );
+  }
+
+  private static KafkaConsumerRecord<String, CloudEvent> record(final int attempt) {
+    final var record = new ConsumerRecord<>(TOPIC, 0, 0L, "key", CoreObjects.event());
+    if (attempt > 0) {
+      record.headers().add(RetryTopicScheduler.RETRY_ATTEMPT_HEADER, bytes(String.valueOf(attempt)));
+      record.headers().add(RetryTopicScheduler.RETRY_DUE_HEADER, bytes("42"));
+    }
+    return new KafkaConsumerRecordImpl<>(record);
+  }
+
+  private static String header(final ProducerRecord<String, CloudEvent> record, final String key) {
+    return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] bytes(final String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(VertxExtension.class)
+public class TokenBucketRateLimiterTest {
+
+  @Test
+  public void shouldQueueRequestsWithoutTokens(final Vertx vertx) {
+    final var clock = new AtomicLong();
+    final var limiter = new TokenBucketRateLimiter(vertx, 2, clock::get);
+
+    final var futures = new ArrayList<Future<Void>>();
+    for (int i = 0; i < 3; i++) {
+      futures.add(limiter.execute(Future::succeededFuture));
+    }
+
+    assertThat(futures.get(0).succeeded()).isTrue();
+    assertThat(futures.get(1).succeeded()).isTrue();
+    assertThat(futures.get(2).isComplete()).isFalse();
+    assertThat(limiter.getQueued()).isEqualTo(1);
+    assertThat(limiter.isSaturated()).isTrue();
+
+    limiter.clear();
+  }
+
+  @Test
+  public void shouldRefillTokensAtTheGivenRate(final Vertx vertx) {
+    final var clock = new AtomicLong();
+    final var limiter = new TokenBucketRateLimiter(vertx, 10, clock::get);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.execute(Future::succeededFuture);
+    }
+    assertThat(limiter.getTokens()).isZero();
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+    final var future = limiter.execute(Future::succeededFuture);
+
+    assertThat(future.succeeded()).isTrue();
+    assertThat(limiter.getTokens()).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldNotRefillTokensOverTheBurst(final Vertx vertx) {
+    final var clock = new AtomicLong();
+    final var limiter = new TokenBucketRateLimiter(vertx, 10, clock::get);
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    limiter.execute(Future::succeededFuture);
+
+    assertThat(limiter.getTokens()).isEqualTo(9);
+  }
+
+  @Test
+  public void shouldExecuteQueuedRequestsOnceTokensAreAvailable(final Vertx vertx, final VertxTestContext context) {
+    final var limiter = new TokenBucketRateLimiter(vertx, 10);
+
+    vertx.runOnContext(v -> {
+      final var start = System.nanoTime();
+      for (int i = 0; i < 10; i++) {
+        limiter.execute(Future::succeededFuture);
+      }
+      limiter.execute(Future::succeededFuture)
+        .onComplete(context.succeeding(r -> context.verify(() -> {
+          assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(90));
+          assertThat(limiter.isSaturated()).isFalse();
+          context.completeNow();
+        })));
+      assertThat(limiter.isSaturated()).isTrue();
+    });
+  }
+
+  @Test
+  public void shouldDropQueuedRequestsOnClear(final Vertx vertx, final VertxTestContext context) {
+    final var limiter = new TokenBucketRateLimiter(vertx, 1);
+
+    limiter.execute(Future::succeededFuture);
+    final var queued = limiter.execute(Future::<Void>succeededFuture);
+    limiter.clear();
+
+    assertThat(limiter.isSaturated()).isFalse();
+    vertx.setTimer(1500, t -> context.verify(() -> {
+      assertThat(queued.isComplete()).isFalse();
+      context.completeNow();
+    }));
+  }
+
+  @Test
+  public void shouldRejectInvalidRate(final Vertx vertx) {
+    assertThatThrownBy(() -> new TokenBucketRateLimiter(vertx, 0))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -15,13 +15,19 @@
  */
 package dev.knative.eventing.kafka.broker.dispatcher.impl;
 
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEventTest;
+import io.cloudevents.core.builder.CloudEventBuilder;
 import io.vertx.circuitbreaker.CircuitBreaker;
+import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.core.Vertx;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.net.URI;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -52,4 +58,71 @@ public class WebClientCloudEventSenderTest {
         context.completeNow();
       }));
   }
+
+  @Test
+  public void shouldSendLazyEventsWithoutDecodingThem(final Vertx vertx, final VertxTestContext context) {
+    final var data = "{\"a\":1}".getBytes();
+    final var event = LazyCloudEventTest.lazy(CloudEventBuilder.v1()
+      .withId("123")
+      .withSource(URI.create("/api/source"))
+      .withType("type")
+      .withExtension("ext", "value")
+      .withData("application/json", data)
+      .build()
+    );
+
+    vertx.createHttpServer()
+      .requestHandler(request -> request.body().onSuccess(body -> {
+        context.verify(() -> {
+          assertThat(request.getHeader("ce-specversion")).isEqualTo("1.0");
+          assertThat(request.getHeader("ce-id")).isEqualTo("123");
+          assertThat(request.getHeader("ce-source")).isEqualTo("/api/source");
+          assertThat(request.getHeader("ce-type")).isEqualTo("type");
+          assertThat(request.getHeader("ce-ext")).isEqualTo("value");
+          assertThat(request.getHeader("Content-Type")).isEqualTo("application/json");
+          assertThat(body.getBytes()).isEqualTo(data);
+        });
+        request.response().setStatusCode(202).end();
+      }))
+      .listen(0, "localhost")
+      .onComplete(context.succeeding(server -> {
+        final var sender = new WebClientCloudEventSender(
+          WebClient.create(vertx),
+          CircuitBreaker.create("pass-through", vertx, new CircuitBreakerOptions()),
+          "http://localhost:" + server.actualPort()
+        );
+
+        sender.send(event).onComplete(context.succeeding(response -> context.verify(() -> {
+          assertThat(response.statusCode()).isEqualTo(202);
+          context.completeNow();
+        })));
+      }));
+  }
+
+  @Test
+  public void shouldDiscardResponseBody(final Vertx vertx, final VertxTestContext context) {
+    final var event = CloudEventBuilder.v1()
+      .withId("123")
+      .withSource(URI.create("/api/source"))
+      .withType("type")
+      .build();
+
+    vertx.createHttpServer()
+      .requestHandler(request -> request.response().setStatusCode(200).end("{\"status\":\"ok\"}"))
+      .listen(0, "localhost")
+      .onComplete(context.succeeding(server -> {
+        final var sender = new WebClientCloudEventSender(
+          WebClientRegistry.Lease.of(WebClient.create(vertx)),
+          CircuitBreaker.create("discard", vertx, new CircuitBreakerOptions()),
+          "http://localhost:" + server.actualPort(),
+          true
+        );
+
+        sender.send(event).onComplete(context.succeeding(response -> context.verify(() -> {
+          assertThat(response.statusCode()).isEqualTo(200);
+          assertThat(response.body()).isNull();
+          context.completeNow();
+        })));
+      }));
+  }
 }
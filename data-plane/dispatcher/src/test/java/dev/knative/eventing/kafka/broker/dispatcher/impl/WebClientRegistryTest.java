@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl;
+
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.junit5.VertxExtension;
+import java.net.ConnectException;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(VertxExtension.class)
+public class WebClientRegistryTest {
+
+  @Test
+  public void shouldShareClientsOfTheSameHost(final Vertx vertx) {
+    final var registry = new WebClientRegistry(vertx, new WebClientOptions());
+
+    final var l1 = registry.acquire("http://svc.ns.svc.cluster.local/a");
+    final var l2 = registry.acquire("http://svc.ns.svc.cluster.local:80/b");
+    final var l3 = registry.acquire("https://svc.ns.svc.cluster.local/a");
+
+    assertThat(l1.getClient()).isSameAs(l2.getClient());
+    assertThat(l1.getClient()).isNotSameAs(l3.getClient());
+    assertThat(registry.size()).isEqualTo(2);
+
+    l1.close();
+    // Closing the same lease twice doesn't release the client on behalf of someone else.
+    l1.close();
+    assertThat(registry.size()).isEqualTo(2);
+
+    l2.close();
+    l3.close();
+    assertThat(registry.size()).isZero();
+
+    // Once released, a new client is created for the same host.
+    assertThat(registry.acquire("http://svc.ns.svc.cluster.local/a").getClient()).isNotSameAs(l1.getClient());
+  }
+
+  @Test
+  public void shouldFallbackToHttp1WhenHostDoesNotSupportHttp2(final Vertx vertx) {
+    final var registry = new WebClientRegistry(vertx, new WebClientOptions(), Set.of(".svc.cluster.local"));
+    final var protocolError = Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR, "unexpected frame");
+
+    final var http2 = registry.acquire("http://svc.ns.svc.cluster.local");
+    final var http2Client = http2.getClient();
+    http2.requestFailed(new ConnectException("connection refused"));
+    assertThat(http2.getClient()).isSameAs(http2Client);
+    http2.requestFailed(protocolError);
+    assertThat(http2.getClient()).isNotSameAs(http2Client);
+
+    final var http1 = registry.acquire("http://example.com");
+    final var http1Client = http1.getClient();
+    http1.requestFailed(protocolError);
+    assertThat(http1.getClient()).isSameAs(http1Client);
+  }
+
+  @Test
+  public void shouldNotFallbackToHttp1OnceHostAnsweredUsingHttp2(final Vertx vertx) {
+    final var registry = new WebClientRegistry(vertx, new WebClientOptions(), Set.of("svc.ns.svc.cluster.local"));
+
+    final var http2 = registry.acquire("http://svc.ns.svc.cluster.local");
+    final var http2Client = http2.getClient();
+    http2.requestSucceeded();
+    http2.requestFailed(Http2Exception.connectionError(Http2Error.PROTOCOL_ERROR, "unexpected frame"));
+    assertThat(http2.getClient()).isSameAs(http2Client);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "http://svc/path,http://svc:80",
+    "https://svc/path,https://svc:443",
+    "HTTP://SVC:8080/path?q=1,http://svc:8080",
+  })
+  public void shouldKeyByHost(final String target, final String key) {
+    assertThat(WebClientRegistry.key(target)).isEqualTo(key);
+  }
+
+  @Test
+  public void shouldRejectRelativeTargets() {
+    assertThatThrownBy(() -> WebClientRegistry.key("/path")).isInstanceOf(IllegalArgumentException.class);
+  }
+}
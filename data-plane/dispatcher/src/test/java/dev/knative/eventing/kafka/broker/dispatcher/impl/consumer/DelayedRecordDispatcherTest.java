@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.RetryTopicScheduler;
+import io.cloudevents.CloudEvent;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordImpl;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+public class DelayedRecordDispatcherTest {
+
+  @Test
+  public void shouldDispatchDueRecordsImmediately(final Vertx vertx) {
+    final var dispatched = new ArrayList<Long>();
+    final var dispatcher = new DelayedRecordDispatcher(vertx, recordDispatcher(dispatched));
+
+    final var future = dispatcher.dispatch(record(0, System.currentTimeMillis() - 1000));
+
+    assertThat(future.succeeded()).isTrue();
+    assertThat(dispatched).containsExactly(0L);
+    assertThat(dispatcher.getWaitingRecords()).isZero();
+  }
+
+  @Test
+  public void shouldDispatchRecordsOnceDue(final Vertx vertx, final VertxTestContext context) {
+    final var dispatched = new ArrayList<Long>();
+    final var dispatcher = new DelayedRecordDispatcher(vertx, recordDispatcher(dispatched));
+
+    final var due = System.currentTimeMillis() + 200;
+    dispatcher.dispatch(record(1, due))
+      .onComplete(context.succeeding(v -> context.verify(() -> {
+        assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(due);
+        assertThat(dispatched).containsExactly(1L);
+        assertThat(dispatcher.getWaitingRecords()).isZero();
+        context.completeNow();
+      })));
+
+    assertThat(dispatched).isEmpty();
+    assertThat(dispatcher.getWaitingRecords()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotDispatchWaitingRecordsAfterClose(final Vertx vertx, final VertxTestContext context) {
+    final var dispatched = new ArrayList<Long>();
+    final var dispatcher = new DelayedRecordDispatcher(vertx, recordDispatcher(dispatched));
+
+    final var future = dispatcher.dispatch(record(1, System.currentTimeMillis() + 100));
+    dispatcher.close()
+      .onComplete(context.succeeding(v -> vertx.setTimer(300, t -> context.verify(() -> {
+        assertThat(future.isComplete()).isFalse();
+        assertThat(dispatched).isEmpty();
+        assertThat(dispatcher.getWaitingRecords()).isZero();
+        context.completeNow();
+      }))));
+  }
+
+  private static RecordDispatcher recordDispatcher(final List<Long> dispatched) {
+    return new RecordDispatcher() {
+      @Override
+      public Future<Void> dispatch(final KafkaConsumerRecord<String, CloudEvent> record) {
+        dispatched.add(record.offset());
+        return Future.succeededFuture();
+      }
+
+      @Override
+      public Future<Void> close() {
+        return Future.succeededFuture();
+      }
+    };
+  }
+
+  private static KafkaConsumerRecord<String, CloudEvent> record(final long offset, final long due) {
+    final var record = new ConsumerRecord<String, CloudEvent>("knative-retry.group", 0, offset, null, null);
+    record.headers().add(RetryTopicScheduler.RETRY_ATTEMPT_HEADER, "1".getBytes(StandardCharsets.UTF_8));
+    record.headers().add(RetryTopicScheduler.RETRY_DUE_HEADER, String.valueOf(due).getBytes(StandardCharsets.UTF_8));
+    return new KafkaConsumerRecordImpl<>(record);
+  }
+}
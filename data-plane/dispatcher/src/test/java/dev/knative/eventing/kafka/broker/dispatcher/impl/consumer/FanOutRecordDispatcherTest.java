@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcher;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.filter.FilterIndex;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordImpl;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FanOutRecordDispatcherTest {
+
+  private static final TopicPartition TOPIC_PARTITION = new TopicPartition("topic", 0);
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldDispatchRecordsNotYetCommittedByEachEgress() {
+    final var vertx = mock(Vertx.class);
+    final Map<TopicPartition, Long> sharedCommitted = new HashMap<>();
+    final KafkaConsumer<String, CloudEvent> sharedConsumer = consumer(null, sharedCommitted);
+
+    final Map<TopicPartition, Long> committedA = new HashMap<>();
+    final List<Long> dispatchedA = new ArrayList<>();
+    final Map<TopicPartition, Long> committedB = new HashMap<>();
+    final List<Long> dispatchedB = new ArrayList<>();
+
+    final var dispatcher = new FanOutRecordDispatcher(
+      vertx,
+      sharedConsumer,
+      List.of(
+        egress(vertx, "a", consumer(new OffsetAndMetadata(5, ""), committedA), dispatchedA),
+        egress(vertx, "b", consumer(null, committedB), dispatchedB)
+      ),
+      1000L,
+      1
+    );
+
+    for (long i = 3; i < 7; i++) {
+      assertThat(dispatcher.dispatch(record(i)).succeeded()).isTrue();
+    }
+
+    assertThat(dispatchedA).containsExactly(5L, 6L);
+    assertThat(dispatchedB).containsExactly(3L, 4L, 5L, 6L);
+    assertThat(committedA).containsEntry(TOPIC_PARTITION, 7L);
+    assertThat(committedB).containsEntry(TOPIC_PARTITION, 7L);
+    assertThat(sharedCommitted).containsEntry(TOPIC_PARTITION, 7L);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldNotCommitSharedOffsetsBeforeEveryEgress() {
+    final var vertx = mock(Vertx.class);
+    final Map<TopicPartition, Long> sharedCommitted = new HashMap<>();
+    final Map<TopicPartition, Long> committedA = new HashMap<>();
+
+    final var dispatcher = new FanOutRecordDispatcher(
+      vertx,
+      consumer(null, sharedCommitted),
+      List.of(
+        egress(vertx, "a", consumer(null, committedA), new ArrayList<>()),
+        // This egress never completes the records it receives.
+        new FanOutRecordDispatcher.Egress(
+          "b",
+          consumer(null, new HashMap<>()),
+          new UnorderedOffsetManager(vertx, consumer(null, new HashMap<>()), null, 1000L, 1),
+          offsetManager -> new RecordDispatcher() {
+            @Override
+            public Future<Void> dispatch(final KafkaConsumerRecord<String, CloudEvent> record) {
+              offsetManager.recordReceived(record);
+              return Future.succeededFuture();
+            }
+
+            @Override
+            public Future<Void> close() {
+              return offsetManager.close();
+            }
+          }
+        )
+      ),
+      1000L,
+      1
+    );
+
+    for (long i = 0; i < 3; i++) {
+      dispatcher.dispatch(record(i));
+    }
+
+    assertThat(committedA).containsEntry(TOPIC_PARTITION, 3L);
+    assertThat(sharedCommitted).doesNotContainKey(TOPIC_PARTITION);
+  }
+
+  @Test
+  public void shouldSkipEgressesNotMatchingFilterIndex() {
+    final var vertx = mock(Vertx.class);
+    final Map<TopicPartition, Long> sharedCommitted = new HashMap<>();
+    final Map<TopicPartition, Long> committedA = new HashMap<>();
+    final List<Long> dispatchedA = new ArrayList<>();
+    final Map<TopicPartition, Long> committedB = new HashMap<>();
+    final List<Long> dispatchedB = new ArrayList<>();
+
+    final var dispatcher = new FanOutRecordDispatcher(
+      vertx,
+      consumer(null, sharedCommitted),
+      List.of(
+        egress(vertx, "a", consumer(null, committedA), dispatchedA),
+        egress(vertx, "b", consumer(null, committedB), dispatchedB)
+      ),
+      new FilterIndex(List.of(Map.of("type", "created"), Map.of("type", "deleted"))),
+      1000L,
+      1
+    );
+
+    final var event = CloudEventBuilder.v1()
+      .withId("123")
+      .withType("created")
+      .withSource(URI.create("/orders"))
+      .build();
+    for (long i = 0; i < 3; i++) {
+      assertThat(dispatcher.dispatch(record(i, event)).succeeded()).isTrue();
+    }
+
+    assertThat(dispatchedA).containsExactly(0L, 1L, 2L);
+    assertThat(dispatchedB).isEmpty();
+    // Skipped records are committed as discarded.
+    assertThat(committedA).containsEntry(TOPIC_PARTITION, 3L);
+    assertThat(committedB).containsEntry(TOPIC_PARTITION, 3L);
+    assertThat(sharedCommitted).containsEntry(TOPIC_PARTITION, 3L);
+  }
+
+  @Test
+  public void shouldRejectEmptyEgresses() {
+    assertThatThrownBy(() -> new FanOutRecordDispatcher(mock(Vertx.class), mock(KafkaConsumer.class), List.of(), 1, 1))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static FanOutRecordDispatcher.Egress egress(final Vertx vertx,
+                                                      final String uid,
+                                                      final KafkaConsumer<String, CloudEvent> consumer,
+                                                      final List<Long> dispatched) {
+    return new FanOutRecordDispatcher.Egress(
+      uid,
+      consumer,
+      new UnorderedOffsetManager(vertx, consumer, null, 1000L, 1),
+      offsetManager -> new RecordDispatcher() {
+        @Override
+        public Future<Void> dispatch(final KafkaConsumerRecord<String, CloudEvent> record) {
+          dispatched.add(record.offset());
+          return offsetManager.recordReceived(record)
+            .compose(v -> offsetManager.successfullySentToSubscriber(record));
+        }
+
+        @Override
+        public Future<Void> close() {
+          return offsetManager.close();
+        }
+      }
+    );
+  }
+
+  @SuppressWarnings("unchecked")
+  private static KafkaConsumer<String, CloudEvent> consumer(final OffsetAndMetadata committed,
+                                                            final Map<TopicPartition, Long> commits) {
+    final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+    when(consumer.committed(any(TopicPartition.class))).thenReturn(Future.succeededFuture(committed));
+    when(consumer.commit(any(Map.class))).then(invocation -> {
+      final Map<TopicPartition, OffsetAndMetadata> offsets = invocation.getArgument(0);
+      offsets.forEach((tp, offset) -> commits.put(tp, offset.getOffset()));
+      return Future.succeededFuture(offsets);
+    });
+    return consumer;
+  }
+
+  private static KafkaConsumerRecord<String, CloudEvent> record(final long offset) {
+    return record(offset, null);
+  }
+
+  private static KafkaConsumerRecord<String, CloudEvent> record(final long offset, final CloudEvent event) {
+    return new KafkaConsumerRecordImpl<>(
+      new ConsumerRecord<>(TOPIC_PARTITION.getTopic(), TOPIC_PARTITION.getPartition(), offset, null, event)
+    );
+  }
+}
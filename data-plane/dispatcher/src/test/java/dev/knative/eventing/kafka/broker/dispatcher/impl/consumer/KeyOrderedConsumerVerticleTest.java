@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import dev.knative.eventing.kafka.broker.dispatcher.impl.RecordDispatcherImpl;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.KafkaConsumerRecord;
+import io.vertx.kafka.client.consumer.impl.KafkaConsumerRecordImpl;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(VertxExtension.class)
+public class KeyOrderedConsumerVerticleTest extends AbstractConsumerVerticleTest {
+
+  private static final int MAX_IN_FLIGHT_KEYS = 4;
+
+  @Test
+  public void shouldDeliverRecordsWithTheSameKeyInOrder(final Vertx vertx) throws InterruptedException {
+    final var topic = "topic1";
+    final var keys = 10;
+    final var recordsPerKey = 20;
+    final var consumer = new MockConsumer<String, CloudEvent>(OffsetResetStrategy.LATEST);
+
+    final var latch = new CountDownLatch(keys * recordsPerKey);
+    final var inFlight = new AtomicInteger(0);
+    final var maxInFlight = new AtomicInteger(0);
+    final Map<String, List<Long>> receivedRecords = new HashMap<>();
+
+    final var recordDispatcher = mock(RecordDispatcherImpl.class);
+    when(recordDispatcher.dispatch(any())).then(invocation -> {
+      final KafkaConsumerRecord<String, CloudEvent> record = invocation.getArgument(0);
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+      final Promise<Void> promise = Promise.promise();
+      vertx.setTimer(5, v -> {
+        inFlight.decrementAndGet();
+        receivedRecords.computeIfAbsent(record.key(), k -> new ArrayList<>()).add(record.offset());
+        latch.countDown();
+        promise.complete();
+      });
+      return promise.future();
+    });
+    when(recordDispatcher.close()).thenReturn(Future.succeededFuture());
+
+    final var verticle = createConsumerVerticle(
+      (vx, consumerVerticle) -> {
+        consumerVerticle.setConsumer(KafkaConsumer.create(vx, consumer));
+        consumerVerticle.setRecordDispatcher(recordDispatcher);
+        consumerVerticle.setCloser(Future::succeededFuture);
+
+        return Future.succeededFuture();
+      }, Set.of(topic)
+    );
+
+    final var deployLatch = new CountDownLatch(1);
+    vertx.deployVerticle(verticle).onComplete(v -> deployLatch.countDown());
+    deployLatch.await();
+
+    final var partition = new TopicPartition(topic, 0);
+    consumer.updateEndOffsets(Map.of(partition, 0L));
+    consumer.rebalance(List.of(partition));
+
+    for (int i = 0; i < keys * recordsPerKey; i++) {
+      consumer.addRecord(new ConsumerRecord<>(topic, 0, i, "key-" + (i % keys), null));
+    }
+
+    assertThat(latch.await(60, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(receivedRecords).hasSize(keys);
+    for (final var e : receivedRecords.entrySet()) {
+      assertThat(e.getValue())
+        .hasSize(recordsPerKey)
+        .isSorted();
+    }
+    assertThat(maxInFlight.get())
+      .isGreaterThan(1)
+      .isLessThanOrEqualTo(MAX_IN_FLIGHT_KEYS);
+  }
+
+  @Test
+  public void shouldUsePartitionKeyExtensionWhenTheRecordHasNoKey() {
+    final var event = CloudEventBuilder.v1()
+      .withId("1")
+      .withSource(URI.create("/source"))
+      .withType("type")
+      .withExtension(KeyOrderedConsumerVerticle.PARTITION_KEY_EXTENSION, "abc")
+      .build();
+
+    assertThat(KeyOrderedConsumerVerticle.keyOf(record("key", event))).isEqualTo("key");
+    assertThat(KeyOrderedConsumerVerticle.keyOf(record(null, event))).isEqualTo("abc");
+    assertThat(KeyOrderedConsumerVerticle.keyOf(record(null, null))).isNull();
+  }
+
+  @Test
+  public void shouldRejectInvalidMaxInFlightKeys() {
+    assertThatThrownBy(() -> new KeyOrderedConsumerVerticle((vx, cv) -> Future.succeededFuture(), Set.of("t"), 0))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Override
+  BaseConsumerVerticle createConsumerVerticle(
+    BaseConsumerVerticle.Initializer initializer, Set<String> topics) {
+    return new KeyOrderedConsumerVerticle(initializer, topics, MAX_IN_FLIGHT_KEYS);
+  }
+
+  private static KafkaConsumerRecord<String, CloudEvent> record(final String key, final CloudEvent event) {
+    return new KafkaConsumerRecordImpl<>(new ConsumerRecord<>("topic", 0, 0, key, event));
+  }
+}
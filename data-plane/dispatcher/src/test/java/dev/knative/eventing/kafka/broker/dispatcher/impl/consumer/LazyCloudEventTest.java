@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.core.message.Encoding;
+import io.cloudevents.jackson.JsonFormat;
+import io.cloudevents.kafka.CloudEventDeserializer;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.cloudevents.rw.CloudEventRWException;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LazyCloudEventTest {
+
+  private static final String TOPIC = "topic";
+
+  @Test
+  public void shouldBeEquivalentToDeserializedEvent() {
+    final var event = CloudEventBuilder.v1()
+      .withId("123")
+      .withSource(URI.create("/api/source"))
+      .withType("type")
+      .withSubject("subject")
+      .withDataSchema(URI.create("http://localhost/schema"))
+      .withTime(OffsetDateTime.of(2021, 6, 1, 10, 30, 0, 0, ZoneOffset.ofHours(2)))
+      .withExtension("ext1", "value1")
+      .withExtension("ext2", "value2")
+      .withData("application/json", "{\"a\":1}".getBytes())
+      .build();
+
+    final var headers = new RecordHeaders();
+    final var data = serializer(Encoding.BINARY).serialize(TOPIC, headers, event);
+
+    final var lazy = new LazyCloudEventDeserializer().deserialize(TOPIC, headers, data);
+    final var deserialized = new CloudEventDeserializer().deserialize(TOPIC, headers, data);
+
+    assertThat(lazy).isInstanceOf(LazyCloudEvent.class);
+    assertThat(lazy.getSpecVersion()).isEqualTo(deserialized.getSpecVersion());
+    assertThat(lazy.getId()).isEqualTo(deserialized.getId());
+    assertThat(lazy.getSource()).isEqualTo(deserialized.getSource());
+    assertThat(lazy.getType()).isEqualTo(deserialized.getType());
+    assertThat(lazy.getSubject()).isEqualTo(deserialized.getSubject());
+    assertThat(lazy.getDataSchema()).isEqualTo(deserialized.getDataSchema());
+    assertThat(lazy.getTime()).isEqualTo(deserialized.getTime());
+    assertThat(lazy.getDataContentType()).isEqualTo(deserialized.getDataContentType());
+    assertThat(lazy.getData().toBytes()).isEqualTo(deserialized.getData().toBytes());
+    assertThat(lazy.getExtensionNames()).containsExactlyInAnyOrderElementsOf(deserialized.getExtensionNames());
+    assertThat(lazy.getExtension("ext1")).isEqualTo(deserialized.getExtension("ext1"));
+    assertThat(lazy.getExtension("id")).isNull();
+    assertThat(lazy.getAttribute("subject")).isEqualTo(deserialized.getAttribute("subject"));
+    assertThatThrownBy(() -> lazy.getAttribute("ext1")).isInstanceOf(IllegalArgumentException.class);
+
+    final var lazyEvent = (LazyCloudEvent) lazy;
+    assertThat(lazyEvent.getString("source")).isEqualTo("/api/source");
+    assertThat(lazyEvent.getString("time")).isEqualTo("2021-06-01T08:30:00Z");
+    assertThat(lazyEvent.getString("datacontenttype")).isEqualTo("application/json");
+    assertThat(lazyEvent.getString("ext2")).isEqualTo("value2");
+    assertThat(lazyEvent.getString("unknown")).isNull();
+  }
+
+  @Test
+  public void shouldDeserializeStructuredEvents() {
+    final var event = CloudEventBuilder.v1()
+      .withId("123")
+      .withSource(URI.create("/api/source"))
+      .withType("type")
+      .build();
+
+    final var headers = new RecordHeaders();
+    final var data = serializer(Encoding.STRUCTURED).serialize(TOPIC, headers, event);
+
+    final var deserialized = new LazyCloudEventDeserializer().deserialize(TOPIC, headers, data);
+
+    assertThat(deserialized).isNotInstanceOf(LazyCloudEvent.class);
+    assertThat(deserialized).isEqualTo(event);
+  }
+
+  @Test
+  public void shouldDeserializeV03Events() {
+    final var event = CloudEventBuilder.v03()
+      .withId("123")
+      .withSource(URI.create("/api/source"))
+      .withType("type")
+      .build();
+
+    assertThat(lazy(event)).isNotInstanceOf(LazyCloudEvent.class);
+  }
+
+  @Test
+  public void shouldFailAccessingInvalidAttributes() {
+    final var headers = new RecordHeaders()
+      .add("ce_specversion", "1.0".getBytes())
+      .add("ce_id", "123".getBytes())
+      .add("ce_source", "/api/source".getBytes())
+      .add("ce_type", "type".getBytes())
+      .add("ce_time", "not a time".getBytes());
+
+    final var event = new LazyCloudEventDeserializer().deserialize(TOPIC, headers, null);
+
+    assertThat(event.getId()).isEqualTo("123");
+    assertThat(event.getData()).isNull();
+    assertThatThrownBy(event::getTime).isInstanceOf(CloudEventRWException.class);
+  }
+
+  /**
+   * Serialize the given event in binary mode and deserialize it using {@link LazyCloudEventDeserializer}.
+   *
+   * @param event event.
+   * @return the deserialized event.
+   */
+  public static CloudEvent lazy(final CloudEvent event) {
+    final var headers = new RecordHeaders();
+    final var data = serializer(Encoding.BINARY).serialize(TOPIC, headers, event);
+    return new LazyCloudEventDeserializer().deserialize(TOPIC, headers, data);
+  }
+
+  private static CloudEventSerializer serializer(final Encoding encoding) {
+    final var serializer = new CloudEventSerializer();
+    serializer.configure(Map.of(
+      CloudEventSerializer.ENCODING_CONFIG, encoding,
+      CloudEventSerializer.EVENT_FORMAT_CONFIG, JsonFormat.CONTENT_TYPE
+    ), false);
+    return serializer;
+  }
+}
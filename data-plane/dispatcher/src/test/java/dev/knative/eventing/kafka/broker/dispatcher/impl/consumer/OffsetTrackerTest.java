@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Execution(value = ExecutionMode.CONCURRENT)
+public class OffsetTrackerTest {
+
+  @Test
+  public void shouldNotAdvanceWithoutTheBase() {
+    final var tracker = new OffsetTracker(10);
+
+    tracker.recordNewOffset(11);
+    tracker.recordNewOffset(12);
+
+    assertThat(tracker.advance()).isEqualTo(0);
+    assertThat(tracker.offsetToCommit()).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldAdvanceOverTheContiguousPrefix() {
+    final var tracker = new OffsetTracker(10);
+
+    tracker.recordNewOffset(12);
+    tracker.recordNewOffset(10);
+    tracker.recordNewOffset(11);
+    tracker.recordNewOffset(14);
+
+    assertThat(tracker.advance()).isEqualTo(3);
+    assertThat(tracker.offsetToCommit()).isEqualTo(13);
+    assertThat(tracker.advance()).isEqualTo(0);
+
+    tracker.recordNewOffset(13);
+
+    assertThat(tracker.advance()).isEqualTo(2);
+    assertThat(tracker.offsetToCommit()).isEqualTo(15);
+  }
+
+  @Test
+  public void shouldIgnoreAlreadyCommittedOffsets() {
+    final var tracker = new OffsetTracker(100);
+
+    tracker.recordNewOffset(3);
+    tracker.recordNewOffset(99);
+
+    assertThat(tracker.advance()).isEqualTo(0);
+    assertThat(tracker.offsetToCommit()).isEqualTo(100);
+  }
+
+  @Test
+  public void shouldAdvanceAcrossWords() {
+    final var tracker = new OffsetTracker(60);
+
+    for (long offset = 61; offset < 60 + 64 * 3; offset++) {
+      tracker.recordNewOffset(offset);
+    }
+    assertThat(tracker.advance()).isEqualTo(0);
+
+    tracker.recordNewOffset(60);
+
+    assertThat(tracker.advance()).isEqualTo(64 * 3);
+    assertThat(tracker.offsetToCommit()).isEqualTo(60 + 64 * 3);
+  }
+
+  @Test
+  public void shouldReuseTheRingWhileSliding() {
+    final var tracker = new OffsetTracker(0);
+
+    // Keep a window of 100 in-flight records and slide it for a while.
+    for (long offset = 0; offset < 100_000; offset++) {
+      tracker.recordNewOffset(offset + 99);
+      if (offset == 0) {
+        for (long o = 1; o < 99; o++) {
+          tracker.recordNewOffset(o);
+        }
+      }
+      tracker.recordNewOffset(offset);
+      tracker.advance();
+    }
+
+    assertThat(tracker.offsetToCommit()).isEqualTo(100_000 + 99);
+  }
+
+  @Test
+  public void shouldAdvanceAfterRandomAcks() {
+    final var size = 100_000;
+    final var tracker = new OffsetTracker(0);
+    final List<Long> offsets = LongStream.range(0, size)
+      .boxed()
+      .collect(Collectors.toCollection(ArrayList::new));
+    Collections.shuffle(offsets, new Random(42));
+
+    long advanced = 0;
+    for (final var offset : offsets) {
+      tracker.recordNewOffset(offset);
+      advanced += tracker.advance();
+      assertThat(advanced).isEqualTo(tracker.offsetToCommit());
+    }
+
+    assertThat(advanced).isEqualTo(size);
+    assertThat(tracker.offsetToCommit()).isEqualTo(size);
+  }
+}
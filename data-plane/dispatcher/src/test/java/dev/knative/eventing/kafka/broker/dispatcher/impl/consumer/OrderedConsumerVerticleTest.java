@@ -17,6 +17,7 @@ package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
 
 import dev.knative.eventing.kafka.broker.dispatcher.impl.RecordDispatcherImpl;
 import io.cloudevents.CloudEvent;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
@@ -30,8 +31,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -40,12 +44,14 @@ import java.util.stream.Stream;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -159,6 +165,143 @@ public class OrderedConsumerVerticleTest extends AbstractConsumerVerticleTest {
     ).isEqualTo(tasks);
   }
 
+  @Test
+  public void shouldPauseOnlyPartitionsWithLongQueues(final Vertx vertx) throws InterruptedException {
+    final var topic = "topic1";
+    final var slowPartition = new org.apache.kafka.common.TopicPartition(topic, 0);
+    final var fastPartition = new org.apache.kafka.common.TopicPartition(topic, 1);
+    final var consumer = new MockConsumer<String, CloudEvent>(OffsetResetStrategy.LATEST);
+
+    // Records of the slow partition never complete until we complete them
+    final var context = new AtomicReference<Context>();
+    final List<Promise<Void>> slowRecords = new CopyOnWriteArrayList<>();
+    final var fastRecords = new AtomicInteger(0);
+    final var recordDispatcher = mock(RecordDispatcherImpl.class);
+    when(recordDispatcher.dispatch(any())).then(invocation -> {
+      final KafkaConsumerRecord<String, CloudEvent> record = invocation.getArgument(0);
+      if (record.partition() == fastPartition.partition()) {
+        fastRecords.incrementAndGet();
+        return Future.succeededFuture();
+      }
+      context.set(Vertx.currentContext());
+      final Promise<Void> promise = Promise.promise();
+      slowRecords.add(promise);
+      return promise.future();
+    });
+    when(recordDispatcher.close()).thenReturn(Future.succeededFuture());
+
+    final var verticle = new OrderedConsumerVerticle(
+      (vx, consumerVerticle) -> {
+        consumerVerticle.setConsumer(KafkaConsumer.create(vx, consumer));
+        consumerVerticle.setRecordDispatcher(recordDispatcher);
+        consumerVerticle.setCloser(Future::succeededFuture);
+
+        return Future.succeededFuture();
+      },
+      Set.of(topic),
+      10
+    );
+
+    final var deployLatch = new CountDownLatch(1);
+    vertx.deployVerticle(verticle).onComplete(v -> deployLatch.countDown());
+    deployLatch.await();
+
+    consumer.updateEndOffsets(Map.of(slowPartition, 0L, fastPartition, 0L));
+    consumer.rebalance(List.of(slowPartition, fastPartition));
+    for (int i = 0; i < 20; i++) {
+      consumer.addRecord(record(topic, slowPartition.partition(), i));
+    }
+
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(slowRecords).hasSize(1);
+      assertThat(consumer.paused()).containsExactly(slowPartition);
+    });
+
+    // The other partitions are still polled
+    for (int i = 0; i < 20; i++) {
+      consumer.addRecord(record(topic, fastPartition.partition(), i));
+    }
+    await().atMost(10, TimeUnit.SECONDS).until(() -> fastRecords.get() == 20);
+    assertThat(consumer.paused()).containsExactly(slowPartition);
+
+    // Drain the slow partition, until it's resumed
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      final var last = slowRecords.get(slowRecords.size() - 1);
+      context.get().runOnContext(v -> last.tryComplete());
+      assertThat(consumer.paused()).isEmpty();
+    });
+    assertThat(verticle.queueDepth(new TopicPartition(topic, slowPartition.partition())))
+      .isLessThanOrEqualTo(5);
+  }
+
+  @Test
+  public void shouldForgetPartitionStateWhenPartitionsAreRevokedOrAssigned(final Vertx vertx)
+    throws InterruptedException {
+    final var topic = "topic1";
+    final var partition = new org.apache.kafka.common.TopicPartition(topic, 0);
+    final var topicPartition = new TopicPartition(topic, partition.partition());
+    final var consumer = new MockConsumer<String, CloudEvent>(OffsetResetStrategy.LATEST);
+
+    // Records never complete
+    final var context = new AtomicReference<Context>();
+    final var recordDispatcher = mock(RecordDispatcherImpl.class);
+    when(recordDispatcher.dispatch(any())).then(invocation -> {
+      context.set(Vertx.currentContext());
+      return Promise.<Void>promise().future();
+    });
+    when(recordDispatcher.close()).thenReturn(Future.succeededFuture());
+
+    final var verticle = new OrderedConsumerVerticle(
+      (vx, consumerVerticle) -> {
+        consumerVerticle.setConsumer(KafkaConsumer.create(vx, consumer));
+        consumerVerticle.setRecordDispatcher(recordDispatcher);
+        consumerVerticle.setCloser(Future::succeededFuture);
+
+        return Future.succeededFuture();
+      },
+      Set.of(topic),
+      10
+    );
+
+    final var deployLatch = new CountDownLatch(1);
+    vertx.deployVerticle(verticle).onComplete(v -> deployLatch.countDown());
+    deployLatch.await();
+
+    consumer.updateEndOffsets(Map.of(partition, 0L));
+    consumer.rebalance(List.of(partition));
+    for (int i = 0; i < 20; i++) {
+      consumer.addRecord(record(topic, partition.partition(), i));
+    }
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(verticle.queueDepth(topicPartition)).isEqualTo(20);
+      assertThat(consumer.paused()).containsExactly(partition);
+    });
+
+    final var revoked = new CountDownLatch(1);
+    context.get().runOnContext(v -> {
+      verticle.partitionsRevoked(List.of(partition));
+      revoked.countDown();
+    });
+    revoked.await();
+    assertThat(verticle.queueDepth(topicPartition)).isZero();
+
+    // Kafka resumes partitions once they're assigned again.
+    consumer.resume(List.of(partition));
+    for (int i = 20; i < 25; i++) {
+      consumer.addRecord(record(topic, partition.partition(), i));
+    }
+    await().atMost(10, TimeUnit.SECONDS)
+      .untilAsserted(() -> assertThat(verticle.queueDepth(topicPartition)).isEqualTo(5));
+
+    final var assigned = new CountDownLatch(1);
+    context.get().runOnContext(v -> {
+      verticle.partitionsAssigned(Set.of(topicPartition));
+      assigned.countDown();
+    });
+    assigned.await();
+    assertThat(verticle.queueDepth(topicPartition)).isZero();
+  }
+
   @Override
   BaseConsumerVerticle createConsumerVerticle(
     BaseConsumerVerticle.Initializer initializer, Set<String> topics) {
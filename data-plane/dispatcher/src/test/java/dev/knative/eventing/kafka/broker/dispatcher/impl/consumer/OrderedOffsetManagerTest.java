@@ -16,12 +16,26 @@
 package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
 
 import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcherListener;
+import io.cloudevents.CloudEvent;
+import io.micrometer.core.instrument.Counter;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import java.util.List;
+import java.util.Map;
 import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @Execution(value = ExecutionMode.CONCURRENT)
 public class OrderedOffsetManagerTest extends AbstractOffsetManagerTest {
@@ -29,7 +43,7 @@ public class OrderedOffsetManagerTest extends AbstractOffsetManagerTest {
   @Override
   RecordDispatcherListener createOffsetManager(
     KafkaConsumer<?, ?> consumer) {
-    return new OrderedOffsetManager(consumer, null);
+    return new OrderedOffsetManager(mock(Vertx.class), consumer, null, 1000L, 1);
   }
 
   @Test
@@ -57,6 +71,7 @@ public class OrderedOffsetManagerTest extends AbstractOffsetManagerTest {
   @Test
   public void shouldCommitAfterSuccessfullySentToSubscriber() {
     assertThatOffsetCommitted(List.of(new TopicPartition("aaa", 0)), offsetStrategy -> {
+      offsetStrategy.recordReceived(record("aaa", 0, 0));
       offsetStrategy.successfullySentToSubscriber(record("aaa", 0, 0));
     }).containsEntry(new TopicPartition("aaa", 0), 1L);
   }
@@ -64,8 +79,62 @@ public class OrderedOffsetManagerTest extends AbstractOffsetManagerTest {
   @Test
   public void shouldCommitAfterSuccessfullySentToDeadLetterSink() {
     assertThatOffsetCommitted(List.of(new TopicPartition("aaa", 0)), offsetStrategy -> {
+      offsetStrategy.recordReceived(record("aaa", 0, 0));
       offsetStrategy.successfullySentToDeadLetterSink(record("aaa", 0, 0));
     }).containsEntry(new TopicPartition("aaa", 0), 1L);
   }
 
+  @Test
+  public void shouldCommitTheLastDeliveredOffset() {
+    assertThatOffsetCommitted(List.of(new TopicPartition("aaa", 0)), offsetStrategy -> {
+      for (int i = 0; i < 10; i++) {
+        offsetStrategy.recordReceived(record("aaa", 0, i));
+        offsetStrategy.successfullySentToSubscriber(record("aaa", 0, i));
+      }
+    }).containsEntry(new TopicPartition("aaa", 0), 10L);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCommitInBatches() {
+    final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+    when(consumer.commit(any(Map.class))).thenReturn(Future.succeededFuture());
+    final Counter eventsSentCounter = mock(Counter.class);
+
+    final var strategy =
+      new OrderedOffsetManager(mock(Vertx.class), consumer, eventsSentCounter::increment, 1000L, 5);
+
+    for (int i = 0; i < 4; i++) {
+      strategy.recordReceived(record("aaa", 0, i));
+      strategy.successfullySentToSubscriber(record("aaa", 0, i));
+    }
+    strategy.recordReceived(record("aaa", 0, 4));
+    strategy.recordDiscarded(record("aaa", 0, 4));
+    shouldNeverCommit(consumer);
+
+    strategy.recordReceived(record("aaa", 0, 5));
+    strategy.successfullySentToDeadLetterSink(record("aaa", 0, 5));
+
+    final ArgumentCaptor<Map<io.vertx.kafka.client.common.TopicPartition, OffsetAndMetadata>> captor =
+      ArgumentCaptor.forClass(Map.class);
+    verify(consumer, times(1)).commit(captor.capture());
+    assertThat(captor.getValue().get(new io.vertx.kafka.client.common.TopicPartition("aaa", 0)).getOffset())
+      .isEqualTo(6L);
+    verify(eventsSentCounter, times(1)).increment(5);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldFlushOnClose() {
+    final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+    when(consumer.commit(any(Map.class))).thenReturn(Future.succeededFuture());
+
+    final var strategy = new OrderedOffsetManager(mock(Vertx.class), consumer, null, 1000L, 100);
+    strategy.recordReceived(record("aaa", 0, 0));
+    strategy.successfullySentToSubscriber(record("aaa", 0, 0));
+    shouldNeverCommit(consumer);
+
+    assertThat(strategy.close().succeeded()).isTrue();
+    verify(consumer, times(1)).commit(any(Map.class));
+  }
 }
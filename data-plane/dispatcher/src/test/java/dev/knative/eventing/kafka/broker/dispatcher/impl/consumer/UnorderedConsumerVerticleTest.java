@@ -15,13 +15,236 @@
  */
 package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
 
+import dev.knative.eventing.kafka.broker.dispatcher.impl.RecordDispatcherImpl;
+import io.cloudevents.CloudEvent;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(VertxExtension.class)
 public class UnorderedConsumerVerticleTest extends AbstractConsumerVerticleTest {
 
+  @Test
+  public void shouldPauseWhenTooManyRecordsAreInFlight(final Vertx vertx) throws InterruptedException {
+    final var topic = "topic1";
+    final var partition = new TopicPartition(topic, 0);
+    final var consumer = new MockConsumer<String, CloudEvent>(OffsetResetStrategy.LATEST);
+
+    final var context = new AtomicReference<Context>();
+    final List<Promise<Void>> inFlight = new CopyOnWriteArrayList<>();
+    final var recordDispatcher = mock(RecordDispatcherImpl.class);
+    when(recordDispatcher.dispatch(any())).then(invocation -> {
+      context.set(Vertx.currentContext());
+      final Promise<Void> promise = Promise.promise();
+      inFlight.add(promise);
+      return promise.future();
+    });
+    when(recordDispatcher.close()).thenReturn(Future.succeededFuture());
+
+    final var verticle = new UnorderedConsumerVerticle(
+      (vx, consumerVerticle) -> {
+        consumerVerticle.setConsumer(KafkaConsumer.create(vx, consumer));
+        consumerVerticle.setRecordDispatcher(recordDispatcher);
+        consumerVerticle.setCloser(Future::succeededFuture);
+
+        return Future.succeededFuture();
+      },
+      Set.of(topic),
+      10,
+      Long.MAX_VALUE
+    );
+
+    final var deployLatch = new CountDownLatch(1);
+    vertx.deployVerticle(verticle).onComplete(v -> deployLatch.countDown());
+    deployLatch.await();
+
+    consumer.updateEndOffsets(Map.of(partition, 0L));
+    consumer.rebalance(List.of(partition));
+    for (int i = 0; i < 20; i++) {
+      consumer.addRecord(new ConsumerRecord<>(topic, 0, i, null, null));
+    }
+
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(inFlight).hasSize(20);
+      assertThat(consumer.paused()).containsExactly(partition);
+    });
+    assertThat(verticle.getInFlightRecords()).isEqualTo(20);
+
+    // Completing records until we're above the low watermark doesn't resume the partitions
+    completeOnContext(context.get(), inFlight.subList(0, 10));
+    await().atMost(10, TimeUnit.SECONDS).until(() -> verticle.getInFlightRecords() == 10);
+    assertThat(consumer.paused()).containsExactly(partition);
+
+    completeOnContext(context.get(), inFlight.subList(10, 20));
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(verticle.getInFlightRecords()).isZero();
+      assertThat(consumer.paused()).isEmpty();
+    });
+  }
+
+  @Test
+  public void shouldPauseWhileDispatcherIsSaturated(final Vertx vertx) throws InterruptedException {
+    final var topic = "topic1";
+    final var partition = new TopicPartition(topic, 0);
+    final var consumer = new MockConsumer<String, CloudEvent>(OffsetResetStrategy.LATEST);
+
+    final var context = new AtomicReference<Context>();
+    final List<Promise<Void>> inFlight = new CopyOnWriteArrayList<>();
+    final var recordDispatcher = mock(RecordDispatcherImpl.class);
+    when(recordDispatcher.dispatch(any())).then(invocation -> {
+      context.set(Vertx.currentContext());
+      final Promise<Void> promise = Promise.promise();
+      inFlight.add(promise);
+      return promise.future();
+    });
+    when(recordDispatcher.close()).thenReturn(Future.succeededFuture());
+
+    final var saturated = new AtomicBoolean(true);
+    final var verticle = new UnorderedConsumerVerticle(
+      (vx, consumerVerticle) -> {
+        consumerVerticle.setConsumer(KafkaConsumer.create(vx, consumer));
+        consumerVerticle.setRecordDispatcher(recordDispatcher);
+        consumerVerticle.setCloser(Future::succeededFuture);
+        ((UnorderedConsumerVerticle) consumerVerticle).setSaturation(saturated::get);
+
+        return Future.succeededFuture();
+      },
+      Set.of(topic),
+      1000,
+      Long.MAX_VALUE
+    );
+
+    final var deployLatch = new CountDownLatch(1);
+    vertx.deployVerticle(verticle).onComplete(v -> deployLatch.countDown());
+    deployLatch.await();
+
+    consumer.updateEndOffsets(Map.of(partition, 0L));
+    consumer.rebalance(List.of(partition));
+    for (int i = 0; i < 3; i++) {
+      consumer.addRecord(new ConsumerRecord<>(topic, 0, i, null, null));
+    }
+
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(inFlight).hasSize(3);
+      assertThat(consumer.paused()).containsExactly(partition);
+    });
+
+    // Partitions stay paused while the dispatcher is saturated, even below the in-flight limits.
+    completeOnContext(context.get(), inFlight.subList(0, 1));
+    await().atMost(10, TimeUnit.SECONDS).until(() -> verticle.getInFlightRecords() == 2);
+    assertThat(consumer.paused()).containsExactly(partition);
+
+    saturated.set(false);
+    completeOnContext(context.get(), inFlight.subList(1, 2));
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(verticle.getInFlightRecords()).isEqualTo(1);
+      assertThat(consumer.paused()).isEmpty();
+    });
+  }
+
+  @Test
+  public void shouldPauseAgainWhenPartitionsAreAssignedWhilePaused(final Vertx vertx) throws InterruptedException {
+    final var topic = "topic1";
+    final var partition = new TopicPartition(topic, 0);
+    final var consumer = new MockConsumer<String, CloudEvent>(OffsetResetStrategy.LATEST);
+
+    final var context = new AtomicReference<Context>();
+    final List<Promise<Void>> inFlight = new CopyOnWriteArrayList<>();
+    final var recordDispatcher = mock(RecordDispatcherImpl.class);
+    when(recordDispatcher.dispatch(any())).then(invocation -> {
+      context.set(Vertx.currentContext());
+      final Promise<Void> promise = Promise.promise();
+      inFlight.add(promise);
+      return promise.future();
+    });
+    when(recordDispatcher.close()).thenReturn(Future.succeededFuture());
+
+    final var verticle = new UnorderedConsumerVerticle(
+      (vx, consumerVerticle) -> {
+        consumerVerticle.setConsumer(KafkaConsumer.create(vx, consumer));
+        consumerVerticle.setRecordDispatcher(recordDispatcher);
+        consumerVerticle.setCloser(Future::succeededFuture);
+
+        return Future.succeededFuture();
+      },
+      Set.of(topic),
+      10,
+      Long.MAX_VALUE
+    );
+
+    final var deployLatch = new CountDownLatch(1);
+    vertx.deployVerticle(verticle).onComplete(v -> deployLatch.countDown());
+    deployLatch.await();
+
+    consumer.updateEndOffsets(Map.of(partition, 0L));
+    consumer.rebalance(List.of(partition));
+    for (int i = 0; i < 20; i++) {
+      consumer.addRecord(new ConsumerRecord<>(topic, 0, i, null, null));
+    }
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(inFlight).hasSize(20);
+      assertThat(consumer.paused()).containsExactly(partition);
+    });
+
+    // Kafka resumes partitions once they're assigned again.
+    final var rebalanced = new CountDownLatch(1);
+    context.get().runOnContext(v -> {
+      verticle.partitionsRevoked(List.of(partition));
+      consumer.resume(List.of(partition));
+      verticle.partitionsAssigned(Set.of(new io.vertx.kafka.client.common.TopicPartition(topic, 0)));
+      rebalanced.countDown();
+    });
+    rebalanced.await();
+    await().atMost(10, TimeUnit.SECONDS)
+      .untilAsserted(() -> assertThat(consumer.paused()).containsExactly(partition));
+
+    // Partitions are resumed once records complete.
+    completeOnContext(context.get(), inFlight.subList(0, 20));
+    await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertThat(verticle.getInFlightRecords()).isZero();
+      assertThat(consumer.paused()).isEmpty();
+    });
+  }
+
+  @Test
+  public void shouldRejectInvalidLimits() {
+    assertThatThrownBy(() -> new UnorderedConsumerVerticle((vx, cv) -> Future.succeededFuture(), Set.of("t"), 0, 1))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new UnorderedConsumerVerticle((vx, cv) -> Future.succeededFuture(), Set.of("t"), 1, 0))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
   @Override
   BaseConsumerVerticle createConsumerVerticle(
     BaseConsumerVerticle.Initializer initializer, Set<String> topics) {
-    return new UnorderedConsumerVerticle(initializer, topics);
+    return new UnorderedConsumerVerticle(initializer, topics, 1000, Long.MAX_VALUE);
+  }
+
+  private static void completeOnContext(final Context context, final List<Promise<Void>> promises) {
+    context.runOnContext(v -> promises.forEach(Promise::complete));
   }
 }
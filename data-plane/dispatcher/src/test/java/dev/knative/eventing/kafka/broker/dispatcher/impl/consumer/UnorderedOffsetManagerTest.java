@@ -18,16 +18,35 @@ package dev.knative.eventing.kafka.broker.dispatcher.impl.consumer;
 import dev.knative.eventing.kafka.broker.dispatcher.RecordDispatcherListener;
 import io.cloudevents.CloudEvent;
 import io.micrometer.core.instrument.Counter;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.NoOpConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.mockito.ArgumentCaptor;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @Execution(value = ExecutionMode.CONCURRENT)
 public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
@@ -35,7 +54,7 @@ public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
   @Override
   RecordDispatcherListener createOffsetManager(
     KafkaConsumer<?, ?> consumer) {
-    return new UnorderedOffsetManager(consumer, null);
+    return new UnorderedOffsetManager(mock(Vertx.class), consumer, null, 1000L, 1);
   }
 
   @Test
@@ -140,7 +159,7 @@ public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
   }
 
   @Test
-  public void shouldNotCommitAfterSendingEventsABitMoreMixedWithAMissingOne() {
+  public void shouldCommitTheContiguousPrefixAfterSendingEventsABitMoreMixedWithAMissingOne() {
     assertThatOffsetCommitted(List.of(new TopicPartition("aaa", 0)), offsetStrategy -> {
       offsetStrategy.recordReceived(record("aaa", 0, 0));
       // This will commit in the following order:
@@ -148,7 +167,7 @@ public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
       List.of(5L, 2L, 0L, 7L, 1L, 3L, 4L)
         .forEach(offset -> offsetStrategy.successfullySentToSubscriber(record("aaa", 0, offset)));
     })
-      .isEmpty();
+      .containsEntry(new TopicPartition("aaa", 0), 6L);
   }
 
   @Test
@@ -184,6 +203,18 @@ public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
       .containsEntry(new TopicPartition("aaa", 0), 2L);
   }
 
+  @Test
+  public void shouldCommitWhenEveryRecordIsDiscarded() {
+    assertThatOffsetCommitted(List.of(new TopicPartition("aaa", 0)), offsetStrategy -> {
+      for (int i = 0; i < 3; i++) {
+        var rec = record("aaa", 0, i);
+        offsetStrategy.recordReceived(rec);
+        offsetStrategy.recordDiscarded(rec);
+      }
+    })
+      .containsEntry(new TopicPartition("aaa", 0), 3L);
+  }
+
   @Test
   public void shouldCommitSuccessfullyWithRecordFailedToDeadLetterSinkInTheMiddle() {
     assertThatOffsetCommitted(List.of(new TopicPartition("aaa", 0)), offsetStrategy -> {
@@ -212,7 +243,8 @@ public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
   public void recordReceived() {
     final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
     final Counter eventsSentCounter = mock(Counter.class);
-    new UnorderedOffsetManager(consumer, eventsSentCounter::increment).recordReceived(record("aaa", 0, 0));
+    new UnorderedOffsetManager(mock(Vertx.class), consumer, eventsSentCounter::increment, 1000L, 1)
+      .recordReceived(record("aaa", 0, 0));
 
     shouldNeverCommit(consumer);
     shouldNeverPause(consumer);
@@ -226,7 +258,7 @@ public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
     final Counter eventsSentCounter = mock(Counter.class);
 
     UnorderedOffsetManager strategy =
-      new UnorderedOffsetManager(consumer, eventsSentCounter::increment);
+      new UnorderedOffsetManager(mock(Vertx.class), consumer, eventsSentCounter::increment, 1000L, 1);
     strategy.recordReceived(record("aaa", 0, 0));
     strategy.failedToSendToDeadLetterSink(record("aaa", 0, 0), null);
 
@@ -234,4 +266,186 @@ public class UnorderedOffsetManagerTest extends AbstractOffsetManagerTest {
     shouldNeverPause(consumer);
     verify(eventsSentCounter, never()).increment();
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCommitAllPartitionsTogetherWhenBatchSizeIsReached() {
+    final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+    when(consumer.commit(any(Map.class))).thenReturn(Future.succeededFuture());
+    final Counter eventsSentCounter = mock(Counter.class);
+
+    final var strategy =
+      new UnorderedOffsetManager(mock(Vertx.class), consumer, eventsSentCounter::increment, 1000L, 10);
+    strategy.recordReceived(record("aaa", 0, 0));
+    strategy.recordReceived(record("aaa", 1, 0));
+
+    for (int i = 0; i < 9; i++) {
+      strategy.successfullySentToSubscriber(record("aaa", i % 2, i / 2));
+    }
+    shouldNeverCommit(consumer);
+
+    strategy.successfullySentToSubscriber(record("aaa", 1, 4));
+
+    final ArgumentCaptor<Map<io.vertx.kafka.client.common.TopicPartition, OffsetAndMetadata>> captor =
+      ArgumentCaptor.forClass(Map.class);
+    verify(consumer, times(1)).commit(captor.capture());
+    assertThat(captor.getValue())
+      .hasSize(2)
+      .allSatisfy((tp, offset) -> assertThat(offset.getOffset()).isEqualTo(5L));
+    verify(eventsSentCounter, times(1)).increment(10);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCommitPeriodically() {
+    final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+    when(consumer.commit(any(Map.class))).thenReturn(Future.succeededFuture());
+
+    final Vertx vertx = mock(Vertx.class);
+    final AtomicReference<Handler<Long>> timer = new AtomicReference<>();
+    when(vertx.setPeriodic(anyLong(), any())).then(invocation -> {
+      timer.set(invocation.getArgument(1));
+      return 1L;
+    });
+
+    final var strategy = new UnorderedOffsetManager(vertx, consumer, null, 1000L, 100);
+    strategy.recordReceived(record("aaa", 0, 0));
+    strategy.successfullySentToSubscriber(record("aaa", 0, 0));
+    strategy.successfullySentToSubscriber(record("aaa", 0, 1));
+    shouldNeverCommit(consumer);
+
+    timer.get().handle(1L);
+
+    final ArgumentCaptor<Map<io.vertx.kafka.client.common.TopicPartition, OffsetAndMetadata>> captor =
+      ArgumentCaptor.forClass(Map.class);
+    verify(consumer, times(1)).commit(captor.capture());
+    assertThat(captor.getValue().get(new io.vertx.kafka.client.common.TopicPartition("aaa", 0)).getOffset())
+      .isEqualTo(2L);
+
+    // Nothing new to commit
+    timer.get().handle(1L);
+    verify(consumer, times(1)).commit(any(Map.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldFlushOnClose() {
+    final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+    when(consumer.commit(any(Map.class))).thenReturn(Future.succeededFuture());
+    final Counter eventsSentCounter = mock(Counter.class);
+    final Vertx vertx = mock(Vertx.class);
+    when(vertx.setPeriodic(anyLong(), any())).thenReturn(42L);
+
+    final var strategy =
+      new UnorderedOffsetManager(vertx, consumer, eventsSentCounter::increment, 1000L, 100);
+    strategy.recordReceived(record("aaa", 0, 0));
+    strategy.successfullySentToSubscriber(record("aaa", 0, 0));
+    strategy.recordDiscarded(record("aaa", 0, 1));
+    strategy.successfullySentToDeadLetterSink(record("aaa", 0, 2));
+    shouldNeverCommit(consumer);
+
+    assertThat(strategy.close().succeeded()).isTrue();
+
+    verify(vertx, times(1)).cancelTimer(42L);
+    verify(consumer, times(1)).commit(any(Map.class));
+    verify(eventsSentCounter, times(1)).increment(3);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCommitPendingOffsetsBeforePartitionsAreRevoked() throws Exception {
+    final var vertx = Vertx.vertx();
+    try {
+      final var partition = new TopicPartition("aaa", 0);
+      final var mockConsumer = new RevocationNotifyingMockConsumer();
+      mockConsumer.assign(List.of(partition));
+      final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+      when(consumer.unwrap()).thenReturn(mockConsumer);
+
+      final var created = new CompletableFuture<Void>();
+      vertx.getOrCreateContext().runOnContext(v -> {
+        final var strategy = new UnorderedOffsetManager(vertx, consumer, null, 100000L, 100);
+        strategy.recordReceived(record("aaa", 0, 0));
+        strategy.successfullySentToSubscriber(record("aaa", 0, 0));
+        strategy.successfullySentToSubscriber(record("aaa", 0, 1));
+        created.complete(null);
+      });
+      created.get(10, TimeUnit.SECONDS);
+      shouldNeverCommit(consumer);
+
+      // Rebalance listeners are called on the polling thread.
+      mockConsumer.partitionRevocationListeners()
+        .wrap(new NoOpConsumerRebalanceListener())
+        .onPartitionsRevoked(List.of(partition));
+
+      assertThat(mockConsumer.committed(Set.of(partition)).get(partition).offset()).isEqualTo(2L);
+      shouldNeverCommit(consumer);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCommitOffsetsInFlightBeforePartitionsAreRevoked() throws Exception {
+    final var vertx = Vertx.vertx();
+    try {
+      final var partition = new TopicPartition("aaa", 0);
+      final var mockConsumer = new RevocationNotifyingMockConsumer();
+      mockConsumer.assign(List.of(partition));
+      final KafkaConsumer<String, CloudEvent> consumer = mock(KafkaConsumer.class);
+      when(consumer.unwrap()).thenReturn(mockConsumer);
+      final Promise<Void> inFlightCommit = Promise.promise();
+      when(consumer.commit(any(Map.class))).thenReturn(inFlightCommit.future());
+
+      final var context = vertx.getOrCreateContext();
+      final var strategy = new AtomicReference<UnorderedOffsetManager>();
+      final var created = new CompletableFuture<Void>();
+      context.runOnContext(v -> {
+        strategy.set(new UnorderedOffsetManager(vertx, consumer, null, 100000L, 1));
+        strategy.get().recordReceived(record("aaa", 0, 0));
+        strategy.get().successfullySentToSubscriber(record("aaa", 0, 0));
+        created.complete(null);
+      });
+      created.get(10, TimeUnit.SECONDS);
+      verify(consumer, times(1)).commit(any(Map.class));
+
+      // Rebalance listeners are called on the polling thread.
+      mockConsumer.partitionRevocationListeners()
+        .wrap(new NoOpConsumerRebalanceListener())
+        .onPartitionsRevoked(List.of(partition));
+
+      assertThat(mockConsumer.committed(Set.of(partition)).get(partition).offset()).isEqualTo(1L);
+
+      // The commit in flight fails once the partition is revoked.
+      final var revoked = new CompletableFuture<Void>();
+      context.runOnContext(v -> {
+        strategy.get().partitionsRevoked(Set.of(new io.vertx.kafka.client.common.TopicPartition("aaa", 0)));
+        inFlightCommit.fail("rebalance in progress");
+        strategy.get().flush();
+        revoked.complete(null);
+      });
+      revoked.get(10, TimeUnit.SECONDS);
+
+      verify(consumer, times(1)).commit(any(Map.class));
+      assertThat(mockConsumer.committed(Set.of(partition)).get(partition).offset()).isEqualTo(1L);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  private static final class RevocationNotifyingMockConsumer extends MockConsumer<String, CloudEvent>
+    implements PartitionRevocationListeners.Source {
+
+    private final PartitionRevocationListeners partitionRevocationListeners = new PartitionRevocationListeners();
+
+    private RevocationNotifyingMockConsumer() {
+      super(OffsetResetStrategy.NONE);
+    }
+
+    @Override
+    public PartitionRevocationListeners partitionRevocationListeners() {
+      return this.partitionRevocationListeners;
+    }
+  }
 }
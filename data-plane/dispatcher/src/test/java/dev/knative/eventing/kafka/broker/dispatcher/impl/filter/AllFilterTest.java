@@ -15,15 +15,21 @@
  */
 package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
 
+import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
 import dev.knative.eventing.kafka.broker.dispatcher.Filter;
 import io.cloudevents.CloudEvent;
 import io.cloudevents.core.builder.CloudEventBuilder;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -53,6 +59,48 @@ public class AllFilterTest {
       .isEqualTo(shouldMatch);
   }
 
+  @Test
+  public void shouldEvaluateFirstChildrenRejectingMoreEvents() {
+    final var accepting = new ExactFilter("id", "123-42");
+    final var rejecting = new ExactFilter("source", "/api/something-else");
+    final var filter = new AllFilter(new LinkedHashSet<>(List.of(accepting, rejecting)));
+
+    for (int i = 0; i < CompositeFilter.REORDER_INTERVAL; i++) {
+      assertThat(filter.test(event)).isFalse();
+    }
+
+    assertThat(filter.getOrder()).containsExactly(rejecting, accepting);
+    assertThat(filter.test(event)).isFalse();
+  }
+
+  @Test
+  public void shouldRegisterChildrenMetrics() throws Exception {
+    final var registry = new SimpleMeterRegistry();
+    final var filter = new AllFilter(new LinkedHashSet<>(List.of(
+      new ExactFilter("id", "123-42"),
+      new ExactFilter("source", "/api/something-else")
+    )));
+
+    final var closer = filter.registerMetrics(registry, Tags.of(Metrics.CONSUMER_GROUP_TAG, "group"));
+    filter.test(event);
+
+    assertThat(passRatio(registry, "0-ExactFilter")).isEqualTo(1);
+    assertThat(passRatio(registry, "1-ExactFilter")).isEqualTo(0);
+    assertThat(registry.get(Metrics.FILTER_EVALUATION_COST).timeGauges()).hasSize(2);
+
+    closer.close();
+    assertThat(registry.getMeters()).isEmpty();
+  }
+
+  private static double passRatio(final SimpleMeterRegistry registry, final String child) {
+    return registry.get(Metrics.FILTER_PASS_RATIO)
+      .tag(Metrics.CONSUMER_GROUP_TAG, "group")
+      .tag(Metrics.FILTER_KIND_TAG, "all")
+      .tag(Metrics.FILTER_CHILD_TAG, child)
+      .gauge()
+      .value();
+  }
+
   static Stream<Arguments> testCases() {
     return Stream.of(
       Arguments.of(event, new AllFilter(Set.of(new ExactFilter("id", "123-42"))), true),
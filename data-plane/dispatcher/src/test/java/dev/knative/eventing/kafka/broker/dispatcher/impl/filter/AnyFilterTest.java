@@ -22,8 +22,11 @@ import java.net.URI;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -53,6 +56,20 @@ public class AnyFilterTest {
       .isEqualTo(shouldMatch);
   }
 
+  @Test
+  public void shouldEvaluateFirstChildrenAcceptingMoreEvents() {
+    final var rejecting = new ExactFilter("id", "123");
+    final var accepting = new ExactFilter("source", "/api/some-source");
+    final var filter = new AnyFilter(new LinkedHashSet<>(List.of(rejecting, accepting)));
+
+    for (int i = 0; i < CompositeFilter.REORDER_INTERVAL; i++) {
+      assertThat(filter.test(event)).isTrue();
+    }
+
+    assertThat(filter.getOrder()).containsExactly(accepting, rejecting);
+    assertThat(filter.test(event)).isTrue();
+  }
+
   static Stream<Arguments> testCases() {
     return Stream.of(
       Arguments.of(event, new AnyFilter(Set.of(new ExactFilter("id", "123-42"))), true),
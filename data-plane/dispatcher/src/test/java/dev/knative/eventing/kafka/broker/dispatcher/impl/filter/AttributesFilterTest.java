@@ -15,6 +15,7 @@
  */
 package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
 
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEventTest;
 import io.cloudevents.CloudEvent;
 import io.cloudevents.core.builder.CloudEventBuilder;
 import io.cloudevents.core.v03.CloudEventV03;
@@ -47,6 +48,20 @@ public class AttributesFilterTest {
     assertThat(match).isEqualTo(shouldMatch);
   }
 
+  @ParameterizedTest
+  @MethodSource(value = {"testCases"})
+  public void matchLazyEvent(
+    final Map<String, String> attributes,
+    final CloudEvent event,
+    final boolean shouldMatch) {
+
+    final var filter = new AttributesFilter(attributes);
+
+    final var match = filter.test(LazyCloudEventTest.lazy(event));
+
+    assertThat(match).isEqualTo(shouldMatch);
+  }
+
   @Test
   public void shouldConsiderEmptyStringAsAnyValue() {
 
@@ -140,6 +155,45 @@ public class AttributesFilterTest {
     assertThat(match).isTrue();
   }
 
+  @Test
+  public void shouldCheckFirstAttributesRejectingMoreEvents() {
+    final var attributes = Map.of(
+      CloudEventV1.TYPE, "type",
+      CloudEventV1.SOURCE, "/api/source"
+    );
+
+    final var filter = new AttributesFilter(attributes);
+
+    final var event = CloudEventBuilder.v1()
+      .withId("123")
+      .withType("type")
+      .withSource(URI.create("/api/other-source"))
+      .build();
+
+    for (int i = 0; i < AttributesFilter.REORDER_INTERVAL; i++) {
+      assertThat(filter.test(event)).isFalse();
+    }
+
+    assertThat(filter.getAttributesOrder()).containsExactly(CloudEventV1.SOURCE, CloudEventV1.TYPE);
+  }
+
+  @Test
+  public void shouldMatchTimeInDifferentOffsets() {
+    final var event = CloudEventBuilder.v1()
+      .withId("123")
+      .withType("type")
+      .withSource(URI.create("/api/source"))
+      .withTime(OffsetDateTime.of(1985, 4, 12, 23, 20, 50, 520_000_000, ZoneOffset.ofHours(2)))
+      .build();
+
+    assertThat(new AttributesFilter(Map.of(CloudEventV1.TIME, "1985-04-12T21:20:50.520Z")).test(event)).isTrue();
+    assertThat(new AttributesFilter(Map.of(CloudEventV1.TIME, "1985-04-12T21:20:50.520Z"))
+      .test(LazyCloudEventTest.lazy(event))).isTrue();
+    // Values are compared as strings formatted using ISO_INSTANT.
+    assertThat(new AttributesFilter(Map.of(CloudEventV1.TIME, "1985-04-12T21:20:50.52Z")).test(event)).isFalse();
+    assertThat(new AttributesFilter(Map.of(CloudEventV1.TIME, "not a time")).test(event)).isFalse();
+  }
+
   public static Stream<Arguments> testCases() {
     return Stream.of(
       Arguments.of(
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
+
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEventTest;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilterIndexTest {
+
+  private static final List<Map<String, String>> filters = List.of(
+    Map.of("type", "created"),
+    Map.of("type", "deleted", "subject", "a"),
+    Map.of("source", "/orders"),
+    Map.of("subject", "a"),
+    Map.of(),
+    Map.of("type", "", "source", "/payments"),
+    Map.of("type", "created", "source", "/payments")
+  );
+
+  private static final CloudEvent event = CloudEventBuilder.v1()
+    .withId("123")
+    .withType("created")
+    .withSource(URI.create("/orders"))
+    .withSubject("b")
+    .build();
+
+  @Test
+  public void shouldSkipEgressesNotMatching() {
+    final var index = new FilterIndex(filters);
+
+    assertThat(index.getIndexedEgresses()).isEqualTo(5);
+    assertThat(skipped(index, event)).containsExactly(1, 5);
+    assertThat(skipped(index, LazyCloudEventTest.lazy(event))).containsExactly(1, 5);
+  }
+
+  @Test
+  public void shouldSkipEveryIndexedEgressWhenNoValueMatches() {
+    final var index = new FilterIndex(filters);
+    final var other = CloudEventBuilder.v1(event)
+      .withType("updated")
+      .withSource(URI.create("/users"))
+      .build();
+
+    assertThat(skipped(index, other)).containsExactly(0, 1, 2, 5, 6);
+  }
+
+  @Test
+  public void shouldNotSkipEgressesMatchingIndexedAttribute() {
+    final var index = new FilterIndex(filters);
+    final var payment = CloudEventBuilder.v1(event)
+      .withType("deleted")
+      .withSource(URI.create("/payments"))
+      .build();
+
+    // Egress 1 filter rejects the event since the subject is different, but subject isn't indexed.
+    assertThat(skipped(index, payment)).containsExactly(0, 2, 6);
+  }
+
+  @Test
+  public void shouldNotSkipInvalidEvents() {
+    final var index = new FilterIndex(filters);
+
+    assertThat(index.skipped(null).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldNeverSkipEgressesMatchedByFilter() {
+    final var index = new FilterIndex(filters);
+    final var events = List.of(
+      event,
+      CloudEventBuilder.v1(event).withType("deleted").withSubject("a").build(),
+      CloudEventBuilder.v1(event).withSource(URI.create("/payments")).build(),
+      CloudEventBuilder.v1(event).withType("other").withSource(URI.create("/other")).build()
+    );
+
+    for (final var e : events) {
+      final var skipped = skipped(index, e);
+      for (int i = 0; i < filters.size(); i++) {
+        if (new AttributesFilter(filters.get(i)).test(e)) {
+          assertThat(skipped).as("egress %d event %s", i, e).doesNotContain(i);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldIndexNothingWithoutFilters() {
+    final var index = new FilterIndex(List.of(Map.of(), Map.of("subject", "a")));
+
+    assertThat(index.getIndexedEgresses()).isZero();
+    assertThat(index.skipped(event).isEmpty()).isTrue();
+  }
+
+  private static List<Integer> skipped(final FilterIndex index, final CloudEvent event) {
+    final var skipped = index.skipped(event);
+    return IntStream.range(0, filters.size())
+      .filter(skipped::get)
+      .boxed()
+      .collect(Collectors.toList());
+  }
+}
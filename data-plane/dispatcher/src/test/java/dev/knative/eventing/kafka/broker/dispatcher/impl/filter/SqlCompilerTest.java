@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.dispatcher.impl.filter;
+
+import dev.knative.eventing.kafka.broker.dispatcher.impl.consumer.LazyCloudEventTest;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.sql.EvaluationException;
+import io.cloudevents.sql.EvaluationRuntime;
+import io.cloudevents.sql.Expression;
+import io.cloudevents.sql.Parser;
+import io.cloudevents.sql.Type;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Check that compiled expressions give the same results as the expression evaluated by the CloudEvents SQL SDK.
+ */
+public class SqlCompilerTest {
+
+  private static final CloudEvent event = CloudEventBuilder.v1()
+    .withId("123-42")
+    .withDataContentType("application/cloudevents+json")
+    .withDataSchema(URI.create("/api/schema"))
+    .withSource(URI.create("/api/some-source"))
+    .withSubject("a-subject-42")
+    .withType("type")
+    .withTime(OffsetDateTime.of(
+      1985, 4, 12,
+      23, 20, 50, 0,
+      ZoneOffset.UTC
+    ))
+    .withExtension("region", "eu")
+    .withExtension("count", 42)
+    .withExtension("enabled", true)
+    .build();
+
+  private static final List<CloudEvent> events = List.of(
+    event,
+    LazyCloudEventTest.lazy(event),
+    CloudEventBuilder.v1()
+      .withId("123")
+      .withSource(URI.create("/api/some-source"))
+      .withType("other")
+      .build(),
+    CloudEventBuilder.v1(event)
+      .withSubject("a-subject\n-42")
+      .withExtension("count", 7)
+      .withExtension("region", "us")
+      .build(),
+    CloudEventBuilder.v03()
+      .withId("123-42")
+      .withSource(URI.create("/api/some-source"))
+      .withType("type")
+      .withSubject("a-subject-42")
+      .withExtension("region", "eu")
+      .build()
+  );
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "id = '123-42'",
+    "id != '123-42'",
+    "id <> \"123\"",
+    "'123-42' = id",
+    "subject LIKE 'a-%-42'",
+    "subject LIKE 'a_subject%'",
+    "subject LIKE '%sub%'",
+    "subject LIKE 'a-subject-42'",
+    "subject NOT LIKE '%42'",
+    "type IN ('type', 'other')",
+    "type NOT IN ('type')",
+    "count = 42",
+    "count > 40",
+    "40 < count",
+    "count <= 7",
+    "count IN (1, 42)",
+    "count = 'x'",
+    "enabled = TRUE",
+    "region = 'eu' AND type = 'type'",
+    "region = 'us' OR type = 'type'",
+    "region = 'eu' XOR count = 42",
+    "NOT(id LIKE '123%')",
+    "EXISTS subject",
+    "EXISTS time",
+    "EXISTS region",
+    "EXISTS missing",
+    "missing = 'x'",
+    "missing = 'x' OR id = '123-42'",
+    "FALSE AND missing = 'x'",
+    "TRUE OR missing = 'x'",
+    "TRUE",
+    "1 = 1",
+    "'a' = 'b'",
+    "'abc' LIKE 'a%'",
+    "region = count",
+    "id = type",
+    "(id = 'x' OR id = '123-42') AND EXISTS type",
+    "NOT(NOT(region = 'eu'))"
+  })
+  public void shouldCompileAndMatchInterpreter(final String expression) {
+    final var filter = new SqlFilter(expression);
+
+    assertThat(filter.isCompiled()).isTrue();
+    assertSameResults(expression, filter);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "'TRUE'",
+    "0",
+    "1",
+    "source = '/api/some-source'",
+    "time = '1985-04-12T23:20:50Z'",
+    "specversion = '1.0'",
+    "id LIKE '123\\%'",
+    "id = 'a' AND type = 'b' OR subject = 'c'",
+    "NOT id = 'x'",
+    "UPPER(id) = 'X'",
+    "count + 1 = 43",
+    "1 = 'a'",
+    "id = 'a' = TRUE",
+    "count < 'a'",
+    "region"
+  })
+  public void shouldInterpretUnsupportedExpressions(final String expression) {
+    final var filter = new SqlFilter(expression);
+
+    assertThat(filter.isCompiled()).isFalse();
+    assertSameResults(expression, filter);
+  }
+
+  @ParameterizedTest
+  @MethodSource("likeCases")
+  public void shouldMatchLikePatterns(final String value, final String pattern, final boolean shouldMatch) {
+    assertThat(SqlCompiler.like(value, pattern)).isEqualTo(shouldMatch);
+  }
+
+  static Stream<Arguments> likeCases() {
+    return Stream.of(
+      Arguments.of("abc", "abc", true),
+      Arguments.of("abc", "ab", false),
+      Arguments.of("abc", "a%", true),
+      Arguments.of("abc", "%c", true),
+      Arguments.of("abc", "%b%", true),
+      Arguments.of("abc", "a_c", true),
+      Arguments.of("abc", "a_", false),
+      Arguments.of("abc", "%%%", true),
+      Arguments.of("", "%", true),
+      Arguments.of("", "_", false),
+      Arguments.of("abcbc", "a%bc", true),
+      Arguments.of("abcbd", "a%bc", false),
+      Arguments.of("a%c", "a%c", true)
+    );
+  }
+
+  private static void assertSameResults(final String expression, final SqlFilter filter) {
+    final var interpreted = Parser.parseDefault(expression);
+    final var runtime = EvaluationRuntime.getDefault();
+    for (final var e : events) {
+      assertThat(filter.test(e))
+        .as("event %s", e)
+        .isEqualTo(interpret(interpreted, runtime, e));
+    }
+  }
+
+  private static boolean interpret(final Expression expression,
+                                   final EvaluationRuntime runtime,
+                                   final CloudEvent event) {
+    try {
+      return (Boolean) runtime.cast(expression.tryEvaluate(runtime, event), Type.BOOLEAN);
+    } catch (final EvaluationException ex) {
+      return false;
+    }
+  }
+}
@@ -22,7 +22,6 @@ import io.cloudevents.CloudEvent;
 import io.vertx.core.Vertx;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.kafka.client.consumer.KafkaConsumer;
-import io.vertx.kafka.client.producer.KafkaProducer;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -33,6 +32,7 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringSerializer;
 
@@ -61,13 +61,12 @@ public class ConsumerVerticleFactoryImplMock extends ConsumerVerticleFactoryImpl
   }
 
   @Override
-  protected KafkaProducer<String, CloudEvent> createProducer(Vertx vertx,
-                                                             Map<String, Object> producerConfigs) {
-    return KafkaProducer.create(vertx, new MockProducer<>(
+  protected Producer<String, CloudEvent> createProducer(Map<String, Object> producerConfigs) {
+    return new MockProducer<>(
       true,
       new StringSerializer(),
       (topic, data) -> new byte[0] // No need to use the real one, since it doesn't support headers
-    ));
+    );
   }
 
   @Override
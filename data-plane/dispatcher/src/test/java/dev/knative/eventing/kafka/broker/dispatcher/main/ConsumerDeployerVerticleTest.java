@@ -17,6 +17,7 @@ package dev.knative.eventing.kafka.broker.dispatcher.main;
 
 import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
 import dev.knative.eventing.kafka.broker.core.reconciler.ResourcesReconciler;
+import dev.knative.eventing.kafka.broker.dispatcher.SharedConsumerVerticleFactory;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Vertx;
 import io.vertx.junit5.VertxExtension;
@@ -24,7 +25,9 @@ import io.vertx.junit5.VertxTestContext;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
@@ -403,6 +406,72 @@ public class ConsumerDeployerVerticleTest {
       .onFailure(context::failNow);
   }
 
+  @Test
+  @Timeout(value = 2)
+  public void shouldDeployOneVerticlePerResourceWithSharedFetch(
+    final Vertx vertx,
+    final VertxTestContext context) throws ExecutionException, InterruptedException {
+
+    final var resources = List.of(
+      resource1(),
+      resource2()
+    );
+    final var checkpoint = context.checkpoint(1);
+    final List<Integer> sharedEgresses = new CopyOnWriteArrayList<>();
+
+    final var consumerDeployer = new ConsumerDeployerVerticle(
+      new SharedConsumerVerticleFactory() {
+        @Override
+        public AbstractVerticle get(final DataPlaneContract.Resource resource,
+                                    final DataPlaneContract.Egress egress) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isSharedFetch(final DataPlaneContract.Resource resource,
+                                     final DataPlaneContract.Egress egress) {
+          return true;
+        }
+
+        @Override
+        public AbstractVerticle getShared(final DataPlaneContract.Resource resource,
+                                          final Collection<DataPlaneContract.Egress> egresses) {
+          sharedEgresses.add(egresses.size());
+          return new AbstractVerticle() {
+          };
+        }
+      },
+      100
+    );
+
+    vertx.deployVerticle(consumerDeployer)
+      .toCompletionStage()
+      .toCompletableFuture()
+      .get();
+
+    final var reconciler = ResourcesReconciler
+      .builder()
+      .watchEgress(consumerDeployer)
+      .build();
+
+    reconciler.reconcile(resources)
+      .compose(ignored -> {
+        context.verify(() -> {
+          assertThat(vertx.deploymentIDs()).hasSize(resources.size() + NUM_SYSTEM_VERTICLES);
+          assertThat(sharedEgresses)
+            .containsExactlyInAnyOrderElementsOf(
+              resources.stream().map(DataPlaneContract.Resource::getEgressesCount).collect(Collectors.toList())
+            );
+        });
+        return reconciler.reconcile(List.of());
+      })
+      .onSuccess(ignored -> context.verify(() -> {
+        assertThat(vertx.deploymentIDs()).hasSize(NUM_SYSTEM_VERTICLES);
+        checkpoint.flag();
+      }))
+      .onFailure(context::failNow);
+  }
+
   @Test
   public void shouldThrowIfEgressesInitialCapacityIsLessOrEqualToZero(final Vertx vertx) {
     Assertions.assertThrows(IllegalArgumentException.class, () -> new ConsumerDeployerVerticle(
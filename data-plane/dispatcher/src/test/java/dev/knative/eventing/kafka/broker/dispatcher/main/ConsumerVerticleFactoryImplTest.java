@@ -20,17 +20,32 @@ import dev.knative.eventing.kafka.broker.contract.DataPlaneContract.BackoffPolic
 import dev.knative.eventing.kafka.broker.contract.DataPlaneContract.EgressConfig;
 import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
 import dev.knative.eventing.kafka.broker.core.security.AuthProvider;
+import dev.knative.eventing.kafka.broker.dispatcher.CloudEventSender;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.RateLimitedCloudEventSender;
+import dev.knative.eventing.kafka.broker.dispatcher.impl.TokenBucketRateLimiter;
+import io.cloudevents.core.builder.CloudEventBuilder;
 import io.cloudevents.kafka.CloudEventDeserializer;
 import io.cloudevents.kafka.CloudEventSerializer;
 import io.cloudevents.kafka.PartitionKeyExtensionInterceptor;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
 import io.vertx.micrometer.MicrometerMetricsOptions;
 import io.vertx.micrometer.backends.BackendRegistries;
+import java.net.URI;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.apache.kafka.clients.consumer.ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG;
 import static org.apache.kafka.clients.consumer.ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG;
@@ -42,6 +57,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.Mockito.mock;
 
+@ExtendWith(VertxExtension.class)
 public class ConsumerVerticleFactoryImplTest {
 
   static {
@@ -130,6 +146,84 @@ public class ConsumerVerticleFactoryImplTest {
     assertDoesNotThrow(() -> verticleFactory.get(resource, egress));
   }
 
+  @Test
+  public void shouldRateLimitEgress(final Vertx vertx, final VertxTestContext context) {
+    assertRateLimited(vertx, context, 0, 2);
+  }
+
+  @Test
+  public void shouldRateLimitBatchedEgress(final Vertx vertx, final VertxTestContext context) {
+    assertRateLimited(vertx, context, 2, 1);
+  }
+
+  private static void assertRateLimited(final Vertx vertx,
+                                        final VertxTestContext context,
+                                        final int batchSize,
+                                        final int expectedRequests) {
+    final List<Buffer> requests = new CopyOnWriteArrayList<>();
+
+    vertx.createHttpServer()
+      .requestHandler(request -> request.body().onSuccess(body -> {
+        requests.add(body);
+        request.response().setStatusCode(202).end();
+      }))
+      .listen(0, "localhost")
+      .onComplete(context.succeeding(server -> {
+        final var egress = DataPlaneContract.Egress.newBuilder()
+          .setConsumerGroup("1234")
+          .setUid("1234")
+          .setDestination("http://localhost:" + server.actualPort())
+          .setBatchSize(batchSize)
+          .build();
+
+        final var sender = verticleFactory().createSubscriberSender(
+          vertx,
+          egress,
+          EgressConfig.newBuilder().setRateLimit(100).build(),
+          null,
+          new TokenBucketRateLimiter(vertx, 100)
+        );
+        assertThat(sender).isInstanceOf(RateLimitedCloudEventSender.class);
+
+        CompositeFuture.all(send(sender, 0), send(sender, 1))
+          .onComplete(context.succeeding(v -> context.verify(() -> {
+            assertThat(requests).hasSize(expectedRequests);
+            if (batchSize > 1) {
+              assertThat(new JsonArray(requests.get(0))).hasSize(2);
+            }
+            context.completeNow();
+          })));
+      }));
+  }
+
+  private static Future<?> send(final CloudEventSender sender, final int id) {
+    return sender.send(CloudEventBuilder.v1()
+      .withId(String.valueOf(id))
+      .withSource(URI.create("/hello"))
+      .withType("hello")
+      .build());
+  }
+
+  private static ConsumerVerticleFactoryImpl verticleFactory() {
+    final var consumerProperties = new Properties();
+    consumerProperties.setProperty(BOOTSTRAP_SERVERS_CONFIG, "0.0.0.0:9092");
+    consumerProperties.setProperty(KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+    consumerProperties.setProperty(VALUE_DESERIALIZER_CLASS_CONFIG, CloudEventDeserializer.class.getName());
+
+    final var producerConfigs = new Properties();
+    producerConfigs.setProperty(BOOTSTRAP_SERVERS_CONFIG, "0.0.0.0:9092");
+    producerConfigs.setProperty(KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+    producerConfigs.setProperty(VALUE_SERIALIZER_CLASS_CONFIG, CloudEventSerializer.class.getName());
+
+    return new ConsumerVerticleFactoryImpl(
+      consumerProperties,
+      new WebClientOptions(),
+      producerConfigs,
+      mock(AuthProvider.class),
+      mock(MeterRegistry.class)
+    );
+  }
+
   @Test
   public void linearBackoffPolicy() {
 
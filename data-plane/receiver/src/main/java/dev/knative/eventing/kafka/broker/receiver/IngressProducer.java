@@ -15,6 +15,7 @@
  */
 package dev.knative.eventing.kafka.broker.receiver;
 
+import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
 import io.cloudevents.CloudEvent;
 import io.vertx.core.Future;
 import io.vertx.kafka.client.producer.KafkaProducer;
@@ -45,4 +46,18 @@ public interface IngressProducer {
    */
   String getTopic();
 
+  /**
+   * @return the content mode of the records sent by the producer.
+   */
+  default DataPlaneContract.ContentMode getContentMode() {
+    return DataPlaneContract.ContentMode.UNRECOGNIZED;
+  }
+
+  /**
+   * @return the number of bytes available in the buffer of the producer, or a negative value if unknown.
+   */
+  default double getBufferAvailableBytes() {
+    return -1;
+  }
+
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.jackson.JsonFormat;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.kafka.client.producer.KafkaProducerRecord;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class maps requests in batched content mode, whose body is a JSON array of events in the JSON event format,
+ * to a {@link KafkaProducerRecord} per event.
+ * <p>
+ * The conversion fails if the batch is empty, it contains an invalid event, or it exceeds the maximum number of events
+ * or bytes. The body is read up to the maximum number of bytes, the conversion fails with a
+ * {@link BatchTooLargeException} as soon as the body exceeds it, and the rest of the body is dropped as it's received.
+ * <p>
+ * This class is stateless, hence thread safe and shareable among verticles.
+ */
+public class BatchRequestToRecordsMapper {
+
+  /**
+   * Content type of requests in batched content mode, see the HTTP protocol binding.
+   */
+  public static final String BATCH_CONTENT_TYPE = "application/cloudevents-batch+json";
+
+  private static final TypeReference<List<CloudEvent>> EVENTS_TYPE = new TypeReference<>() {
+  };
+
+  private final ObjectMapper mapper;
+  private final int maxEvents;
+  private final long maxBytes;
+
+  /**
+   * All args constructor.
+   *
+   * @param maxEvents maximum number of events in a batch.
+   * @param maxBytes  maximum size of a batch in bytes.
+   */
+  public BatchRequestToRecordsMapper(final int maxEvents, final long maxBytes) {
+    if (maxEvents <= 0) {
+      throw new IllegalArgumentException("maxEvents must be greater than 0");
+    }
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be greater than 0");
+    }
+
+    this.mapper = new ObjectMapper().registerModule(JsonFormat.getCloudEventJacksonModule());
+    this.maxEvents = maxEvents;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @param request http request.
+   * @return true if the request is in batched content mode.
+   */
+  public static boolean isBatch(final HttpServerRequest request) {
+    final var contentType = request.headers().get(HttpHeaders.CONTENT_TYPE);
+    return contentType != null &&
+      contentType.regionMatches(true, 0, BATCH_CONTENT_TYPE, 0, BATCH_CONTENT_TYPE.length());
+  }
+
+  /**
+   * @return maximum size of a batch in bytes.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Map the given HTTP request to Kafka records.
+   *
+   * @param request http request.
+   * @param topic   topic to send the events.
+   * @return kafka records, in the order of the events in the batch.
+   */
+  public Future<List<KafkaProducerRecord<String, CloudEvent>>> requestToRecords(
+    final HttpServerRequest request,
+    final String topic) {
+
+    return readBody(request).map(body -> {
+      final List<CloudEvent> events;
+      try {
+        events = this.mapper.readValue(body.getBytes(), EVENTS_TYPE);
+      } catch (final IOException ex) {
+        throw new IllegalArgumentException("failed to decode batch", ex);
+      }
+      if (events == null || events.isEmpty()) {
+        throw new IllegalArgumentException("batch cannot be empty");
+      }
+      if (events.size() > this.maxEvents) {
+        throw new IllegalArgumentException("batch exceeds " + this.maxEvents + " events");
+      }
+
+      final List<KafkaProducerRecord<String, CloudEvent>> records = new ArrayList<>(events.size());
+      for (final var event : events) {
+        if (event == null) {
+          throw new IllegalArgumentException("event cannot be null");
+        }
+        records.add(KafkaProducerRecord.create(topic, event));
+      }
+      return records;
+    });
+  }
+
+  private Future<Buffer> readBody(final HttpServerRequest request) {
+    final Promise<Buffer> promise = Promise.promise();
+    final var body = Buffer.buffer();
+    request
+      .exceptionHandler(promise::tryFail)
+      .handler(chunk -> {
+        if (promise.future().isComplete()) {
+          return;
+        }
+        if (body.length() + chunk.length() > this.maxBytes) {
+          promise.fail(new BatchTooLargeException(this.maxBytes));
+          return;
+        }
+        body.appendBuffer(chunk);
+      })
+      .endHandler(v -> promise.tryComplete(body));
+    return promise.future();
+  }
+
+  /**
+   * Exception signaling that a batch exceeds the maximum number of bytes.
+   */
+  public static final class BatchTooLargeException extends IllegalArgumentException {
+
+    private BatchTooLargeException(final long maxBytes) {
+      super("batch exceeds " + maxBytes + " bytes");
+    }
+  }
+}
@@ -17,6 +17,7 @@ package dev.knative.eventing.kafka.broker.receiver.impl;
 
 import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
 import dev.knative.eventing.kafka.broker.core.AsyncCloseable;
+import dev.knative.eventing.kafka.broker.core.KafkaProducerPool;
 import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
 import dev.knative.eventing.kafka.broker.core.reconciler.IngressReconcilerListener;
 import dev.knative.eventing.kafka.broker.core.security.AuthProvider;
@@ -28,6 +29,7 @@ import io.cloudevents.core.message.Encoding;
 import io.cloudevents.jackson.JsonFormat;
 import io.cloudevents.kafka.CloudEventSerializer;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import java.util.HashMap;
 import java.util.Map;
@@ -35,6 +37,7 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.function.Function;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,12 +45,13 @@ import org.slf4j.LoggerFactory;
  * This class implements a store of {@link IngressProducer} that can be reconciled
  * using it as {@link IngressReconcilerListener} of a {@link dev.knative.eventing.kafka.broker.core.reconciler.ResourcesReconciler}.
  * <p>
- * Because of its state associated to the specific verticles, this class cannot be shared among verticles.
+ * Because of its state associated to the specific verticles, this class cannot be shared among verticles, although
+ * stores of different verticles can share the same Kafka producers through a {@link KafkaProducerPool}.
  */
 public class IngressProducerReconcilableStore implements IngressReconcilerListener {
 
   private final Properties producerConfigs;
-  private final Function<Properties, KafkaProducer<String, CloudEvent>> producerFactory;
+  private final ProducerHolderFactory producerFactory;
   private final AuthProvider authProvider;
 
   // ingress uuid -> IngressInfo
@@ -60,14 +64,57 @@ public class IngressProducerReconcilableStore implements IngressReconcilerListen
   // We use this map on the hot path to directly resolve the producer from the path
   private final Map<String, IngressProducerImpl> pathMapper;
 
+  /**
+   * Create a store that creates its own producers.
+   *
+   * @param authProvider    auth provider.
+   * @param producerConfigs producer configurations.
+   * @param producerFactory factory of producers, given their configurations.
+   */
   public IngressProducerReconcilableStore(
     final AuthProvider authProvider,
     final Properties producerConfigs,
     final Function<Properties, KafkaProducer<String, CloudEvent>> producerFactory
   ) {
+    this(
+      authProvider,
+      producerConfigs,
+      ProducerHolder.owned(Objects.requireNonNull(producerFactory, "provide producerCreator"))
+    );
+  }
+
+  /**
+   * Create a store that acquires producers from the given pool, so that every store using the same pool shares the
+   * same producer for each producer configuration.
+   *
+   * @param authProvider    auth provider.
+   * @param producerConfigs producer configurations.
+   * @param vertx           Vert.x instance, producers are bound to the context reconciling ingresses.
+   * @param producerPool    pool of producers.
+   */
+  public IngressProducerReconcilableStore(
+    final AuthProvider authProvider,
+    final Properties producerConfigs,
+    final Vertx vertx,
+    final KafkaProducerPool<String, CloudEvent> producerPool
+  ) {
+    this(
+      authProvider,
+      producerConfigs,
+      ProducerHolder.leased(
+        Objects.requireNonNull(vertx, "provide vertx"),
+        Objects.requireNonNull(producerPool, "provide producerPool")
+      )
+    );
+  }
+
+  private IngressProducerReconcilableStore(
+    final AuthProvider authProvider,
+    final Properties producerConfigs,
+    final ProducerHolderFactory producerFactory
+  ) {
 
     Objects.requireNonNull(producerConfigs, "provide producerConfigs");
-    Objects.requireNonNull(producerFactory, "provide producerCreator");
 
     this.authProvider = authProvider;
     this.producerConfigs = producerConfigs;
@@ -112,16 +159,17 @@ public class IngressProducerReconcilableStore implements IngressReconcilerListen
 
     try {
       // Get the rc and increment it
-      final ReferenceCounter<ProducerHolder> rc = this.producerReferences.computeIfAbsent(producerProps, props -> {
-        final var producer = producerFactory.apply(producerProps);
-        return new ReferenceCounter<>(new ProducerHolder(producer));
-      });
+      final ReferenceCounter<ProducerHolder> rc = this.producerReferences.computeIfAbsent(
+        producerProps,
+        props -> new ReferenceCounter<>(producerFactory.create(props))
+      );
       rc.increment();
 
       final var ingressInfo = new IngressProducerImpl(
         rc.getValue().getProducer(),
         resource.getTopics(0),
         ingress.getPath(),
+        ingress.getContentMode(),
         producerProps
       );
 
@@ -181,16 +229,48 @@ public class IngressProducerReconcilableStore implements IngressReconcilerListen
     };
   }
 
+  @FunctionalInterface
+  private interface ProducerHolderFactory {
+
+    ProducerHolder create(Properties producerConfigs);
+  }
+
   private static class ProducerHolder implements AsyncCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(ProducerHolder.class);
 
     private final KafkaProducer<String, CloudEvent> producer;
-    private final AutoCloseable producerMeterBinder;
+    private final AsyncCloseable closeable;
 
-    ProducerHolder(final KafkaProducer<String, CloudEvent> producer) {
+    private ProducerHolder(final KafkaProducer<String, CloudEvent> producer, final AsyncCloseable closeable) {
       this.producer = producer;
-      this.producerMeterBinder = Metrics.register(producer.unwrap());
+      this.closeable = closeable;
+    }
+
+    static ProducerHolderFactory owned(final Function<Properties, KafkaProducer<String, CloudEvent>> factory) {
+      return props -> {
+        final var producer = factory.apply(props);
+        final var producerMeterBinder = Metrics.register(producer.unwrap());
+        return new ProducerHolder(producer, () -> producer.flush()
+          .compose(
+            s -> closeNow(producer, producerMeterBinder),
+            c -> {
+              logger.error("Failed to flush producer", c);
+              return closeNow(producer, producerMeterBinder);
+            }
+          ));
+      };
+    }
+
+    static ProducerHolderFactory leased(final Vertx vertx, final KafkaProducerPool<String, CloudEvent> pool) {
+      return props -> {
+        final Map<String, Object> configs = new HashMap<>();
+        props.forEach((k, v) -> configs.put(k.toString(), v));
+
+        // The pool registers producer metrics and flushes the shared producer once every lease is closed.
+        final var lease = pool.acquire(vertx, configs);
+        return new ProducerHolder(lease.getProducer(), lease);
+      };
     }
 
     KafkaProducer<String, CloudEvent> getProducer() {
@@ -199,36 +279,39 @@ public class IngressProducerReconcilableStore implements IngressReconcilerListen
 
     @Override
     public Future<Void> close() {
-      return producer.flush()
-        .compose(
-          s -> closeNow(),
-          c -> {
-            logger.error("Failed to flush producer", c);
-            return closeNow();
-          }
-        );
+      return closeable.close();
     }
 
-    private Future<Void> closeNow() {
+    private static Future<Void> closeNow(final KafkaProducer<String, CloudEvent> producer,
+                                         final AutoCloseable producerMeterBinder) {
       return AsyncCloseable.compose(
         producer::close,
-        AsyncCloseable.wrapAutoCloseable(this.producerMeterBinder)
+        AsyncCloseable.wrapAutoCloseable(producerMeterBinder)
       ).close();
     }
   }
 
   private static class IngressProducerImpl implements IngressProducer {
 
+    private static final String BUFFER_AVAILABLE_BYTES_METRIC = "buffer-available-bytes";
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
     private final KafkaProducer<String, CloudEvent> producer;
     private final String topic;
     private final String path;
+    private final DataPlaneContract.ContentMode contentMode;
     private final Properties producerProperties;
 
+    // Resolved on first use, since the producer registers its metrics when it's created.
+    private Metric bufferAvailableBytes;
+    private boolean bufferAvailableBytesResolved;
+
     IngressProducerImpl(final KafkaProducer<String, CloudEvent> producer, final String topic, final String path,
-                        final Properties producerProperties) {
+                        final DataPlaneContract.ContentMode contentMode, final Properties producerProperties) {
       this.producer = producer;
       this.topic = topic;
       this.path = path;
+      this.contentMode = contentMode;
       this.producerProperties = producerProperties;
     }
 
@@ -242,6 +325,29 @@ public class IngressProducerReconcilableStore implements IngressReconcilerListen
       return topic;
     }
 
+    @Override
+    public DataPlaneContract.ContentMode getContentMode() {
+      return contentMode;
+    }
+
+    @Override
+    public double getBufferAvailableBytes() {
+      if (!bufferAvailableBytesResolved) {
+        bufferAvailableBytesResolved = true;
+        bufferAvailableBytes = producer.unwrap().metrics().entrySet().stream()
+          .filter(e -> e.getKey().name().equals(BUFFER_AVAILABLE_BYTES_METRIC))
+          .filter(e -> e.getKey().group().equals(PRODUCER_METRICS_GROUP))
+          .map(Map.Entry::getValue)
+          .findFirst()
+          .orElse(null);
+      }
+      if (bufferAvailableBytes == null) {
+        return -1;
+      }
+      final var value = bufferAvailableBytes.metricValue();
+      return value instanceof Number ? ((Number) value).doubleValue() : -1;
+    }
+
     String getPath() {
       return path;
     }
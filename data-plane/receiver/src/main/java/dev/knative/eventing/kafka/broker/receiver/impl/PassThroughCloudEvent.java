@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.CloudEventData;
+import io.cloudevents.SpecVersion;
+import io.cloudevents.core.data.BytesCloudEventData;
+import io.cloudevents.core.v1.CloudEventV1;
+import io.cloudevents.lang.Nullable;
+import io.cloudevents.rw.CloudEventDataMapper;
+import io.cloudevents.rw.CloudEventRWException;
+import io.cloudevents.rw.CloudEventReader;
+import io.cloudevents.rw.CloudEventWriter;
+import io.cloudevents.rw.CloudEventWriterFactory;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class implements a {@link CloudEvent} backed by the {@code ce-} headers and the body of an HTTP request in
+ * binary content mode.
+ * <p>
+ * Attributes and extensions are kept as they're encoded in the headers, and the body isn't copied until the event
+ * is serialized. Since the class is a {@link CloudEventReader}, the binary Kafka serializer writes the attributes to
+ * the {@code ce_} headers and the body to the value of the record as they are, without decoding them.
+ */
+final class PassThroughCloudEvent implements CloudEvent, CloudEventReader {
+
+  static final String CE_PREFIX = "ce-";
+  private static final String STRUCTURED_CONTENT_TYPE_PREFIX = "application/cloudevents";
+
+  private static final Set<String> ATTRIBUTES = Set.of(
+    CloudEventV1.SPECVERSION,
+    CloudEventV1.ID,
+    CloudEventV1.SOURCE,
+    CloudEventV1.TYPE,
+    CloudEventV1.DATACONTENTTYPE,
+    CloudEventV1.DATASCHEMA,
+    CloudEventV1.SUBJECT,
+    CloudEventV1.TIME
+  );
+
+  // Attribute and extension name -> value, except for the spec version.
+  private final Map<String, String> attributes;
+  private final Buffer body;
+
+  private URI source;
+
+  private PassThroughCloudEvent(final Map<String, String> attributes, final Buffer body) {
+    this.attributes = attributes;
+    this.body = body;
+  }
+
+  /**
+   * Get the attributes of a request in binary content mode this class can represent.
+   * <p>
+   * Requests in structured content mode, with a spec version other than 1.0, with percent-encoded values or with
+   * invalid extension names aren't represented by this class, the HTTP protocol binding needs to decode them.
+   *
+   * @param headers request headers.
+   * @return the attributes and extensions of the event, or null if the request can't be passed through.
+   */
+  @Nullable
+  static Map<String, String> attributesOf(final MultiMap headers) {
+    // Structured content mode takes precedence, see the HTTP protocol binding.
+    final var contentType = headers.get(HttpHeaders.CONTENT_TYPE);
+    if (contentType != null && contentType.regionMatches(true, 0, STRUCTURED_CONTENT_TYPE_PREFIX, 0,
+      STRUCTURED_CONTENT_TYPE_PREFIX.length())) {
+      return null;
+    }
+    if (!SpecVersion.V1.toString().equals(headers.get(CE_PREFIX + CloudEventV1.SPECVERSION))) {
+      return null;
+    }
+
+    final var attributes = new LinkedHashMap<String, String>();
+    for (final var header : headers) {
+      final var key = header.getKey();
+      if (key.length() <= CE_PREFIX.length() || !key.regionMatches(true, 0, CE_PREFIX, 0, CE_PREFIX.length())) {
+        continue;
+      }
+      final var name = key.substring(CE_PREFIX.length()).toLowerCase(Locale.ROOT);
+      if (name.equals(CloudEventV1.SPECVERSION)) {
+        continue;
+      }
+      if (header.getValue().indexOf('%') >= 0 || !isValidName(name)) {
+        return null;
+      }
+      attributes.put(name, header.getValue());
+    }
+    if (contentType != null) {
+      attributes.put(CloudEventV1.DATACONTENTTYPE, contentType);
+    }
+    return attributes;
+  }
+
+  /**
+   * Create an event from the given attributes, validating the attributes the HTTP protocol binding would decode.
+   *
+   * @param attributes attributes returned by {@link #attributesOf(MultiMap)}.
+   * @param body       request body.
+   * @return the event.
+   * @throws CloudEventRWException if required attributes are missing or attributes have invalid values.
+   */
+  static PassThroughCloudEvent create(final Map<String, String> attributes, final Buffer body) {
+    requireAttribute(attributes, CloudEventV1.ID);
+    requireAttribute(attributes, CloudEventV1.TYPE);
+    requireAttribute(attributes, CloudEventV1.SOURCE);
+
+    final var event = new PassThroughCloudEvent(attributes, body);
+    // Parse attributes that aren't strings, so that invalid events are rejected like the HTTP protocol binding does.
+    event.getSource();
+    event.getDataSchema();
+    event.getTime();
+    return event;
+  }
+
+  @Override
+  public <W extends CloudEventWriter<R>, R> R read(
+    final CloudEventWriterFactory<W, R> writerFactory,
+    @Nullable final CloudEventDataMapper<? extends CloudEventData> mapper) throws CloudEventRWException {
+
+    final var writer = writerFactory.create(SpecVersion.V1);
+    for (final var attribute : this.attributes.entrySet()) {
+      writer.withContextAttribute(attribute.getKey(), attribute.getValue());
+    }
+    final var data = getData();
+    if (data == null) {
+      return writer.end();
+    }
+    return writer.end(mapper == null ? data : mapper.map(data));
+  }
+
+  @Nullable
+  @Override
+  public CloudEventData getData() {
+    if (this.body == null || this.body.length() == 0) {
+      return null;
+    }
+    return BytesCloudEventData.wrap(this.body.getBytes());
+  }
+
+  @Override
+  public SpecVersion getSpecVersion() {
+    return SpecVersion.V1;
+  }
+
+  @Override
+  public String getId() {
+    return this.attributes.get(CloudEventV1.ID);
+  }
+
+  @Override
+  public String getType() {
+    return this.attributes.get(CloudEventV1.TYPE);
+  }
+
+  @Override
+  public URI getSource() {
+    if (this.source == null) {
+      this.source = parseUri(CloudEventV1.SOURCE, this.attributes.get(CloudEventV1.SOURCE));
+    }
+    return this.source;
+  }
+
+  @Nullable
+  @Override
+  public String getDataContentType() {
+    return this.attributes.get(CloudEventV1.DATACONTENTTYPE);
+  }
+
+  @Nullable
+  @Override
+  public URI getDataSchema() {
+    final var dataSchema = this.attributes.get(CloudEventV1.DATASCHEMA);
+    return dataSchema == null ? null : parseUri(CloudEventV1.DATASCHEMA, dataSchema);
+  }
+
+  @Nullable
+  @Override
+  public String getSubject() {
+    return this.attributes.get(CloudEventV1.SUBJECT);
+  }
+
+  @Nullable
+  @Override
+  public OffsetDateTime getTime() {
+    final var time = this.attributes.get(CloudEventV1.TIME);
+    if (time == null) {
+      return null;
+    }
+    try {
+      return OffsetDateTime.parse(time);
+    } catch (final RuntimeException ex) {
+      throw CloudEventRWException.newInvalidAttributeValue(CloudEventV1.TIME, time, ex);
+    }
+  }
+
+  @Nullable
+  @Override
+  public Object getAttribute(final String attributeName) throws IllegalArgumentException {
+    switch (attributeName) {
+      case CloudEventV1.SPECVERSION:
+        return getSpecVersion();
+      case CloudEventV1.ID:
+        return getId();
+      case CloudEventV1.SOURCE:
+        return getSource();
+      case CloudEventV1.TYPE:
+        return getType();
+      case CloudEventV1.DATACONTENTTYPE:
+        return getDataContentType();
+      case CloudEventV1.DATASCHEMA:
+        return getDataSchema();
+      case CloudEventV1.SUBJECT:
+        return getSubject();
+      case CloudEventV1.TIME:
+        return getTime();
+    }
+    throw new IllegalArgumentException("Spec version v1 doesn't have attribute named " + attributeName);
+  }
+
+  @Nullable
+  @Override
+  public Object getExtension(final String extensionName) {
+    if (ATTRIBUTES.contains(extensionName)) {
+      return null;
+    }
+    return this.attributes.get(extensionName);
+  }
+
+  @Override
+  public Set<String> getExtensionNames() {
+    final var names = new HashSet<String>();
+    for (final var name : this.attributes.keySet()) {
+      if (!ATTRIBUTES.contains(name)) {
+        names.add(name);
+      }
+    }
+    return names;
+  }
+
+  private static void requireAttribute(final Map<String, String> attributes, final String name) {
+    final var value = attributes.get(name);
+    if (value == null || value.isEmpty()) {
+      throw CloudEventRWException.newInvalidAttributeValue(name, value, null);
+    }
+  }
+
+  private static boolean isValidName(final String name) {
+    // Attribute and extension names consist of lower-case letters and digits, see the CloudEvents specification.
+    for (int i = 0; i < name.length(); i++) {
+      final var c = name.charAt(i);
+      if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static URI parseUri(final String attribute, final String value) {
+    try {
+      return new URI(value);
+    } catch (final Exception ex) {
+      throw CloudEventRWException.newInvalidAttributeValue(attribute, value, ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PassThroughCloudEvent{" +
+      "attributes=" + this.attributes +
+      ", data.length=" + (this.body == null ? 0 : this.body.length()) +
+      '}';
+  }
+}
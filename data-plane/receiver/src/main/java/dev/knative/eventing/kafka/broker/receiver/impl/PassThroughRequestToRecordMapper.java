@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl;
+
+import dev.knative.eventing.kafka.broker.receiver.RequestToRecordMapper;
+import io.cloudevents.CloudEvent;
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.kafka.client.producer.KafkaProducerRecord;
+
+/**
+ * This class maps requests in binary content mode to records in binary content mode, without decoding the event.
+ * <p>
+ * The {@code ce-} headers of the request are validated and copied to the record as they are, and the body of the
+ * request becomes the value of the record. Requests that need to be decoded, for example requests in structured
+ * content mode, are mapped by {@link StrictRequestToRecordMapper}.
+ * <p>
+ * Records must be sent by a producer serializing events in binary content mode.
+ */
+public class PassThroughRequestToRecordMapper implements RequestToRecordMapper {
+
+  private static class SingletonContainer {
+    private static final PassThroughRequestToRecordMapper INSTANCE = new PassThroughRequestToRecordMapper();
+  }
+
+  public static RequestToRecordMapper getInstance() {
+    return PassThroughRequestToRecordMapper.SingletonContainer.INSTANCE;
+  }
+
+  private PassThroughRequestToRecordMapper() {
+  }
+
+  @Override
+  public Future<KafkaProducerRecord<String, CloudEvent>> requestToRecord(
+    final HttpServerRequest request,
+    final String topic) {
+
+    final var attributes = PassThroughCloudEvent.attributesOf(request.headers());
+    if (attributes == null) {
+      return StrictRequestToRecordMapper.getInstance().requestToRecord(request, topic);
+    }
+
+    return request.body().map(body -> {
+      final CloudEvent event = PassThroughCloudEvent.create(attributes, body);
+      return KafkaProducerRecord.create(topic, event);
+    });
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl.handler;
+
+import dev.knative.eventing.kafka.broker.receiver.IngressProducer;
+import io.cloudevents.lang.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps track of the requests in flight, from the time they're received to the time their record is
+ * produced, and decides whether a new request must be shed to protect the receiver when Kafka slows down.
+ * <p>
+ * A request is shed when it would exceed the maximum number of requests or bytes in flight, either for all the
+ * ingresses or for its ingress, or when the buffer of the producer doesn't have enough space for it. A limit equal to
+ * 0 means no limit. Ingresses are identified by their topic.
+ * <p>
+ * The size of requests without a content length isn't known until their body is read, so they're charged a fixed
+ * number of bytes, usually the maximum size of a request.
+ * <p>
+ * Instances of this class are thread safe, and they can be shared among verticles.
+ */
+public final class IngressLoadShedder {
+
+  /**
+   * Reason for shedding a request.
+   */
+  public enum Reason {
+    IN_FLIGHT_REQUESTS,
+    IN_FLIGHT_BYTES,
+    INGRESS_IN_FLIGHT_REQUESTS,
+    INGRESS_IN_FLIGHT_BYTES,
+    PRODUCER_BUFFER
+  }
+
+  private static final IngressLoadShedder UNLIMITED = new IngressLoadShedder(0, 0, 0, 0, -1, 0);
+
+  private final long maxInFlightRequests;
+  private final long maxInFlightBytes;
+  private final long maxIngressInFlightRequests;
+  private final long maxIngressInFlightBytes;
+  private final long minProducerBufferAvailableBytes;
+  private final long unknownSizeRequestBytes;
+
+  private final AtomicLong inFlightRequests;
+  private final AtomicLong inFlightBytes;
+  // topic -> requests in flight
+  // Entries are removed once every request of the ingress is complete.
+  private final Map<String, InFlight> ingressInFlight;
+
+  /**
+   * All args constructor.
+   *
+   * @param maxInFlightRequests             maximum number of requests in flight for all the ingresses.
+   * @param maxInFlightBytes                maximum number of bytes in flight for all the ingresses.
+   * @param maxIngressInFlightRequests      maximum number of requests in flight for a single ingress.
+   * @param maxIngressInFlightBytes         maximum number of bytes in flight for a single ingress.
+   * @param minProducerBufferAvailableBytes minimum number of bytes available in the buffer of the producer, in addition
+   *                                        to the bytes of the request, a negative value disables the check.
+   * @param unknownSizeRequestBytes         number of bytes charged to requests whose size is unknown.
+   */
+  public IngressLoadShedder(final long maxInFlightRequests,
+                            final long maxInFlightBytes,
+                            final long maxIngressInFlightRequests,
+                            final long maxIngressInFlightBytes,
+                            final long minProducerBufferAvailableBytes,
+                            final long unknownSizeRequestBytes) {
+    if (maxInFlightRequests < 0 || maxInFlightBytes < 0 || maxIngressInFlightRequests < 0 ||
+      maxIngressInFlightBytes < 0) {
+      throw new IllegalArgumentException("in flight limits must be greater than or equal to 0");
+    }
+    if (unknownSizeRequestBytes < 0) {
+      throw new IllegalArgumentException("unknownSizeRequestBytes must be greater than or equal to 0");
+    }
+
+    this.maxInFlightRequests = maxInFlightRequests;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.maxIngressInFlightRequests = maxIngressInFlightRequests;
+    this.maxIngressInFlightBytes = maxIngressInFlightBytes;
+    this.minProducerBufferAvailableBytes = minProducerBufferAvailableBytes;
+    this.unknownSizeRequestBytes = unknownSizeRequestBytes;
+
+    this.inFlightRequests = new AtomicLong();
+    this.inFlightBytes = new AtomicLong();
+    this.ingressInFlight = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @return a load shedder that never sheds requests.
+   */
+  public static IngressLoadShedder unlimited() {
+    return UNLIMITED;
+  }
+
+  /**
+   * Try to admit a request, the caller must {@link #release(IngressProducer, long)} admitted requests once they're
+   * complete.
+   *
+   * @param ingress      ingress receiving the request.
+   * @param requestBytes size of the request, or a negative value if it's unknown.
+   * @return null if the request is admitted, otherwise the reason for shedding it.
+   */
+  @Nullable
+  public Reason tryAcquire(final IngressProducer ingress, final long requestBytes) {
+    if (this == UNLIMITED) {
+      return null;
+    }
+
+    final var bytes = charged(requestBytes);
+
+    if (this.minProducerBufferAvailableBytes >= 0) {
+      final var bufferAvailableBytes = ingress.getBufferAvailableBytes();
+      if (bufferAvailableBytes >= 0 && bufferAvailableBytes < this.minProducerBufferAvailableBytes + bytes) {
+        return Reason.PRODUCER_BUFFER;
+      }
+    }
+
+    final var requests = this.inFlightRequests.incrementAndGet();
+    final var totalBytes = this.inFlightBytes.addAndGet(bytes);
+    if (this.maxInFlightRequests > 0 && requests > this.maxInFlightRequests) {
+      rollback(bytes);
+      return Reason.IN_FLIGHT_REQUESTS;
+    }
+    // A single request bigger than the limit is admitted when nothing else is in flight.
+    if (this.maxInFlightBytes > 0 && totalBytes > this.maxInFlightBytes && totalBytes != bytes) {
+      rollback(bytes);
+      return Reason.IN_FLIGHT_BYTES;
+    }
+
+    final var reason = new Reason[1];
+    this.ingressInFlight.compute(ingress.getTopic(), (k, inFlight) -> {
+      final var current = inFlight == null ? new InFlight() : inFlight;
+      if (this.maxIngressInFlightRequests > 0 && current.requests >= this.maxIngressInFlightRequests) {
+        reason[0] = Reason.INGRESS_IN_FLIGHT_REQUESTS;
+        return inFlight;
+      }
+      if (this.maxIngressInFlightBytes > 0 && current.bytes + bytes > this.maxIngressInFlightBytes &&
+        current.requests > 0) {
+        reason[0] = Reason.INGRESS_IN_FLIGHT_BYTES;
+        return inFlight;
+      }
+      current.requests++;
+      current.bytes += bytes;
+      return current;
+    });
+    if (reason[0] != null) {
+      rollback(bytes);
+    }
+    return reason[0];
+  }
+
+  /**
+   * Release a request admitted by {@link #tryAcquire(IngressProducer, long)}.
+   *
+   * @param ingress      ingress receiving the request.
+   * @param requestBytes size of the request, as given to {@link #tryAcquire(IngressProducer, long)}.
+   */
+  public void release(final IngressProducer ingress, final long requestBytes) {
+    if (this == UNLIMITED) {
+      return;
+    }
+
+    final var bytes = charged(requestBytes);
+
+    rollback(bytes);
+    this.ingressInFlight.computeIfPresent(ingress.getTopic(), (k, inFlight) -> {
+      inFlight.requests--;
+      inFlight.bytes -= bytes;
+      return inFlight.requests <= 0 ? null : inFlight;
+    });
+  }
+
+  /**
+   * @return the number of requests in flight for all the ingresses.
+   */
+  public long getInFlightRequests() {
+    return this.inFlightRequests.get();
+  }
+
+  /**
+   * @return the number of bytes in flight for all the ingresses.
+   */
+  public long getInFlightBytes() {
+    return this.inFlightBytes.get();
+  }
+
+  private long charged(final long requestBytes) {
+    return requestBytes < 0 ? this.unknownSizeRequestBytes : requestBytes;
+  }
+
+  private void rollback(final long bytes) {
+    this.inFlightRequests.decrementAndGet();
+    this.inFlightBytes.addAndGet(-bytes);
+  }
+
+  // Guarded by the lock of its entry in ingressInFlight.
+  private static final class InFlight {
+
+    private long requests;
+    private long bytes;
+  }
+}
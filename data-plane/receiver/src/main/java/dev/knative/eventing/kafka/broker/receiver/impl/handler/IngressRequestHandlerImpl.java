@@ -15,26 +15,38 @@
  */
 package dev.knative.eventing.kafka.broker.receiver.impl.handler;
 
+import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
 import dev.knative.eventing.kafka.broker.core.tracing.TracingConfig;
 import dev.knative.eventing.kafka.broker.core.tracing.TracingSpan;
 import dev.knative.eventing.kafka.broker.receiver.IngressProducer;
 import dev.knative.eventing.kafka.broker.receiver.IngressRequestHandler;
 import dev.knative.eventing.kafka.broker.receiver.RequestToRecordMapper;
+import dev.knative.eventing.kafka.broker.receiver.impl.BatchRequestToRecordsMapper;
 import io.cloudevents.CloudEvent;
+import io.cloudevents.lang.Nullable;
 import io.micrometer.core.instrument.Counter;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.context.Context;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.kafka.client.producer.KafkaProducerRecord;
 import io.vertx.kafka.client.producer.RecordMetadata;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static dev.knative.eventing.kafka.broker.core.utils.Logging.keyValue;
 import static io.netty.handler.codec.http.HttpResponseStatus.ACCEPTED;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
 import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.netty.handler.codec.http.HttpResponseStatus.TOO_MANY_REQUESTS;
 
 /**
  * Implementation of {@link IngressRequestHandler} that will produce incoming requests using the provided producer.
@@ -46,25 +58,106 @@ public class IngressRequestHandlerImpl implements IngressRequestHandler {
   static final int MAPPER_FAILED = BAD_REQUEST.code();
   static final int RECORD_PRODUCED = ACCEPTED.code();
   static final int FAILED_TO_PRODUCE = SERVICE_UNAVAILABLE.code();
+  static final int LOAD_SHED = TOO_MANY_REQUESTS.code();
+  static final int BATCH_TOO_LARGE = REQUEST_ENTITY_TOO_LARGE.code();
+
+  private static final String APPLICATION_JSON = "application/json";
 
   private static final Logger logger = LoggerFactory.getLogger(IngressRequestHandlerImpl.class);
 
   private final RequestToRecordMapper requestToRecordMapper;
+  private final RequestToRecordMapper binaryRequestToRecordMapper;
   private final Counter badRequestCounter;
   private final Counter produceEventsCounter;
+  private final IngressLoadShedder loadShedder;
+  private final String retryAfterSeconds;
+  private final Counter shedRequestsCounter;
+  private final BatchRequestToRecordsMapper batchRequestToRecordsMapper;
 
   public IngressRequestHandlerImpl(
     RequestToRecordMapper requestToRecordMapper,
     Counter badRequestCounter,
     Counter produceEventsCounter) {
+    this(
+      requestToRecordMapper,
+      requestToRecordMapper,
+      badRequestCounter,
+      produceEventsCounter,
+      IngressLoadShedder.unlimited(),
+      0,
+      null,
+      null
+    );
+  }
+
+  /**
+   * All args constructor.
+   * <p>
+   * Ingresses producing records in binary content mode use {@code binaryRequestToRecordMapper}.
+   * <p>
+   * Requests the given load shedder doesn't admit get a {@code 429 Too Many Requests} response with the given
+   * {@code Retry-After} header, without reading their body.
+   * <p>
+   * When {@code batchRequestToRecordsMapper} isn't null, requests in batched content mode are accepted too, see
+   * {@link BatchRequestToRecordsMapper}. Batches get a {@code 202 Accepted} response when every event is produced,
+   * otherwise they get a {@code 503 Service Unavailable} response whose body is a JSON array with the {@code id}, the
+   * {@code source} and the {@code status} of each event.
+   *
+   * @param requestToRecordMapper       mapper of requests.
+   * @param binaryRequestToRecordMapper mapper of requests to ingresses in binary content mode.
+   * @param badRequestCounter           counter of requests that can't be mapped.
+   * @param produceEventsCounter        counter of produced records.
+   * @param loadShedder                 load shedder.
+   * @param retryAfterSeconds           seconds clients should wait before retrying shed requests.
+   * @param shedRequestsCounter         counter of shed requests, or null.
+   * @param batchRequestToRecordsMapper mapper of requests in batched content mode, or null to not accept batches.
+   */
+  public IngressRequestHandlerImpl(
+    RequestToRecordMapper requestToRecordMapper,
+    RequestToRecordMapper binaryRequestToRecordMapper,
+    Counter badRequestCounter,
+    Counter produceEventsCounter,
+    IngressLoadShedder loadShedder,
+    long retryAfterSeconds,
+    @Nullable Counter shedRequestsCounter,
+    @Nullable BatchRequestToRecordsMapper batchRequestToRecordsMapper) {
+    Objects.requireNonNull(loadShedder, "provide loadShedder");
+    if (retryAfterSeconds < 0) {
+      throw new IllegalArgumentException("retryAfterSeconds must be greater than or equal to 0");
+    }
+
     this.requestToRecordMapper = requestToRecordMapper;
+    this.binaryRequestToRecordMapper = binaryRequestToRecordMapper;
     this.badRequestCounter = badRequestCounter;
     this.produceEventsCounter = produceEventsCounter;
+    this.loadShedder = loadShedder;
+    this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    this.shedRequestsCounter = shedRequestsCounter;
+    this.batchRequestToRecordsMapper = batchRequestToRecordsMapper;
   }
 
   @Override
   public void handle(HttpServerRequest request, IngressProducer producer) {
-    requestToRecordMapper
+    final var bytes = contentLength(request);
+    final var shedReason = loadShedder.tryAcquire(producer, bytes);
+    if (shedReason != null) {
+      shed(request, shedReason);
+      return;
+    }
+
+    final Future<?> handled = batchRequestToRecordsMapper != null && BatchRequestToRecordsMapper.isBatch(request) ?
+      handleBatch(request, producer, bytes) :
+      handleEvent(request, producer);
+
+    handled.onComplete(ar -> loadShedder.release(producer, bytes));
+  }
+
+  private Future<RecordMetadata> handleEvent(final HttpServerRequest request, final IngressProducer producer) {
+    final var mapper = producer.getContentMode() == DataPlaneContract.ContentMode.BINARY ?
+      binaryRequestToRecordMapper :
+      requestToRecordMapper;
+
+    return mapper
       .requestToRecord(request, producer.getTopic())
       .onFailure(cause -> {
         // Conversion to record failed
@@ -109,6 +202,99 @@ public class IngressRequestHandlerImpl implements IngressRequestHandler {
       });
   }
 
+  @SuppressWarnings("rawtypes")
+  private Future<?> handleBatch(final HttpServerRequest request, final IngressProducer producer, final long bytes) {
+    if (bytes > batchRequestToRecordsMapper.getMaxBytes()) {
+      // Answer right away, without reading the body.
+      request.response().setStatusCode(BATCH_TOO_LARGE).end();
+      badRequestCounter.increment();
+      return Future.succeededFuture();
+    }
+
+    return batchRequestToRecordsMapper
+      .requestToRecords(request, producer.getTopic())
+      .onFailure(cause -> {
+        // Conversion to records failed, batches without a content length exceed the limit while they're read.
+        request.response()
+          .setStatusCode(cause instanceof BatchRequestToRecordsMapper.BatchTooLargeException ?
+            BATCH_TOO_LARGE :
+            MAPPER_FAILED)
+          .end();
+        badRequestCounter.increment();
+
+        logger.warn("Failed to convert batch request to records {}",
+          keyValue("path", request.path()),
+          cause
+        );
+      })
+      .compose(records -> {
+        logger.debug("Received batch {} {}",
+          keyValue("path", request.path()),
+          keyValue("events", records.size())
+        );
+
+        // Publish every record, the producer keeps the order of the records sent to the same partition.
+        final List<Future> sent = new ArrayList<>(records.size());
+        for (final var record : records) {
+          sent.add(publishRecord(producer, record));
+        }
+
+        return CompositeFuture.join(sent).onComplete(ar -> {
+          // Write the response back
+          if (ar.succeeded()) {
+            request.response()
+              .setStatusCode(RECORD_PRODUCED)
+              .end();
+            return;
+          }
+
+          // Tell the client which events have been produced, so that it can retry only the others.
+          final var results = new JsonArray();
+          for (int i = 0; i < records.size(); i++) {
+            final var event = records.get(i).value();
+            results.add(new JsonObject()
+              .put("id", event.getId())
+              .put("source", event.getSource().toString())
+              .put("status", sent.get(i).succeeded() ? RECORD_PRODUCED : FAILED_TO_PRODUCE)
+            );
+          }
+          request.response()
+            .setStatusCode(FAILED_TO_PRODUCE)
+            .putHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON)
+            .end(results.toBuffer());
+        });
+      });
+  }
+
+  private void shed(final HttpServerRequest request, final IngressLoadShedder.Reason reason) {
+    // Answer right away, the body isn't read so it doesn't fill the heap.
+    request.response()
+      .setStatusCode(LOAD_SHED)
+      .putHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+      .end();
+    if (shedRequestsCounter != null) {
+      shedRequestsCounter.increment();
+    }
+
+    logger.debug("Request shed {} {}",
+      keyValue("path", request.path()),
+      keyValue("reason", reason)
+    );
+  }
+
+  private static long contentLength(final HttpServerRequest request) {
+    // Requests without a valid content length (chunked requests) have an unknown size, see IngressLoadShedder.
+    final var contentLength = request.headers().get(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength == null) {
+      return -1;
+    }
+    try {
+      return Math.max(-1, Long.parseLong(contentLength.trim()));
+    } catch (final NumberFormatException ex) {
+      return -1;
+    }
+  }
+
   private Future<RecordMetadata> publishRecord(IngressProducer ingress,
                                                KafkaProducerRecord<String, CloudEvent> record) {
     return ingress.send(record)
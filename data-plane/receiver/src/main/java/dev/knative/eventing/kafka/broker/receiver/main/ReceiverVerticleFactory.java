@@ -15,49 +15,142 @@
  */
 package dev.knative.eventing.kafka.broker.receiver.main;
 
+import dev.knative.eventing.kafka.broker.core.KafkaProducerPool;
 import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
 import dev.knative.eventing.kafka.broker.core.security.AuthProvider;
 import dev.knative.eventing.kafka.broker.receiver.IngressRequestHandler;
+import dev.knative.eventing.kafka.broker.receiver.impl.BatchRequestToRecordsMapper;
 import dev.knative.eventing.kafka.broker.receiver.impl.IngressProducerReconcilableStore;
+import dev.knative.eventing.kafka.broker.receiver.impl.PassThroughRequestToRecordMapper;
 import dev.knative.eventing.kafka.broker.receiver.impl.ReceiverVerticle;
 import dev.knative.eventing.kafka.broker.receiver.impl.StrictRequestToRecordMapper;
+import dev.knative.eventing.kafka.broker.receiver.impl.handler.IngressLoadShedder;
 import dev.knative.eventing.kafka.broker.receiver.impl.handler.IngressRequestHandlerImpl;
 import dev.knative.eventing.kafka.broker.receiver.impl.handler.MethodNotAllowedHandler;
 import dev.knative.eventing.kafka.broker.receiver.impl.handler.ProbeHandler;
+import io.cloudevents.CloudEvent;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import io.vertx.core.Handler;
 import io.vertx.core.Verticle;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.HttpServerRequest;
-import io.vertx.kafka.client.producer.KafkaProducer;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.function.Supplier;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 
 class ReceiverVerticleFactory implements Supplier<Verticle> {
 
+  /**
+   * Producer configurations starting with this prefix configure the receiver, and they're not passed to the Kafka
+   * producer.
+   */
+  static final String RECEIVER_CONFIG_PREFIX = "receiver.";
+
+  /**
+   * Maximum number of requests in flight for all the ingresses, 0 means no limit.
+   */
+  static final String MAX_IN_FLIGHT_REQUESTS_CONFIG = RECEIVER_CONFIG_PREFIX + "max.in.flight.requests";
+
+  /**
+   * Maximum number of bytes in flight for all the ingresses, 0 means no limit.
+   */
+  static final String MAX_IN_FLIGHT_BYTES_CONFIG = RECEIVER_CONFIG_PREFIX + "max.in.flight.bytes";
+
+  /**
+   * Maximum number of requests in flight for a single ingress, 0 means no limit.
+   */
+  static final String INGRESS_MAX_IN_FLIGHT_REQUESTS_CONFIG =
+    RECEIVER_CONFIG_PREFIX + "ingress.max.in.flight.requests";
+
+  /**
+   * Maximum number of bytes in flight for a single ingress, 0 means no limit.
+   */
+  static final String INGRESS_MAX_IN_FLIGHT_BYTES_CONFIG = RECEIVER_CONFIG_PREFIX + "ingress.max.in.flight.bytes";
+
+  /**
+   * Minimum number of bytes available in the buffer of the producer, in addition to the bytes of a request, to accept
+   * the request, a negative value disables the check.
+   */
+  static final String MIN_PRODUCER_BUFFER_AVAILABLE_BYTES_CONFIG =
+    RECEIVER_CONFIG_PREFIX + "min.producer.buffer.available.bytes";
+
+  /**
+   * Value of the Retry-After header of shed requests, in seconds.
+   */
+  static final String RETRY_AFTER_SECONDS_CONFIG = RECEIVER_CONFIG_PREFIX + "retry.after.seconds";
+  private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+  /**
+   * Maximum number of events of a request in batched content mode, 0 disables batched content mode.
+   */
+  static final String BATCH_MAX_EVENTS_CONFIG = RECEIVER_CONFIG_PREFIX + "batch.max.events";
+  private static final long DEFAULT_BATCH_MAX_EVENTS = 1000;
+
+  /**
+   * Maximum size in bytes of a request in batched content mode.
+   */
+  static final String BATCH_MAX_BYTES_CONFIG = RECEIVER_CONFIG_PREFIX + "batch.max.bytes";
+  private static final long DEFAULT_BATCH_MAX_BYTES = 1024 * 1024;
+
+  // Default of max.request.size of the Kafka producer.
+  private static final long DEFAULT_MAX_REQUEST_SIZE = 1024 * 1024;
+
   private final Properties producerConfigs;
   private final HttpServerOptions httpServerOptions;
 
   private final Iterable<Handler<HttpServerRequest>> preHandlers;
   private final IngressRequestHandler ingressRequestHandler;
+  // Producers are shared by every verticle, so that each ingress has a single producer regardless of the number of
+  // verticles: batches are fuller and there is a single buffer pool and set of connections per producer config.
+  private final KafkaProducerPool<String, CloudEvent> producerPool;
 
   ReceiverVerticleFactory(final ReceiverEnv env,
                           final Properties producerConfigs,
                           final MeterRegistry metricsRegistry,
                           final HttpServerOptions httpServerOptions) {
-    this.producerConfigs = producerConfigs;
+    this.producerConfigs = withoutReceiverConfigs(producerConfigs);
     this.httpServerOptions = httpServerOptions;
 
+    final var loadShedder = new IngressLoadShedder(
+      getLong(producerConfigs, MAX_IN_FLIGHT_REQUESTS_CONFIG, 0),
+      getLong(producerConfigs, MAX_IN_FLIGHT_BYTES_CONFIG, 0),
+      getLong(producerConfigs, INGRESS_MAX_IN_FLIGHT_REQUESTS_CONFIG, 0),
+      getLong(producerConfigs, INGRESS_MAX_IN_FLIGHT_BYTES_CONFIG, 0),
+      getLong(producerConfigs, MIN_PRODUCER_BUFFER_AVAILABLE_BYTES_CONFIG, 0),
+      // Requests without a content length are charged the maximum size of a record.
+      getLong(producerConfigs, ProducerConfig.MAX_REQUEST_SIZE_CONFIG, DEFAULT_MAX_REQUEST_SIZE)
+    );
+    Gauge
+      .builder(Metrics.HTTP_REQUESTS_IN_FLIGHT, loadShedder, IngressLoadShedder::getInFlightRequests)
+      .description("Number of requests in flight for all the ingresses")
+      .register(metricsRegistry);
+    Gauge
+      .builder(Metrics.HTTP_BYTES_IN_FLIGHT, loadShedder, IngressLoadShedder::getInFlightBytes)
+      .description("Number of bytes of the requests in flight for all the ingresses")
+      .baseUnit(BaseUnits.BYTES)
+      .register(metricsRegistry);
+
     this.preHandlers = List.of(
       new ProbeHandler(env.getLivenessProbePath(), env.getReadinessProbePath()),
       MethodNotAllowedHandler.getInstance()
     );
     this.ingressRequestHandler = new IngressRequestHandlerImpl(
       StrictRequestToRecordMapper.getInstance(),
+      PassThroughRequestToRecordMapper.getInstance(),
       metricsRegistry.counter(Metrics.HTTP_REQUESTS_MALFORMED_COUNT),
-      metricsRegistry.counter(Metrics.HTTP_REQUESTS_PRODUCE_COUNT)
+      metricsRegistry.counter(Metrics.HTTP_REQUESTS_PRODUCE_COUNT),
+      loadShedder,
+      getLong(producerConfigs, RETRY_AFTER_SECONDS_CONFIG, DEFAULT_RETRY_AFTER_SECONDS),
+      metricsRegistry.counter(Metrics.HTTP_REQUESTS_SHED_COUNT),
+      createBatchMapper(producerConfigs)
     );
+    this.producerPool = new KafkaProducerPool<>(ReceiverVerticleFactory::createProducer);
   }
 
   @Override
@@ -67,10 +160,44 @@ class ReceiverVerticleFactory implements Supplier<Verticle> {
       v -> new IngressProducerReconcilableStore(
         AuthProvider.kubernetes(),
         producerConfigs,
-        properties -> KafkaProducer.create(v, properties)
+        v,
+        this.producerPool
       ),
       this.preHandlers,
       this.ingressRequestHandler
     );
   }
+
+  private static BatchRequestToRecordsMapper createBatchMapper(final Properties producerConfigs) {
+    final var maxEvents = getLong(producerConfigs, BATCH_MAX_EVENTS_CONFIG, DEFAULT_BATCH_MAX_EVENTS);
+    if (maxEvents <= 0) {
+      return null;
+    }
+    return new BatchRequestToRecordsMapper(
+      (int) maxEvents,
+      getLong(producerConfigs, BATCH_MAX_BYTES_CONFIG, DEFAULT_BATCH_MAX_BYTES)
+    );
+  }
+
+  private static Properties withoutReceiverConfigs(final Properties producerConfigs) {
+    final var configs = new Properties();
+    for (final var key : producerConfigs.keySet()) {
+      if (!key.toString().startsWith(RECEIVER_CONFIG_PREFIX)) {
+        configs.put(key, producerConfigs.get(key));
+      }
+    }
+    return configs;
+  }
+
+  private static long getLong(final Properties configs, final String key, final long defaultValue) {
+    final var value = configs.get(key);
+    if (value == null || value.toString().isBlank()) {
+      return defaultValue;
+    }
+    return Long.parseLong(value.toString().trim());
+  }
+
+  private static Producer<String, CloudEvent> createProducer(final Map<String, Object> producerConfigs) {
+    return new KafkaProducer<>(producerConfigs);
+  }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchRequestToRecordsMapperTest {
+
+  private static final String TOPIC = "topic";
+
+  @Test
+  public void shouldMapEveryEventToRecord() {
+    final var request = request("[" + event("1") + "," + event("2") + "]");
+
+    final var records = new BatchRequestToRecordsMapper(10, 1024).requestToRecords(request, TOPIC);
+
+    assertThat(records.succeeded()).isTrue();
+    assertThat(records.result()).hasSize(2);
+    assertThat(records.result().get(0).topic()).isEqualTo(TOPIC);
+    assertThat(records.result().get(0).value().getId()).isEqualTo("1");
+    assertThat(records.result().get(0).value().getSource().toString()).isEqualTo("/api/source");
+    assertThat(records.result().get(1).value().getId()).isEqualTo("2");
+  }
+
+  @Test
+  public void shouldFailWhenBatchExceedsTheLimits() {
+    final var body = "[" + event("1") + "," + event("2") + "]";
+
+    assertThat(new BatchRequestToRecordsMapper(1, 1024).requestToRecords(request(body), TOPIC).failed()).isTrue();
+    assertThat(new BatchRequestToRecordsMapper(10, 10).requestToRecords(request(body), TOPIC).failed()).isTrue();
+  }
+
+  @Test
+  public void shouldFailAsSoonAsChunkedBatchExceedsTheMaxBytes() {
+    final var body = "[" + event("1") + "," + event("2") + "]";
+    final var request = request(body.substring(0, 100), body.substring(100));
+    // The first chunk fits, the second one doesn't.
+    final var records = new BatchRequestToRecordsMapper(10, 150).requestToRecords(request, TOPIC);
+
+    assertThat(records.failed()).isTrue();
+    assertThat(records.cause()).isInstanceOf(BatchRequestToRecordsMapper.BatchTooLargeException.class);
+  }
+
+  @Test
+  public void shouldFailWhenBatchIsInvalid() {
+    final var mapper = new BatchRequestToRecordsMapper(10, 1024);
+
+    assertThat(mapper.requestToRecords(request("[]"), TOPIC).failed()).isTrue();
+    assertThat(mapper.requestToRecords(request(event("1")), TOPIC).failed()).isTrue();
+    assertThat(mapper.requestToRecords(request("[{\"specversion\":\"1.0\"}]"), TOPIC).failed()).isTrue();
+    assertThat(mapper.requestToRecords(request("[null]"), TOPIC).failed()).isTrue();
+  }
+
+  @Test
+  public void shouldRecognizeBatches() {
+    final var batch = mock(HttpServerRequest.class);
+    when(batch.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap()
+      .set("Content-Type", "application/cloudevents-batch+json; charset=UTF-8"));
+    final var event = mock(HttpServerRequest.class);
+    when(event.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap()
+      .set("Content-Type", "application/cloudevents+json"));
+
+    assertThat(BatchRequestToRecordsMapper.isBatch(batch)).isTrue();
+    assertThat(BatchRequestToRecordsMapper.isBatch(event)).isFalse();
+  }
+
+  @Test
+  public void shouldRejectInvalidLimits() {
+    assertThatThrownBy(() -> new BatchRequestToRecordsMapper(0, 1024))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new BatchRequestToRecordsMapper(10, 0))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static String event(final String id) {
+    return "{\"specversion\":\"1.0\",\"id\":\"" + id + "\",\"source\":\"/api/source\",\"type\":\"type\"," +
+      "\"datacontenttype\":\"application/json\",\"data\":{\"a\":1}}";
+  }
+
+  @SuppressWarnings("unchecked")
+  private static HttpServerRequest request(final String... chunks) {
+    final var request = mock(HttpServerRequest.class);
+    when(request.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap()
+      .set("Content-Type", BatchRequestToRecordsMapper.BATCH_CONTENT_TYPE));
+    final var handler = new AtomicReference<Handler<Buffer>>();
+    when(request.exceptionHandler(any())).thenReturn(request);
+    when(request.handler(any())).thenAnswer(invocation -> {
+      handler.set(invocation.getArgument(0));
+      return request;
+    });
+    // Deliver the body once every handler is set.
+    when(request.endHandler(any())).thenAnswer(invocation -> {
+      for (final var chunk : chunks) {
+        handler.get().handle(Buffer.buffer(chunk));
+      }
+      ((Handler<Void>) invocation.getArgument(0)).handle(null);
+      return request;
+    });
+    return request;
+  }
+}
@@ -16,6 +16,7 @@
 package dev.knative.eventing.kafka.broker.receiver.impl;
 
 import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
+import dev.knative.eventing.kafka.broker.core.KafkaProducerPool;
 import dev.knative.eventing.kafka.broker.core.metrics.Metrics;
 import dev.knative.eventing.kafka.broker.core.reconciler.ResourcesReconciler;
 import io.cloudevents.CloudEvent;
@@ -30,6 +31,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import org.apache.kafka.clients.producer.MockProducer;
@@ -275,6 +277,51 @@ public class IngressProducerReconcilableStoreTest {
     );
   }
 
+  @Test
+  public void shouldShareProducersAmongStoresUsingTheSamePool(final Vertx vertx, final VertxTestContext context) {
+    final var resource = DataPlaneContract.Resource.newBuilder()
+      .setUid("1")
+      .addTopics("topic")
+      .setBootstrapServers("kafka-1:9092,kafka-2:9092")
+      .setIngress(DataPlaneContract.Ingress.newBuilder().setPath("/hello").build())
+      .build();
+
+    final var producers = new CopyOnWriteArrayList<MockProducer<String, CloudEvent>>();
+    final var pool = new KafkaProducerPool<String, CloudEvent>(configs -> {
+      final var producer = new MockProducer<String, CloudEvent>();
+      producers.add(producer);
+      return producer;
+    });
+
+    final var store1 = new IngressProducerReconcilableStore(null, new Properties(), vertx, pool);
+    final var store2 = new IngressProducerReconcilableStore(null, new Properties(), vertx, pool);
+    final var reconciler1 = ResourcesReconciler.builder().watchIngress(store1).build();
+    final var reconciler2 = ResourcesReconciler.builder().watchIngress(store2).build();
+
+    vertx.runOnContext(v -> reconciler1.reconcile(List.of(resource))
+      .compose(r -> reconciler2.reconcile(List.of(resource)))
+      .onSuccess(r -> context.verify(() -> {
+        assertThat(producers).hasSize(1);
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(store1.resolve("/hello").getKafkaProducer().unwrap())
+          .isSameAs(store2.resolve("/hello").getKafkaProducer().unwrap());
+      }))
+      .compose(r -> reconciler1.reconcile(Collections.emptyList()))
+      .onSuccess(r -> context.verify(() -> {
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(producers.get(0).closed()).isFalse();
+        assertThat(store2.resolve("/hello")).isNotNull();
+      }))
+      .compose(r -> reconciler2.reconcile(Collections.emptyList()))
+      .onSuccess(r -> context.verify(() -> {
+        assertThat(pool.size()).isZero();
+        assertThat(producers.get(0).closed()).isTrue();
+        context.completeNow();
+      }))
+      .onFailure(context::failNow)
+    );
+  }
+
   @SafeVarargs
   @SuppressWarnings("unchecked")
   private void testStore(
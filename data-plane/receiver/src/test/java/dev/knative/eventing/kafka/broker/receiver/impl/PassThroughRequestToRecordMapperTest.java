@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl;
+
+import io.cloudevents.core.message.Encoding;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PassThroughRequestToRecordMapperTest {
+
+  private static final String TOPIC = "topic";
+
+  @Test
+  public void shouldCopyHeadersAndBodyToRecord() {
+    final var body = "{\"a\":1}";
+    final var request = request(binaryHeaders().set("Content-Type", "application/json"), body);
+
+    final var record = PassThroughRequestToRecordMapper.getInstance().requestToRecord(request, TOPIC);
+
+    assertThat(record.succeeded()).isTrue();
+    assertThat(record.result().topic()).isEqualTo(TOPIC);
+    assertThat(record.result().value().getId()).isEqualTo("123");
+    assertThat(record.result().value().getSource().toString()).isEqualTo("/api/source");
+
+    final var serializer = new CloudEventSerializer();
+    serializer.configure(Map.of(CloudEventSerializer.ENCODING_CONFIG, Encoding.BINARY), false);
+    final var headers = new RecordHeaders();
+    final var value = serializer.serialize(TOPIC, headers, record.result().value());
+
+    assertThat(value).isEqualTo(body.getBytes(StandardCharsets.UTF_8));
+    assertThat(header(headers, "ce_specversion")).isEqualTo("1.0");
+    assertThat(header(headers, "ce_id")).isEqualTo("123");
+    assertThat(header(headers, "ce_source")).isEqualTo("/api/source");
+    assertThat(header(headers, "ce_type")).isEqualTo("type");
+    assertThat(header(headers, "ce_ext")).isEqualTo("value");
+    assertThat(header(headers, "content-type")).isEqualTo("application/json");
+  }
+
+  @Test
+  public void shouldFailWhenRequiredAttributesAreMissing() {
+    final var request = request(binaryHeaders().remove("ce-id"), "");
+
+    final var record = PassThroughRequestToRecordMapper.getInstance().requestToRecord(request, TOPIC);
+
+    assertThat(record.failed()).isTrue();
+  }
+
+  @Test
+  public void shouldFailWhenAttributesAreInvalid() {
+    final var request = request(binaryHeaders().set("ce-time", "yesterday"), "");
+
+    final var record = PassThroughRequestToRecordMapper.getInstance().requestToRecord(request, TOPIC);
+
+    assertThat(record.failed()).isTrue();
+  }
+
+  @Test
+  public void shouldNotPassThroughRequestsToDecode() {
+    assertThat(PassThroughCloudEvent.attributesOf(binaryHeaders())).isNotNull();
+    assertThat(PassThroughCloudEvent.attributesOf(
+      binaryHeaders().set("Content-Type", "application/cloudevents+json")
+    )).isNull();
+    assertThat(PassThroughCloudEvent.attributesOf(binaryHeaders().set("ce-specversion", "0.3"))).isNull();
+    assertThat(PassThroughCloudEvent.attributesOf(binaryHeaders().set("ce-subject", "%C3%A9"))).isNull();
+    assertThat(PassThroughCloudEvent.attributesOf(binaryHeaders().set("ce-my_ext", "value"))).isNull();
+  }
+
+  private static MultiMap binaryHeaders() {
+    return MultiMap.caseInsensitiveMultiMap()
+      .set("ce-specversion", "1.0")
+      .set("ce-id", "123")
+      .set("ce-source", "/api/source")
+      .set("Ce-Type", "type")
+      .set("ce-ext", "value");
+  }
+
+  private static HttpServerRequest request(final MultiMap headers, final String body) {
+    final var request = mock(HttpServerRequest.class);
+    when(request.headers()).thenReturn(headers);
+    when(request.body()).thenReturn(Future.succeededFuture(Buffer.buffer(body)));
+    return request;
+  }
+
+  private static String header(final RecordHeaders headers, final String key) {
+    return new String(headers.lastHeader(key).value(), StandardCharsets.UTF_8);
+  }
+}
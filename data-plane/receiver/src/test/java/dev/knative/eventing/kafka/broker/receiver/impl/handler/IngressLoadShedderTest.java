@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2018 Knative Authors (knative-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.knative.eventing.kafka.broker.receiver.impl.handler;
+
+import dev.knative.eventing.kafka.broker.receiver.IngressProducer;
+import io.cloudevents.CloudEvent;
+import io.vertx.kafka.client.producer.KafkaProducer;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IngressLoadShedderTest {
+
+  @Test
+  public void shouldShedRequestsOverTheInFlightRequestsLimits() {
+    final var loadShedder = new IngressLoadShedder(3, 0, 2, 0, -1, 0);
+    final var ingress1 = ingress("topic-1", -1);
+    final var ingress2 = ingress("topic-2", -1);
+
+    assertThat(loadShedder.tryAcquire(ingress1, 10)).isNull();
+    assertThat(loadShedder.tryAcquire(ingress1, 10)).isNull();
+    assertThat(loadShedder.tryAcquire(ingress1, 10)).isEqualTo(IngressLoadShedder.Reason.INGRESS_IN_FLIGHT_REQUESTS);
+    assertThat(loadShedder.tryAcquire(ingress2, 10)).isNull();
+    assertThat(loadShedder.tryAcquire(ingress2, 10)).isEqualTo(IngressLoadShedder.Reason.IN_FLIGHT_REQUESTS);
+    assertThat(loadShedder.getInFlightRequests()).isEqualTo(3);
+    assertThat(loadShedder.getInFlightBytes()).isEqualTo(30);
+
+    loadShedder.release(ingress1, 10);
+
+    assertThat(loadShedder.tryAcquire(ingress1, 10)).isNull();
+    assertThat(loadShedder.getInFlightRequests()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldShedRequestsOverTheInFlightBytesLimits() {
+    final var loadShedder = new IngressLoadShedder(0, 250, 0, 150, -1, 0);
+    final var ingress1 = ingress("topic-1", -1);
+    final var ingress2 = ingress("topic-2", -1);
+
+    assertThat(loadShedder.tryAcquire(ingress1, 100)).isNull();
+    assertThat(loadShedder.tryAcquire(ingress1, 100)).isEqualTo(IngressLoadShedder.Reason.INGRESS_IN_FLIGHT_BYTES);
+    assertThat(loadShedder.tryAcquire(ingress2, 100)).isNull();
+    assertThat(loadShedder.tryAcquire(ingress2, 100)).isEqualTo(IngressLoadShedder.Reason.IN_FLIGHT_BYTES);
+    assertThat(loadShedder.getInFlightBytes()).isEqualTo(200);
+
+    loadShedder.release(ingress1, 100);
+    loadShedder.release(ingress2, 100);
+
+    assertThat(loadShedder.getInFlightRequests()).isZero();
+    assertThat(loadShedder.getInFlightBytes()).isZero();
+    // A request bigger than the limits is admitted when nothing else is in flight.
+    assertThat(loadShedder.tryAcquire(ingress1, 1000)).isNull();
+  }
+
+  @Test
+  public void shouldChargeRequestsOfUnknownSize() {
+    final var loadShedder = new IngressLoadShedder(0, 250, 0, 0, -1, 100);
+    final var ingress = ingress("topic", -1);
+
+    assertThat(loadShedder.tryAcquire(ingress, -1)).isNull();
+    assertThat(loadShedder.tryAcquire(ingress, -1)).isNull();
+    assertThat(loadShedder.getInFlightBytes()).isEqualTo(200);
+    assertThat(loadShedder.tryAcquire(ingress, -1)).isEqualTo(IngressLoadShedder.Reason.IN_FLIGHT_BYTES);
+
+    loadShedder.release(ingress, -1);
+    loadShedder.release(ingress, -1);
+
+    assertThat(loadShedder.getInFlightRequests()).isZero();
+    assertThat(loadShedder.getInFlightBytes()).isZero();
+  }
+
+  @Test
+  public void shouldShedRequestsWhenTheProducerBufferIsFull() {
+    final var loadShedder = new IngressLoadShedder(0, 0, 0, 0, 100, 0);
+
+    assertThat(loadShedder.tryAcquire(ingress("topic", 1000), 500)).isNull();
+    assertThat(loadShedder.tryAcquire(ingress("topic", 1000), 950))
+      .isEqualTo(IngressLoadShedder.Reason.PRODUCER_BUFFER);
+    // The buffer of the producer is unknown.
+    assertThat(loadShedder.tryAcquire(ingress("topic", -1), 950)).isNull();
+    assertThat(loadShedder.getInFlightRequests()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNeverShedRequestsWhenUnlimited() {
+    final var loadShedder = IngressLoadShedder.unlimited();
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(loadShedder.tryAcquire(ingress("topic", 0), Long.MAX_VALUE / 1000)).isNull();
+    }
+  }
+
+  @Test
+  public void shouldRejectNegativeLimits() {
+    assertThatThrownBy(() -> new IngressLoadShedder(-1, 0, 0, 0, 0, 0))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new IngressLoadShedder(0, 0, 0, 0, 0, -1))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static IngressProducer ingress(final String topic, final double bufferAvailableBytes) {
+    return new IngressProducer() {
+      @Override
+      public KafkaProducer<String, CloudEvent> getKafkaProducer() {
+        return null;
+      }
+
+      @Override
+      public String getTopic() {
+        return topic;
+      }
+
+      @Override
+      public double getBufferAvailableBytes() {
+        return bufferAvailableBytes;
+      }
+    };
+  }
+}
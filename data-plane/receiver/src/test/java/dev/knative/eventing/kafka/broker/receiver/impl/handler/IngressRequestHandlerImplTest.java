@@ -15,12 +15,19 @@
  */
 package dev.knative.eventing.kafka.broker.receiver.impl.handler;
 
+import dev.knative.eventing.kafka.broker.contract.DataPlaneContract;
 import dev.knative.eventing.kafka.broker.core.testing.CoreObjects;
 import dev.knative.eventing.kafka.broker.receiver.IngressProducer;
 import dev.knative.eventing.kafka.broker.receiver.RequestToRecordMapper;
+import dev.knative.eventing.kafka.broker.receiver.impl.BatchRequestToRecordsMapper;
 import io.cloudevents.CloudEvent;
 import io.micrometer.core.instrument.Counter;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
@@ -28,11 +35,15 @@ import io.vertx.core.http.impl.headers.HeadersMultiMap;
 import io.vertx.kafka.client.producer.KafkaProducer;
 import io.vertx.kafka.client.producer.RecordMetadata;
 import io.vertx.kafka.client.producer.impl.KafkaProducerRecordImpl;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.kafka.clients.producer.MockProducer;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -122,6 +133,214 @@ public class IngressRequestHandlerImplTest {
     verifySetStatusCodeAndTerminateResponse(IngressRequestHandlerImpl.MAPPER_FAILED, response);
   }
 
+  @Test
+  public void shouldUseBinaryMapperForIngressesInBinaryContentMode() {
+    final var producer = mockProducer();
+    when(producer.send(any())).thenReturn(Future.succeededFuture(mock(RecordMetadata.class)));
+
+    final var record = new KafkaProducerRecordImpl<>(
+      "topic", "key", CoreObjects.event(), 10
+    );
+    final RequestToRecordMapper mapper
+      = (request, topic) -> Future.failedFuture("");
+    final RequestToRecordMapper binaryMapper
+      = (request, topic) -> Future.succeededFuture(record);
+
+    final HttpServerRequest request = mockHttpServerRequest("/hello");
+    final var response = mockResponse(request, IngressRequestHandlerImpl.RECORD_PRODUCED);
+
+    final var handler = new IngressRequestHandlerImpl(
+      mapper,
+      binaryMapper,
+      mock(Counter.class),
+      mock(Counter.class),
+      IngressLoadShedder.unlimited(),
+      0,
+      null,
+      null
+    );
+
+    handler.handle(request, new IngressProducer() {
+      @Override
+      public KafkaProducer<String, CloudEvent> getKafkaProducer() {
+        return producer;
+      }
+
+      @Override
+      public String getTopic() {
+        return "1-12345";
+      }
+
+      @Override
+      public DataPlaneContract.ContentMode getContentMode() {
+        return DataPlaneContract.ContentMode.BINARY;
+      }
+    });
+
+    verifySetStatusCodeAndTerminateResponse(IngressRequestHandlerImpl.RECORD_PRODUCED, response);
+  }
+
+  @Test
+  public void shouldShedRequestsNotAdmittedByTheLoadShedder() {
+    final var producer = mockProducer();
+
+    final var record = new KafkaProducerRecordImpl<>(
+      "topic", "key", CoreObjects.event(), 10
+    );
+    final RequestToRecordMapper mapper
+      = (request, topic) -> Future.succeededFuture(record);
+
+    final var shedRequestsCounter = mock(Counter.class);
+    final var handler = new IngressRequestHandlerImpl(
+      mapper,
+      mapper,
+      mock(Counter.class),
+      mock(Counter.class),
+      new IngressLoadShedder(0, 0, 1, 0, -1, 0),
+      5,
+      shedRequestsCounter,
+      null
+    );
+    final var ingress = new IngressProducer() {
+      @Override
+      public KafkaProducer<String, CloudEvent> getKafkaProducer() {
+        return producer;
+      }
+
+      @Override
+      public String getTopic() {
+        return "1-12345";
+      }
+    };
+
+    // The first request is in flight until the record is produced.
+    final var sent = Promise.<RecordMetadata>promise();
+    when(producer.send(any())).thenReturn(sent.future());
+    final var request1 = mockHttpServerRequest("/hello");
+    final var response1 = mockResponse(request1, IngressRequestHandlerImpl.RECORD_PRODUCED);
+    handler.handle(request1, ingress);
+
+    final var request2 = mockHttpServerRequest("/hello");
+    final var response2 = mockResponse(request2, IngressRequestHandlerImpl.LOAD_SHED);
+    when(response2.putHeader(any(CharSequence.class), any(CharSequence.class))).thenReturn(response2);
+    handler.handle(request2, ingress);
+
+    verifySetStatusCodeAndTerminateResponse(IngressRequestHandlerImpl.LOAD_SHED, response2);
+    verify(response2, times(1)).putHeader(HttpHeaders.RETRY_AFTER, "5");
+    verify(shedRequestsCounter, times(1)).increment();
+
+    sent.complete(mock(RecordMetadata.class));
+    verifySetStatusCodeAndTerminateResponse(IngressRequestHandlerImpl.RECORD_PRODUCED, response1);
+
+    final var request3 = mockHttpServerRequest("/hello");
+    final var response3 = mockResponse(request3, IngressRequestHandlerImpl.RECORD_PRODUCED);
+    when(producer.send(any())).thenReturn(Future.succeededFuture(mock(RecordMetadata.class)));
+    handler.handle(request3, ingress);
+
+    verifySetStatusCodeAndTerminateResponse(IngressRequestHandlerImpl.RECORD_PRODUCED, response3);
+  }
+
+  @Test
+  public void shouldSendEveryRecordOfBatchAndReportFailedEvents() {
+    final var producer = mockProducer();
+    when(producer.send(any()))
+      .thenReturn(Future.succeededFuture(mock(RecordMetadata.class)))
+      .thenReturn(Future.failedFuture("failure"));
+
+    final var request = mockHttpServerRequest("/hello");
+    when(request.headers()).thenReturn(
+      MultiMap.caseInsensitiveMultiMap().set("Content-Type", BatchRequestToRecordsMapper.BATCH_CONTENT_TYPE)
+    );
+    mockBody(request, "[" + batchEvent("1") + "," + batchEvent("2") + "]");
+    final var response = mockResponse(request, IngressRequestHandlerImpl.FAILED_TO_PRODUCE);
+    when(response.putHeader(any(CharSequence.class), any(CharSequence.class))).thenReturn(response);
+
+    final var produceEventsCounter = mock(Counter.class);
+    final RequestToRecordMapper mapper
+      = (r, topic) -> Future.failedFuture("");
+    final var handler = new IngressRequestHandlerImpl(
+      mapper,
+      mapper,
+      mock(Counter.class),
+      produceEventsCounter,
+      IngressLoadShedder.unlimited(),
+      1,
+      mock(Counter.class),
+      new BatchRequestToRecordsMapper(10, 1024)
+    );
+
+    handler.handle(request, new IngressProducer() {
+      @Override
+      public KafkaProducer<String, CloudEvent> getKafkaProducer() {
+        return producer;
+      }
+
+      @Override
+      public String getTopic() {
+        return "1-12345";
+      }
+    });
+
+    verify(producer, times(2)).send(any());
+    verify(produceEventsCounter, times(1)).increment();
+    verify(response, times(1)).setStatusCode(IngressRequestHandlerImpl.FAILED_TO_PRODUCE);
+    final var body = ArgumentCaptor.forClass(Buffer.class);
+    verify(response, times(1)).end(body.capture());
+    final var results = body.getValue().toJsonArray();
+    assertThat(results.getJsonObject(0).getString("id")).isEqualTo("1");
+    assertThat(results.getJsonObject(0).getInteger("status")).isEqualTo(IngressRequestHandlerImpl.RECORD_PRODUCED);
+    assertThat(results.getJsonObject(1).getString("id")).isEqualTo("2");
+    assertThat(results.getJsonObject(1).getInteger("status")).isEqualTo(IngressRequestHandlerImpl.FAILED_TO_PRODUCE);
+  }
+
+  @Test
+  public void shouldRejectChunkedBatchAsSoonAsItExceedsTheMaxBytes() {
+    final var producer = mockProducer();
+
+    // Chunked requests don't have a content length.
+    final var request = mockHttpServerRequest("/hello");
+    when(request.headers()).thenReturn(
+      MultiMap.caseInsensitiveMultiMap().set("Content-Type", BatchRequestToRecordsMapper.BATCH_CONTENT_TYPE)
+    );
+    final var body = "[" + batchEvent("1") + "," + batchEvent("2") + "]";
+    mockBody(request, body.substring(0, 50), body.substring(50));
+    final var response = mockResponse(request, IngressRequestHandlerImpl.BATCH_TOO_LARGE);
+
+    final var badRequestCounter = mock(Counter.class);
+    final RequestToRecordMapper mapper
+      = (r, topic) -> Future.failedFuture("");
+    final var handler = new IngressRequestHandlerImpl(
+      mapper,
+      mapper,
+      badRequestCounter,
+      mock(Counter.class),
+      IngressLoadShedder.unlimited(),
+      1,
+      mock(Counter.class),
+      new BatchRequestToRecordsMapper(10, 64)
+    );
+
+    handler.handle(request, new IngressProducer() {
+      @Override
+      public KafkaProducer<String, CloudEvent> getKafkaProducer() {
+        return producer;
+      }
+
+      @Override
+      public String getTopic() {
+        return "1-12345";
+      }
+    });
+
+    verify(producer, never()).send(any());
+    verify(badRequestCounter, times(1)).increment();
+    verifySetStatusCodeAndTerminateResponse(IngressRequestHandlerImpl.BATCH_TOO_LARGE, response);
+  }
+
+  private static String batchEvent(final String id) {
+    return "{\"specversion\":\"1.0\",\"id\":\"" + id + "\",\"source\":\"/api/source\",\"type\":\"type\"}";
+  }
+
   private static void verifySetStatusCodeAndTerminateResponse(
     final int statusCode,
     final HttpServerResponse response) {
@@ -148,6 +367,24 @@ public class IngressRequestHandlerImplTest {
     return request;
   }
 
+  @SuppressWarnings("unchecked")
+  private static void mockBody(final HttpServerRequest request, final String... chunks) {
+    final var handler = new AtomicReference<Handler<Buffer>>();
+    when(request.exceptionHandler(any())).thenReturn(request);
+    when(request.handler(any())).thenAnswer(invocation -> {
+      handler.set(invocation.getArgument(0));
+      return request;
+    });
+    // Deliver the body once every handler is set.
+    when(request.endHandler(any())).thenAnswer(invocation -> {
+      for (final var chunk : chunks) {
+        handler.get().handle(Buffer.buffer(chunk));
+      }
+      ((Handler<Void>) invocation.getArgument(0)).handle(null);
+      return request;
+    });
+  }
+
   private static HttpServerResponse mockResponse(
     final HttpServerRequest request,
     final int statusCode) {